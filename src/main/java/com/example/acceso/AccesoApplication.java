@@ -4,9 +4,11 @@ package com.example.acceso;
 // Importaciones de clases necesarias de Spring Boot.
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 
 @SpringBootApplication
+@EnableScheduling
 public class AccesoApplication {
 
 
@@ -0,0 +1,34 @@
+package com.example.acceso.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.regex.Pattern;
+
+/**
+ * Cache-Control de los recursos estáticos (css, js, imágenes del sitio).
+ *
+ * Las vistas enlazan los recursos con la huella de su contenido en el nombre
+ * ({@code main-<md5>.css}, ver {@link WebConfig}): esas URLs no cambian nunca y se guardan un año
+ * sin revalidar. Las URLs sin huella (rutas escritas a mano en JS) se revalidan con Last-Modified.
+ */
+@Component
+public class CacheRecursosInterceptor implements HandlerInterceptor {
+
+    private static final Pattern CON_HUELLA = Pattern.compile(".*-[0-9a-f]{32}\\.[A-Za-z0-9]+$");
+
+    static final String CACHE_INMUTABLE = "public, max-age=31536000, immutable";
+    private static final String CACHE_REVALIDAR = "no-cache";
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+            @NonNull Object handler) {
+        boolean conHuella = CON_HUELLA.matcher(request.getRequestURI()).matches();
+        response.setHeader(HttpHeaders.CACHE_CONTROL, conHuella ? CACHE_INMUTABLE : CACHE_REVALIDAR);
+        return true;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.acceso.config;
+
+import com.example.acceso.service.SitioCacheService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+import java.util.Map;
+
+/**
+ * Agrega logo, slides y marcas a las vistas HTML desde la copia en memoria de {@link SitioCacheService}.
+ *
+ * Solo actúa cuando el controlador devuelve una vista: las APIs JSON ({@code @ResponseBody})
+ * y las redirecciones no tienen modelo que renderizar y no hacen consultas.
+ * Si el controlador ya definió alguno de estos atributos, se respeta el suyo.
+ */
+@Component
+public class SitioAtributosInterceptor implements HandlerInterceptor {
+
+    private final SitioCacheService sitioCacheService;
+
+    public SitioAtributosInterceptor(SitioCacheService sitioCacheService) {
+        this.sitioCacheService = sitioCacheService;
+    }
+
+    @Override
+    public void postHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+            @NonNull Object handler, @Nullable ModelAndView modelAndView) {
+
+        if (modelAndView == null || esRedireccion(modelAndView)) {
+            return;
+        }
+
+        SitioCacheService.Snapshot sitio = sitioCacheService.actual();
+        Map<String, Object> model = modelAndView.getModel();
+        model.putIfAbsent("siteLogo", sitio.getLogo());
+        model.putIfAbsent("siteSlides", sitio.getSlides());
+        model.putIfAbsent("marcas", sitio.getMarcas());
+    }
+
+    private static boolean esRedireccion(ModelAndView modelAndView) {
+        String vista = modelAndView.getViewName();
+        return vista != null && (vista.startsWith("redirect:") || vista.startsWith("forward:"));
+    }
+}
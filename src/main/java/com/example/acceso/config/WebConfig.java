@@ -1,6 +1,5 @@
 package com.example.acceso.config;
 
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
@@ -11,21 +10,23 @@ import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
-
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
 
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
     private final SessionInterceptor sessionInterceptor;
+    private final SitioAtributosInterceptor sitioAtributosInterceptor;
+    private final CacheRecursosInterceptor cacheRecursosInterceptor;
 
-    @Value("${upload.path:src/main/resources/static/uploads}")
-    private String uploadPath;
-
-    public WebConfig(SessionInterceptor sessionInterceptor) {
+    public WebConfig(SessionInterceptor sessionInterceptor, SitioAtributosInterceptor sitioAtributosInterceptor,
+                     CacheRecursosInterceptor cacheRecursosInterceptor) {
         this.sessionInterceptor = sessionInterceptor;
+        this.sitioAtributosInterceptor = sitioAtributosInterceptor;
+        this.cacheRecursosInterceptor = cacheRecursosInterceptor;
     }
 
     @Bean
@@ -41,30 +42,40 @@ public class WebConfig implements WebMvcConfigurer {
     }
 
 
+    /**
+     * Reescribe las URLs de recursos en las vistas ({@code @{/web/css/style.css}}) a su versión con
+     * huella de contenido ({@code /web/css/style-<md5>.css})
+     */
+    @Bean
+    public ResourceUrlEncodingFilter resourceUrlEncodingFilter() {
+        return new ResourceUrlEncodingFilter();
+    }
+
     @Override
     public void addResourceHandlers(@NonNull ResourceHandlerRegistry registry) {
-        // CSS
-        registry.addResourceHandler("/css/**")
-                .addResourceLocations("classpath:/static/admin/css/", "classpath:/static/web/css/")
-                .setCachePeriod(0);
-
-        // JavaScript
-        registry.addResourceHandler("/js/**")
-                .addResourceLocations("classpath:/static/admin/js/", "classpath:/static/web/js/")
-                .setCachePeriod(0);
-
-        // Imágenes estáticas
-        registry.addResourceHandler("/images/**")
-                .addResourceLocations("classpath:/static/admin/images/", "classpath:/static/web/images/")
-                .setCachePeriod(0);
-
-        // NUEVO: Imágenes subidas por los usuarios (productos)
-        Path uploadDir = Paths.get(uploadPath).toAbsolutePath().normalize();
-        String uploadLocation = "file:///" + uploadDir.toString().replace("\\", "/") + "/";
-
-        registry.addResourceHandler("/uploads/**")
-                .addResourceLocations(uploadLocation)
-                .setCachePeriod(3600); // Cache de 1 hora para imágenes de productos
+        // Recursos del panel y de la tienda (rutas usadas por las vistas)
+        registrarRecursos(registry, "/admin/**", "classpath:/static/admin/");
+        registrarRecursos(registry, "/web/**", "classpath:/static/web/");
+
+        // Rutas cortas
+        registrarRecursos(registry, "/css/**", "classpath:/static/admin/css/", "classpath:/static/web/css/");
+        registrarRecursos(registry, "/js/**", "classpath:/static/admin/js/", "classpath:/static/web/js/");
+        registrarRecursos(registry, "/images/**", "classpath:/static/admin/images/", "classpath:/static/web/images/");
+
+        // Las imágenes subidas (/uploads/**) las sirve ArchivoSubidoController (ETag, rangos, sendfile)
+    }
+
+    /**
+     * Cadena de recursos con huella de contenido en la URL. Si junto al recurso existe una versión
+     * precomprimida (.br / .gz) y el navegador la acepta, se sirve esa. El Cache-Control lo pone
+     * {@link CacheRecursosInterceptor}.
+     */
+    private static void registrarRecursos(ResourceHandlerRegistry registry, String patron, String... ubicaciones) {
+        registry.addResourceHandler(patron)
+                .addResourceLocations(ubicaciones)
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver())
+                .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
     }
 
     @Override
@@ -82,6 +93,13 @@ public class WebConfig implements WebMvcConfigurer {
                     "/error",
                     "/favicon.ico"
                 );
+
+        registry.addInterceptor(cacheRecursosInterceptor)
+                .addPathPatterns("/admin/**", "/web/**", "/css/**", "/js/**", "/images/**");
+
+        // Logo, slides y marcas para las vistas (desde memoria, no en APIs JSON)
+        registry.addInterceptor(sitioAtributosInterceptor)
+                .excludePathPatterns("/css/**", "/js/**", "/images/**", "/uploads/**", "/favicon.ico");
     }
 
     @Override
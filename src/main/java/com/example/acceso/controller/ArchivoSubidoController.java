@@ -0,0 +1,165 @@
+package com.example.acceso.controller;
+
+import com.example.acceso.service.storage.StorageBackend;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Entrega de imágenes subidas ({@code /uploads/{tipo}/{archivo}}).
+ *
+ * Los nombres no se reutilizan (hash del contenido o UUID), así que se guardan en caché un año sin
+ * revalidar. El ETag es fuerte: el hash del nombre o, para nombres antiguos, tamaño y fecha.
+ * Soporta un rango de bytes por petición. Si el almacén es local, el archivo se envía con sendfile
+ * de Tomcat cuando el conector lo permite y, si no, con {@link FileChannel#transferTo} hacia la
+ * salida de la respuesta; si es remoto (S3), se lee del almacén solo el rango pedido.
+ */
+@Controller
+@RequiredArgsConstructor
+public class ArchivoSubidoController {
+
+    private static final Pattern TIPO_VALIDO = Pattern.compile("^[a-z]+$");
+    private static final Pattern ARCHIVO_VALIDO = Pattern.compile("^[A-Za-z0-9_-]+\\.[A-Za-z0-9]+$");
+    private static final Pattern NOMBRE_CON_HASH = Pattern.compile("^([0-9a-f]{64}(?:-[a-z]+)?)\\.[a-z]+$");
+
+    private static final String CACHE_INMUTABLE = "public, max-age=31536000, immutable";
+
+    // Atributos de petición del conector de Tomcat para enviar el archivo con sendfile
+    private static final String SENDFILE_SOPORTADO = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_ARCHIVO = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_INICIO = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_FIN = "org.apache.tomcat.sendfile.end";
+
+    private final StorageBackend storage;
+
+    @RequestMapping(value = "/uploads/{tipo}/{archivo:.+}", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void servir(@PathVariable String tipo, @PathVariable String archivo,
+                       HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        if (!TIPO_VALIDO.matcher(tipo).matches() || !ARCHIVO_VALIDO.matcher(archivo).matches()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        String clave = tipo + "/" + archivo;
+        Optional<StorageBackend.Objeto> objeto = storage.buscar(clave);
+        if (objeto.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long tamanio = objeto.get().tamanio();
+        String etag = etag(archivo, objeto.get());
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_INMUTABLE);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (coincideEtag(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long inicio = 0;
+        long fin = tamanio - 1;
+        String rango = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (rango != null && tamanio > 0 && (ifRange == null || ifRange.equals(etag))) {
+            List<HttpRange> rangos;
+            try {
+                rangos = HttpRange.parseRanges(rango);
+            } catch (IllegalArgumentException e) {
+                rangos = List.of();
+            }
+            if (rangos.size() == 1) { // Varios rangos (multipart/byteranges): se responde el archivo completo
+                HttpRange pedido = rangos.get(0);
+                inicio = pedido.getRangeStart(tamanio);
+                fin = pedido.getRangeEnd(tamanio);
+                if (inicio >= tamanio || fin < inicio) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + tamanio);
+                    response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + inicio + "-" + fin + "/" + tamanio);
+            }
+        }
+
+        long longitud = fin - inicio + 1;
+        response.setContentType(MediaTypeFactory.getMediaType(archivo)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        response.setContentLengthLong(longitud);
+        if ("HEAD".equals(request.getMethod()) || longitud <= 0) {
+            return;
+        }
+
+        Path ruta = objeto.get().rutaLocal();
+        if (ruta == null) {
+            try (InputStream entrada = storage.leer(clave, inicio, fin)) {
+                entrada.transferTo(response.getOutputStream());
+            }
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SOPORTADO))) {
+            // Tomcat envía el archivo desde el kernel al socket al terminar la petición
+            request.setAttribute(SENDFILE_ARCHIVO, ruta.toString());
+            request.setAttribute(SENDFILE_INICIO, inicio);
+            request.setAttribute(SENDFILE_FIN, fin + 1);
+            return;
+        }
+
+        try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.READ)) {
+            WritableByteChannel salida = Channels.newChannel(response.getOutputStream());
+            long enviado = 0;
+            while (enviado < longitud) {
+                long n = canal.transferTo(inicio + enviado, longitud - enviado, salida);
+                if (n <= 0) {
+                    break;
+                }
+                enviado += n;
+            }
+        }
+    }
+
+    /** ETag fuerte: el hash del nombre (mismo nombre, mismo contenido) o tamaño + fecha de modificación */
+    private static String etag(String archivo, StorageBackend.Objeto objeto) {
+        Matcher m = NOMBRE_CON_HASH.matcher(archivo);
+        if (m.matches()) {
+            return "\"" + m.group(1) + "\"";
+        }
+        return "\"" + Long.toHexString(objeto.tamanio()) + "-" + Long.toHexString(objeto.modificado()) + "\"";
+    }
+
+    private static boolean coincideEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String valor : ifNoneMatch.split(",")) {
+            String v = valor.trim();
+            if (v.equals("*") || v.equals(etag) || v.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.acceso.controller;
 
+import com.example.acceso.dto.DataTablesRequest;
 import com.example.acceso.model.Brand;
 import com.example.acceso.service.BrandService;
 import org.slf4j.Logger;
@@ -59,15 +60,9 @@ public class BrandController {
 
     @GetMapping("/api/datatables")
     @ResponseBody
-    public ResponseEntity<Map<String, Object>> listarParaDataTables() {
+    public ResponseEntity<?> listarParaDataTables(@RequestParam Map<String, String> params) {
         try {
-            List<Brand> marcas = brandService.listarTodasMarcas();
-            return ResponseEntity.ok(Map.of(
-                "draw", 1,
-                "recordsTotal", marcas.size(),
-                "recordsFiltered", marcas.size(),
-                "data", marcas
-            ));
+            return ResponseEntity.ok(brandService.listarParaDataTables(DataTablesRequest.desde(params)));
         } catch (Exception e) {
             log.error("Error al cargar datos para DataTables", e);
             return createInternalErrorResponse("Error al cargar datos para la tabla");
@@ -1,5 +1,6 @@
 package com.example.acceso.controller;
 
+import com.example.acceso.dto.DataTablesRequest;
 import com.example.acceso.model.Category;
 import com.example.acceso.service.CategoryService;
 import org.springframework.http.HttpStatus;
@@ -71,17 +72,9 @@ public class CategoryController {
      */
     @GetMapping("/api/datatables")
     @ResponseBody
-    public ResponseEntity<Map<String, Object>> listarParaDataTables() {
+    public ResponseEntity<?> listarParaDataTables(@RequestParam Map<String, String> params) {
         try {
-            List<Category> categorias = categoryService.listarTodasCategorias();
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("draw", 1);
-            response.put("recordsTotal", categorias.size());
-            response.put("recordsFiltered", categorias.size());
-            response.put("data", categorias);
-
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(categoryService.listarParaDataTables(DataTablesRequest.desde(params)));
         } catch (Exception e) {
             return createErrorResponse("Error al cargar datos para la tabla: " + e.getMessage());
         }
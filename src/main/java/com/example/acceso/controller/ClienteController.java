@@ -1,7 +1,9 @@
 package com.example.acceso.controller;
 
+import com.example.acceso.dto.DataTablesRequest;
 import com.example.acceso.model.Cliente;
 import com.example.acceso.service.ClienteService;
+import com.example.acceso.service.EstadisticasEstadoService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
@@ -16,9 +18,11 @@ import java.util.*;
 public class ClienteController {
 
     private final ClienteService clienteService;
+    private final EstadisticasEstadoService estadisticasEstadoService;
 
-    public ClienteController(ClienteService clienteService) {
+    public ClienteController(ClienteService clienteService, EstadisticasEstadoService estadisticasEstadoService) {
         this.clienteService = clienteService;
+        this.estadisticasEstadoService = estadisticasEstadoService;
     }
 
     // ===================== Vistas =====================
@@ -30,7 +34,7 @@ public class ClienteController {
     public String listarClientes(Model model) {
         model.addAttribute("title", "Gestión de Clientes");
         model.addAttribute("totalClientes", clienteService.contarClientes());
-        model.addAttribute("totalTodosClientes", clienteService.listarTodosClientes().size());
+        model.addAttribute("totalTodosClientes", estadisticasEstadoService.clientes().get("total"));
         return "admin/clientes";
     }
 
@@ -65,17 +69,9 @@ public class ClienteController {
      */
     @GetMapping("/api/datatables")
     @ResponseBody
-    public ResponseEntity<Map<String, Object>> listarParaDataTables() {
+    public ResponseEntity<?> listarParaDataTables(@RequestParam Map<String, String> params) {
         try {
-            List<Cliente> clientes = clienteService.listarTodosClientes();
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("draw", 1);
-            response.put("recordsTotal", clientes.size());
-            response.put("recordsFiltered", clientes.size());
-            response.put("data", clientes);
-
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(clienteService.listarParaDataTables(DataTablesRequest.desde(params)));
         } catch (Exception e) {
             return createErrorResponse("Error al cargar datos para la tabla: " + e.getMessage());
         }
@@ -88,32 +84,9 @@ public class ClienteController {
     @ResponseBody
     public ResponseEntity<Map<String, Object>> obtenerEstadisticas() {
         try {
-            List<Cliente> todosClientes = clienteService.listarTodosClientes();
-
-            // Contar por estado
-            long activos = todosClientes.stream()
-                .filter(c -> c.getEstado() == 1)
-                .count();
-
-            long inactivos = todosClientes.stream()
-                .filter(c -> c.getEstado() == 0)
-                .count();
-
-            long eliminados = todosClientes.stream()
-                .filter(c -> c.getEstado() == 2)
-                .count();
-
-            // Preparar datos de estadísticas
-            Map<String, Object> stats = new HashMap<>();
-            stats.put("activos", activos);
-            stats.put("inactivos", inactivos);
-            stats.put("eliminados", eliminados);
-            stats.put("total", todosClientes.size());
-
-            // Respuesta exitosa
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("data", stats);
+            response.put("data", estadisticasEstadoService.clientes());
 
             return ResponseEntity.ok(response);
 
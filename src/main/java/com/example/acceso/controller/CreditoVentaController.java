@@ -3,9 +3,13 @@ package com.example.acceso.controller;
 import com.example.acceso.dto.*;
 import com.example.acceso.model.Usuario;
 import com.example.acceso.service.CreditoVentaService;
+import com.example.acceso.service.CronogramaCuotas;
+import com.example.acceso.service.EstadosCreditoService;
 import jakarta.servlet.http.HttpSession;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
@@ -13,6 +17,7 @@ import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
 import java.util.*;
 
 @Controller
@@ -21,6 +26,7 @@ import java.util.*;
 public class CreditoVentaController {
 
     private final CreditoVentaService creditoVentaService;
+    private final EstadosCreditoService estadosCreditoService;
 
 
     // ===================== VISTAS =====================
@@ -116,15 +122,42 @@ public class CreditoVentaController {
     @GetMapping("/api/proximos-vencer")
     @ResponseBody
     public ResponseEntity<Map<String, Object>> listarCreditosProximosVencer(
-            @RequestParam(defaultValue = "7") int dias) {
+            @RequestParam(defaultValue = "7") int dias,
+            @RequestParam(defaultValue = "0") int pagina,
+            @RequestParam(defaultValue = "100") int tamanio) {
         try {
-            List<CreditoVentaResponse> creditos = creditoVentaService.listarCreditosProximosVencer(dias);
-            return createSuccessListResponse(creditos);
+            Page<CreditoVentaResponse> creditos = creditoVentaService.listarCreditosProximosVencer(
+                    dias, PageRequest.of(Math.max(pagina, 0), Math.min(Math.max(tamanio, 1), 500)));
+            return createPageResponse(creditos);
         } catch (Exception e) {
             return createErrorResponse("Error al listar créditos próximos a vencer: " + e.getMessage());
         }
     }
 
+    /**
+     * Previsualizar el cronograma de cuotas sin crear el crédito
+     */
+    @PostMapping("/api/cronograma")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> previsualizarCronograma(
+            @RequestParam BigDecimal montoTotal,
+            @Valid @RequestBody CrearVentaRequest.CreditoVentaRequest request,
+            BindingResult result) {
+
+        if (result.hasErrors()) {
+            return createValidationErrorResponse(result);
+        }
+
+        try {
+            List<CronogramaCuotas.Cuota> cuotas = creditoVentaService.previsualizarCronograma(montoTotal, request);
+            return createSuccessListResponse(cuotas);
+        } catch (IllegalArgumentException e) {
+            return createErrorResponse(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            return createErrorResponse("Error al calcular el cronograma: " + e.getMessage());
+        }
+    }
+
     // ===================== API REST - CUOTAS =====================
 
     /**
@@ -246,23 +279,16 @@ public class CreditoVentaController {
 
     // ===================== API REST - ACTUALIZACIÓN DE ESTADOS =====================
 
+    // La actualización también corre sola cada día (EstadosCreditoService); estos endpoints la lanzan
+    // en el momento. Ambos aplican cuotas y créditos juntos, porque el estado del crédito depende de sus cuotas.
+
     /**
      * Actualizar estados de créditos
      */
     @PostMapping("/api/actualizar-estados")
     @ResponseBody
     public ResponseEntity<Map<String, Object>> actualizarEstadosCreditos() {
-        try {
-            creditoVentaService.actualizarEstadosCreditos();
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Estados de créditos actualizados exitosamente");
-
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            return createErrorResponse("Error al actualizar estados: " + e.getMessage());
-        }
+        return actualizarEstados("Estados de créditos actualizados exitosamente");
     }
 
     /**
@@ -271,12 +297,29 @@ public class CreditoVentaController {
     @PostMapping("/api/actualizar-estados-cuotas")
     @ResponseBody
     public ResponseEntity<Map<String, Object>> actualizarEstadosCuotas() {
+        return actualizarEstados("Estados de cuotas actualizados exitosamente");
+    }
+
+    /**
+     * Filas actualizadas y duración de las ejecuciones
+     */
+    @GetMapping("/api/actualizar-estados/metricas")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> metricasActualizacionEstados() {
+        return createSuccessResponse(estadosCreditoService.metricas());
+    }
+
+    private ResponseEntity<Map<String, Object>> actualizarEstados(String mensaje) {
         try {
-            creditoVentaService.actualizarEstadosCuotas();
+            Map<String, Object> resultado = estadosCreditoService.actualizar();
+            if (resultado == null) {
+                return createErrorResponse("La actualización de estados ya se está ejecutando", HttpStatus.CONFLICT);
+            }
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("message", "Estados de cuotas actualizados exitosamente");
+            response.put("message", mensaje);
+            response.put("data", resultado);
 
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -314,6 +357,19 @@ public class CreditoVentaController {
         return createErrorResponse(message, HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
+    /**
+     * Crear respuesta exitosa con una página (data = filas de la página, total = filas en todas las páginas)
+     */
+    private ResponseEntity<Map<String, Object>> createPageResponse(Page<?> page) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", page.getContent());
+        response.put("total", page.getTotalElements());
+        response.put("pagina", page.getNumber());
+        response.put("totalPaginas", page.getTotalPages());
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Crear respuesta de error con status personalizado
      */
@@ -22,15 +22,18 @@ public class DashboardController {
     private final VentaService ventaService;
     private final ClienteService clienteService;
     private final ProductService productService;
+    private final ContenidoTiendaService contenidoTiendaService;
 
     public DashboardController(UsuarioService usuarioService,
                                VentaService ventaService,
                                ClienteService clienteService,
-                               ProductService productService) {
+                               ProductService productService,
+                               ContenidoTiendaService contenidoTiendaService) {
         this.usuarioService = usuarioService;
         this.ventaService = ventaService;
         this.clienteService = clienteService;
         this.productService = productService;
+        this.contenidoTiendaService = contenidoTiendaService;
     }
 
     // ===================== VISTA PRINCIPAL =====================
@@ -108,5 +111,15 @@ public class DashboardController {
         }
         return ResponseEntity.ok(response);
     }
-    
+
+    // ===================== API - SERVICIOS EXTERNOS =====================
+    @GetMapping("/api/contenido-tienda/metricas")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> metricasContenidoTienda() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", contenidoTiendaService.metricas());
+        return ResponseEntity.ok(response);
+    }
+
 }
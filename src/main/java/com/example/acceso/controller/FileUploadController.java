@@ -1,21 +1,27 @@
 package com.example.acceso.controller;
 
-import org.springframework.beans.factory.annotation.Value;
+import com.example.acceso.service.ImagenService;
+import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.*;
+import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
 
 @RestController
 @RequestMapping("/api/upload")
+@RequiredArgsConstructor
 public class FileUploadController {
 
-    @Value("${upload.path:src/main/resources/static/uploads}")
-    private String uploadPath;
+    private final ImagenService imagenService;
 
     private static final long MAX_FILE_SIZE = 5 * 1024 * 1024; // 5MB
     private static final int MAX_FILES_PER_PRODUCT = 5;
@@ -24,6 +30,7 @@ public class FileUploadController {
         "image/jpeg", "image/png", "image/gif", "image/webp"
     );
     private static final List<String> ALLOWED_TYPES = Arrays.asList("productos", "marcas", "categorias", "personalizacion");
+    private static final Pattern VALID_FILENAME = Pattern.compile("^[A-Za-z0-9_-]+\\.[A-Za-z0-9]+$");
 
     /**
      * Endpoint para subir UNA imagen
@@ -79,29 +86,24 @@ public class FileUploadController {
                 return ResponseEntity.badRequest().body(response);
             }
 
-            String newFilename = UUID.randomUUID().toString() + "." + extension;
-
-            // Crear directorio específico para el tipo (uploads/productos, uploads/marcas, etc.)
-            Path uploadDir = Paths.get(uploadPath, tipo);
-            if (!Files.exists(uploadDir)) {
-                Files.createDirectories(uploadDir);
-            }
-
-            Path filePath = uploadDir.resolve(newFilename);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-
-            String fileUrl = "/uploads/" + tipo + "/" + newFilename;
+            // Nombre por contenido (uploads/productos/<sha256>.jpg); las variantes se generan en segundo plano
+            ImagenService.ImagenGuardada imagen = guardarArchivo(tipo.toLowerCase(), file, extension);
 
             response.put("success", true);
             response.put("message", "Imagen subida exitosamente");
-            response.put("url", fileUrl);
-            response.put("filename", newFilename);
+            response.put("url", imagen.url());
+            response.put("filename", imagen.nombre());
+            response.put("duplicada", imagen.duplicada());
             response.put("originalFilename", originalFilename);
             response.put("size", file.getSize());
             response.put("tipo", tipo);
 
             return ResponseEntity.ok(response);
 
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
         } catch (IOException e) {
             response.put("success", false);
             response.put("message", "Error al guardar el archivo: " + e.getMessage());
@@ -114,7 +116,8 @@ public class FileUploadController {
     }
 
     /**
-     * Endpoint para subir MÚLTIPLES imágenes
+     * Endpoint para subir MÚLTIPLES imágenes. Los archivos se guardan en paralelo
+     * (un hilo virtual por archivo) y la respuesta los lista en el orden recibido.
      * POST /api/upload/productos/imagenes
      * POST /api/upload/marcas/imagenes
      */
@@ -147,41 +150,45 @@ public class FileUploadController {
                 return ResponseEntity.badRequest().body(response);
             }
 
-            // Crear directorio específico para el tipo
-            Path uploadDir = Paths.get(uploadPath, tipo);
-            if (!Files.exists(uploadDir)) {
-                Files.createDirectories(uploadDir);
-            }
-
-            for (int i = 0; i < files.length; i++) {
-                MultipartFile file = files[i];
-
-                try {
+            String tipoDestino = tipo.toLowerCase();
+            List<Future<ImagenService.ImagenGuardada>> pending = new ArrayList<>(Collections.nCopies(files.length, null));
+            try (ExecutorService parallel = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < files.length; i++) {
+                    MultipartFile file = files[i];
                     String validationError = validateFile(file);
                     if (validationError != null) {
                         errors.add("Archivo " + (i + 1) + ": " + validationError);
                         continue;
                     }
+                    String extension = getFileExtension(file.getOriginalFilename()).toLowerCase();
+                    pending.set(i, parallel.submit(() -> guardarArchivo(tipoDestino, file, extension)));
+                }
+            } // close() espera a que terminen todos
 
-                    String originalFilename = file.getOriginalFilename();
-                    String extension = getFileExtension(originalFilename).toLowerCase();
-
-                    String newFilename = UUID.randomUUID().toString() + "." + extension;
-
-                    Path filePath = uploadDir.resolve(newFilename);
-                    Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+            for (int i = 0; i < files.length; i++) {
+                if (pending.get(i) == null) {
+                    continue;
+                }
+                MultipartFile file = files[i];
+                try {
+                    ImagenService.ImagenGuardada imagen = pending.get(i).get();
 
                     Map<String, Object> fileInfo = new HashMap<>();
-                    fileInfo.put("url", "/uploads/" + tipo + "/" + newFilename);
-                    fileInfo.put("filename", newFilename);
-                    fileInfo.put("originalFilename", originalFilename);
+                    fileInfo.put("url", imagen.url());
+                    fileInfo.put("filename", imagen.nombre());
+                    fileInfo.put("duplicada", imagen.duplicada());
+                    fileInfo.put("originalFilename", file.getOriginalFilename());
                     fileInfo.put("size", file.getSize());
                     fileInfo.put("order", i);
 
                     uploadedFiles.add(fileInfo);
 
-                } catch (IOException e) {
-                    errors.add("Archivo " + (i + 1) + ": Error al guardar - " + e.getMessage());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IllegalArgumentException) {
+                        errors.add("Archivo " + (i + 1) + ": " + e.getCause().getMessage());
+                    } else {
+                        errors.add("Archivo " + (i + 1) + ": Error al guardar - " + e.getCause().getMessage());
+                    }
                 }
             }
 
@@ -213,7 +220,8 @@ public class FileUploadController {
     }
 
     /**
-     * Endpoint para eliminar una imagen
+     * Endpoint para eliminar una imagen. Responde 409 si algún producto, marca o personalización
+     * aún la usa (las imágenes repetidas comparten archivo).
      * DELETE /api/upload/productos/imagen/{filename}
      * DELETE /api/upload/marcas/imagen/{filename}
      */
@@ -232,16 +240,13 @@ public class FileUploadController {
                 return ResponseEntity.badRequest().body(response);
             }
 
-            if (filename.contains("..") || filename.contains("/") || filename.contains("\\")) {
+            if (!VALID_FILENAME.matcher(filename).matches()) {
                 response.put("success", false);
                 response.put("message", "Nombre de archivo inválido");
                 return ResponseEntity.badRequest().body(response);
             }
 
-            Path filePath = Paths.get(uploadPath, tipo).resolve(filename);
-
-            if (Files.exists(filePath)) {
-                Files.delete(filePath);
+            if (imagenService.eliminar(tipo.toLowerCase(), filename)) {
                 response.put("success", true);
                 response.put("message", "Imagen eliminada exitosamente");
                 return ResponseEntity.ok(response);
@@ -251,6 +256,10 @@ public class FileUploadController {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
             }
 
+        } catch (IllegalStateException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
         } catch (IOException e) {
             response.put("success", false);
             response.put("message", "Error al eliminar el archivo: " + e.getMessage());
@@ -259,7 +268,9 @@ public class FileUploadController {
     }
 
     /**
-     * Endpoint para eliminar múltiples imágenes
+     * Endpoint para eliminar múltiples imágenes. El borrado se hace en segundo plano
+     * (una sola operación en el almacén): responde 202 con los archivos programados. Las imágenes
+     * que aún están en uso se conservan.
      * DELETE /api/upload/productos/imagenes
      * DELETE /api/upload/marcas/imagenes
      */
@@ -269,7 +280,7 @@ public class FileUploadController {
             @RequestBody List<String> filenames) {
 
         Map<String, Object> response = new HashMap<>();
-        List<String> deletedFiles = new ArrayList<>();
+        List<String> scheduledFiles = new ArrayList<>();
         List<String> errors = new ArrayList<>();
 
         try {
@@ -287,35 +298,27 @@ public class FileUploadController {
             }
 
             for (String filename : filenames) {
-                try {
-                    if (filename.contains("..") || filename.contains("/") || filename.contains("\\")) {
-                        errors.add(filename + ": Nombre de archivo inválido");
-                        continue;
-                    }
-
-                    Path filePath = Paths.get(uploadPath, tipo).resolve(filename);
-
-                    if (Files.exists(filePath)) {
-                        Files.delete(filePath);
-                        deletedFiles.add(filename);
-                    } else {
-                        errors.add(filename + ": Archivo no encontrado");
-                    }
-                } catch (IOException e) {
-                    errors.add(filename + ": Error al eliminar - " + e.getMessage());
+                if (filename == null || !VALID_FILENAME.matcher(filename).matches()) {
+                    errors.add(filename + ": Nombre de archivo inválido");
+                } else {
+                    scheduledFiles.add(filename);
                 }
             }
 
-            response.put("success", !deletedFiles.isEmpty());
-            response.put("message", "Se eliminaron " + deletedFiles.size() + " de " + filenames.size() + " imágenes");
-            response.put("deletedFiles", deletedFiles);
-            response.put("totalDeleted", deletedFiles.size());
+            if (!scheduledFiles.isEmpty()) {
+                imagenService.eliminarEnSegundoPlano(tipo.toLowerCase(), scheduledFiles);
+            }
+
+            response.put("success", !scheduledFiles.isEmpty());
+            response.put("message", "Se programó la eliminación de " + scheduledFiles.size() + " de " + filenames.size() + " imágenes");
+            response.put("scheduledFiles", scheduledFiles);
+            response.put("totalScheduled", scheduledFiles.size());
 
             if (!errors.isEmpty()) {
                 response.put("errors", errors);
             }
 
-            return ResponseEntity.ok(response);
+            return ResponseEntity.status(scheduledFiles.isEmpty() ? HttpStatus.BAD_REQUEST : HttpStatus.ACCEPTED).body(response);
 
         } catch (Exception e) {
             response.put("success", false);
@@ -324,6 +327,18 @@ public class FileUploadController {
         }
     }
 
+    /**
+     * Métricas del procesamiento de imágenes (guardadas, duplicadas, variantes, pendientes)
+     * GET /api/upload/metricas
+     */
+    @GetMapping("/metricas")
+    public ResponseEntity<Map<String, Object>> metricas() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", imagenService.metricas());
+        return ResponseEntity.ok(response);
+    }
+
     private String validateFile(MultipartFile file) {
         if (file.isEmpty()) {
             return "El archivo está vacío";
@@ -352,6 +367,13 @@ public class FileUploadController {
         return null;
     }
 
+    /** Copia el archivo una sola vez desde la parte recibida (en disco) validando su contenido */
+    private ImagenService.ImagenGuardada guardarArchivo(String tipo, MultipartFile file, String extension) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            return imagenService.guardar(tipo, in, extension, MAX_FILE_SIZE);
+        }
+    }
+
     private String getFileExtension(String filename) {
         int lastDotIndex = filename.lastIndexOf('.');
         if (lastDotIndex > 0 && lastDotIndex < filename.length() - 1) {
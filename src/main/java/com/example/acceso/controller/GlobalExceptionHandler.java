@@ -5,8 +5,14 @@ package com.example.acceso.controller;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.TypeMismatchException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.util.HashMap;
+import java.util.Map;
 
 // @ControllerAdvice: Convierte esta clase en un componente global que puede manejar
 // excepciones de todos los controladores de la aplicación.
@@ -34,4 +40,16 @@ public class GlobalExceptionHandler {
         // de inicio, lo cual es una experiencia de usuario más amigable.
         return "redirect:/";
     }
-}
\ No newline at end of file
+
+    // Tomcat corta la subida en cuanto un archivo o la petición superan los límites de
+    // spring.servlet.multipart (mientras la recibe, sin esperar al final). Se responde en
+    // JSON, como el resto de endpoints de subida.
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    public ResponseEntity<Map<String, Object>> handleMaxUploadSizeExceeded(MaxUploadSizeExceededException ex) {
+        logger.warn("Subida rechazada por superar el tamaño máximo: {}", ex.getMessage());
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", "El archivo excede el tamaño máximo permitido");
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(response);
+    }
+}
@@ -1,10 +1,17 @@
 package com.example.acceso.controller;
 
+import com.example.acceso.dto.ConciliacionInventarioResponse;
+import com.example.acceso.dto.ImportacionInventarioResponse;
 import com.example.acceso.dto.MovimientoInventarioResponse;
+import com.example.acceso.dto.PaginaMovimientos;
 import com.example.acceso.dto.RegistrarMovimientoRequest;
+import com.example.acceso.dto.StockAFechaResponse;
 import com.example.acceso.model.Usuario;
 import com.example.acceso.model.EnumInventario.TipoMovimiento;
+import com.example.acceso.service.CierreInventarioService;
+import com.example.acceso.service.ImportacionInventarioService;
 import com.example.acceso.service.MovimientoInventarioService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -16,9 +23,12 @@ import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 @Controller
@@ -27,6 +37,8 @@ import java.util.Map;
 public class MovimientoInventarioController {
 
     private final MovimientoInventarioService movimientoService;
+    private final ImportacionInventarioService importacionInventarioService;
+    private final CierreInventarioService cierreInventarioService;
 
     /**
      * Vista principal
@@ -63,31 +75,64 @@ public class MovimientoInventarioController {
         }
     }
 
+    /**
+     * Ingreso masivo de mercadería. El cuerpo es el archivo tal cual (CSV o JSON por líneas, UTF-8);
+     * se procesa en streaming y devuelve el resultado de cada línea.
+     */
+    @PostMapping("/api/importar")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> importarEntradas(
+            @RequestParam(defaultValue = "CSV") ImportacionInventarioService.Formato formato,
+            HttpServletRequest request,
+            HttpSession session) {
 
+        Usuario usuario = (Usuario) session.getAttribute("usuarioLogueado");
+        if (usuario == null) {
+            return createErrorResponse("Usuario no autenticado", HttpStatus.UNAUTHORIZED);
+        }
 
-     @GetMapping("/api/ultimos") // ✅ corregido
+        try (Reader reader = new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8)) {
+            ImportacionInventarioResponse resultado =
+                    importacionInventarioService.importarEntradas(reader, formato, usuario.getId());
+            return createSuccessResponse(
+                    resultado.getRegistradas() + " de " + resultado.getTotalLineas() + " líneas registradas", resultado);
+        } catch (IOException e) {
+            return createErrorResponse("Error al leer el archivo: " + e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            return createErrorResponse("Error al importar inventario: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+
+
+    // ===================== LISTADOS (paginados por cursor) =====================
+    // Parámetros opcionales: antesDeFecha + antesDeId (cursor devuelto en la página anterior) y tamanio.
+
+    @GetMapping("/api/ultimos")
     @ResponseBody
-    public ResponseEntity<Map<String, Object>> listarUltimos() {
+    public ResponseEntity<Map<String, Object>> listarUltimos(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime antesDeFecha,
+            @RequestParam(required = false) Long antesDeId,
+            @RequestParam(required = false) Integer tamanio) {
         try {
-            List<MovimientoInventarioResponse> movimientos = movimientoService.listarUltimos();
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("data", movimientos);
-            response.put("total", movimientos.size());
-            return ResponseEntity.ok(response);
+            return createPaginaResponse(movimientoService.listarUltimos(antesDeFecha, antesDeId, tamanio));
         } catch (Exception e) {
             return createErrorResponse("Error al listar movimientos: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
+
     /**
      * Kardex de producto
      */
     @GetMapping("/api/kardex/{productoId}")
     @ResponseBody
-    public ResponseEntity<Map<String, Object>> obtenerKardex(@PathVariable Long productoId) {
+    public ResponseEntity<Map<String, Object>> obtenerKardex(
+            @PathVariable Long productoId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime antesDeFecha,
+            @RequestParam(required = false) Long antesDeId,
+            @RequestParam(required = false) Integer tamanio) {
         try {
-            List<MovimientoInventarioResponse> kardex = movimientoService.obtenerKardex(productoId);
-            return createSuccessListResponse(kardex);
+            return createPaginaResponse(movimientoService.obtenerKardex(productoId, antesDeFecha, antesDeId, tamanio));
         } catch (Exception e) {
             return createErrorResponse("Error al obtener kardex: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -98,10 +143,13 @@ public class MovimientoInventarioController {
      */
     @GetMapping("/api/tipo/{tipo}")
     @ResponseBody
-    public ResponseEntity<Map<String, Object>> listarPorTipo(@PathVariable TipoMovimiento tipo) {
+    public ResponseEntity<Map<String, Object>> listarPorTipo(
+            @PathVariable TipoMovimiento tipo,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime antesDeFecha,
+            @RequestParam(required = false) Long antesDeId,
+            @RequestParam(required = false) Integer tamanio) {
         try {
-            List<MovimientoInventarioResponse> movimientos = movimientoService.listarPorTipo(tipo);
-            return createSuccessListResponse(movimientos);
+            return createPaginaResponse(movimientoService.listarPorTipo(tipo, antesDeFecha, antesDeId, tamanio));
         } catch (Exception e) {
             return createErrorResponse("Error al listar por tipo: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -114,15 +162,62 @@ public class MovimientoInventarioController {
     @ResponseBody
     public ResponseEntity<Map<String, Object>> listarPorFechas(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fechaInicio,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fechaFin) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fechaFin,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime antesDeFecha,
+            @RequestParam(required = false) Long antesDeId,
+            @RequestParam(required = false) Integer tamanio) {
         try {
-            List<MovimientoInventarioResponse> movimientos = movimientoService.listarPorFechas(fechaInicio, fechaFin);
-            return createSuccessListResponse(movimientos);
+            return createPaginaResponse(
+                    movimientoService.listarPorFechas(fechaInicio, fechaFin, antesDeFecha, antesDeId, tamanio));
         } catch (Exception e) {
             return createErrorResponse("Error al listar por fechas: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    // ===================== SALDOS Y CONCILIACIÓN =====================
+
+    /**
+     * Stock de un producto a una fecha (por defecto, ahora)
+     */
+    @GetMapping("/api/stock-a-fecha/{productoId}")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> obtenerStockAFecha(
+            @PathVariable Long productoId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fecha) {
+        try {
+            StockAFechaResponse stock = cierreInventarioService.stockAl(productoId, fecha != null ? fecha : LocalDateTime.now());
+            return createSuccessResponse("Stock calculado", stock);
+        } catch (RuntimeException e) {
+            return createErrorResponse(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            return createErrorResponse("Error al calcular stock: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Resultado de la última conciliación stock / kardex (se ejecuta cada noche)
+     */
+    @GetMapping("/api/conciliacion")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> obtenerConciliacion() {
+        ConciliacionInventarioResponse conciliacion = cierreInventarioService.ultimaConciliacion();
+        return createSuccessResponse(conciliacion != null ? "Última conciliación" : "Aún no se ha ejecutado la conciliación", conciliacion);
+    }
+
+    /**
+     * Ejecuta la conciliación en el momento
+     */
+    @PostMapping("/api/conciliacion")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> ejecutarConciliacion() {
+        try {
+            ConciliacionInventarioResponse conciliacion = cierreInventarioService.conciliar();
+            return createSuccessResponse(conciliacion.getDiferencias().size() + " productos con diferencias", conciliacion);
+        } catch (Exception e) {
+            return createErrorResponse("Error al conciliar inventario: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     // ===================== UTILIDADES =====================
 
     private ResponseEntity<Map<String, Object>> createSuccessResponse(String message, Object data) {
@@ -133,11 +228,14 @@ public class MovimientoInventarioController {
         return ResponseEntity.ok(response);
     }
 
-    private ResponseEntity<Map<String, Object>> createSuccessListResponse(List<?> data) {
+    private ResponseEntity<Map<String, Object>> createPaginaResponse(PaginaMovimientos pagina) {
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
-        response.put("data", data);
-        response.put("total", data.size());
+        response.put("data", pagina.getMovimientos());
+        response.put("total", pagina.getMovimientos().size());
+        response.put("hayMas", pagina.isHayMas());
+        response.put("siguienteFecha", pagina.getSiguienteFecha());
+        response.put("siguienteId", pagina.getSiguienteId());
         return ResponseEntity.ok(response);
     }
 
@@ -1,9 +1,15 @@
 package com.example.acceso.controller;
 
+import com.example.acceso.dto.CatalogoFiltro;
+import com.example.acceso.dto.CatalogoResponse;
+import com.example.acceso.dto.DataTablesRequest;
+import com.example.acceso.dto.ProductoCatalogoDTO;
 import com.example.acceso.model.Genero;
 import com.example.acceso.model.Product;
 import com.example.acceso.service.BrandService;
+import com.example.acceso.service.BusquedaProductosService;
 import com.example.acceso.service.CategoryService;
+import com.example.acceso.service.EstadisticasEstadoService;
 import com.example.acceso.service.ProductService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -24,13 +30,19 @@ public class ProductController {
     private final ProductService productService;
     private final CategoryService categoryService;
     private final BrandService brandService;
+    private final EstadisticasEstadoService estadisticasEstadoService;
+    private final BusquedaProductosService busquedaProductosService;
 
     public ProductController(ProductService productService,
                             CategoryService categoryService,
-                            BrandService brandService) {
+                            BrandService brandService,
+                            EstadisticasEstadoService estadisticasEstadoService,
+                            BusquedaProductosService busquedaProductosService) {
         this.productService = productService;
         this.categoryService = categoryService;
         this.brandService = brandService;
+        this.estadisticasEstadoService = estadisticasEstadoService;
+        this.busquedaProductosService = busquedaProductosService;
     }
 
     // ===================== Vistas =====================
@@ -79,21 +91,64 @@ public class ProductController {
     }
 
     /**
-     * Obtener todos los productos (activos e inactivos) para DataTables
+     * Catálogo público paginado por cursor, con filtros combinados y facetas
      */
-    @GetMapping("/api/datatables")
+    @GetMapping("/api/catalogo")
     @ResponseBody
-    public ResponseEntity<Map<String, Object>> listarParaDataTables() {
+    public ResponseEntity<Map<String, Object>> catalogo(
+            @RequestParam(required = false) String genero,
+            @RequestParam(required = false) Long categoriaId,
+            @RequestParam(required = false) String categoria,
+            @RequestParam(required = false) Long marcaId,
+            @RequestParam(required = false) String marca,
+            @RequestParam(required = false) BigDecimal precioMin,
+            @RequestParam(required = false) BigDecimal precioMax,
+            @RequestParam(required = false, defaultValue = "false") Boolean sale,
+            @RequestParam(required = false, defaultValue = "false") Boolean destacado,
+            @RequestParam(required = false, defaultValue = "false") Boolean conStock,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false, defaultValue = "24") Integer tamanio) {
         try {
-            List<Product> productos = productService.listarTodosProductos();
+            CatalogoFiltro filtro = CatalogoFiltro.builder()
+                    .genero(genero != null && !genero.isEmpty() ? parsearGenero(genero) : null)
+                    .categoriaId(categoriaId)
+                    .categoriaNombre(categoria)
+                    .marcaId(marcaId)
+                    .marcaNombre(marca)
+                    .precioMin(precioMin)
+                    .precioMax(precioMax)
+                    .enOferta(sale)
+                    .destacado(destacado)
+                    .conStock(conStock)
+                    .cursor(cursor)
+                    .tamanio(tamanio)
+                    .build();
+
+            CatalogoResponse catalogo = productService.buscarCatalogo(filtro);
 
             Map<String, Object> response = new HashMap<>();
-            response.put("draw", 1);
-            response.put("recordsTotal", productos.size());
-            response.put("recordsFiltered", productos.size());
-            response.put("data", productos);
-
+            response.put("success", true);
+            response.put("data", catalogo.getProductos());
+            response.put("total", catalogo.getTotal());
+            response.put("hayMas", catalogo.getHayMas());
+            response.put("siguienteCursor", catalogo.getSiguienteCursor());
+            response.put("facetas", catalogo.getFacetas());
             return ResponseEntity.ok(response);
+        } catch (GeneroInvalidoException e) {
+            return createErrorResponse("Género no válido");
+        } catch (Exception e) {
+            return createErrorResponse("Error al cargar el catálogo: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Obtener todos los productos (activos e inactivos) para DataTables
+     */
+    @GetMapping("/api/datatables")
+    @ResponseBody
+    public ResponseEntity<?> listarParaDataTables(@RequestParam Map<String, String> params) {
+        try {
+            return ResponseEntity.ok(productService.listarParaDataTables(DataTablesRequest.desde(params)));
         } catch (Exception e) {
             return createErrorResponse("Error al cargar datos para la tabla: " + e.getMessage());
         }
@@ -105,32 +160,9 @@ public class ProductController {
     @ResponseBody
     public ResponseEntity<Map<String, Object>> obtenerEstadisticas() {
         try {
-            List<Product> todosProductos = productService.listarTodosProductos();
-
-            // Contar por estado
-            long activos = todosProductos.stream()
-                .filter(p -> p.getEstado() == 1)
-                .count();
-
-            long inactivos = todosProductos.stream()
-                .filter(p -> p.getEstado() == 0)
-                .count();
-
-            long eliminados = todosProductos.stream()
-                .filter(p -> p.getEstado() == 2)
-                .count();
-
-            // Preparar datos de estadísticas
-            Map<String, Object> stats = new HashMap<>();
-            stats.put("activos", activos);
-            stats.put("inactivos", inactivos);
-            stats.put("eliminados", eliminados);
-            stats.put("total", todosProductos.size());
-
-            // Respuesta exitosa
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("data", stats);
+            response.put("data", estadisticasEstadoService.productos());
 
             return ResponseEntity.ok(response);
 
@@ -186,10 +218,10 @@ public class ProductController {
     public ResponseEntity<Map<String, Object>> productosDestacados(
             @RequestParam(required = false) String genero) {
         try {
-            List<Product> productos;
+            List<ProductoCatalogoDTO> productos;
 
             if (genero != null && !genero.isEmpty()) {
-                Genero generoEnum = Genero.valueOf(genero.toUpperCase());
+                Genero generoEnum = parsearGenero(genero);
                 productos = productService.listarDestacadosPorGenero(generoEnum);
             } else {
                 productos = productService.listarDestacados();
@@ -200,7 +232,7 @@ public class ProductController {
             response.put("data", productos);
             response.put("total", productos.size());
             return ResponseEntity.ok(response);
-        } catch (IllegalArgumentException e) {
+        } catch (GeneroInvalidoException e) {
             return createErrorResponse("Género no válido");
         } catch (Exception e) {
             return createErrorResponse("Error al obtener destacados: " + e.getMessage());
@@ -216,8 +248,8 @@ public class ProductController {
             @PathVariable String genero,
             @RequestParam(required = false, defaultValue = "false") Boolean todos) {
         try {
-            Genero generoEnum = Genero.valueOf(genero.toUpperCase());
-            List<Product> productos = todos
+            Genero generoEnum = parsearGenero(genero);
+            List<ProductoCatalogoDTO> productos = todos
                 ? productService.listarTodosPorGenero(generoEnum)
                 : productService.listarPorGenero(generoEnum);
 
@@ -226,7 +258,7 @@ public class ProductController {
             response.put("data", productos);
             response.put("total", productos.size());
             return ResponseEntity.ok(response);
-        } catch (IllegalArgumentException e) {
+        } catch (GeneroInvalidoException e) {
             return createErrorResponse("Género no válido");
         } catch (Exception e) {
             return createErrorResponse("Error al filtrar por género: " + e.getMessage());
@@ -241,10 +273,10 @@ public class ProductController {
     public ResponseEntity<Map<String, Object>> productosEnRebaja(
             @RequestParam(required = false) String genero) {
         try {
-            List<Product> productos;
+            List<ProductoCatalogoDTO> productos;
 
             if (genero != null && !genero.isEmpty()) {
-                Genero generoEnum = Genero.valueOf(genero.toUpperCase());
+                Genero generoEnum = parsearGenero(genero);
                 productos = productService.listarEnRebajaPorGenero(generoEnum);
             } else {
                 productos = productService.listarEnRebaja();
@@ -255,7 +287,7 @@ public class ProductController {
             response.put("data", productos);
             response.put("total", productos.size());
             return ResponseEntity.ok(response);
-        } catch (IllegalArgumentException e) {
+        } catch (GeneroInvalidoException e) {
             return createErrorResponse("Género no válido");
         } catch (Exception e) {
             return createErrorResponse("Error al obtener productos en rebaja: " + e.getMessage());
@@ -271,7 +303,7 @@ public class ProductController {
     @ResponseBody
     public ResponseEntity<Map<String, Object>> productosPorCategoria(@PathVariable Long id) {
         try {
-            List<Product> productos = productService.listarPorCategoria(id);
+            List<ProductoCatalogoDTO> productos = productService.listarPorCategoria(id);
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("data", productos);
@@ -289,7 +321,7 @@ public class ProductController {
     @ResponseBody
     public ResponseEntity<Map<String, Object>> productosPorMarca(@PathVariable Long id) {
         try {
-            List<Product> productos = productService.listarPorMarca(id);
+            List<ProductoCatalogoDTO> productos = productService.listarPorMarca(id);
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("data", productos);
@@ -518,7 +550,7 @@ public class ProductController {
             @RequestParam String q,
             @RequestParam(required = false, defaultValue = "false") Boolean todos) {
         try {
-            List<Product> productos = todos
+            List<ProductoCatalogoDTO> productos = todos
                 ? productService.buscarProductosTodos(q)
                 : productService.buscarProductos(q);
 
@@ -533,6 +565,33 @@ public class ProductController {
         }
     }
 
+    /**
+     * Estado del índice de búsqueda (documentos, búsquedas, tiempo medio)
+     * GET /productos/api/buscar/metricas
+     */
+    @GetMapping("/api/buscar/metricas")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> metricasBusqueda() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", busquedaProductosService.metricas());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Reconstruye el índice de búsqueda en segundo plano
+     * POST /productos/api/buscar/reindexar
+     */
+    @PostMapping("/api/buscar/reindexar")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> reindexarBusqueda() {
+        busquedaProductosService.reindexarEnSegundoPlano();
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Reconstrucción del índice iniciada");
+        return ResponseEntity.accepted().body(response);
+    }
+
     /**
      * Buscar por rango de precio
      */
@@ -663,6 +722,20 @@ public class ProductController {
 
     // ===================== Métodos de utilidad =====================
 
+    /**
+     * Convierte el género recibido en la URL; solo este error se responde como "Género no válido"
+     */
+    private static Genero parsearGenero(String genero) {
+        try {
+            return Genero.valueOf(genero.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new GeneroInvalidoException();
+        }
+    }
+
+    private static class GeneroInvalidoException extends RuntimeException {
+    }
+
     /**
      * Crear respuesta de error estándar
      */
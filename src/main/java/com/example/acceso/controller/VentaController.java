@@ -6,7 +6,9 @@ import com.example.acceso.model.EnumVentas.EstadoVenta;
 import com.example.acceso.model.EnumVentas.TipoComprobante;
 import com.example.acceso.model.Usuario;
 import com.example.acceso.repository.RepositorioVentas.ComprobanteSecuenciaRepository;
+import com.example.acceso.service.ComprobanteSecuenciaService;
 import com.example.acceso.service.VentaService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
@@ -18,6 +20,7 @@ import org.springframework.web.bind.annotation.*;
 import jakarta.validation.Valid;
 
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -28,11 +31,14 @@ public class VentaController {
 
     private final VentaService ventaService;
     private final ComprobanteSecuenciaRepository comprobanteSecuenciaRepository;
+    private final ComprobanteSecuenciaService comprobanteSecuenciaService;
 
     public VentaController(VentaService ventaService,
-                           ComprobanteSecuenciaRepository comprobanteSecuenciaRepository) {
+                           ComprobanteSecuenciaRepository comprobanteSecuenciaRepository,
+                           ComprobanteSecuenciaService comprobanteSecuenciaService) {
         this.ventaService = ventaService;
         this.comprobanteSecuenciaRepository = comprobanteSecuenciaRepository;
+        this.comprobanteSecuenciaService = comprobanteSecuenciaService;
     }
 
 
@@ -79,6 +85,32 @@ public class VentaController {
         }
     }
 
+    /**
+     * Listado paginado para DataTables (modo server-side)
+     */
+    @GetMapping("/api/paginado")
+    @ResponseBody
+    public ResponseEntity<?> listarVentasPaginadas(@RequestParam Map<String, String> params) {
+        try {
+            return ResponseEntity.ok(ventaService.listarVentasPaginadas(DataTablesRequest.desde(params)));
+        } catch (Exception e) {
+            return createErrorResponse("Error al listar ventas: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Exportar ventas de un rango de fechas en CSV (se escribe fila por fila)
+     */
+    @GetMapping("/api/exportar")
+    public void exportarVentas(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fechaInicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fechaFin,
+            HttpServletResponse response) throws IOException {
+        response.setContentType("text/csv; charset=UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=\"ventas.csv\"");
+        ventaService.exportarVentasCsv(fechaInicio, fechaFin, response.getWriter());
+    }
+
     /**
      * Obtener ventas por cliente
      */
@@ -212,6 +244,20 @@ public class VentaController {
             return createErrorResponse("Error al crear la venta: " + e.getMessage());
         }
     }
+
+    /**
+     * Reservas de comprobante pendientes, números liberados y liberaciones fallidas
+     * GET /ventas/api/comprobantes/metricas
+     */
+    @GetMapping("/api/comprobantes/metricas")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> metricasComprobantes() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", comprobanteSecuenciaService.metricas());
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/api/series/activas")
         @ResponseBody
         public ResponseEntity<Map<String, Object>> obtenerSerieActiva(
@@ -281,9 +327,12 @@ public class VentaController {
      */
     @PutMapping("/api/anular/{id}")
     @ResponseBody
-    public ResponseEntity<Map<String, Object>> anularVenta(@PathVariable Long id) {
+    public ResponseEntity<Map<String, Object>> anularVenta(@PathVariable Long id, HttpSession session) {
+        Usuario usuarioLogueado = (Usuario) session.getAttribute("usuarioLogueado");
+        String nombreUsuario = usuarioLogueado != null ? usuarioLogueado.getUsuario() : null; // null: el que registró la venta
+
         try {
-            VentaResponse ventaAnulada = ventaService.anularVenta(id);
+            VentaResponse ventaAnulada = ventaService.anularVenta(id, nombreUsuario);
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -1,28 +1,26 @@
 package com.example.acceso.controller;
 
-import com.example.acceso.model.Brand;
-import com.example.acceso.service.BrandService;
+import com.example.acceso.service.ContenidoTiendaService;
 import com.example.acceso.service.ProductService;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.client.RestTemplate; // ⚠️ IMPORTANTE
 
-import java.util.List;
-import java.util.Map;
 
 @Controller
 public class WebController {
 
-    private final BrandService brandService;
     private final ProductService productService;
     private final RestTemplate restTemplate; // ⚠️ Inyección para llamar a Node
+    private final ContenidoTiendaService contenidoTiendaService;
 
     // Constructor con inyección de dependencias
-    public WebController(BrandService brandService, ProductService productService, RestTemplate restTemplate) {
-        this.brandService = brandService;
+    public WebController(ProductService productService, RestTemplate restTemplate,
+                         ContenidoTiendaService contenidoTiendaService) {
         this.productService = productService;
         this.restTemplate = restTemplate;
+        this.contenidoTiendaService = contenidoTiendaService;
     }
 
     // --- TUS OTRAS RUTAS (Index, Catalogo, etc) SIGUEN IGUAL ---
@@ -33,19 +31,10 @@ public class WebController {
         model.addAttribute("ropa", productService.obtenerDestacadosPorCategoria("Ropa"));
         model.addAttribute("accesorios", productService.obtenerDestacadosPorCategoria("Accesorios"));
         model.addAttribute("zapatillasMasVendidas", productService.obtenerZapatillasMasVendidas());
-        try {
-            String urlNode = "http://127.0.0.1:3000/api/preguntas-frecuentes";
-            Object rawResponse = restTemplate.getForObject(urlNode, Object.class);
-            
-            if (rawResponse instanceof Map) {
-                Map<String, Object> mapa = (Map<String, Object>) rawResponse;
-                if (mapa.containsKey("data")) {
-                    model.addAttribute("listaPreguntas", mapa.get("data"));
-                }
-            }
-        } catch (Exception e) {
-            System.err.println("⚠️ Node no disponible en Home: " + e.getMessage());
-            // No hacemos nada, simplemente no se mostrará la sección
+        // Preguntas frecuentes de Node (copia en memoria; si no hay, no se muestra la sección)
+        Object preguntas = contenidoTiendaService.preguntasFrecuentes();
+        if (preguntas != null) {
+            model.addAttribute("listaPreguntas", preguntas);
         }
 
         return "web/sneacker";
@@ -65,42 +54,10 @@ public class WebController {
     }
 
     // Método auxiliar para cargar datos globales
+    // (las marcas, el logo y los slides los agrega SitioAtributosInterceptor desde memoria)
     private void cargarDatosComunes(Model model) {
-        // 1. Cargar Marcas (Lo que ya tenías)
-        List<Brand> marcas = brandService.listarMarcasConImagen();
-        marcas.forEach(marca -> {
-            if (marca.getImagen() != null && !marca.getImagen().startsWith("/")) {
-                marca.setImagen("/" + marca.getImagen());
-            }
-        });
-        model.addAttribute("marcas", marcas);
-
-        // 🚀 2. NUEVO: Traer Info de Tienda desde NODE.JS
-        try {
-            // Usamos la IP directa para evitar errores
-            String urlNode = "http://127.0.0.1:3000/api/informacion-tienda";
-            
-            // Pedimos los datos a Node
-            Map<String, Object> response = restTemplate.getForObject(urlNode, Map.class);
-
-            // Verificamos si vino en "data" o directo
-            if (response != null) {
-                if (response.containsKey("data")) {
-                    model.addAttribute("infoTienda", response.get("data"));
-                } else {
-                    model.addAttribute("infoTienda", response);
-                }
-            }
-        } catch (Exception e) {
-            System.err.println("⚠️ Node no responde (Info Tienda): " + e.getMessage());
-            
-            // FALLBACK: Si Node falla, usamos datos por defecto para que no se vea feo
-            model.addAttribute("infoTienda", Map.of(
-                "direccion", "Tienda Principal - Lima",
-                "telefono", "+51 999 000 999",
-                "email", "contacto@sneakers.com"
-            ));
-        }
+        // Info de Tienda de Node (copia en memoria refrescada en segundo plano, con datos por defecto)
+        model.addAttribute("infoTienda", contenidoTiendaService.infoTienda());
     }
 
     @org.springframework.web.bind.annotation.PostMapping("/contacto/enviar")
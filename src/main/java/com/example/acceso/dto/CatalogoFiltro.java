@@ -0,0 +1,37 @@
+package com.example.acceso.dto;
+
+import com.example.acceso.model.Genero;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Filtros combinables del catálogo público (/productos/api/catalogo).
+ * Todos los campos son opcionales; los nulos no filtran.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogoFiltro {
+
+    private Genero genero;
+    private Long categoriaId;
+    private String categoriaNombre;
+    private Long marcaId;
+    private String marcaNombre;
+    private BigDecimal precioMin;
+    private BigDecimal precioMax;
+    private Boolean enOferta;
+    private Boolean destacado;
+    private Boolean conStock;
+
+    // Keyset: ID del último producto de la página anterior
+    private Long cursor;
+
+    @Builder.Default
+    private Integer tamanio = 24;
+}
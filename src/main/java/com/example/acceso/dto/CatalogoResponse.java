@@ -0,0 +1,29 @@
+package com.example.acceso.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogoResponse {
+
+    private List<ProductoCatalogoDTO> productos;
+
+    // Cursor para pedir la siguiente página (null si no hay más)
+    private Long siguienteCursor;
+
+    private Boolean hayMas;
+
+    // Total y facetas solo en la primera página (sin cursor); null en las siguientes
+    private Long total;
+
+    // Clave: "genero", "categoria", "marca"
+    private Map<String, List<FacetaDTO>> facetas;
+}
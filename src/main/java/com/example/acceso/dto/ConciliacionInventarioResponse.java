@@ -0,0 +1,37 @@
+package com.example.acceso.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConciliacionInventarioResponse {
+
+    private LocalDateTime fechaEjecucion;
+    private int productosRevisados;
+
+    @Builder.Default
+    private List<Diferencia> diferencias = new ArrayList<>();
+
+    /**
+     * Producto cuyo stock no coincide con el último saldo del kardex o con su cierre mensual
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Diferencia {
+        private Long productoId;
+        private String productoNombre;
+        private Integer stockProducto;
+        private Integer stockKardex;
+        private Integer stockCierre;
+    }
+}
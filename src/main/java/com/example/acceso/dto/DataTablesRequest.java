@@ -0,0 +1,79 @@
+package com.example.acceso.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.Map;
+
+/**
+ * Parámetros del modo server-side de DataTables
+ * ({@code draw}, {@code start}, {@code length}, {@code search[value]}, {@code order[0][...]}).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DataTablesRequest {
+
+    public static final int MAX_LENGTH = 100;
+
+    private int draw;
+    private int start;
+    private int length;
+    private String busqueda;
+    private String columnaOrden;
+    private boolean ascendente;
+
+    /**
+     * Lee los parámetros tal como los envía DataTables
+     */
+    public static DataTablesRequest desde(Map<String, String> params) {
+        String indiceOrden = params.get("order[0][column]");
+        String columnaOrden = indiceOrden != null ? params.get("columns[" + indiceOrden + "][data]") : null;
+        String busqueda = params.get("search[value]");
+
+        return DataTablesRequest.builder()
+                .draw(entero(params.get("draw"), 0))
+                .start(Math.max(entero(params.get("start"), 0), 0))
+                .length(entero(params.get("length"), 10))
+                .busqueda(busqueda != null && !busqueda.trim().isEmpty() ? busqueda.trim() : null)
+                .columnaOrden(columnaOrden)
+                .ascendente("asc".equalsIgnoreCase(params.get("order[0][dir]")))
+                .build();
+    }
+
+    /**
+     * Página solicitada. {@code columnas} traduce el nombre de columna de DataTables a la propiedad
+     * de la entidad; columnas desconocidas (o no ordenables) usan {@code ordenPorDefecto}.
+     */
+    public Pageable toPageable(Map<String, String> columnas, Sort ordenPorDefecto) {
+        int tamanio = length <= 0 || length > MAX_LENGTH ? MAX_LENGTH : length;
+
+        Sort orden = ordenPorDefecto;
+        String propiedad = columnaOrden != null ? columnas.get(columnaOrden) : null;
+        if (propiedad != null) {
+            orden = Sort.by(ascendente ? Sort.Direction.ASC : Sort.Direction.DESC, propiedad);
+        }
+        return PageRequest.of(start / tamanio, tamanio, orden);
+    }
+
+    /**
+     * Texto de búsqueda como patrón LIKE en minúsculas, o null si no se buscó nada
+     */
+    public String patronBusqueda() {
+        return busqueda != null ? "%" + busqueda.toLowerCase() + "%" : null;
+    }
+
+    private static int entero(String valor, int porDefecto) {
+        try {
+            return valor != null ? Integer.parseInt(valor) : porDefecto;
+        } catch (NumberFormatException e) {
+            return porDefecto;
+        }
+    }
+}
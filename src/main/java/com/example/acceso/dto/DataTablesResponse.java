@@ -0,0 +1,28 @@
+package com.example.acceso.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+/**
+ * Respuesta esperada por DataTables en modo server-side
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DataTablesResponse<T> {
+
+    private int draw;
+    private long recordsTotal;
+    private long recordsFiltered;
+    private List<T> data;
+
+    public static <T> DataTablesResponse<T> de(DataTablesRequest request, long recordsTotal, Page<T> pagina) {
+        return new DataTablesResponse<>(request.getDraw(), recordsTotal, pagina.getTotalElements(), pagina.getContent());
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.acceso.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Conteo de productos para un valor de una dimensión del catálogo
+ * (género, categoría o marca).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetaDTO {
+
+    private String valor;
+    private String nombre;
+    private Long cantidad;
+}
@@ -0,0 +1,38 @@
+package com.example.acceso.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportacionInventarioResponse {
+
+    private int totalLineas;
+    private int registradas;
+    private int rechazadas;
+    private long duracionMs;
+
+    @Builder.Default
+    private List<ResultadoLinea> lineas = new ArrayList<>();
+
+    /**
+     * Resultado de una línea del archivo (numerada desde 1, contando el encabezado si lo hay)
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ResultadoLinea {
+        private int linea;
+        private Long productoId;
+        private Integer cantidad;
+        private boolean registrada;
+        private String mensaje;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.acceso.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Página de movimientos ordenada por (fechaMovimiento, id) descendente.
+ * Para pedir la siguiente se envían {@code siguienteFecha} y {@code siguienteId} como cursor.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaginaMovimientos {
+
+    private List<MovimientoInventarioResponse> movimientos;
+    private boolean hayMas;
+    private LocalDateTime siguienteFecha;
+    private Long siguienteId;
+}
@@ -0,0 +1,32 @@
+package com.example.acceso.dto;
+
+import com.example.acceso.model.Genero;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Vista compacta de un producto para las tarjetas del catálogo.
+ * Se construye directamente desde la consulta (sin hidratar la entidad ni sus colecciones).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductoCatalogoDTO {
+
+    private Long id;
+    private String nombre;
+    private String imagen;
+    private BigDecimal precio;
+    private BigDecimal descuento;
+    private Boolean destacado;
+    private Integer stock;
+    private Integer stockMinimo;
+    private Genero genero;
+    private Long categoryId;
+    private String categoryNombre;
+    private Long brandId;
+    private String brandNombre;
+}
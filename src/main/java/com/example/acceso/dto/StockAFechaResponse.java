@@ -0,0 +1,27 @@
+package com.example.acceso.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockAFechaResponse {
+
+    private Long productoId;
+    private LocalDateTime fecha;
+    private Integer stock;
+    private Long entradasAcumuladas;
+    private Long salidasAcumuladas;
+
+    // Mes de cierre usado como base (null si se partió del primer movimiento)
+    private LocalDate periodoBase;
+    // Movimientos sumados después del cierre base
+    private Long movimientosAplicados;
+}
@@ -0,0 +1,63 @@
+package com.example.acceso.dto;
+
+import com.example.acceso.model.EnumVentas.EstadoVenta;
+import com.example.acceso.model.EnumVentas.FormaPago;
+import com.example.acceso.model.EnumVentas.TipoComprobante;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Fila plana de una venta para listados y exportaciones.
+ * Se llena con una sola consulta (venta + cliente), sin cargar detalles ni productos.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VentaRow {
+
+    @JsonProperty("id")
+    private Long id;
+
+    @JsonProperty("tipo_comprobante")
+    private TipoComprobante tipoComprobante;
+
+    @JsonProperty("serie")
+    private String serie;
+
+    @JsonProperty("numero")
+    private String numero;
+
+    @JsonProperty("cliente_id")
+    private Long clienteId;
+
+    @JsonProperty("cliente_nombre")
+    private String clienteNombre;
+
+    @JsonProperty("cliente_documento")
+    private String clienteDocumento;
+
+    @JsonProperty("forma_pago")
+    private FormaPago formaPago;
+
+    @JsonProperty("total")
+    private BigDecimal total;
+
+    @JsonProperty("estado")
+    private EstadoVenta estado;
+
+    @JsonProperty("usuario_creacion")
+    private String usuarioCreacion;
+
+    @JsonProperty("fecha_creacion")
+    private LocalDateTime fechaCreacion;
+
+    @JsonProperty("comprobante_completo")
+    public String getComprobanteCompleto() {
+        return serie + "-" + numero;
+    }
+}
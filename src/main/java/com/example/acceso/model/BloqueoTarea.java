@@ -0,0 +1,35 @@
+package com.example.acceso.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Bloqueo de una tarea programada: solo la instancia que lo tiene ejecuta la tarea.
+ * El bloqueo vence solo en {@code bloqueadoHasta}, por si la instancia se cae a mitad de la ejecución.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "tareas_bloqueo")
+public class BloqueoTarea {
+
+    @Id
+    @Column(name = "nombre", length = 60)
+    private String nombre;
+
+    @Column(name = "bloqueado_hasta", nullable = false)
+    private LocalDateTime bloqueadoHasta;
+
+    @Column(name = "bloqueado_en")
+    private LocalDateTime bloqueadoEn;
+
+    @Column(name = "bloqueado_por", length = 120)
+    private String bloqueadoPor;
+}
@@ -0,0 +1,52 @@
+package com.example.acceso.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Saldo mensual del kardex por producto: stock al cierre del mes y entradas/salidas acumuladas
+ * desde el primer movimiento. Se mantiene en la misma transacción que registra los movimientos,
+ * para responder "stock al día X" sin recorrer todo el historial del producto.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@Entity
+@Table(
+    name = "cierres_inventario",
+    uniqueConstraints = @UniqueConstraint(columnNames = {"producto_id", "periodo"})
+)
+public class CierreInventario {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+
+    // Primer día del mes
+    @Column(name = "periodo", nullable = false)
+    private LocalDate periodo;
+
+    @Column(name = "stock_cierre", nullable = false)
+    private Integer stockCierre;
+
+    @Column(name = "entradas_acumuladas", nullable = false)
+    @Builder.Default
+    private Long entradasAcumuladas = 0L;
+
+    @Column(name = "salidas_acumuladas", nullable = false)
+    @Builder.Default
+    private Long salidasAcumuladas = 0L;
+
+    // Movimientos dentro del mes
+    @Column(name = "movimientos", nullable = false)
+    @Builder.Default
+    private Long movimientos = 0L;
+}
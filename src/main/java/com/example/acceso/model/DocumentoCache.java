@@ -0,0 +1,38 @@
+package com.example.acceso.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Resultado guardado de una consulta DNI/RUC a la API externa.
+ * Con {@code encontrado = false} se recuerda que el documento no existe (caché negativa).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "documento_cache")
+public class DocumentoCache {
+
+    @Id
+    @Column(name = "documento", length = 11)
+    private String documento;
+
+    @Column(name = "tipo", nullable = false, length = 3)
+    private String tipo; // DNI o RUC
+
+    @Column(name = "nombre", length = 200)
+    private String nombre;
+
+    @Column(name = "encontrado", nullable = false)
+    private Boolean encontrado;
+
+    @Column(name = "fecha_consulta", nullable = false)
+    private LocalDateTime fechaConsulta;
+}
@@ -0,0 +1,44 @@
+package com.example.acceso.model.EntidadesVenta;
+
+import com.example.acceso.model.EnumVentas.TipoComprobante;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Número de comprobante asignado a una venta que no llegó a confirmarse.
+ * Se reutiliza en la siguiente venta de la misma serie para que la numeración no tenga huecos.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@Entity
+@Table(
+    name = "comprobantes_numeros_liberados",
+    uniqueConstraints = @UniqueConstraint(columnNames = {"tipo_comprobante", "serie", "numero"})
+)
+public class ComprobanteNumeroLiberado {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo_comprobante", nullable = false, length = 20)
+    private TipoComprobante tipoComprobante;
+
+    @Column(name = "serie", nullable = false, length = 4)
+    private String serie;
+
+    @Column(name = "numero", nullable = false)
+    private Long numero;
+
+    @CreationTimestamp
+    @Column(name = "fecha_liberacion", nullable = false, updatable = false)
+    private LocalDateTime fechaLiberacion;
+}
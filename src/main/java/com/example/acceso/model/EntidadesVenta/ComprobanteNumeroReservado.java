@@ -0,0 +1,46 @@
+package com.example.acceso.model.EntidadesVenta;
+
+import com.example.acceso.model.EnumVentas.TipoComprobante;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Número de comprobante asignado a una venta que aún no se ha confirmado.
+ * La venta lo borra en su propia transacción; si la venta no llega a confirmarse (error o caída
+ * del proceso), la conciliación lo pasa a {@link ComprobanteNumeroLiberado} pasado un tiempo.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@Entity
+@Table(
+    name = "comprobantes_numeros_reservados",
+    uniqueConstraints = @UniqueConstraint(columnNames = {"tipo_comprobante", "serie", "numero"}),
+    indexes = @Index(name = "idx_reservados_fecha", columnList = "fecha_reserva")
+)
+public class ComprobanteNumeroReservado {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo_comprobante", nullable = false, length = 20)
+    private TipoComprobante tipoComprobante;
+
+    @Column(name = "serie", nullable = false, length = 4)
+    private String serie;
+
+    @Column(name = "numero", nullable = false)
+    private Long numero;
+
+    @CreationTimestamp
+    @Column(name = "fecha_reserva", nullable = false, updatable = false)
+    private LocalDateTime fechaReserva;
+}
@@ -46,12 +46,17 @@ public class ComprobanteSecuencia {
     /** Incrementa el número y devuelve el siguiente número formateado (ej. 00000025) */
     public String generarSiguienteNumero() {
         numeroActual++;
-        return String.format("%08d", numeroActual);
+        return formatearNumero(numeroActual);
     }
 
     /** Muestra el siguiente número sin modificar el contador */
     public String visualizarSiguienteNumero() {
-        return String.format("%08d", numeroActual + 1);
+        return formatearNumero(numeroActual + 1);
+    }
+
+    /** Formato de 8 dígitos usado en todos los comprobantes (ej. 25 → 00000025) */
+    public static String formatearNumero(long numero) {
+        return String.format("%08d", numero);
     }
 
     /** Devuelve la serie y número combinados (ej. F001-00000025) */
@@ -27,7 +27,10 @@ import java.util.List;
 @Builder
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Entity
-@Table(name = "creditos_venta")
+@Table(name = "creditos_venta", indexes = {
+        // Créditos próximos a vencer y cambio de estado por fecha
+        @Index(name = "idx_credito_estado_fecha_fin", columnList = "estado, fecha_fin")
+})
 public class CreditoVenta {
 
     @Id
@@ -101,6 +104,12 @@ public class CreditoVenta {
     @Column(name = "fecha_actualizacion", nullable = false)
     private LocalDateTime fechaActualizacion;
 
+    // Control de concurrencia optimista frente a cambios hechos con la entidad (anulación, edición)
+    @Version
+    @Column(name = "version", nullable = false)
+    @Builder.Default
+    private Long version = 0L;
+
     @OneToMany(mappedBy = "credito", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
     private List<CuotaPago> cuotas = new ArrayList<>();
@@ -24,8 +24,14 @@ import java.time.LocalDateTime;
 @Table(name = "cuotas_pago")
 public class CuotaPago {
 
+    /** IDs reservados por cada lectura de la tabla de secuencias */
+    public static final int TAMANIO_BLOQUE_ID = 50;
+
+    // IDs de tabla en bloques (no IDENTITY) para que Hibernate inserte el cronograma en un lote JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "cuotas_pago_id")
+    @TableGenerator(name = "cuotas_pago_id", table = "secuencias_id", pkColumnName = "entidad",
+            valueColumnName = "siguiente", pkColumnValue = "cuotas_pago", allocationSize = TAMANIO_BLOQUE_ID)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -73,6 +79,12 @@ public class CuotaPago {
     @Column(name = "fecha_actualizacion", nullable = false)
     private LocalDateTime fechaActualizacion;
 
+    // Control de concurrencia optimista: dos pagos simultáneos sobre la misma cuota no se pisan
+    @Version
+    @Column(name = "version", nullable = false)
+    @Builder.Default
+    private Long version = 0L;
+
     /**
      * Actualiza el estado de la cuota basado en el saldo y la fecha de vencimiento
      */
@@ -0,0 +1,51 @@
+package com.example.acceso.model.EntidadesVenta;
+
+import com.example.acceso.model.EnumVentas.EstadoVenta;
+import com.example.acceso.model.EnumVentas.FormaPago;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Acumulado de ventas por día, forma de pago y estado.
+ * Se mantiene en la misma transacción que crea o cambia de estado cada venta,
+ * para que el dashboard y los reportes lean una fila por día en lugar de todas las ventas.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@Entity
+@Table(
+    name = "ventas_resumen_diario",
+    uniqueConstraints = @UniqueConstraint(columnNames = {"fecha", "forma_pago", "estado"})
+)
+public class VentaResumenDiario {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "fecha", nullable = false)
+    private LocalDate fecha;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "forma_pago", nullable = false, length = 20)
+    private FormaPago formaPago;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado", nullable = false, length = 20)
+    private EstadoVenta estado;
+
+    @Column(name = "cantidad", nullable = false)
+    @Builder.Default
+    private Long cantidad = 0L;
+
+    @Column(name = "monto_total", nullable = false, precision = 14, scale = 2)
+    @Builder.Default
+    private BigDecimal montoTotal = BigDecimal.ZERO;
+}
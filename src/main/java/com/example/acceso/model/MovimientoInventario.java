@@ -22,7 +22,12 @@ import java.time.LocalDateTime;
 @Builder
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Entity
-@Table(name = "movimientos_inventario")
+@Table(name = "movimientos_inventario", indexes = {
+        // Paginación por cursor (fecha_movimiento, id) en kardex, filtro por tipo y listados generales
+        @Index(name = "idx_movimiento_producto_fecha", columnList = "producto_id, fecha_movimiento, id"),
+        @Index(name = "idx_movimiento_tipo_fecha", columnList = "tipo_movimiento, fecha_movimiento, id"),
+        @Index(name = "idx_movimiento_fecha", columnList = "fecha_movimiento, id")
+})
 public class MovimientoInventario {
 
     @Id
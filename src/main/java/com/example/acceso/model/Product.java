@@ -9,7 +9,9 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.SourceType;
 import org.hibernate.annotations.UpdateTimestamp;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -22,7 +24,10 @@ import java.util.List;
 @Builder
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Entity
-@Table(name = "productos")
+@Table(name = "productos", indexes = {
+        // Sincronización del índice de búsqueda entre instancias
+        @Index(name = "idx_producto_fecha_actualizacion", columnList = "fecha_actualizacion")
+})
 public class Product {
 
     @Id
@@ -42,7 +47,9 @@ public class Product {
     @Column(name = "imagen", length = 500)
     private String imagen;
     
+    // Las imágenes de hasta 100 productos (una página de la tabla de administración) en una consulta
     @ElementCollection(fetch = FetchType.LAZY)
+    @BatchSize(size = 100)
     @CollectionTable(
         name = "producto_imagenes",
         joinColumns = @JoinColumn(name = "producto_id")
@@ -95,11 +102,12 @@ public class Product {
     @Column(nullable = false)
     private Integer estado = 1;
 
-    @CreationTimestamp
+    // Hora de la base de datos, como los UPDATE de stock: las instancias sincronizan por esta columna
+    @CreationTimestamp(source = SourceType.DB)
     @Column(name = "fecha_creacion", nullable = false, updatable = false)
     private LocalDateTime fechaCreacion;
 
-    @UpdateTimestamp
+    @UpdateTimestamp(source = SourceType.DB)
     @Column(name = "fecha_actualizacion", nullable = false)
     private LocalDateTime fechaActualizacion;
 
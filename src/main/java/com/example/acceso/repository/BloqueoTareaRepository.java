@@ -0,0 +1,37 @@
+package com.example.acceso.repository;
+
+import com.example.acceso.model.BloqueoTarea;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface BloqueoTareaRepository extends JpaRepository<BloqueoTarea, String> {
+
+    /**
+     * Toma el bloqueo si está libre o vencido. Devuelve 1 si se obtuvo.
+     */
+    @Modifying
+    @Query("UPDATE BloqueoTarea b SET b.bloqueadoHasta = :hasta, b.bloqueadoEn = :ahora, b.bloqueadoPor = :instancia " +
+           "WHERE b.nombre = :nombre AND b.bloqueadoHasta <= :ahora")
+    int tomar(@Param("nombre") String nombre,
+              @Param("instancia") String instancia,
+              @Param("ahora") LocalDateTime ahora,
+              @Param("hasta") LocalDateTime hasta);
+
+    // INSERT explícito: un save() sobre una fila creada por otra instancia la sobrescribiría
+    @Modifying
+    @Query(value = "INSERT INTO tareas_bloqueo (nombre, bloqueado_hasta) VALUES (:nombre, :ahora)", nativeQuery = true)
+    int crear(@Param("nombre") String nombre, @Param("ahora") LocalDateTime ahora);
+
+    @Modifying
+    @Query("UPDATE BloqueoTarea b SET b.bloqueadoHasta = :ahora " +
+           "WHERE b.nombre = :nombre AND b.bloqueadoPor = :instancia")
+    int liberar(@Param("nombre") String nombre,
+                @Param("instancia") String instancia,
+                @Param("ahora") LocalDateTime ahora);
+}
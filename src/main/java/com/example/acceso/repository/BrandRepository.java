@@ -2,14 +2,17 @@ package com.example.acceso.repository;
 
 import com.example.acceso.model.Brand;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface BrandRepository extends JpaRepository<Brand, Long> {
+public interface BrandRepository extends JpaRepository<Brand, Long>, JpaSpecificationExecutor<Brand> {
 
     Optional<Brand> findByNombre(String nombre);
     List<Brand> findAllByEstado(Integer estado);
@@ -22,6 +25,11 @@ public interface BrandRepository extends JpaRepository<Brand, Long> {
     @Query("SELECT DISTINCT b FROM Brand b LEFT JOIN FETCH b.imagenes")
     List<Brand> findAllWithImages();
 
+    // Imágenes subidas: de estas URLs, las que aún usa alguna marca (principal o galería)
+    @Query("SELECT b.imagen FROM Brand b WHERE b.imagen IN :urls " +
+           "UNION SELECT i FROM Brand g JOIN g.imagenes i WHERE i IN :urls")
+    List<String> findImagenesEnUso(@Param("urls") Collection<String> urls);
+
     boolean existsByNombreAndEstadoNot(String nombre, Integer estado);
     boolean existsByNombreAndIdNotAndEstadoNot(String nombre, Long id, Integer estado);
 
@@ -0,0 +1,57 @@
+package com.example.acceso.repository;
+
+import com.example.acceso.model.CierreInventario;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+@Repository
+public interface CierreInventarioRepository extends JpaRepository<CierreInventario, Long> {
+
+    /**
+     * Suma los movimientos de un lote al mes del producto y fija el stock de cierre en una sola sentencia.
+     * Devuelve 0 si la fila del mes aún no existe. No vacía antes el contexto de persistencia (la
+     * tabla solo se escribe con estas sentencias y con saveAndFlush): se llama una vez por producto
+     * de la venta y revisar todas las entidades de la venta en cada llamada costaba más que la sentencia.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    @Query("UPDATE CierreInventario c " +
+           "SET c.stockCierre = :stockCierre, " +
+           "    c.entradasAcumuladas = c.entradasAcumuladas + :entradas, " +
+           "    c.salidasAcumuladas = c.salidasAcumuladas + :salidas, " +
+           "    c.movimientos = c.movimientos + :movimientos " +
+           "WHERE c.productoId = :productoId AND c.periodo = :periodo")
+    int acumular(
+        @Param("productoId") Long productoId,
+        @Param("periodo") LocalDate periodo,
+        @Param("stockCierre") Integer stockCierre,
+        @Param("entradas") long entradas,
+        @Param("salidas") long salidas,
+        @Param("movimientos") long movimientos
+    );
+
+    // Productos que ya tienen fila en el mes
+    @Query("SELECT c.productoId FROM CierreInventario c WHERE c.periodo = :periodo AND c.productoId IN :productoIds")
+    Set<Long> findProductoIdsConPeriodo(@Param("periodo") LocalDate periodo,
+                                        @Param("productoIds") Collection<Long> productoIds);
+
+    // Último mes con movimientos anterior al indicado
+    Optional<CierreInventario> findFirstByProductoIdAndPeriodoLessThanOrderByPeriodoDesc(Long productoId, LocalDate periodo);
+
+    // Mes más reciente de cada producto (conciliación)
+    @Query("SELECT c FROM CierreInventario c " +
+           "WHERE c.periodo = (SELECT MAX(c2.periodo) FROM CierreInventario c2 WHERE c2.productoId = c.productoId)")
+    List<CierreInventario> findUltimosCierres();
+}
@@ -2,11 +2,13 @@ package com.example.acceso.repository;
 
 import com.example.acceso.model.Cliente;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
 import java.util.List;
 import java.util.Optional;
 
-public interface ClienteRepository extends JpaRepository<Cliente, Long> {
+public interface ClienteRepository extends JpaRepository<Cliente, Long>, JpaSpecificationExecutor<Cliente>,
+        ConteoPorEstadoRepository<Cliente> {
 
     Optional<Cliente> findByDocumento(String documento);
 
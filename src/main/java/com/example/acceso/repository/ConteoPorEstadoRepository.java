@@ -0,0 +1,23 @@
+package com.example.acceso.repository;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.data.repository.Repository;
+
+import java.util.List;
+
+/**
+ * Conteo de registros agrupados por {@code estado} para entidades con borrado lógico
+ * (0 = inactivo, 1 = activo, 2 = eliminado). Se hereda en el repositorio de cada entidad.
+ */
+@NoRepositoryBean
+public interface ConteoPorEstadoRepository<T> extends Repository<T, Long> {
+
+    @Query("SELECT e.estado AS estado, COUNT(e) AS cantidad FROM #{#entityName} e GROUP BY e.estado")
+    List<ConteoEstado> contarPorEstado();
+
+    interface ConteoEstado {
+        Integer getEstado();
+        Long getCantidad();
+    }
+}
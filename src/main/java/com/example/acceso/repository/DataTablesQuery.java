@@ -0,0 +1,71 @@
+package com.example.acceso.repository;
+
+import com.example.acceso.dto.DataTablesRequest;
+import com.example.acceso.dto.DataTablesResponse;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuración server-side de una tabla DataTables sobre una entidad: columnas ordenables
+ * (nombre en DataTables → propiedad), campos de la búsqueda global y orden por defecto.
+ * Se declara una vez por tabla y se ejecuta con {@link #ejecutar}.
+ */
+public final class DataTablesQuery<T> {
+
+    private final Map<String, String> columnasOrdenables;
+    private final List<String> camposBusqueda;
+    private final Sort ordenPorDefecto;
+
+    public DataTablesQuery(Map<String, String> columnasOrdenables, List<String> camposBusqueda, Sort ordenPorDefecto) {
+        this.columnasOrdenables = columnasOrdenables;
+        this.camposBusqueda = camposBusqueda;
+        this.ordenPorDefecto = ordenPorDefecto;
+    }
+
+    /**
+     * Ejecuta la página pedida: {@code base} limita los registros de la tabla (p. ej. no eliminados)
+     * y la búsqueda global se aplica encima para calcular {@code recordsFiltered}.
+     */
+    public DataTablesResponse<T> ejecutar(DataTablesRequest request,
+                                          JpaSpecificationExecutor<T> repository,
+                                          Specification<T> base) {
+        Pageable pageable = request.toPageable(columnasOrdenables, ordenPorDefecto);
+        Page<T> pagina = repository.findAll(base.and(busquedaGlobal(request.patronBusqueda())), pageable);
+        return DataTablesResponse.de(request, repository.count(base), pagina);
+    }
+
+    /** Registros que no están eliminados lógicamente (estado = 2) */
+    public static <T> Specification<T> noEliminados() {
+        return (root, query, cb) -> cb.notEqual(root.get("estado"), 2);
+    }
+
+    private Specification<T> busquedaGlobal(String patron) {
+        return (root, query, cb) -> {
+            if (patron == null) {
+                return cb.conjunction();
+            }
+            Predicate[] predicados = camposBusqueda.stream()
+                    .map(campo -> cb.like(cb.lower(ruta(root, campo).as(String.class)), patron))
+                    .toArray(Predicate[]::new);
+            return cb.or(predicados);
+        };
+    }
+
+    /** Resuelve propiedades anidadas como "category.nombre" */
+    private static Path<?> ruta(Root<?> root, String propiedad) {
+        Path<?> ruta = root;
+        for (String parte : propiedad.split("\\.")) {
+            ruta = ruta.get(parte);
+        }
+        return ruta;
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.acceso.repository;
+
+import com.example.acceso.model.DocumentoCache;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface DocumentoCacheRepository extends JpaRepository<DocumentoCache, String> {
+}
@@ -1,37 +1,123 @@
 package com.example.acceso.repository;
 
+import com.example.acceso.dto.MovimientoInventarioResponse;
 import com.example.acceso.model.MovimientoInventario;
 import com.example.acceso.model.EnumInventario.TipoMovimiento;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface MovimientoInventarioRepository extends JpaRepository<MovimientoInventario, Long> {
+public interface MovimientoInventarioRepository extends JpaRepository<MovimientoInventario, Long>,
+        MovimientoInventarioRepositoryCustom {
 
-    // Listar por producto
-    List<MovimientoInventario> findByProductoIdOrderByFechaMovimientoDesc(Long productoId);
+    // ===================== Listados paginados por cursor =====================
+    // Devuelven el DTO directamente (producto y usuario en la misma consulta) y solo las filas
+    // anteriores al cursor (fecha, id), en orden descendente.
 
-    // Listar por tipo de movimiento
-    List<MovimientoInventario> findByTipoMovimientoOrderByFechaMovimientoDesc(TipoMovimiento tipo);
+    String PROYECCION = "SELECT new com.example.acceso.dto.MovimientoInventarioResponse(" +
+            "m.id, p.id, p.nombre, m.tipoMovimiento, m.cantidad, m.stockAnterior, m.stockNuevo, m.motivo, " +
+            "m.referenciaId, m.referenciaTipo, m.observaciones, u.id, u.usuario, m.fechaMovimiento) " +
+            "FROM MovimientoInventario m JOIN m.producto p JOIN m.usuario u ";
 
-    // Listar por rango de fechas
-    @Query("SELECT m FROM MovimientoInventario m WHERE m.fechaMovimiento BETWEEN :fechaInicio AND :fechaFin ORDER BY m.fechaMovimiento DESC")
-    List<MovimientoInventario> findByFechaMovimientoBetween(
-            @Param("fechaInicio") LocalDateTime fechaInicio,
-            @Param("fechaFin") LocalDateTime fechaFin
-    );
+    String ANTES_DEL_CURSOR = "m.fechaMovimiento <= :fecha AND (m.fechaMovimiento < :fecha OR m.id < :id) ";
 
-    // Listar por usuario
-    List<MovimientoInventario> findByUsuarioIdOrderByFechaMovimientoDesc(Long usuarioId);
+    String ORDEN_CURSOR = "ORDER BY m.fechaMovimiento DESC, m.id DESC";
+
+    // Kardex de un producto
+    @Query(PROYECCION + "WHERE m.producto.id = :productoId AND " + ANTES_DEL_CURSOR + ORDEN_CURSOR)
+    List<MovimientoInventarioResponse> buscarKardex(@Param("productoId") Long productoId,
+                                                    @Param("fecha") LocalDateTime fecha,
+                                                    @Param("id") Long id,
+                                                    Limit limit);
+
+    // Por tipo de movimiento
+    @Query(PROYECCION + "WHERE m.tipoMovimiento = :tipo AND " + ANTES_DEL_CURSOR + ORDEN_CURSOR)
+    List<MovimientoInventarioResponse> buscarPorTipo(@Param("tipo") TipoMovimiento tipo,
+                                                     @Param("fecha") LocalDateTime fecha,
+                                                     @Param("id") Long id,
+                                                     Limit limit);
+
+    // Por rango de fechas
+    @Query(PROYECCION + "WHERE m.fechaMovimiento BETWEEN :fechaInicio AND :fechaFin AND " + ANTES_DEL_CURSOR + ORDEN_CURSOR)
+    List<MovimientoInventarioResponse> buscarPorFechas(@Param("fechaInicio") LocalDateTime fechaInicio,
+                                                       @Param("fechaFin") LocalDateTime fechaFin,
+                                                       @Param("fecha") LocalDateTime fecha,
+                                                       @Param("id") Long id,
+                                                       Limit limit);
 
     // Últimos movimientos
-    List<MovimientoInventario> findTop10ByOrderByFechaMovimientoDesc();
+    @Query(PROYECCION + "WHERE " + ANTES_DEL_CURSOR + ORDEN_CURSOR)
+    List<MovimientoInventarioResponse> buscarUltimos(@Param("fecha") LocalDateTime fecha,
+                                                     @Param("id") Long id,
+                                                     Limit limit);
+
+    // ===================== Saldos (cierres mensuales y conciliación) =====================
+
+    // Primer movimiento del producto: su stock anterior es el saldo inicial del kardex
+    Optional<MovimientoInventario> findFirstByProductoIdOrderByFechaMovimientoAscIdAsc(Long productoId);
+
+    // Entradas y salidas del producto en un intervalo (ambos extremos incluidos)
+    @Query("SELECT COALESCE(SUM(CASE WHEN m.tipoMovimiento IN :tiposEntrada THEN m.cantidad ELSE 0 END), 0) AS entradas, " +
+           "COALESCE(SUM(CASE WHEN m.tipoMovimiento IN :tiposEntrada THEN 0 ELSE m.cantidad END), 0) AS salidas, " +
+           "COUNT(m) AS movimientos " +
+           "FROM MovimientoInventario m " +
+           "WHERE m.producto.id = :productoId AND m.fechaMovimiento >= :desde AND m.fechaMovimiento <= :hasta")
+    TramoKardex sumarTramo(@Param("productoId") Long productoId,
+                           @Param("desde") LocalDateTime desde,
+                           @Param("hasta") LocalDateTime hasta,
+                           @Param("tiposEntrada") Collection<TipoMovimiento> tiposEntrada);
+
+    // Entradas y salidas por producto y mes, para reconstruir los cierres desde el historial
+    @Query("SELECT m.producto.id AS productoId, YEAR(m.fechaMovimiento) AS anio, MONTH(m.fechaMovimiento) AS mes, " +
+           "SUM(CASE WHEN m.tipoMovimiento IN :tiposEntrada THEN m.cantidad ELSE 0 END) AS entradas, " +
+           "SUM(CASE WHEN m.tipoMovimiento IN :tiposEntrada THEN 0 ELSE m.cantidad END) AS salidas, " +
+           "COUNT(m) AS movimientos, MAX(m.id) AS ultimoId " +
+           "FROM MovimientoInventario m " +
+           "GROUP BY m.producto.id, YEAR(m.fechaMovimiento), MONTH(m.fechaMovimiento) " +
+           "ORDER BY m.producto.id, YEAR(m.fechaMovimiento), MONTH(m.fechaMovimiento)")
+    List<TramoMensual> resumirPorProductoYMes(@Param("tiposEntrada") Collection<TipoMovimiento> tiposEntrada);
+
+    // Stock resultante de movimientos concretos
+    @Query("SELECT m.id AS id, m.producto.id AS productoId, m.stockNuevo AS stockNuevo " +
+           "FROM MovimientoInventario m WHERE m.id IN :ids")
+    List<Saldo> findSaldosByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Stock según el último movimiento de cada producto
+    @Query("SELECT m.id AS id, m.producto.id AS productoId, m.stockNuevo AS stockNuevo " +
+           "FROM MovimientoInventario m " +
+           "WHERE m.id IN (SELECT MAX(m2.id) FROM MovimientoInventario m2 GROUP BY m2.producto.id)")
+    List<Saldo> findUltimoSaldoPorProducto();
+
+    interface TramoKardex {
+        Long getEntradas();
+        Long getSalidas();
+        Long getMovimientos();
+    }
+
+    interface TramoMensual extends TramoKardex {
+        Long getProductoId();
+        Integer getAnio();
+        Integer getMes();
+        Long getUltimoId();
+    }
+
+    interface Saldo {
+        Long getId();
+        Long getProductoId();
+        Integer getStockNuevo();
+    }
+
+    // Listar por usuario
+    List<MovimientoInventario> findByUsuarioIdOrderByFechaMovimientoDesc(Long usuarioId);
 
     // Buscar por referencia
     List<MovimientoInventario> findByReferenciaIdAndReferenciaTipo(Long referenciaId, com.example.acceso.model.EnumInventario.TipoReferencia referenciaTipo);
-}
\ No newline at end of file
+}
@@ -0,0 +1,17 @@
+package com.example.acceso.repository;
+
+import com.example.acceso.model.MovimientoInventario;
+
+import java.util.List;
+
+/**
+ * Escritura del kardex en lote, fuera del ciclo de vida de entidades de JPA.
+ */
+public interface MovimientoInventarioRepositoryCustom {
+
+    /**
+     * Inserta los movimientos con un único lote JDBC. Solo se usan los IDs de producto y usuario,
+     * así que basta con referencias; los movimientos no reciben el ID generado.
+     */
+    void insertarEnLote(List<MovimientoInventario> movimientos);
+}
@@ -0,0 +1,64 @@
+package com.example.acceso.repository;
+
+import com.example.acceso.model.EnumInventario.TipoReferencia;
+import com.example.acceso.model.MovimientoInventario;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class MovimientoInventarioRepositoryCustomImpl implements MovimientoInventarioRepositoryCustom {
+
+    private static final String SQL_INSERTAR =
+            "INSERT INTO movimientos_inventario (producto_id, tipo_movimiento, cantidad, stock_anterior, stock_nuevo, " +
+            "motivo, referencia_id, referencia_tipo, observaciones, usuario_id, fecha_movimiento) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void insertarEnLote(List<MovimientoInventario> movimientos) {
+        if (movimientos.isEmpty()) {
+            return;
+        }
+        // Las filas referenciadas (venta, productos) pueden estar pendientes en la sesión
+        entityManager.flush();
+
+        LocalDateTime ahora = LocalDateTime.now();
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement insert = connection.prepareStatement(SQL_INSERTAR)) {
+                for (MovimientoInventario m : movimientos) {
+                    TipoReferencia referenciaTipo = m.getReferenciaTipo() != null
+                            ? m.getReferenciaTipo() : TipoReferencia.NINGUNO;
+
+                    insert.setLong(1, m.getProducto().getId());
+                    insert.setString(2, m.getTipoMovimiento().name());
+                    insert.setInt(3, m.getCantidad());
+                    insert.setInt(4, m.getStockAnterior());
+                    insert.setInt(5, m.getStockNuevo());
+                    insert.setString(6, m.getMotivo().name());
+                    if (m.getReferenciaId() != null) {
+                        insert.setLong(7, m.getReferenciaId());
+                    } else {
+                        insert.setNull(7, Types.BIGINT);
+                    }
+                    insert.setString(8, referenciaTipo.name());
+                    insert.setString(9, m.getObservaciones());
+                    insert.setLong(10, m.getUsuario().getId());
+                    if (m.getFechaMovimiento() == null) {
+                        m.setFechaMovimiento(ahora); // La usan los cierres mensuales del mismo lote
+                    }
+                    insert.setTimestamp(11, Timestamp.valueOf(m.getFechaMovimiento()));
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        });
+    }
+}
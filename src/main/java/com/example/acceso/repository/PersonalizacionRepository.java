@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -48,4 +49,8 @@ public interface PersonalizacionRepository extends JpaRepository<Personalizacion
     // Buscar slides sin marca asignada
     @Query("SELECT p FROM Personalizacion p WHERE p.tipo = 'SLIDE' AND p.marca IS NULL ORDER BY p.orden ASC")
     List<Personalizacion> findSlidesWithoutMarca();
+
+    // Imágenes subidas: de estas URLs, las que aún usa el logo o algún slide
+    @Query("SELECT DISTINCT p.imagenUrl FROM Personalizacion p WHERE p.imagenUrl IN :urls")
+    List<String> findImagenesEnUso(@Param("urls") Collection<String> urls);
 }
\ No newline at end of file
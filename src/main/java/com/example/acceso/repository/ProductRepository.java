@@ -1,19 +1,30 @@
 package com.example.acceso.repository;
 
+import com.example.acceso.dto.ProductoCatalogoDTO;
 import com.example.acceso.model.Brand;
 import com.example.acceso.model.Category;
 import com.example.acceso.model.Genero;
 import com.example.acceso.model.Product;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>,
+        JpaSpecificationExecutor<Product>, ProductRepositoryCustom, ConteoPorEstadoRepository<Product> {
 
     Optional<Product> findByNombre(String nombre);
     boolean existsByNombreAndEstadoNot(String nombre, Integer estado);
@@ -34,7 +45,6 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 
     // Por género
     List<Product> findByGeneroAndEstado(Genero genero, Integer estado);
-    List<Product> findByGenero(Genero genero);
 
     // SALE (productos en rebaja)
     List<Product> findByDescuentoGreaterThanAndEstado(BigDecimal descuento, Integer estado);
@@ -58,8 +68,6 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 
     List<Product> findByNombreContainingIgnoreCaseAndEstado(String nombre, Integer estado);
     List<Product> findByNombreContainingIgnoreCase(String nombre);
-    List<Product> findByNombreContainingIgnoreCaseOrDescripcionContainingIgnoreCaseAndEstado(
-        String nombre, String descripcion, Integer estado);
 
     // ===================== Filtros avanzados =====================
 
@@ -74,6 +82,77 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> findByStockGreaterThanAndEstado(Integer stock, Integer estado);
     List<Product> findByStockLessThanEqualAndEstado(Integer stock, Integer estado);
 
+    // Actualizaciones atómicas: no leen ni reescriben la fila completa
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = p.stock + :cantidad, p.fechaActualizacion = CURRENT_TIMESTAMP " +
+           "WHERE p.id = :id")
+    int incrementarStock(@Param("id") Long id, @Param("cantidad") Integer cantidad);
+
+    @Query("SELECT p.stock FROM Product p WHERE p.id = :id")
+    Integer obtenerStock(@Param("id") Long id);
+
+    // Validación por lotes (importaciones): solo los IDs, sin cargar las entidades
+    @Query("SELECT p.id FROM Product p WHERE p.id IN :ids AND p.estado <> 2")
+    List<Long> findIdsNoEliminados(@Param("ids") Collection<Long> ids);
+
+    // Imágenes subidas: de estas URLs, las que aún usa algún producto (principal o galería)
+    @Query("SELECT p.imagen FROM Product p WHERE p.imagen IN :urls " +
+           "UNION SELECT i FROM Product g JOIN g.imagenes i WHERE i IN :urls")
+    List<String> findImagenesEnUso(@Param("urls") Collection<String> urls);
+
+    // Conciliación con el kardex: solo id, nombre y stock
+    @Query("SELECT p.id AS id, p.nombre AS nombre, p.stock AS stock FROM Product p")
+    List<StockProducto> listarStocks();
+
+    interface StockProducto {
+        Long getId();
+        String getNombre();
+        Integer getStock();
+    }
+
+    // Índice de búsqueda: texto del producto con los nombres de marca y categoría, por páginas de ID
+    @Query("SELECT p.id AS id, p.nombre AS nombre, p.descripcion AS descripcion, b.nombre AS marca, " +
+           "c.nombre AS categoria, p.estado AS estado " +
+           "FROM Product p JOIN p.brand b JOIN p.category c " +
+           "WHERE p.id > :desdeId ORDER BY p.id")
+    List<DocumentoBusqueda> findDocumentosBusqueda(@Param("desdeId") Long desdeId, Pageable pageable);
+
+    @Query("SELECT p.id AS id, p.nombre AS nombre, p.descripcion AS descripcion, b.nombre AS marca, " +
+           "c.nombre AS categoria, p.estado AS estado " +
+           "FROM Product p JOIN p.brand b JOIN p.category c " +
+           "WHERE p.id IN :ids")
+    List<DocumentoBusqueda> findDocumentosBusquedaPorIds(@Param("ids") Collection<Long> ids);
+
+    // Resultados de búsqueda (IDs del índice) con los datos de la tarjeta, sin hidratar entidades
+    @Query("SELECT new com.example.acceso.dto.ProductoCatalogoDTO(p.id, p.nombre, p.imagen, p.precio, " +
+           "p.descuento, p.destacado, p.stock, p.stockMinimo, p.genero, c.id, c.nombre, b.id, b.nombre) " +
+           "FROM Product p JOIN p.category c JOIN p.brand b " +
+           "WHERE p.id IN :ids AND (:soloActivos = false OR p.estado = 1)")
+    List<ProductoCatalogoDTO> findTarjetasPorIds(@Param("ids") Collection<Long> ids,
+                                                 @Param("soloActivos") boolean soloActivos);
+
+    // Productos modificados desde cualquier instancia (fecha_actualizacion indexada)
+    @Query("SELECT p.id FROM Product p WHERE p.fechaActualizacion > :desde")
+    List<Long> findIdsActualizadosDesde(@Param("desde") LocalDateTime desde);
+
+    // Hora de la base de datos: la misma con la que se escribe fecha_actualizacion en todas las instancias
+    @Query("SELECT LOCAL DATETIME")
+    LocalDateTime ahoraEnBaseDeDatos();
+
+    interface DocumentoBusqueda {
+        Long getId();
+        String getNombre();
+        String getDescripcion();
+        String getMarca();
+        String getCategoria();
+        Integer getEstado();
+    }
+
+    // Páginas de la tabla de administración con categoría y marca en la misma consulta
+    @Override
+    @EntityGraph(attributePaths = {"category", "brand"})
+    Page<Product> findAll(Specification<Product> spec, Pageable pageable);
+
     @Query("SELECT DISTINCT p FROM Product p " +
            "LEFT JOIN FETCH p.category " +
            "LEFT JOIN FETCH p.brand " +
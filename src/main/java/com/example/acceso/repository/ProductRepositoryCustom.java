@@ -0,0 +1,44 @@
+package com.example.acceso.repository;
+
+import com.example.acceso.dto.FacetaDTO;
+import com.example.acceso.dto.ProductoCatalogoDTO;
+import com.example.acceso.model.Product;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consultas de catálogo construidas con Criteria que no se pueden expresar
+ * como métodos derivados de {@link ProductRepository}.
+ */
+public interface ProductRepositoryCustom {
+
+    /**
+     * Devuelve hasta {@code limite} productos que cumplen el criterio, ordenados por ID descendente,
+     * proyectados directamente a {@link ProductoCatalogoDTO} en una sola consulta.
+     */
+    List<ProductoCatalogoDTO> buscarCatalogo(Specification<Product> spec, int limite);
+
+    /**
+     * Cuenta productos agrupados por una dimensión: "genero", "categoria" o "marca".
+     */
+    List<FacetaDTO> contarFacetas(Specification<Product> spec, String dimension);
+
+    /**
+     * Descuenta stock de varios productos con un UPDATE condicional por producto
+     * ({@code stock = stock - q WHERE id = ? AND stock >= q}) enviados en un solo lote JDBC.
+     * Devuelve el stock resultante de los productos actualizados; los que no tenían stock
+     * suficiente (o no existen) no aparecen en el resultado y quedan sin modificar.
+     */
+    Map<Long, Integer> descontarStock(Map<Long, Integer> cantidades);
+
+    /**
+     * Suma a cada producto su variación de stock (positiva o negativa) en un solo lote JDBC,
+     * sin dejar ningún stock por debajo de cero. Devuelve el stock resultante de los productos
+     * actualizados; los que quedarían en negativo (o no existen) no aparecen y quedan sin modificar.
+     * Las filas se bloquean (SELECT ... FOR UPDATE) antes del lote, de modo que el resultado no depende
+     * de que el driver informe las filas de cada sentencia ({@code Statement.SUCCESS_NO_INFO}).
+     */
+    Map<Long, Integer> ajustarStock(Map<Long, Integer> variaciones);
+}
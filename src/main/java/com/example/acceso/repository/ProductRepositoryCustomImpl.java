@@ -0,0 +1,175 @@
+package com.example.acceso.repository;
+
+import com.example.acceso.dto.FacetaDTO;
+import com.example.acceso.dto.ProductoCatalogoDTO;
+import com.example.acceso.model.Brand;
+import com.example.acceso.model.Category;
+import com.example.acceso.model.Genero;
+import com.example.acceso.model.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.Session;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    private static final String SQL_AJUSTAR_STOCK =
+            "UPDATE productos SET stock = stock + ?, fecha_actualizacion = CURRENT_TIMESTAMP " +
+            "WHERE id = ? AND stock + ? >= 0";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ProductoCatalogoDTO> buscarCatalogo(Specification<Product> spec, int limite) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductoCatalogoDTO> query = cb.createQuery(ProductoCatalogoDTO.class);
+        Root<Product> root = query.from(Product.class);
+        Join<Product, Category> category = root.join("category");
+        Join<Product, Brand> brand = root.join("brand");
+
+        query.select(cb.construct(ProductoCatalogoDTO.class,
+                root.get("id"),
+                root.get("nombre"),
+                root.get("imagen"),
+                root.get("precio"),
+                root.get("descuento"),
+                root.get("destacado"),
+                root.get("stock"),
+                root.get("stockMinimo"),
+                root.get("genero"),
+                category.get("id"),
+                category.get("nombre"),
+                brand.get("id"),
+                brand.get("nombre")));
+
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(cb.desc(root.get("id")));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limite)
+                .getResultList();
+    }
+
+    @Override
+    public List<FacetaDTO> contarFacetas(Specification<Product> spec, String dimension) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<Product> root = query.from(Product.class);
+        Expression<Long> cantidad = cb.count(root);
+
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+
+        switch (dimension) {
+            case "genero" -> {
+                Path<Genero> genero = root.get("genero");
+                query.multiselect(genero, cantidad).groupBy(genero);
+            }
+            case "categoria" -> {
+                Join<Product, Category> category = root.join("category");
+                query.multiselect(category.get("id"), category.get("nombre"), cantidad)
+                        .groupBy(category.get("id"), category.get("nombre"));
+            }
+            case "marca" -> {
+                Join<Product, Brand> brand = root.join("brand");
+                query.multiselect(brand.get("id"), brand.get("nombre"), cantidad)
+                        .groupBy(brand.get("id"), brand.get("nombre"));
+            }
+            default -> throw new IllegalArgumentException("Dimensión de faceta no válida: " + dimension);
+        }
+        query.orderBy(cb.desc(cantidad));
+
+        return entityManager.createQuery(query).getResultList().stream()
+                .map(fila -> {
+                    if (fila[0] instanceof Genero genero) {
+                        return new FacetaDTO(genero.name(), genero.getDescripcion(), (Long) fila[1]);
+                    }
+                    return new FacetaDTO(String.valueOf(fila[0]), (String) fila[1], (Long) fila[2]);
+                })
+                .toList();
+    }
+
+    @Override
+    public Map<Long, Integer> descontarStock(Map<Long, Integer> cantidades) {
+        Map<Long, Integer> variaciones = new HashMap<>();
+        cantidades.forEach((id, cantidad) -> variaciones.put(id, -cantidad));
+        return ajustarStock(variaciones);
+    }
+
+    @Override
+    public Map<Long, Integer> ajustarStock(Map<Long, Integer> variaciones) {
+        if (variaciones.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<Long> ids = new ArrayList<>(variaciones.keySet());
+
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            // Se leen y bloquean las filas antes del lote (en orden de ID, sin interbloqueos entre ventas):
+            // así se sabe el resultado de cada UPDATE aunque el driver no informe filas por sentencia
+            Map<Long, Integer> stockAnterior = new HashMap<>();
+            String marcadores = String.join(",", Collections.nCopies(ids.size(), "?"));
+            try (PreparedStatement select = connection.prepareStatement(
+                    "SELECT id, stock FROM productos WHERE id IN (" + marcadores + ") ORDER BY id FOR UPDATE")) {
+                for (int i = 0; i < ids.size(); i++) {
+                    select.setLong(i + 1, ids.get(i));
+                }
+                try (ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        stockAnterior.put(rs.getLong(1), rs.getInt(2));
+                    }
+                }
+            }
+
+            Map<Long, Integer> stockResultante = new HashMap<>();
+            try (PreparedStatement update = connection.prepareStatement(SQL_AJUSTAR_STOCK)) {
+                for (Long id : ids) {
+                    int variacion = variaciones.get(id);
+                    update.setInt(1, variacion);
+                    update.setLong(2, id);
+                    update.setInt(3, variacion);
+                    update.addBatch();
+                }
+                int[] filas = update.executeBatch();
+                for (int i = 0; i < filas.length; i++) {
+                    Long id = ids.get(i);
+                    Integer anterior = stockAnterior.get(id);
+                    if (anterior == null) {
+                        continue; // No existe
+                    }
+                    int variacion = variaciones.get(id);
+                    // SUCCESS_NO_INFO (lotes reescritos por el driver): con la fila bloqueada, el UPDATE
+                    // condicional se aplicó si y solo si el stock leído cumplía la condición
+                    boolean aplicado = filas[i] == Statement.SUCCESS_NO_INFO
+                            ? anterior + variacion >= 0
+                            : filas[i] > 0;
+                    if (aplicado) {
+                        stockResultante.put(id, anterior + variacion);
+                    }
+                }
+            }
+            return stockResultante;
+        });
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.acceso.repository;
+
+import com.example.acceso.dto.CatalogoFiltro;
+import com.example.acceso.model.Genero;
+import com.example.acceso.model.Product;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+
+/**
+ * Criterios reutilizables para consultar productos con JPA Criteria.
+ * Cada método devuelve un criterio que se combina con {@code and(...)}.
+ */
+public final class ProductSpecifications {
+
+    private ProductSpecifications() {
+    }
+
+    // ===================== Criterios simples =====================
+
+    public static Specification<Product> todos() {
+        return (root, query, cb) -> cb.conjunction();
+    }
+
+    public static Specification<Product> conIds(Collection<Long> ids) {
+        return (root, query, cb) -> root.get("id").in(ids);
+    }
+
+    /** Texto en el nombre o la descripción, sin distinguir mayúsculas */
+    public static Specification<Product> conTexto(String texto) {
+        return (root, query, cb) -> {
+            String patron = "%" + texto.trim().toLowerCase() + "%";
+            return cb.or(cb.like(cb.lower(root.get("nombre")), patron),
+                    cb.like(cb.lower(root.get("descripcion")), patron));
+        };
+    }
+
+    public static Specification<Product> conEstado(Integer estado) {
+        return (root, query, cb) -> cb.equal(root.get("estado"), estado);
+    }
+
+    public static Specification<Product> conGenero(Genero genero) {
+        return (root, query, cb) -> cb.equal(root.get("genero"), genero);
+    }
+
+    public static Specification<Product> conCategoriaId(Long categoriaId) {
+        return (root, query, cb) -> cb.equal(root.get("category").get("id"), categoriaId);
+    }
+
+    public static Specification<Product> conCategoriaNombre(String nombre) {
+        return (root, query, cb) -> cb.equal(
+                cb.lower(root.get("category").get("nombre")), nombre.trim().toLowerCase());
+    }
+
+    public static Specification<Product> conMarcaId(Long marcaId) {
+        return (root, query, cb) -> cb.equal(root.get("brand").get("id"), marcaId);
+    }
+
+    public static Specification<Product> conMarcaNombre(String nombre) {
+        return (root, query, cb) -> cb.equal(
+                cb.lower(root.get("brand").get("nombre")), nombre.trim().toLowerCase());
+    }
+
+    public static Specification<Product> precioDesde(BigDecimal minimo) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("precio"), minimo);
+    }
+
+    public static Specification<Product> precioHasta(BigDecimal maximo) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("precio"), maximo);
+    }
+
+    public static Specification<Product> enOferta() {
+        return (root, query, cb) -> cb.greaterThan(root.get("descuento"), BigDecimal.ZERO);
+    }
+
+    public static Specification<Product> destacados() {
+        return (root, query, cb) -> cb.isTrue(root.get("destacado"));
+    }
+
+    public static Specification<Product> conStock() {
+        return (root, query, cb) -> cb.greaterThan(root.get("stock"), 0);
+    }
+
+    /** Keyset: productos posteriores al cursor en orden de ID descendente */
+    public static Specification<Product> idMenorQue(Long cursor) {
+        return (root, query, cb) -> cb.lessThan(root.get("id"), cursor);
+    }
+
+    // ===================== Catálogo =====================
+
+    /**
+     * Construye el criterio completo del catálogo público (solo productos activos).
+     * La dimensión indicada en {@code excluir} ("genero", "categoria" o "marca") se omite,
+     * lo que permite calcular los conteos de esa faceta sin que se filtre a sí misma.
+     */
+    public static Specification<Product> catalogo(CatalogoFiltro filtro, String excluir) {
+        Specification<Product> spec = conEstado(1);
+
+        if (filtro.getGenero() != null && !"genero".equals(excluir)) {
+            spec = spec.and(conGenero(filtro.getGenero()));
+        }
+        if (!"categoria".equals(excluir)) {
+            if (filtro.getCategoriaId() != null) {
+                spec = spec.and(conCategoriaId(filtro.getCategoriaId()));
+            } else if (tieneTexto(filtro.getCategoriaNombre())) {
+                spec = spec.and(conCategoriaNombre(filtro.getCategoriaNombre()));
+            }
+        }
+        if (!"marca".equals(excluir)) {
+            if (filtro.getMarcaId() != null) {
+                spec = spec.and(conMarcaId(filtro.getMarcaId()));
+            } else if (tieneTexto(filtro.getMarcaNombre())) {
+                spec = spec.and(conMarcaNombre(filtro.getMarcaNombre()));
+            }
+        }
+        if (filtro.getPrecioMin() != null) {
+            spec = spec.and(precioDesde(filtro.getPrecioMin()));
+        }
+        if (filtro.getPrecioMax() != null) {
+            spec = spec.and(precioHasta(filtro.getPrecioMax()));
+        }
+        if (Boolean.TRUE.equals(filtro.getEnOferta())) {
+            spec = spec.and(enOferta());
+        }
+        if (Boolean.TRUE.equals(filtro.getDestacado())) {
+            spec = spec.and(destacados());
+        }
+        if (Boolean.TRUE.equals(filtro.getConStock())) {
+            spec = spec.and(conStock());
+        }
+        return spec;
+    }
+
+    private static boolean tieneTexto(String valor) {
+        return valor != null && !valor.trim().isEmpty();
+    }
+}
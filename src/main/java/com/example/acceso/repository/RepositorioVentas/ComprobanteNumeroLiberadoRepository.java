@@ -0,0 +1,29 @@
+package com.example.acceso.repository.RepositorioVentas;
+
+import com.example.acceso.model.EntidadesVenta.ComprobanteNumeroLiberado;
+import com.example.acceso.model.EnumVentas.TipoComprobante;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.stereotype.Repository;
+
+import jakarta.persistence.LockModeType;
+import java.util.Optional;
+
+@Repository
+public interface ComprobanteNumeroLiberadoRepository extends JpaRepository<ComprobanteNumeroLiberado, Long> {
+
+    /**
+     * Menor número liberado de la serie, bloqueado para que solo una venta lo reutilice
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<ComprobanteNumeroLiberado> findFirstByTipoComprobanteAndSerieOrderByNumeroAsc(
+        TipoComprobante tipoComprobante,
+        String serie
+    );
+
+    // Consulta sin bloqueo (solo para visualizar el siguiente número)
+    Optional<ComprobanteNumeroLiberado> findTopByTipoComprobanteAndSerieOrderByNumeroAsc(
+        TipoComprobante tipoComprobante,
+        String serie
+    );
+}
@@ -0,0 +1,31 @@
+package com.example.acceso.repository.RepositorioVentas;
+
+import com.example.acceso.model.EntidadesVenta.ComprobanteNumeroReservado;
+import com.example.acceso.model.EnumVentas.TipoComprobante;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ComprobanteNumeroReservadoRepository extends JpaRepository<ComprobanteNumeroReservado, Long> {
+
+    /**
+     * Quita la reserva de un número. Devuelve 0 si ya no existía (la venta o la conciliación la tomó antes)
+     */
+    @Modifying
+    @Query("DELETE FROM ComprobanteNumeroReservado r " +
+           "WHERE r.tipoComprobante = :tipo AND r.serie = :serie AND r.numero = :numero")
+    int eliminar(
+        @Param("tipo") TipoComprobante tipo,
+        @Param("serie") String serie,
+        @Param("numero") Long numero
+    );
+
+    // Reservas de ventas que no se confirmaron a tiempo (conciliación)
+    List<ComprobanteNumeroReservado> findByFechaReservaBeforeOrderByIdAsc(LocalDateTime limite);
+}
@@ -2,12 +2,16 @@ package com.example.acceso.repository.RepositorioVentas;
 
 import com.example.acceso.model.EnumVentas.EstadoCredito;
 import com.example.acceso.model.EntidadesVenta.CreditoVenta;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
@@ -36,6 +40,99 @@ public interface CreditoVentaRepository extends JpaRepository<CreditoVenta, Long
            "ORDER BY c.fechaFin ASC")
     List<CreditoVenta> findCreditosVencidos(@Param("fecha") LocalDate fecha);
 
+    // ===================== Próximos a vencer =====================
+
+    /**
+     * Créditos con saldo cuya fecha de fin llega hasta {@code fechaLimite}, del más próximo al más lejano.
+     * Trae venta y cliente en la misma consulta; las cuotas no se cargan.
+     */
+    @EntityGraph(attributePaths = {"venta", "venta.cliente"})
+    @Query(value = "SELECT c FROM CreditoVenta c " +
+                   "WHERE c.estado = :estado AND c.fechaFin <= :fechaLimite AND c.saldoPendiente > 0 " +
+                   "ORDER BY c.fechaFin ASC, c.id ASC",
+           countQuery = "SELECT COUNT(c) FROM CreditoVenta c " +
+                        "WHERE c.estado = :estado AND c.fechaFin <= :fechaLimite AND c.saldoPendiente > 0")
+    Page<CreditoVenta> findProximosAVencer(@Param("estado") EstadoCredito estado,
+                                           @Param("fechaLimite") LocalDate fechaLimite,
+                                           Pageable pageable);
+
+    // ===================== Actualización masiva de estados (por rangos de ID) =====================
+    // Misma regla que CreditoVenta.actualizarEstado, aplicada solo a créditos ACTIVO
+
+    @Query("SELECT COALESCE(MAX(c.id), 0) FROM CreditoVenta c")
+    Long findMaxId();
+
+    @Modifying
+    @Query("UPDATE CreditoVenta c SET c.estado = :nuevoEstado, c.fechaActualizacion = CURRENT_TIMESTAMP, c.version = c.version + 1 " +
+           "WHERE c.id BETWEEN :desde AND :hasta AND c.estado = :activo AND c.saldoPendiente = 0")
+    int marcarPagados(@Param("desde") Long desde,
+                      @Param("hasta") Long hasta,
+                      @Param("activo") EstadoCredito activo,
+                      @Param("nuevoEstado") EstadoCredito nuevoEstado);
+
+    @Modifying
+    @Query("UPDATE CreditoVenta c SET c.estado = :nuevoEstado, c.fechaActualizacion = CURRENT_TIMESTAMP, c.version = c.version + 1 " +
+           "WHERE c.id BETWEEN :desde AND :hasta AND c.estado = :activo " +
+           "AND c.fechaFin < :hoy AND c.saldoPendiente > 0")
+    int marcarVencidos(@Param("desde") Long desde,
+                       @Param("hasta") Long hasta,
+                       @Param("hoy") LocalDate hoy,
+                       @Param("activo") EstadoCredito activo,
+                       @Param("nuevoEstado") EstadoCredito nuevoEstado);
+
+    // ===================== Pagos =====================
+
+    /**
+     * Suma un pago a los totales del crédito en la misma sentencia (sin leer la fila antes).
+     * El estado se asigna primero para que use el saldo anterior también en MySQL, que evalúa el SET de
+     * izquierda a derecha. Devuelve 0 si el saldo no alcanza.
+     */
+    @Modifying
+    @Query("UPDATE CreditoVenta c SET " +
+           "c.estado = CASE WHEN c.saldoPendiente - :monto = 0 THEN :pagado ELSE c.estado END, " +
+           "c.montoPagado = c.montoPagado + :monto, " +
+           "c.saldoPendiente = c.saldoPendiente - :monto, " +
+           "c.fechaActualizacion = CURRENT_TIMESTAMP, c.version = c.version + 1 " +
+           "WHERE c.id = :id AND c.saldoPendiente >= :monto")
+    int aplicarPago(@Param("id") Long id,
+                    @Param("monto") BigDecimal monto,
+                    @Param("pagado") EstadoCredito pagado);
+
+    @Query("SELECT c.montoPagado AS montoPagado, c.saldoPendiente AS saldoPendiente, c.estado AS estado " +
+           "FROM CreditoVenta c WHERE c.id = :id")
+    TotalesCredito findTotalesById(@Param("id") Long id);
+
+    interface TotalesCredito {
+        BigDecimal getMontoPagado();
+        BigDecimal getSaldoPendiente();
+        EstadoCredito getEstado();
+    }
+
+    // ===================== Reportes =====================
+
+    /**
+     * Totales de todos los créditos en una sola consulta agregada
+     */
+    @Query("SELECT COUNT(c) AS totalCreditos, " +
+           "COALESCE(SUM(CASE WHEN c.estado = 'ACTIVO' THEN 1 ELSE 0 END), 0) AS creditosActivos, " +
+           "COALESCE(SUM(CASE WHEN c.estado = 'PAGADO' THEN 1 ELSE 0 END), 0) AS creditosPagados, " +
+           "COALESCE(SUM(CASE WHEN c.estado = 'VENCIDO' THEN 1 ELSE 0 END), 0) AS creditosVencidos, " +
+           "COALESCE(SUM(c.montoConInteres), 0) AS montoTotal, " +
+           "COALESCE(SUM(c.montoPagado), 0) AS montoPagado, " +
+           "COALESCE(SUM(c.saldoPendiente), 0) AS saldoPendiente " +
+           "FROM CreditoVenta c")
+    ResumenCreditos resumirCreditos();
+
+    interface ResumenCreditos {
+        Long getTotalCreditos();
+        Long getCreditosActivos();
+        Long getCreditosPagados();
+        Long getCreditosVencidos();
+        BigDecimal getMontoTotal();
+        BigDecimal getMontoPagado();
+        BigDecimal getSaldoPendiente();
+    }
+
     // ===================== Carga optimizada con relaciones =====================
 
     @EntityGraph(attributePaths = {"venta", "venta.cliente", "cuotas"})
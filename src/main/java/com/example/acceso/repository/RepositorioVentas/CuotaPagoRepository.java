@@ -1,7 +1,9 @@
 package com.example.acceso.repository.RepositorioVentas;
 
 import com.example.acceso.model.EntidadesVenta.CuotaPago;
+import com.example.acceso.model.EnumVentas.EstadoCuota;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -16,4 +18,37 @@ public interface CuotaPagoRepository extends JpaRepository<CuotaPago, Long> {
     @Query("SELECT c FROM CuotaPago c WHERE c.fechaVencimiento < :fecha " +
            "AND c.estado IN ('PENDIENTE', 'PARCIAL')")
     List<CuotaPago> findCuotasVencidas(@Param("fecha") LocalDate fecha);
+
+    // ===================== Secuencia de IDs (tabla secuencias_id, ver CuotaPago) =====================
+
+    @Query(value = "SELECT siguiente FROM secuencias_id WHERE entidad = 'cuotas_pago'", nativeQuery = true)
+    Long findSecuenciaId();
+
+    @Modifying
+    @Query(value = "UPDATE secuencias_id SET siguiente = :minimo " +
+                   "WHERE entidad = 'cuotas_pago' AND siguiente < :minimo", nativeQuery = true)
+    int adelantarSecuenciaId(@Param("minimo") long minimo);
+
+    @Modifying
+    @Query(value = "INSERT INTO secuencias_id (entidad, siguiente) VALUES ('cuotas_pago', :siguiente)", nativeQuery = true)
+    int crearSecuenciaId(@Param("siguiente") long siguiente);
+
+    // ===================== Actualización masiva de estados (por rangos de ID) =====================
+
+    @Query("SELECT COALESCE(MAX(c.id), 0) FROM CuotaPago c")
+    Long findMaxId();
+
+    /**
+     * Marca VENCIDA las cuotas sin pagos cuya fecha de vencimiento ya pasó.
+     * Las cuotas con pago parcial se mantienen en PARCIAL (misma regla que {@code CuotaPago.actualizarEstado}).
+     */
+    @Modifying
+    @Query("UPDATE CuotaPago c SET c.estado = :vencida, c.fechaActualizacion = CURRENT_TIMESTAMP, c.version = c.version + 1 " +
+           "WHERE c.id BETWEEN :desde AND :hasta AND c.estado = :pendiente " +
+           "AND c.fechaVencimiento < :hoy AND c.montoPagado = 0 AND c.saldoPendiente > 0")
+    int marcarVencidas(@Param("desde") Long desde,
+                       @Param("hasta") Long hasta,
+                       @Param("hoy") LocalDate hoy,
+                       @Param("pendiente") EstadoCuota pendiente,
+                       @Param("vencida") EstadoCuota vencida);
 }
\ No newline at end of file
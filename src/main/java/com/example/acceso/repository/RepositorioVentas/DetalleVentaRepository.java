@@ -1,6 +1,7 @@
 package com.example.acceso.repository.RepositorioVentas;
 
 import com.example.acceso.model.EntidadesVenta.DetalleVenta;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -24,4 +25,18 @@ public interface DetalleVentaRepository extends JpaRepository<DetalleVenta, Long
            "GROUP BY dv.producto " +
            "ORDER BY totalVendido DESC")
     List<Object[]> findTop5ProductosMasVendidosPorCategoria(@Param("categoriaNombre") String categoriaNombre);
-}
\ No newline at end of file
+
+    /**
+     * Igual que la anterior pero devuelve solo los IDs (para resolverlos desde el catálogo en memoria)
+     */
+    @Query("SELECT dv.producto.id " +
+           "FROM DetalleVenta dv " +
+           "JOIN dv.venta v " +
+           "WHERE v.estado != 'ANULADA' " +
+           "AND dv.producto.category.nombre = :categoriaNombre " +
+           "AND dv.producto.estado = 1 " +
+           "GROUP BY dv.producto.id " +
+           "ORDER BY SUM(dv.cantidad) DESC")
+    List<Long> findIdsProductosMasVendidosPorCategoria(@Param("categoriaNombre") String categoriaNombre,
+                                                       Pageable pageable);
+}
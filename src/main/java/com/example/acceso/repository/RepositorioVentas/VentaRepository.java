@@ -1,17 +1,26 @@
 package com.example.acceso.repository.RepositorioVentas;
 
+import com.example.acceso.dto.VentaRow;
 import com.example.acceso.model.EnumVentas.EstadoVenta;
+import com.example.acceso.model.EnumVentas.FormaPago;
 import com.example.acceso.model.EntidadesVenta.Venta;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface VentaRepository extends JpaRepository<Venta, Long> {
@@ -63,6 +72,67 @@ public interface VentaRepository extends JpaRepository<Venta, Long> {
         @Param("estado") EstadoVenta estado
     );
 
+    /**
+     * Ventas agrupadas por día, forma de pago y estado
+     */
+    @Query("SELECT CAST(v.fechaCreacion AS LocalDate) AS fecha, v.formaPago AS formaPago, v.estado AS estado, " +
+           "COUNT(v) AS cantidad, COALESCE(SUM(v.total), 0) AS montoTotal " +
+           "FROM Venta v GROUP BY CAST(v.fechaCreacion AS LocalDate), v.formaPago, v.estado")
+    List<ResumenVentas> resumirPorDiaFormaPagoYEstado();
+
+    /**
+     * Ventas de un rango agrupadas por forma de pago y estado (sin fecha)
+     */
+    @Query("SELECT v.formaPago AS formaPago, v.estado AS estado, " +
+           "COUNT(v) AS cantidad, COALESCE(SUM(v.total), 0) AS montoTotal FROM Venta v " +
+           "WHERE v.fechaCreacion BETWEEN :inicio AND :fin GROUP BY v.formaPago, v.estado")
+    List<ResumenVentas> resumirPorFormaPagoYEstado(
+        @Param("inicio") LocalDateTime inicio,
+        @Param("fin") LocalDateTime fin
+    );
+
+    interface ResumenVentas {
+        LocalDate getFecha();
+        FormaPago getFormaPago();
+        EstadoVenta getEstado();
+        Long getCantidad();
+        BigDecimal getMontoTotal();
+    }
+
+    // ===================== LISTADOS PLANOS (PROYECCIONES) =====================
+
+    /**
+     * Página de ventas con los datos del cliente en una sola consulta.
+     * {@code busqueda} es un patrón LIKE en minúsculas o null.
+     */
+    @Query(value = "SELECT new com.example.acceso.dto.VentaRow(v.id, v.tipoComprobante, v.serie, v.numero, " +
+                   "c.id, c.nombre, c.documento, v.formaPago, v.total, v.estado, v.usuarioCreacion, v.fechaCreacion) " +
+                   "FROM Venta v JOIN v.cliente c " +
+                   "WHERE :busqueda IS NULL OR LOWER(c.nombre) LIKE :busqueda OR c.documento LIKE :busqueda " +
+                   "OR LOWER(CONCAT(v.serie, '-', v.numero)) LIKE :busqueda",
+           countQuery = "SELECT COUNT(v) FROM Venta v JOIN v.cliente c " +
+                   "WHERE :busqueda IS NULL OR LOWER(c.nombre) LIKE :busqueda OR c.documento LIKE :busqueda " +
+                   "OR LOWER(CONCAT(v.serie, '-', v.numero)) LIKE :busqueda")
+    Page<VentaRow> buscarFilas(@Param("busqueda") String busqueda, Pageable pageable);
+
+    /**
+     * Ventas de un rango como flujo para exportar sin cargar todo el resultado en memoria
+     * (en MySQL requiere {@code useCursorFetch=true} en la URL para respetar el fetch size).
+     * Debe consumirse dentro de una transacción y cerrarse al terminar.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.example.acceso.dto.VentaRow(v.id, v.tipoComprobante, v.serie, v.numero, " +
+           "c.id, c.nombre, c.documento, v.formaPago, v.total, v.estado, v.usuarioCreacion, v.fechaCreacion) " +
+           "FROM Venta v JOIN v.cliente c " +
+           "WHERE v.fechaCreacion BETWEEN :inicio AND :fin ORDER BY v.fechaCreacion")
+    Stream<VentaRow> streamFilasPorRangoFechas(
+        @Param("inicio") LocalDateTime inicio,
+        @Param("fin") LocalDateTime fin
+    );
+
     // ===================== CARGA OPTIMIZADA CON RELACIONES =====================
 
     @EntityGraph(attributePaths = {"cliente", "detalles", "detalles.producto"})
@@ -0,0 +1,49 @@
+package com.example.acceso.repository.RepositorioVentas;
+
+import com.example.acceso.model.EntidadesVenta.VentaResumenDiario;
+import com.example.acceso.model.EnumVentas.EstadoVenta;
+import com.example.acceso.model.EnumVentas.FormaPago;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface VentaResumenDiarioRepository extends JpaRepository<VentaResumenDiario, Long> {
+
+    /**
+     * Suma (o resta, con valores negativos) sobre la fila del día en una sola sentencia.
+     * Devuelve 0 si la fila aún no existe.
+     */
+    @Modifying
+    @Query("UPDATE VentaResumenDiario r " +
+           "SET r.cantidad = r.cantidad + :cantidad, r.montoTotal = r.montoTotal + :monto " +
+           "WHERE r.fecha = :fecha AND r.formaPago = :formaPago AND r.estado = :estado")
+    int acumular(
+        @Param("fecha") LocalDate fecha,
+        @Param("formaPago") FormaPago formaPago,
+        @Param("estado") EstadoVenta estado,
+        @Param("cantidad") long cantidad,
+        @Param("monto") BigDecimal monto
+    );
+
+    boolean existsByFechaAndFormaPagoAndEstado(LocalDate fecha, FormaPago formaPago, EstadoVenta estado);
+
+    List<VentaResumenDiario> findByFechaBetween(LocalDate inicio, LocalDate fin);
+
+    @Query("SELECT COALESCE(SUM(r.montoTotal), 0) FROM VentaResumenDiario r " +
+           "WHERE r.fecha BETWEEN :inicio AND :fin AND r.estado <> :estado")
+    BigDecimal sumMontoByFechaBetweenAndEstadoNot(
+        @Param("inicio") LocalDate inicio,
+        @Param("fin") LocalDate fin,
+        @Param("estado") EstadoVenta estado
+    );
+
+    @Query("SELECT COALESCE(SUM(r.cantidad), 0) FROM VentaResumenDiario r WHERE r.estado <> :estado")
+    Long sumCantidadByEstadoNot(@Param("estado") EstadoVenta estado);
+}
@@ -0,0 +1,100 @@
+package com.example.acceso.service;
+
+import com.example.acceso.repository.BloqueoTareaRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+
+/**
+ * Ejecución exclusiva de tareas programadas entre varias instancias de la aplicación, usando
+ * la tabla {@code tareas_bloqueo}. Tomar y liberar el bloqueo se confirma en transacciones propias,
+ * para que las demás instancias lo vean antes de que empiece la tarea.
+ */
+@Slf4j
+@Service
+public class BloqueoTareaService {
+
+    private static final long ESPERA_MS = 1_000;
+
+    private final BloqueoTareaRepository bloqueoRepository;
+    private final TransactionTemplate nuevaTransaccion;
+    private final String instancia = ManagementFactory.getRuntimeMXBean().getName(); // pid@host
+
+    public BloqueoTareaService(BloqueoTareaRepository bloqueoRepository, PlatformTransactionManager transactionManager) {
+        this.bloqueoRepository = bloqueoRepository;
+        this.nuevaTransaccion = new TransactionTemplate(transactionManager);
+        this.nuevaTransaccion.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Ejecuta la tarea si ninguna otra instancia la tiene bloqueada. {@code duracionMaxima} es el
+     * tiempo tras el cual el bloqueo se considera abandonado.
+     *
+     * @return el resultado de la tarea, o {@code null} si otra instancia la está ejecutando
+     */
+    public <T> T ejecutar(String nombre, Duration duracionMaxima, Supplier<T> tarea) {
+        if (!tomar(nombre, duracionMaxima)) {
+            log.info("⏭️ Tarea '{}' en ejecución en otra instancia; se omite", nombre);
+            return null;
+        }
+        return ejecutarYLiberar(nombre, tarea);
+    }
+
+    /**
+     * Como {@link #ejecutar}, pero si otra instancia tiene la tarea espera a que la termine (o a que
+     * su bloqueo venza) y la ejecuta después. Para tareas de arranque que deben acabar antes de
+     * atender peticiones; la tarea debe comprobar de nuevo si aún hace falta.
+     */
+    public <T> T esperarYEjecutar(String nombre, Duration duracionMaxima, Supplier<T> tarea) {
+        boolean avisado = false;
+        while (!tomar(nombre, duracionMaxima)) {
+            if (!avisado) {
+                log.info("⏳ Tarea '{}' en ejecución en otra instancia; esperando a que termine", nombre);
+                avisado = true;
+            }
+            try {
+                Thread.sleep(ESPERA_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Espera de la tarea '" + nombre + "' interrumpida", e);
+            }
+        }
+        return ejecutarYLiberar(nombre, tarea);
+    }
+
+    private <T> T ejecutarYLiberar(String nombre, Supplier<T> tarea) {
+        try {
+            return tarea.get();
+        } finally {
+            nuevaTransaccion.executeWithoutResult(status ->
+                    bloqueoRepository.liberar(nombre, instancia, LocalDateTime.now()));
+        }
+    }
+
+    private boolean tomar(String nombre, Duration duracionMaxima) {
+        crearSiNoExiste(nombre);
+        LocalDateTime ahora = LocalDateTime.now();
+        Integer tomado = nuevaTransaccion.execute(status ->
+                bloqueoRepository.tomar(nombre, instancia, ahora, ahora.plus(duracionMaxima)));
+        return tomado != null && tomado > 0;
+    }
+
+    private void crearSiNoExiste(String nombre) {
+        if (bloqueoRepository.existsById(nombre)) {
+            return;
+        }
+        try {
+            nuevaTransaccion.executeWithoutResult(status -> bloqueoRepository.crear(nombre, LocalDateTime.now()));
+        } catch (DataIntegrityViolationException e) {
+            // Otra instancia la creó al mismo tiempo
+        }
+    }
+}
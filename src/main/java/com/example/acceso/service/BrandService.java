@@ -1,21 +1,37 @@
 package com.example.acceso.service;
 
+import com.example.acceso.dto.DataTablesRequest;
+import com.example.acceso.dto.DataTablesResponse;
 import com.example.acceso.model.Brand;
 import com.example.acceso.repository.BrandRepository;
+import com.example.acceso.repository.DataTablesQuery;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 public class BrandService {
 
+    private static final DataTablesQuery<Brand> TABLA_MARCAS = new DataTablesQuery<>(
+            Map.of(
+                    "id", "id",
+                    "nombre", "nombre",
+                    "estado", "estado"),
+            List.of("nombre", "descripcion"),
+            Sort.by(Sort.Direction.DESC, "id"));
+
     private final BrandRepository brandRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public BrandService(BrandRepository brandRepository) {
+    public BrandService(BrandRepository brandRepository, ApplicationEventPublisher eventPublisher) {
         this.brandRepository = brandRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     // ===================== Listados =====================
@@ -29,6 +45,14 @@ public class BrandService {
         return brandRepository.findAllWithImages();
     }
 
+    /**
+     * Página de la tabla de administración (DataTables server-side), sin eliminados
+     */
+    @Transactional(readOnly = true)
+    public DataTablesResponse<Brand> listarParaDataTables(DataTablesRequest request) {
+        return TABLA_MARCAS.ejecutar(request, brandRepository, DataTablesQuery.noEliminados());
+    }
+
     // ===================== Guardar / Actualizar =====================
     @Transactional
     public Brand guardarMarca(Brand marca) {
@@ -63,7 +87,11 @@ public class BrandService {
                 marca.setEstado(1);
             }
 
-            return brandRepository.save(marca);
+            Brand guardada = brandRepository.save(marca);
+            // El catálogo público y la cabecera del sitio muestran la marca
+            eventPublisher.publishEvent(CatalogoModificadoEvent.completo());
+            eventPublisher.publishEvent(new SitioModificadoEvent());
+            return guardada;
 
         } catch (DataIntegrityViolationException e) {
             String msg = e.getMessage().toLowerCase();
@@ -107,6 +135,7 @@ public class BrandService {
                 .orElseThrow(() -> new MarcaException("Marca no encontrada"));
         marca.setEstado(2);
         brandRepository.save(marca);
+        eventPublisher.publishEvent(new SitioModificadoEvent());
     }
 
     @Transactional
@@ -114,6 +143,7 @@ public class BrandService {
         if (id == null || id <= 0) return Optional.empty();
         return obtenerMarcaPorId(id).map(m -> {
             m.setEstado(m.getEstado() == 1 ? 0 : 1);
+            eventPublisher.publishEvent(new SitioModificadoEvent());
             return brandRepository.save(m);
         });
     }
@@ -164,6 +194,7 @@ public class BrandService {
                 .orElseThrow(() -> new MarcaException("Marca no encontrada con ID: " + id));
 
         marca.setImagen(imagenUrl.trim());
+        eventPublisher.publishEvent(new SitioModificadoEvent());
         return brandRepository.save(marca);
     }
 
@@ -181,6 +212,7 @@ public class BrandService {
                 .orElseThrow(() -> new MarcaException("Marca no encontrada con ID: " + id));
 
         marca.setImagen(null);
+        eventPublisher.publishEvent(new SitioModificadoEvent());
         return brandRepository.save(marca);
     }
 
@@ -0,0 +1,532 @@
+package com.example.acceso.service;
+
+import com.example.acceso.repository.ProductRepository;
+import com.example.acceso.repository.ProductRepository.DocumentoBusqueda;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.CharArraySet;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.StopFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.es.SpanishAnalyzer;
+import org.apache.lucene.analysis.es.SpanishLightStemFilter;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.ngram.EdgeNGramTokenFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.*;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Índice de texto completo de los productos (Lucene, en {@code busqueda.indice.path}).
+ *
+ * Cada producto se indexa con su nombre, descripción, marca y categoría. Los campos de texto usan
+ * un analizador en español (minúsculas, sin tildes, sin palabras vacías y con raíces: "zapatillas"
+ * y "zapatilla" coinciden); nombre y marca se indexan además sin raíces, con tolerancia a una letra
+ * de diferencia ("adidsa"), y por prefijos de 2 a 20 letras para buscar mientras se escribe. Los
+ * resultados se ordenan por relevancia, pesando más el nombre que la marca, la categoría y la descripción.
+ *
+ * Los cambios llegan por {@link CatalogoModificadoEvent} tras el commit y se ven en la siguiente
+ * búsqueda (lector casi en tiempo real, sin esperar a confirmar en disco). Al arrancar se vuelve a
+ * indexar todo en segundo plano; mientras el índice no está listo, la búsqueda usa la base de datos.
+ *
+ * Cada instancia de la aplicación tiene su propio índice y solo recibe los eventos de sus propias
+ * transacciones. Los productos modificados en otra instancia se recogen cada
+ * {@code busqueda.indice.sincronizar-ms} por su {@code fecha_actualizacion}, comparada siempre con la
+ * hora de la base de datos; solo se reescriben los que cambiaron en algún campo indexado (no por stock).
+ * Hasta entonces el índice local puede ir por detrás, por eso {@link ProductService} vuelve a filtrar
+ * el estado en la base de datos al cargar los resultados. Renombrar una marca o categoría no cambia sus productos: en las
+ * demás instancias se ve al reiniciar o con {@code POST /productos/api/buscar/reindexar}.
+ */
+@Slf4j
+@Service
+public class BusquedaProductosService {
+
+    private static final int TAMANIO_PAGINA_INDEXADO = 1000;
+    // Cambia cuando cambian los campos del índice: un índice de otra versión se reconstruye antes de usarse
+    private static final String VERSION_INDICE = "2";
+    private static final String CLAVE_VERSION = "version";
+    private static final int PREFIJO_MAXIMO = 20;
+    private static final int EXPANSIONES_MAXIMAS = 10;
+    // La sincronización vuelve a mirar este tiempo hacia atrás: cubre transacciones que confirman
+    // después de la consulta con una fecha anterior
+    private static final Duration MARGEN_SINCRONIZACION = Duration.ofMinutes(1);
+
+    // Campos del índice
+    private static final String ID = "id";
+    private static final String INACTIVO = "inactivo"; // Solo en productos con estado distinto de 1
+    private static final String GENERACION = "generacion";
+    private static final String HUELLA = "huella";
+    private static final String NOMBRE = "nombre";
+    private static final String DESCRIPCION = "descripcion";
+    private static final String MARCA = "marca";
+    private static final String CATEGORIA = "categoria";
+    private static final String NOMBRE_PLANO = "nombre_plano";
+    private static final String MARCA_PLANO = "marca_plano";
+    private static final String NOMBRE_PREFIJO = "nombre_prefijo";
+    private static final String MARCA_PREFIJO = "marca_prefijo";
+
+    private final ProductRepository productRepository;
+    private final Path rutaIndice;
+
+    private final Analyzer analizadorTexto = new AnalizadorEspanol(true, false);
+    private final Analyzer analizadorPlano = new AnalizadorEspanol(false, false);
+    private final Analyzer analizadorPrefijos = new AnalizadorEspanol(false, true);
+
+    private Directory directorio;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+
+    private final AtomicBoolean pendienteRefresco = new AtomicBoolean();
+    private final AtomicBoolean reindexando = new AtomicBoolean();
+    private volatile boolean listo;
+    // Marca de la última reindexación: lo que quede con una generación anterior ya no existe
+    private volatile long generacion = System.currentTimeMillis();
+    // Productos modificados después de esta fecha (hora de la base de datos) aún pueden faltar en el
+    // índice; null hasta la primera reindexación
+    private volatile LocalDateTime ultimaSincronizacion;
+
+    // Métricas
+    private final AtomicLong busquedas = new AtomicLong();
+    private final AtomicLong nanosBusqueda = new AtomicLong();
+    private final AtomicLong documentosActualizados = new AtomicLong();
+    private final AtomicLong busquedasSinIndice = new AtomicLong();
+    private final AtomicLong documentosSincronizados = new AtomicLong();
+    private final AtomicLong documentosSinCambios = new AtomicLong();
+
+    public BusquedaProductosService(ProductRepository productRepository,
+                                    @Value("${busqueda.indice.path:${java.io.tmpdir}/sneakerfever/indice-productos}") String rutaIndice) {
+        this.productRepository = productRepository;
+        this.rutaIndice = Paths.get(rutaIndice).toAbsolutePath().normalize();
+    }
+
+    @PostConstruct
+    public void abrir() throws IOException {
+        directorio = FSDirectory.open(rutaIndice);
+        IndexWriterConfig config = new IndexWriterConfig(new PerFieldAnalyzerWrapper(analizadorTexto,
+                Map.of(NOMBRE_PLANO, analizadorPlano, MARCA_PLANO, analizadorPlano,
+                        NOMBRE_PREFIJO, analizadorPrefijos, MARCA_PREFIJO, analizadorPrefijos)));
+        config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        writer = new IndexWriter(directorio, config);
+        searcherManager = new SearcherManager(writer, null);
+        // Un índice de esta versión construido en un arranque anterior se usa mientras se actualiza
+        listo = writer.getDocStats().numDocs > 0 && VERSION_INDICE.equals(versionIndice());
+    }
+
+    private String versionIndice() {
+        Iterable<Map.Entry<String, String>> datos = writer.getLiveCommitData();
+        if (datos != null) {
+            for (Map.Entry<String, String> dato : datos) {
+                if (CLAVE_VERSION.equals(dato.getKey())) {
+                    return dato.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    @PreDestroy
+    public void cerrar() throws IOException {
+        searcherManager.close();
+        writer.close(); // Confirma los cambios pendientes
+        directorio.close();
+    }
+
+    // ===================== Búsqueda =====================
+
+    /**
+     * IDs de los productos que coinciden con el texto, del más al menos relevante.
+     *
+     * @param soloActivos solo productos con estado 1
+     * @return vacío si el índice aún no está construido (el llamador usa la base de datos)
+     */
+    public Optional<List<Long>> buscarIds(String texto, boolean soloActivos, int limite) {
+        if (!listo) {
+            busquedasSinIndice.incrementAndGet();
+            return Optional.empty();
+        }
+        long inicio = System.nanoTime();
+        try {
+            Query consulta = construirConsulta(texto, soloActivos, false);
+            if (consulta == null) {
+                return Optional.of(List.of()); // Solo palabras vacías
+            }
+            if (pendienteRefresco.getAndSet(false)) {
+                searcherManager.maybeRefreshBlocking();
+            }
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopDocs resultados = buscar(searcher, consulta, limite);
+                if (resultados.scoreDocs.length < limite) {
+                    // No se llenó el límite con coincidencias exactas: se admiten errores de escritura
+                    Query conErrores = construirConsulta(texto, soloActivos, true);
+                    if (!conErrores.equals(consulta)) {
+                        resultados = buscar(searcher, conErrores, limite);
+                    }
+                }
+                StoredFields campos = searcher.storedFields();
+                List<Long> ids = new ArrayList<>(resultados.scoreDocs.length);
+                for (ScoreDoc resultado : resultados.scoreDocs) {
+                    ids.add(Long.valueOf(campos.document(resultado.doc, Set.of(ID)).get(ID)));
+                }
+                return Optional.of(ids);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("⚠️ Búsqueda en el índice fallida, se usa la base de datos: {}", e.getMessage());
+            busquedasSinIndice.incrementAndGet();
+            return Optional.empty();
+        } finally {
+            busquedas.incrementAndGet();
+            nanosBusqueda.addAndGet(System.nanoTime() - inicio);
+        }
+    }
+
+    /**
+     * Sin contar todas las coincidencias: en cuanto hay {@code limite} resultados se saltan los
+     * documentos que ya no pueden entrar entre los mejores
+     */
+    private static TopDocs buscar(IndexSearcher searcher, Query consulta, int limite) throws IOException {
+        return searcher.search(consulta, new TopScoreDocCollectorManager(limite, null, limite));
+    }
+
+    /**
+     * Cada palabra debe coincidir en algún campo: por su raíz en nombre, marca, categoría o
+     * descripción; como prefijo del nombre o la marca; o, {@code conErrores}, con una letra de
+     * diferencia (como mucho {@value #EXPANSIONES_MAXIMAS} términos parecidos). Todas son consultas de
+     * términos con su puntuación máxima por bloque, así que Lucene puede saltar los documentos que no
+     * entran en el límite.
+     */
+    private Query construirConsulta(String texto, boolean soloActivos, boolean conErrores) throws IOException {
+        BooleanQuery.Builder consulta = new BooleanQuery.Builder();
+        boolean conPalabras = false;
+        for (String palabra : analizar(analizadorPlano, texto)) {
+            List<String> raiz = analizar(analizadorTexto, palabra);
+            if (raiz.isEmpty()) {
+                continue; // Palabra vacía ("de", "para"...)
+            }
+            BooleanQuery.Builder grupo = new BooleanQuery.Builder();
+            grupo.add(new BoostQuery(new TermQuery(new Term(NOMBRE, raiz.get(0))), 4f), BooleanClause.Occur.SHOULD);
+            grupo.add(new BoostQuery(new TermQuery(new Term(MARCA, raiz.get(0))), 3f), BooleanClause.Occur.SHOULD);
+            grupo.add(new BoostQuery(new TermQuery(new Term(CATEGORIA, raiz.get(0))), 2f), BooleanClause.Occur.SHOULD);
+            grupo.add(new TermQuery(new Term(DESCRIPCION, raiz.get(0))), BooleanClause.Occur.SHOULD);
+            if (palabra.length() >= 2) {
+                String prefijo = palabra.substring(0, Math.min(palabra.length(), PREFIJO_MAXIMO));
+                grupo.add(new BoostQuery(new TermQuery(new Term(NOMBRE_PREFIJO, prefijo)), 2f), BooleanClause.Occur.SHOULD);
+                grupo.add(new BoostQuery(new TermQuery(new Term(MARCA_PREFIJO, prefijo)), 1.5f), BooleanClause.Occur.SHOULD);
+            }
+            if (conErrores && palabra.length() >= 4) {
+                // Con dos letras de diferencia, solo construir el autómata costaba 7-15 ms por palabra
+                grupo.add(new FuzzyQuery(new Term(NOMBRE_PLANO, palabra), 1, 1, EXPANSIONES_MAXIMAS, true), BooleanClause.Occur.SHOULD);
+                grupo.add(new FuzzyQuery(new Term(MARCA_PLANO, palabra), 1, 1, EXPANSIONES_MAXIMAS, true), BooleanClause.Occur.SHOULD);
+            }
+            consulta.add(grupo.build(), BooleanClause.Occur.MUST);
+            conPalabras = true;
+        }
+        if (!conPalabras) {
+            return null;
+        }
+        if (soloActivos) {
+            // Excluir los pocos inactivos en vez de filtrar por los muchos activos: así los recorre la
+            // consulta de texto, que puede saltar bloques, y no el filtro
+            consulta.add(new TermQuery(new Term(INACTIVO, "1")), BooleanClause.Occur.MUST_NOT);
+        }
+        return consulta.build();
+    }
+
+    private static List<String> analizar(Analyzer analizador, String texto) throws IOException {
+        List<String> terminos = new ArrayList<>();
+        try (TokenStream tokens = analizador.tokenStream(NOMBRE, texto)) {
+            CharTermAttribute termino = tokens.addAttribute(CharTermAttribute.class);
+            tokens.reset();
+            while (tokens.incrementToken()) {
+                terminos.add(termino.toString());
+            }
+            tokens.end();
+        }
+        return terminos;
+    }
+
+    // ===================== Indexado =====================
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alModificarCatalogo(CatalogoModificadoEvent event) {
+        if (event.esCompleto()) {
+            reindexarEnSegundoPlano(); // Cambió el nombre de una marca o categoría
+            return;
+        }
+        if (event.getProductoIds().isEmpty()) {
+            return;
+        }
+        try {
+            indexar(event.getProductoIds());
+        } catch (IOException | RuntimeException e) {
+            log.warn("⚠️ No se pudieron actualizar los productos {} en el índice de búsqueda: {}",
+                    event.getProductoIds(), e.getMessage());
+        }
+    }
+
+    /**
+     * Una consulta para todos los productos; los que ya no existen se quitan del índice. Los que no
+     * cambiaron en ningún campo indexado (una venta solo cambia el stock) no se reescriben.
+     */
+    private void indexar(Set<Long> productoIds) throws IOException {
+        Map<Long, DocumentoBusqueda> productos = productRepository.findDocumentosBusquedaPorIds(productoIds).stream()
+                .collect(Collectors.toMap(DocumentoBusqueda::getId, p -> p));
+        Map<Long, Long> indexadas = huellasIndexadas(productos.keySet());
+        int escritos = 0;
+        for (Long productoId : productoIds) {
+            Term id = new Term(ID, productoId.toString());
+            DocumentoBusqueda producto = productos.get(productoId);
+            if (producto == null) {
+                writer.deleteDocuments(id);
+                escritos++;
+            } else if (!Objects.equals(indexadas.get(productoId), huella(producto))) {
+                writer.updateDocument(id, documento(producto, generacion));
+                escritos++;
+            }
+        }
+        documentosActualizados.addAndGet(escritos);
+        documentosSinCambios.addAndGet(productoIds.size() - escritos);
+        if (escritos > 0) {
+            pendienteRefresco.set(true);
+        }
+    }
+
+    /** Huella guardada en el índice de cada producto; los que no están indexados no aparecen */
+    private Map<Long, Long> huellasIndexadas(Set<Long> productoIds) throws IOException {
+        if (pendienteRefresco.getAndSet(false)) {
+            searcherManager.maybeRefreshBlocking(); // Comparar con lo último escrito
+        }
+        Map<Long, Long> huellas = new HashMap<>();
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            StoredFields campos = searcher.storedFields();
+            for (Long productoId : productoIds) {
+                TopDocs encontrado = searcher.search(new TermQuery(new Term(ID, productoId.toString())), 1);
+                if (encontrado.scoreDocs.length > 0) {
+                    Document doc = campos.document(encontrado.scoreDocs[0].doc, Set.of(HUELLA));
+                    if (doc.getField(HUELLA) != null) {
+                        huellas.put(productoId, doc.getField(HUELLA).numericValue().longValue());
+                    }
+                }
+            }
+            return huellas;
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reindexarEnSegundoPlano() {
+        Thread.ofPlatform().name("indice-productos").daemon().start(this::reindexar);
+    }
+
+    /**
+     * Vuelve a indexar todos los productos por páginas de ID. Los documentos se reemplazan uno a uno
+     * (el índice anterior sigue respondiendo) y al final se quitan los de productos que ya no existen.
+     *
+     * @return productos indexados, o -1 si ya había una reindexación en curso
+     */
+    public int reindexar() {
+        if (!reindexando.compareAndSet(false, true)) {
+            return -1;
+        }
+        long inicio = System.nanoTime();
+        try {
+            LocalDateTime desde = productRepository.ahoraEnBaseDeDatos();
+            long nueva = Math.max(generacion + 1, System.currentTimeMillis());
+            generacion = nueva;
+            int total = 0;
+            long ultimoId = 0;
+            List<DocumentoBusqueda> pagina;
+            do {
+                pagina = productRepository.findDocumentosBusqueda(ultimoId, PageRequest.of(0, TAMANIO_PAGINA_INDEXADO));
+                for (DocumentoBusqueda producto : pagina) {
+                    writer.updateDocument(new Term(ID, producto.getId().toString()), documento(producto, nueva));
+                    ultimoId = producto.getId();
+                }
+                total += pagina.size();
+            } while (pagina.size() == TAMANIO_PAGINA_INDEXADO);
+
+            writer.deleteDocuments(LongPoint.newRangeQuery(GENERACION, Long.MIN_VALUE, nueva - 1));
+            writer.setLiveCommitData(Map.of(CLAVE_VERSION, VERSION_INDICE).entrySet());
+            writer.commit();
+            searcherManager.maybeRefreshBlocking();
+            ultimaSincronizacion = desde;
+            listo = true;
+            log.info("🔎 Índice de búsqueda con {} productos construido en {} ms", total,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+            return total;
+        } catch (IOException | RuntimeException e) {
+            log.error("❌ Error al construir el índice de búsqueda de productos: {}", e.getMessage());
+            return 0;
+        } finally {
+            reindexando.set(false);
+        }
+    }
+
+    /**
+     * Vuelve a indexar los productos modificados desde la última sincronización, en cualquier
+     * instancia. Los de esta instancia ya llegaron por evento y los que solo cambiaron de stock no
+     * cambian su huella: ninguno se reescribe.
+     */
+    @Scheduled(fixedDelayString = "${busqueda.indice.sincronizar-ms:30000}",
+            initialDelayString = "${busqueda.indice.sincronizar-ms:30000}")
+    public void sincronizar() {
+        if (!listo || reindexando.get() || ultimaSincronizacion == null) {
+            return;
+        }
+        try {
+            LocalDateTime ahora = productRepository.ahoraEnBaseDeDatos();
+            List<Long> ids = productRepository.findIdsActualizadosDesde(ultimaSincronizacion.minus(MARGEN_SINCRONIZACION));
+            for (int i = 0; i < ids.size(); i += TAMANIO_PAGINA_INDEXADO) {
+                indexar(new HashSet<>(ids.subList(i, Math.min(i + TAMANIO_PAGINA_INDEXADO, ids.size()))));
+            }
+            documentosSincronizados.addAndGet(ids.size());
+            ultimaSincronizacion = ahora;
+        } catch (IOException | RuntimeException e) {
+            log.warn("⚠️ No se pudo sincronizar el índice de búsqueda con la base de datos: {}", e.getMessage());
+        }
+    }
+
+    /** Los cambios ya son visibles en las búsquedas; esto solo los guarda en disco */
+    @Scheduled(fixedDelayString = "${busqueda.indice.commit-ms:60000}")
+    public void confirmar() {
+        try {
+            if (writer.hasUncommittedChanges()) {
+                writer.commit();
+            }
+        } catch (IOException e) {
+            log.warn("⚠️ No se pudo confirmar el índice de búsqueda: {}", e.getMessage());
+        }
+    }
+
+    private static Document documento(DocumentoBusqueda producto, long generacion) {
+        Document doc = new Document();
+        doc.add(new StringField(ID, producto.getId().toString(), Field.Store.YES));
+        if (!Integer.valueOf(1).equals(producto.getEstado())) {
+            doc.add(new StringField(INACTIVO, "1", Field.Store.NO));
+        }
+        doc.add(new LongPoint(GENERACION, generacion));
+        doc.add(new StoredField(HUELLA, huella(producto)));
+        doc.add(new TextField(NOMBRE, producto.getNombre(), Field.Store.NO));
+        doc.add(new TextField(NOMBRE_PLANO, producto.getNombre(), Field.Store.NO));
+        doc.add(new TextField(NOMBRE_PREFIJO, producto.getNombre(), Field.Store.NO));
+        if (producto.getDescripcion() != null) {
+            doc.add(new TextField(DESCRIPCION, producto.getDescripcion(), Field.Store.NO));
+        }
+        doc.add(new TextField(MARCA, producto.getMarca(), Field.Store.NO));
+        doc.add(new TextField(MARCA_PLANO, producto.getMarca(), Field.Store.NO));
+        doc.add(new TextField(MARCA_PREFIJO, producto.getMarca(), Field.Store.NO));
+        doc.add(new TextField(CATEGORIA, producto.getCategoria(), Field.Store.NO));
+        return doc;
+    }
+
+    /** Resume los campos indexados: si no cambia, el documento tampoco */
+    private static long huella(DocumentoBusqueda producto) {
+        return Objects.hash(producto.getNombre(), producto.getDescripcion(), producto.getMarca(),
+                producto.getCategoria(), Integer.valueOf(1).equals(producto.getEstado()));
+    }
+
+    // ===================== Métricas =====================
+
+    public Map<String, Object> metricas() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        long total = busquedas.get();
+        metricas.put("listo", listo);
+        metricas.put("reindexando", reindexando.get());
+        metricas.put("documentos", writer.getDocStats().numDocs);
+        metricas.put("busquedas", total);
+        metricas.put("busquedasSinIndice", busquedasSinIndice.get());
+        metricas.put("promedioMs", total == 0 ? 0.0 : nanosBusqueda.get() / 1_000_000.0 / total);
+        metricas.put("documentosActualizados", documentosActualizados.get());
+        metricas.put("documentosSincronizados", documentosSincronizados.get());
+        metricas.put("documentosSinCambios", documentosSinCambios.get());
+        metricas.put("ultimaSincronizacion", String.valueOf(ultimaSincronizacion));
+        return metricas;
+    }
+
+    // ===================== Analizador =====================
+
+    /**
+     * Minúsculas y sin tildes; con {@code raices}, además sin palabras vacías y reducido a la raíz
+     * (SpanishLightStemFilter). Las palabras vacías se quitan antes de eliminar las tildes. Con
+     * {@code prefijos}, cada palabra se indexa por sus prefijos de 2 a {@value #PREFIJO_MAXIMO} letras.
+     */
+    private static final class AnalizadorEspanol extends Analyzer {
+
+        private static final CharArraySet PALABRAS_VACIAS = SpanishAnalyzer.getDefaultStopSet();
+
+        private final boolean raices;
+        private final boolean prefijos;
+
+        AnalizadorEspanol(boolean raices, boolean prefijos) {
+            this.raices = raices;
+            this.prefijos = prefijos;
+        }
+
+        @Override
+        protected TokenStreamComponents createComponents(String campo) {
+            StandardTokenizer origen = new StandardTokenizer();
+            TokenStream tokens = new LowerCaseFilter(origen);
+            if (raices) {
+                tokens = new StopFilter(tokens, PALABRAS_VACIAS);
+            }
+            tokens = new ASCIIFoldingFilter(tokens);
+            if (raices) {
+                tokens = new SpanishLightStemFilter(tokens);
+            }
+            if (prefijos) {
+                tokens = new EdgeNGramTokenFilter(tokens, 2, PREFIJO_MAXIMO, false);
+            }
+            return new TokenStreamComponents(origen, tokens);
+        }
+
+        @Override
+        protected TokenStream normalize(String campo, TokenStream entrada) {
+            return new ASCIIFoldingFilter(new LowerCaseFilter(entrada));
+        }
+    }
+}
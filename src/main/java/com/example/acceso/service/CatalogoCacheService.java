@@ -0,0 +1,401 @@
+package com.example.acceso.service;
+
+import com.example.acceso.dto.ProductoCatalogoDTO;
+import com.example.acceso.model.Genero;
+import com.example.acceso.repository.ProductRepository;
+import com.example.acceso.repository.ProductSpecifications;
+import com.example.acceso.repository.RepositorioVentas.DetalleVentaRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Copia en memoria de los productos activos para las páginas públicas.
+ *
+ * Cada versión del catálogo es una {@link Snapshot} inmutable con índices precalculados
+ * (categoría, marca, género, destacados y rebajas). Las lecturas nunca consultan la base de datos;
+ * las escrituras publican un {@link CatalogoModificadoEvent} por transacción y, tras el commit, se
+ * leen en una consulta solo los productos afectados y se publica una nueva versión que reutiliza
+ * los índices que no tocan. El ranking de más vendidos se recalcula aparte, periódicamente y solo
+ * si hubo ventas.
+ *
+ * Los eventos solo llegan de las transacciones de esta instancia. Los productos modificados en otra
+ * (stock, precio, estado...) se recogen cada {@code catalogo.sincronizar-ms} por su
+ * {@code fecha_actualizacion}, comparada con la hora de la base de datos, igual que en
+ * {@link BusquedaProductosService}.
+ */
+@Slf4j
+@Service
+public class CatalogoCacheService {
+
+    private static final String CATEGORIA_MAS_VENDIDAS = "Zapatillas";
+    private static final int LIMITE_MAS_VENDIDAS = 5;
+    private static final int TAMANIO_LOTE_SINCRONIZACION = 1000;
+    // La sincronización vuelve a mirar este tiempo hacia atrás: cubre transacciones que confirman
+    // después de la consulta con una fecha anterior
+    private static final Duration MARGEN_SINCRONIZACION = Duration.ofMinutes(1);
+
+    private final ProductRepository productRepository;
+    private final DetalleVentaRepository detalleVentaRepository;
+
+    private volatile Snapshot snapshot;
+    private final AtomicBoolean masVendidasPendiente = new AtomicBoolean();
+    private LocalDateTime ultimaSincronizacion; // Protegida por el monitor de la instancia
+
+    public CatalogoCacheService(ProductRepository productRepository, DetalleVentaRepository detalleVentaRepository) {
+        this.productRepository = productRepository;
+        this.detalleVentaRepository = detalleVentaRepository;
+    }
+
+    // ===================== Lectura =====================
+
+    public Snapshot actual() {
+        Snapshot actual = snapshot;
+        if (actual == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    reconstruir();
+                }
+                actual = snapshot;
+            }
+        }
+        return actual;
+    }
+
+    // ===================== Invalidación =====================
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alModificarCatalogo(CatalogoModificadoEvent event) {
+        if (event.esVenta()) {
+            masVendidasPendiente.set(true);
+        }
+        if (!event.esCompleto() && event.getProductoIds().isEmpty()) {
+            return;
+        }
+        try {
+            synchronized (this) {
+                if (snapshot == null) {
+                    return; // Se construirá completo en la primera lectura
+                }
+                if (event.esCompleto()) {
+                    reconstruir();
+                } else {
+                    refrescarProductos(event.getProductoIds());
+                }
+            }
+        } catch (Exception e) {
+            // Si falla el refresco, se descarta la copia para que la próxima lectura la reconstruya
+            log.warn("⚠️ No se pudo refrescar el catálogo en memoria: {}", e.getMessage());
+            snapshot = null;
+        }
+    }
+
+    /**
+     * Aplica los productos modificados desde la última sincronización, en cualquier instancia. Los
+     * cambios de otra instancia pueden ser ventas, así que también se marca el ranking de más vendidos.
+     */
+    @Scheduled(fixedDelayString = "${catalogo.sincronizar-ms:30000}",
+            initialDelayString = "${catalogo.sincronizar-ms:30000}")
+    public void sincronizar() {
+        try {
+            synchronized (this) {
+                if (snapshot == null || ultimaSincronizacion == null) {
+                    return; // Se construirá completo en la primera lectura
+                }
+                LocalDateTime ahora = productRepository.ahoraEnBaseDeDatos();
+                List<Long> ids = productRepository.findIdsActualizadosDesde(ultimaSincronizacion.minus(MARGEN_SINCRONIZACION));
+                for (int i = 0; i < ids.size(); i += TAMANIO_LOTE_SINCRONIZACION) {
+                    refrescarProductos(new HashSet<>(ids.subList(i, Math.min(i + TAMANIO_LOTE_SINCRONIZACION, ids.size()))));
+                }
+                if (!ids.isEmpty()) {
+                    masVendidasPendiente.set(true);
+                }
+                ultimaSincronizacion = ahora;
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ No se pudo sincronizar el catálogo en memoria con la base de datos: {}", e.getMessage());
+        }
+    }
+
+    /** Recalcula el ranking de más vendidos si hubo ventas desde la última vez */
+    @Scheduled(fixedDelayString = "${catalogo.mas-vendidas.refresco-ms:60000}", initialDelay = 60_000)
+    public void refrescarMasVendidas() {
+        if (!masVendidasPendiente.getAndSet(false)) {
+            return;
+        }
+        try {
+            List<Long> ids = cargarMasVendidas();
+            synchronized (this) {
+                if (snapshot != null) {
+                    snapshot = snapshot.conMasVendidas(ids);
+                }
+            }
+        } catch (Exception e) {
+            masVendidasPendiente.set(true);
+            log.warn("⚠️ No se pudo recalcular el ranking de más vendidos: {}", e.getMessage());
+        }
+    }
+
+    private void reconstruir() {
+        LocalDateTime desde = productRepository.ahoraEnBaseDeDatos();
+        List<ProductoCatalogoDTO> productos = productRepository.buscarCatalogo(
+                ProductSpecifications.conEstado(1), Integer.MAX_VALUE);
+
+        long version = snapshot != null ? snapshot.getVersion() + 1 : 1;
+        masVendidasPendiente.set(false);
+        snapshot = new Snapshot(version, productos, cargarMasVendidas());
+        ultimaSincronizacion = desde;
+        log.info("🗂️ Catálogo en memoria v{} construido con {} productos", version, productos.size());
+    }
+
+    /** Una consulta para todos los productos del evento; los que no vuelven están inactivos o eliminados */
+    private void refrescarProductos(Set<Long> productoIds) {
+        List<ProductoCatalogoDTO> activos = productRepository.buscarCatalogo(
+                ProductSpecifications.conEstado(1).and(ProductSpecifications.conIds(productoIds)), productoIds.size());
+        snapshot = snapshot.conCambios(productoIds, activos);
+    }
+
+    private List<Long> cargarMasVendidas() {
+        return detalleVentaRepository.findIdsProductosMasVendidosPorCategoria(
+                CATEGORIA_MAS_VENDIDAS, PageRequest.of(0, LIMITE_MAS_VENDIDAS));
+    }
+
+    // ===================== Snapshot =====================
+
+    /**
+     * Versión inmutable del catálogo activo con sus índices. Todas las listas se ordenan por ID.
+     */
+    public static final class Snapshot {
+
+        private static final Comparator<ProductoCatalogoDTO> POR_ID = Comparator.comparing(ProductoCatalogoDTO::getId);
+
+        private final long version;
+        private final Map<Long, ProductoCatalogoDTO> porId;
+        private final List<ProductoCatalogoDTO> todos;
+        private final List<ProductoCatalogoDTO> destacados;
+        private final List<ProductoCatalogoDTO> enRebaja;
+        private final Map<Genero, List<ProductoCatalogoDTO>> porGenero;
+        private final Map<Long, List<ProductoCatalogoDTO>> porCategoria;
+        private final Map<String, List<ProductoCatalogoDTO>> porNombreCategoria;
+        private final Map<Long, List<ProductoCatalogoDTO>> porMarca;
+        private final List<Long> idsMasVendidas;
+        private final List<ProductoCatalogoDTO> masVendidas;
+
+        Snapshot(long version, Collection<ProductoCatalogoDTO> productos, List<Long> idsMasVendidas) {
+            this.version = version;
+
+            Map<Long, ProductoCatalogoDTO> ordenados = new TreeMap<>();
+            productos.forEach(p -> ordenados.put(p.getId(), p));
+            this.porId = Collections.unmodifiableMap(new HashMap<>(ordenados));
+            this.todos = List.copyOf(ordenados.values());
+
+            List<ProductoCatalogoDTO> destacados = new ArrayList<>();
+            List<ProductoCatalogoDTO> enRebaja = new ArrayList<>();
+            Map<Genero, List<ProductoCatalogoDTO>> porGenero = new EnumMap<>(Genero.class);
+            Map<Long, List<ProductoCatalogoDTO>> porCategoria = new HashMap<>();
+            Map<String, List<ProductoCatalogoDTO>> porNombreCategoria = new HashMap<>();
+            Map<Long, List<ProductoCatalogoDTO>> porMarca = new HashMap<>();
+
+            for (ProductoCatalogoDTO p : todos) {
+                if (esDestacado(p)) {
+                    destacados.add(p);
+                }
+                if (estaEnRebaja(p)) {
+                    enRebaja.add(p);
+                }
+                porGenero.computeIfAbsent(p.getGenero(), g -> new ArrayList<>()).add(p);
+                porCategoria.computeIfAbsent(p.getCategoryId(), id -> new ArrayList<>()).add(p);
+                porNombreCategoria.computeIfAbsent(normalizar(p.getCategoryNombre()), n -> new ArrayList<>()).add(p);
+                porMarca.computeIfAbsent(p.getBrandId(), id -> new ArrayList<>()).add(p);
+            }
+
+            this.destacados = List.copyOf(destacados);
+            this.enRebaja = List.copyOf(enRebaja);
+            this.porGenero = inmutable(porGenero);
+            this.porCategoria = inmutable(porCategoria);
+            this.porNombreCategoria = inmutable(porNombreCategoria);
+            this.porMarca = inmutable(porMarca);
+            this.idsMasVendidas = List.copyOf(idsMasVendidas);
+            this.masVendidas = resolver(idsMasVendidas, porId);
+        }
+
+        private Snapshot(long version, Map<Long, ProductoCatalogoDTO> porId, List<ProductoCatalogoDTO> todos,
+                         List<ProductoCatalogoDTO> destacados, List<ProductoCatalogoDTO> enRebaja,
+                         Map<Genero, List<ProductoCatalogoDTO>> porGenero,
+                         Map<Long, List<ProductoCatalogoDTO>> porCategoria,
+                         Map<String, List<ProductoCatalogoDTO>> porNombreCategoria,
+                         Map<Long, List<ProductoCatalogoDTO>> porMarca, List<Long> idsMasVendidas) {
+            this.version = version;
+            this.porId = porId;
+            this.todos = todos;
+            this.destacados = destacados;
+            this.enRebaja = enRebaja;
+            this.porGenero = porGenero;
+            this.porCategoria = porCategoria;
+            this.porNombreCategoria = porNombreCategoria;
+            this.porMarca = porMarca;
+            this.idsMasVendidas = List.copyOf(idsMasVendidas);
+            this.masVendidas = resolver(idsMasVendidas, porId);
+        }
+
+        /**
+         * Nueva versión con los productos {@code ids} reemplazados por {@code activos} (los que no
+         * aparecen se quitan). Solo se rehacen las listas de las claves de índice que contenían o
+         * contendrán alguno de esos productos; el resto se comparten con esta versión.
+         */
+        Snapshot conCambios(Set<Long> ids, Collection<ProductoCatalogoDTO> activos) {
+            List<ProductoCatalogoDTO> anteriores = ids.stream().map(porId::get).filter(Objects::nonNull).toList();
+
+            Map<Long, ProductoCatalogoDTO> nuevoPorId = new HashMap<>(porId);
+            ids.forEach(nuevoPorId::remove);
+            activos.forEach(p -> nuevoPorId.put(p.getId(), p));
+
+            return new Snapshot(version + 1,
+                    Collections.unmodifiableMap(nuevoPorId),
+                    reemplazar(todos, ids, activos),
+                    actualizarLista(destacados, ids, anteriores, activos, Snapshot::esDestacado),
+                    actualizarLista(enRebaja, ids, anteriores, activos, Snapshot::estaEnRebaja),
+                    actualizarIndice(porGenero, ids, anteriores, activos, ProductoCatalogoDTO::getGenero),
+                    actualizarIndice(porCategoria, ids, anteriores, activos, ProductoCatalogoDTO::getCategoryId),
+                    actualizarIndice(porNombreCategoria, ids, anteriores, activos, p -> normalizar(p.getCategoryNombre())),
+                    actualizarIndice(porMarca, ids, anteriores, activos, ProductoCatalogoDTO::getBrandId),
+                    idsMasVendidas);
+        }
+
+        /** Misma versión de productos con otro ranking de más vendidos */
+        Snapshot conMasVendidas(List<Long> ids) {
+            return new Snapshot(version + 1, porId, todos, destacados, enRebaja, porGenero, porCategoria,
+                    porNombreCategoria, porMarca, ids);
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public List<ProductoCatalogoDTO> todos() {
+            return todos;
+        }
+
+        public ProductoCatalogoDTO porId(Long id) {
+            return porId.get(id);
+        }
+
+        public List<ProductoCatalogoDTO> destacados() {
+            return destacados;
+        }
+
+        public List<ProductoCatalogoDTO> enRebaja() {
+            return enRebaja;
+        }
+
+        public List<ProductoCatalogoDTO> porGenero(Genero genero) {
+            return porGenero.getOrDefault(genero, List.of());
+        }
+
+        public List<ProductoCatalogoDTO> porCategoria(Long categoriaId) {
+            return porCategoria.getOrDefault(categoriaId, List.of());
+        }
+
+        public List<ProductoCatalogoDTO> porNombreCategoria(String nombre) {
+            return porNombreCategoria.getOrDefault(normalizar(nombre), List.of());
+        }
+
+        public List<ProductoCatalogoDTO> porMarca(Long marcaId) {
+            return porMarca.getOrDefault(marcaId, List.of());
+        }
+
+        /** Productos más vendidos de la categoría "Zapatillas" (orden por unidades vendidas) */
+        public List<ProductoCatalogoDTO> masVendidas() {
+            return masVendidas;
+        }
+
+        private static boolean esDestacado(ProductoCatalogoDTO p) {
+            return Boolean.TRUE.equals(p.getDestacado());
+        }
+
+        private static boolean estaEnRebaja(ProductoCatalogoDTO p) {
+            return p.getDescuento() != null && p.getDescuento().compareTo(BigDecimal.ZERO) > 0;
+        }
+
+        private static List<ProductoCatalogoDTO> resolver(List<Long> ids, Map<Long, ProductoCatalogoDTO> porId) {
+            return ids.stream().map(porId::get).filter(Objects::nonNull).toList();
+        }
+
+        /** Quita de la lista los productos {@code ids}, añade {@code nuevos} y mantiene el orden por ID */
+        private static List<ProductoCatalogoDTO> reemplazar(List<ProductoCatalogoDTO> lista, Set<Long> ids,
+                                                            Collection<ProductoCatalogoDTO> nuevos) {
+            List<ProductoCatalogoDTO> resultado = new ArrayList<>(lista.size() + nuevos.size());
+            for (ProductoCatalogoDTO p : lista) {
+                if (!ids.contains(p.getId())) {
+                    resultado.add(p);
+                }
+            }
+            resultado.addAll(nuevos);
+            resultado.sort(POR_ID);
+            return List.copyOf(resultado);
+        }
+
+        private static List<ProductoCatalogoDTO> actualizarLista(List<ProductoCatalogoDTO> lista, Set<Long> ids,
+                                                                 List<ProductoCatalogoDTO> anteriores,
+                                                                 Collection<ProductoCatalogoDTO> activos,
+                                                                 Predicate<ProductoCatalogoDTO> incluye) {
+            List<ProductoCatalogoDTO> nuevos = activos.stream().filter(incluye).toList();
+            if (nuevos.isEmpty() && anteriores.stream().noneMatch(incluye)) {
+                return lista;
+            }
+            return reemplazar(lista, ids, nuevos);
+        }
+
+        private static <K> Map<K, List<ProductoCatalogoDTO>> actualizarIndice(Map<K, List<ProductoCatalogoDTO>> indice,
+                                                                              Set<Long> ids,
+                                                                              List<ProductoCatalogoDTO> anteriores,
+                                                                              Collection<ProductoCatalogoDTO> activos,
+                                                                              Function<ProductoCatalogoDTO, K> clave) {
+            Map<K, List<ProductoCatalogoDTO>> nuevosPorClave = new HashMap<>();
+            anteriores.forEach(p -> nuevosPorClave.putIfAbsent(clave.apply(p), new ArrayList<>()));
+            activos.forEach(p -> nuevosPorClave.computeIfAbsent(clave.apply(p), k -> new ArrayList<>()).add(p));
+
+            Map<K, List<ProductoCatalogoDTO>> copia = new HashMap<>(indice);
+            nuevosPorClave.forEach((k, nuevos) -> {
+                List<ProductoCatalogoDTO> lista = reemplazar(indice.getOrDefault(k, List.of()), ids, nuevos);
+                if (lista.isEmpty()) {
+                    copia.remove(k);
+                } else {
+                    copia.put(k, lista);
+                }
+            });
+            return Collections.unmodifiableMap(copia);
+        }
+
+        private static String normalizar(String texto) {
+            return texto == null ? "" : texto.trim().toLowerCase();
+        }
+
+        private static <K> Map<K, List<ProductoCatalogoDTO>> inmutable(Map<K, List<ProductoCatalogoDTO>> mapa) {
+            Map<K, List<ProductoCatalogoDTO>> copia = new HashMap<>();
+            mapa.forEach((k, v) -> copia.put(k, List.copyOf(v)));
+            return Collections.unmodifiableMap(copia);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.acceso.service;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Evento publicado cuando cambian productos del catálogo (datos, estado o stock).
+ * Se publica uno por transacción con todos los productos afectados; {@link #completo()} solicita
+ * reconstruir el catálogo completo (por ejemplo, al renombrar una categoría o marca).
+ * {@link #porVenta(Collection)} indica además que cambió el ranking de más vendidos.
+ */
+public class CatalogoModificadoEvent {
+
+    private final Set<Long> productoIds; // null: catálogo completo
+    private final boolean venta;
+
+    public CatalogoModificadoEvent(Long productoId) {
+        this(Set.of(productoId), false);
+    }
+
+    private CatalogoModificadoEvent(Set<Long> productoIds, boolean venta) {
+        this.productoIds = productoIds;
+        this.venta = venta;
+    }
+
+    public static CatalogoModificadoEvent completo() {
+        return new CatalogoModificadoEvent(null, false);
+    }
+
+    public static CatalogoModificadoEvent de(Collection<Long> productoIds) {
+        return new CatalogoModificadoEvent(Set.copyOf(productoIds), false);
+    }
+
+    /** Venta registrada o anulada: cambia el stock de sus productos y las unidades vendidas */
+    public static CatalogoModificadoEvent porVenta(Collection<Long> productoIds) {
+        return new CatalogoModificadoEvent(Set.copyOf(productoIds), true);
+    }
+
+    /** Productos afectados (vacío si el evento es completo) */
+    public Set<Long> getProductoIds() {
+        return productoIds != null ? productoIds : Set.of();
+    }
+
+    public boolean esCompleto() {
+        return productoIds == null;
+    }
+
+    public boolean esVenta() {
+        return venta;
+    }
+}
@@ -1,23 +1,39 @@
 package com.example.acceso.service;
 
 
+import com.example.acceso.dto.DataTablesRequest;
+import com.example.acceso.dto.DataTablesResponse;
 import com.example.acceso.model.Category;
 import com.example.acceso.repository.CategoryRepository;
+import com.example.acceso.repository.DataTablesQuery;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 
 @Service
 public class CategoryService {
 
+    private static final DataTablesQuery<Category> TABLA_CATEGORIAS = new DataTablesQuery<>(
+            Map.of(
+                    "id", "id",
+                    "nombre", "nombre",
+                    "estado", "estado"),
+            List.of("nombre", "descripcion"),
+            Sort.by(Sort.Direction.DESC, "id"));
+
     private final CategoryRepository categoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public CategoryService(CategoryRepository categoryRepository) {
+    public CategoryService(CategoryRepository categoryRepository, ApplicationEventPublisher eventPublisher) {
         this.categoryRepository = categoryRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     // ===================== Listados =====================
@@ -31,6 +47,14 @@ public class CategoryService {
         return categoryRepository.findAllByEstadoNot(2);
     }
 
+    /**
+     * Página de la tabla de administración (DataTables server-side), sin eliminados
+     */
+    @Transactional(readOnly = true)
+    public DataTablesResponse<Category> listarParaDataTables(DataTablesRequest request) {
+        return TABLA_CATEGORIAS.ejecutar(request, categoryRepository, DataTablesQuery.noEliminados());
+    }
+
     // ===================== Guardar / Actualizar =====================
     @Transactional
     public Category guardarCategoria(Category categoria) {
@@ -64,7 +88,10 @@ public class CategoryService {
             }
 
             // ===================== Guardar =====================
-            return categoryRepository.save(categoria);
+            Category guardada = categoryRepository.save(categoria);
+            // El catálogo público muestra el nombre de la categoría
+            eventPublisher.publishEvent(CatalogoModificadoEvent.completo());
+            return guardada;
 
         } catch (DataIntegrityViolationException e) {
             String msg = e.getMessage().toLowerCase();
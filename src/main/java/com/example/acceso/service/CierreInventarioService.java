@@ -0,0 +1,371 @@
+package com.example.acceso.service;
+
+import com.example.acceso.dto.ConciliacionInventarioResponse;
+import com.example.acceso.dto.ConciliacionInventarioResponse.Diferencia;
+import com.example.acceso.dto.StockAFechaResponse;
+import com.example.acceso.model.CierreInventario;
+import com.example.acceso.model.EnumInventario.TipoMovimiento;
+import com.example.acceso.model.MovimientoInventario;
+import com.example.acceso.repository.CierreInventarioRepository;
+import com.example.acceso.repository.MovimientoInventarioRepository;
+import com.example.acceso.repository.MovimientoInventarioRepository.Saldo;
+import com.example.acceso.repository.MovimientoInventarioRepository.TramoKardex;
+import com.example.acceso.repository.MovimientoInventarioRepository.TramoMensual;
+import com.example.acceso.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Mantiene la tabla {@code cierres_inventario} (saldo del kardex por producto y mes), responde
+ * "stock de un producto a una fecha" a partir de ella y concilia el stock de los productos con el kardex.
+ */
+@Slf4j
+@Service
+public class CierreInventarioService implements SmartInitializingSingleton {
+
+    private static final Set<TipoMovimiento> TIPOS_ENTRADA = EnumSet.of(TipoMovimiento.ENTRADA, TipoMovimiento.DEVOLUCION);
+    private static final int TAMANIO_LOTE_SALDOS = 1_000;
+    private static final String TAREA_RECONSTRUCCION = "reconstruccion-cierres-inventario";
+    private static final String TAREA_CONCILIACION = "conciliacion-inventario";
+
+    private final CierreInventarioRepository cierreRepository;
+    private final MovimientoInventarioRepository movimientoRepository;
+    private final ProductRepository productRepository;
+    private final BloqueoTareaService bloqueoTareaService;
+    private final TransactionTemplate nuevaTransaccion;
+    private final TransactionTemplate lectura;
+
+    private final Map<Long, LocalDate> mesPreparado = new ConcurrentHashMap<>();
+
+    private volatile ConciliacionInventarioResponse ultimaConciliacion;
+
+    public CierreInventarioService(CierreInventarioRepository cierreRepository,
+                                   MovimientoInventarioRepository movimientoRepository,
+                                   ProductRepository productRepository,
+                                   BloqueoTareaService bloqueoTareaService,
+                                   PlatformTransactionManager transactionManager) {
+        this.cierreRepository = cierreRepository;
+        this.movimientoRepository = movimientoRepository;
+        this.productRepository = productRepository;
+        this.bloqueoTareaService = bloqueoTareaService;
+        this.nuevaTransaccion = new TransactionTemplate(transactionManager);
+        this.nuevaTransaccion.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.lectura = new TransactionTemplate(transactionManager);
+        this.lectura.setReadOnly(true);
+    }
+
+    // ===================== Mantenimiento incremental =====================
+
+    /**
+     * Suma al mes de cada producto los movimientos recién registrados (en el orden en que se
+     * encadenaron sus saldos). Debe llamarse en la transacción que los registró.
+     */
+    @Transactional
+    public void registrar(List<MovimientoInventario> movimientos) {
+        Map<Long, Acumulado> porProducto = new LinkedHashMap<>();
+        for (MovimientoInventario m : movimientos) {
+            LocalDate periodo = periodoDe(m.getFechaMovimiento() != null ? m.getFechaMovimiento() : LocalDateTime.now());
+            Acumulado acumulado = porProducto.computeIfAbsent(m.getProducto().getId(),
+                    id -> new Acumulado(periodo, m.getStockAnterior()));
+            acumulado.agregar(m);
+        }
+
+        porProducto.forEach((productoId, a) -> {
+            if (cierreRepository.acumular(productoId, a.periodo, a.stockFinal, a.entradas, a.salidas, a.movimientos) > 0) {
+                return;
+            }
+            // Fila no preparada (movimientos fuera de una venta): se crea en esta misma transacción.
+            // Si otra la crea a la vez, una de las dos falla por la restricción única
+            cierreRepository.saveAndFlush(nuevaFila(productoId, a.periodo, a.stockInicial));
+            cierreRepository.acumular(productoId, a.periodo, a.stockFinal, a.entradas, a.salidas, a.movimientos);
+        });
+    }
+
+    /**
+     * Crea la fila del mes actual de los productos que aún no la tienen, fuera de la transacción que
+     * registrará sus movimientos: así {@link #registrar} solo actualiza filas y una venta no necesita
+     * una segunda conexión para crearlas. Se recuerda en memoria el último mes preparado de cada producto.
+     */
+    public void prepararFilas(Collection<Long> productoIds) {
+        LocalDate periodo = periodoDe(LocalDateTime.now());
+        List<Long> pendientes = productoIds.stream()
+                .distinct()
+                .filter(id -> !periodo.equals(mesPreparado.get(id)))
+                .toList();
+        if (pendientes.isEmpty()) {
+            return;
+        }
+
+        Set<Long> existentes = cierreRepository.findProductoIdsConPeriodo(periodo, pendientes);
+        for (Long productoId : pendientes) {
+            if (!existentes.contains(productoId)) {
+                Integer stock = productRepository.obtenerStock(productoId);
+                if (stock == null) {
+                    continue; // Producto inexistente: la venta fallará al validarlo
+                }
+                try {
+                    nuevaTransaccion.executeWithoutResult(status ->
+                            cierreRepository.saveAndFlush(nuevaFila(productoId, periodo, stock)));
+                } catch (DataIntegrityViolationException e) {
+                    // Otro registro la creó al mismo tiempo
+                }
+            }
+            mesPreparado.put(productoId, periodo);
+        }
+    }
+
+    /**
+     * Fila del mes partiendo de los acumulados del mes anterior
+     */
+    private CierreInventario nuevaFila(Long productoId, LocalDate periodo, Integer stockInicial) {
+        CierreInventario anterior = cierreRepository
+                .findFirstByProductoIdAndPeriodoLessThanOrderByPeriodoDesc(productoId, periodo)
+                .orElse(null);
+        return CierreInventario.builder()
+                .productoId(productoId)
+                .periodo(periodo)
+                .stockCierre(stockInicial)
+                .entradasAcumuladas(anterior != null ? anterior.getEntradasAcumuladas() : 0L)
+                .salidasAcumuladas(anterior != null ? anterior.getSalidasAcumuladas() : 0L)
+                .build();
+    }
+
+    // ===================== Consultas =====================
+
+    /**
+     * Stock del producto al instante indicado: cierre del último mes terminado antes de esa fecha
+     * más los movimientos posteriores hasta ella (como mucho, un mes de movimientos).
+     * Sin cierres previos se parte del primer movimiento del kardex; sin movimientos, del stock actual.
+     */
+    @Transactional(readOnly = true)
+    public StockAFechaResponse stockAl(Long productoId, LocalDateTime fecha) {
+        if (!productRepository.existsById(productoId)) {
+            throw new RuntimeException("Producto no encontrado con ID: " + productoId);
+        }
+
+        CierreInventario base = cierreRepository
+                .findFirstByProductoIdAndPeriodoLessThanOrderByPeriodoDesc(productoId, periodoDe(fecha))
+                .orElse(null);
+
+        LocalDateTime desde;
+        int stockBase;
+        long entradasBase = 0;
+        long salidasBase = 0;
+
+        if (base != null) {
+            desde = base.getPeriodo().plusMonths(1).atStartOfDay();
+            stockBase = base.getStockCierre();
+            entradasBase = base.getEntradasAcumuladas();
+            salidasBase = base.getSalidasAcumuladas();
+        } else {
+            MovimientoInventario primero = movimientoRepository
+                    .findFirstByProductoIdOrderByFechaMovimientoAscIdAsc(productoId)
+                    .orElse(null);
+            if (primero == null) {
+                return StockAFechaResponse.builder()
+                        .productoId(productoId)
+                        .fecha(fecha)
+                        .stock(productRepository.obtenerStock(productoId))
+                        .entradasAcumuladas(0L)
+                        .salidasAcumuladas(0L)
+                        .movimientosAplicados(0L)
+                        .build();
+            }
+            desde = primero.getFechaMovimiento();
+            stockBase = primero.getStockAnterior();
+        }
+
+        TramoKardex tramo = movimientoRepository.sumarTramo(productoId, desde, fecha, TIPOS_ENTRADA);
+
+        return StockAFechaResponse.builder()
+                .productoId(productoId)
+                .fecha(fecha)
+                .stock((int) (stockBase + tramo.getEntradas() - tramo.getSalidas()))
+                .entradasAcumuladas(entradasBase + tramo.getEntradas())
+                .salidasAcumuladas(salidasBase + tramo.getSalidas())
+                .periodoBase(base != null ? base.getPeriodo() : null)
+                .movimientosAplicados(tramo.getMovimientos())
+                .build();
+    }
+
+    // ===================== Conciliación =====================
+
+    /**
+     * Conciliación nocturna: con varias instancias la ejecuta solo una
+     */
+    @Scheduled(cron = "${inventario.conciliacion.cron:0 30 3 * * *}")
+    public void conciliarProgramado() {
+        bloqueoTareaService.ejecutar(TAREA_CONCILIACION, Duration.ofMinutes(30),
+                () -> lectura.execute(status -> conciliar()));
+    }
+
+    /**
+     * Compara el stock de cada producto con el saldo de su último movimiento y con su último cierre.
+     * Los productos sin movimientos no se revisan. Solo informa; no corrige nada.
+     */
+    @Transactional(readOnly = true)
+    public ConciliacionInventarioResponse conciliar() {
+        Map<Long, Integer> stockKardex = movimientoRepository.findUltimoSaldoPorProducto().stream()
+                .collect(Collectors.toMap(Saldo::getProductoId, Saldo::getStockNuevo));
+        Map<Long, Integer> stockCierre = cierreRepository.findUltimosCierres().stream()
+                .collect(Collectors.toMap(CierreInventario::getProductoId, CierreInventario::getStockCierre));
+
+        List<Diferencia> diferencias = new ArrayList<>();
+        int revisados = 0;
+        for (ProductRepository.StockProducto producto : productRepository.listarStocks()) {
+            Integer kardex = stockKardex.get(producto.getId());
+            if (kardex == null) {
+                continue;
+            }
+            revisados++;
+            Integer cierre = stockCierre.get(producto.getId());
+            if (!kardex.equals(producto.getStock()) || (cierre != null && !kardex.equals(cierre))) {
+                diferencias.add(new Diferencia(producto.getId(), producto.getNombre(), producto.getStock(), kardex, cierre));
+            }
+        }
+
+        ConciliacionInventarioResponse resultado = ConciliacionInventarioResponse.builder()
+                .fechaEjecucion(LocalDateTime.now())
+                .productosRevisados(revisados)
+                .diferencias(diferencias)
+                .build();
+        ultimaConciliacion = resultado;
+
+        if (diferencias.isEmpty()) {
+            log.info("📊 Conciliación de inventario: {} productos sin diferencias", revisados);
+        } else {
+            log.warn("⚠️ Conciliación de inventario: {} de {} productos con diferencias", diferencias.size(), revisados);
+        }
+        return resultado;
+    }
+
+    /** Resultado de la última conciliación en esta instancia, o {@code null} si aún no se ejecutó aquí */
+    public ConciliacionInventarioResponse ultimaConciliacion() {
+        return ultimaConciliacion;
+    }
+
+    // ===================== Reconstrucción =====================
+
+    /**
+     * Se ejecuta antes de que arranque el servidor web: ningún movimiento de esta instancia puede
+     * tocar los cierres mientras se cargan.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        inicializarCierres();
+    }
+
+    /**
+     * Carga el histórico si no hay cierres y ya existen movimientos. Con varias instancias
+     * arrancando a la vez, solo una lo reconstruye; las demás esperan y encuentran los cierres.
+     */
+    public void inicializarCierres() {
+        bloqueoTareaService.esperarYEjecutar(TAREA_RECONSTRUCCION, Duration.ofMinutes(30), () ->
+                nuevaTransaccion.execute(status ->
+                        cierreRepository.count() == 0 && movimientoRepository.count() > 0 ? reconstruir() : 0));
+    }
+
+    /**
+     * Vuelve a calcular todos los cierres a partir del kardex. Borra y vuelve a crear las filas:
+     * un movimiento registrado mientras tanto en otra instancia puede quedar fuera o chocar con la
+     * fila nueva, así que solo debe usarse sin movimientos en curso.
+     *
+     * @return filas creadas, o {@code null} si otra instancia los está reconstruyendo
+     */
+    public Integer reconstruirCierres() {
+        return bloqueoTareaService.ejecutar(TAREA_RECONSTRUCCION, Duration.ofMinutes(30), () ->
+                nuevaTransaccion.execute(status -> reconstruir()));
+    }
+
+    private int reconstruir() {
+        cierreRepository.deleteAllInBatch();
+
+        List<TramoMensual> tramos = movimientoRepository.resumirPorProductoYMes(TIPOS_ENTRADA);
+        Map<Long, Integer> stockPorMovimiento = new HashMap<>();
+        List<Long> ids = tramos.stream().map(TramoMensual::getUltimoId).toList();
+        for (int i = 0; i < ids.size(); i += TAMANIO_LOTE_SALDOS) {
+            movimientoRepository.findSaldosByIdIn(ids.subList(i, Math.min(i + TAMANIO_LOTE_SALDOS, ids.size())))
+                    .forEach(s -> stockPorMovimiento.put(s.getId(), s.getStockNuevo()));
+        }
+
+        // Los tramos vienen ordenados por producto y mes: los acumulados se arrastran mes a mes
+        List<CierreInventario> cierres = new ArrayList<>(tramos.size());
+        Long productoActual = null;
+        long entradas = 0;
+        long salidas = 0;
+        for (TramoMensual tramo : tramos) {
+            if (!Objects.equals(tramo.getProductoId(), productoActual)) {
+                productoActual = tramo.getProductoId();
+                entradas = 0;
+                salidas = 0;
+            }
+            entradas += tramo.getEntradas();
+            salidas += tramo.getSalidas();
+            cierres.add(CierreInventario.builder()
+                    .productoId(tramo.getProductoId())
+                    .periodo(LocalDate.of(tramo.getAnio(), tramo.getMes(), 1))
+                    .stockCierre(stockPorMovimiento.get(tramo.getUltimoId()))
+                    .entradasAcumuladas(entradas)
+                    .salidasAcumuladas(salidas)
+                    .movimientos(tramo.getMovimientos())
+                    .build());
+        }
+        cierreRepository.saveAll(cierres);
+
+        log.info("📊 Cierres de inventario reconstruidos: {} filas", cierres.size());
+        return cierres.size();
+    }
+
+    // ===================== Utilidades =====================
+
+    private static LocalDate periodoDe(LocalDateTime fecha) {
+        return fecha.toLocalDate().withDayOfMonth(1);
+    }
+
+    /** Movimientos de un producto dentro de un lote */
+    private static final class Acumulado {
+        private final LocalDate periodo;
+        private final Integer stockInicial;
+        private Integer stockFinal;
+        private long entradas;
+        private long salidas;
+        private long movimientos;
+
+        private Acumulado(LocalDate periodo, Integer stockInicial) {
+            this.periodo = periodo;
+            this.stockInicial = stockInicial;
+        }
+
+        private void agregar(MovimientoInventario m) {
+            if (TIPOS_ENTRADA.contains(m.getTipoMovimiento())) {
+                entradas += m.getCantidad();
+            } else {
+                salidas += m.getCantidad();
+            }
+            stockFinal = m.getStockNuevo();
+            movimientos++;
+        }
+    }
+}
@@ -1,18 +1,15 @@
 package com.example.acceso.service;
 
-import com.example.acceso.dto.DniResponseDTO;
-import com.example.acceso.dto.RucResponseDTO;
+import com.example.acceso.dto.DataTablesRequest;
+import com.example.acceso.dto.DataTablesResponse;
 import com.example.acceso.model.Cliente;
+import com.example.acceso.model.DocumentoCache;
 import com.example.acceso.repository.ClienteRepository;
-import org.springframework.beans.factory.annotation.Value;
+import com.example.acceso.repository.DataTablesQuery;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
 
 import java.util.HashMap;
 import java.util.List;
@@ -22,25 +19,31 @@ import java.util.Optional;
 @Service
 public class ClienteService {
 
-    private final ClienteRepository clienteRepository;
-    private final RestTemplate restTemplate;
-
-    @Value("${miapi.token}")
-    private String miapiToken;
-
-    @Value("${miapi.url.dni}")
-    private String dniUrl;
+    private static final DataTablesQuery<Cliente> TABLA_CLIENTES = new DataTablesQuery<>(
+            Map.of(
+                    "id", "id",
+                    "nombre", "nombre",
+                    "documento", "documento",
+                    "telefono", "telefono",
+                    "correo", "correo",
+                    "estado", "estado"),
+            List.of("nombre", "documento", "telefono", "correo"),
+            Sort.by(Sort.Direction.DESC, "id"));
 
-    @Value("${miapi.url.ruc}")
-    private String rucUrl;
+    private final ClienteRepository clienteRepository;
+    private final DocumentoConsultaService documentoConsultaService;
 
-    public ClienteService(ClienteRepository clienteRepository, RestTemplate restTemplate) {
+    public ClienteService(ClienteRepository clienteRepository, DocumentoConsultaService documentoConsultaService) {
         this.clienteRepository = clienteRepository;
-        this.restTemplate = restTemplate;
+        this.documentoConsultaService = documentoConsultaService;
     }
 
     // ===================== CONSULTAR DOCUMENTO EN API EXTERNA =====================
-    @Transactional(readOnly = true)
+
+    /**
+     * Consulta el nombre de un DNI/RUC. Sin transacción: puede llamar a la API externa
+     * (ver {@link DocumentoConsultaService}).
+     */
     public Map<String, Object> consultarDocumento(String documento) {
         Map<String, Object> resultado = new HashMap<>();
 
@@ -60,55 +63,15 @@ public class ClienteService {
                 return resultado;
             }
 
-            // Configurar headers con el token
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("Authorization", "Bearer " + miapiToken);
-            HttpEntity<String> entity = new HttpEntity<>(headers);
-
-            String nombre = null;
-            String tipo = null;
-
-            // DNI (8 dígitos)
-            if (documento.length() == 8) {
-                String url = dniUrl + documento;
-                ResponseEntity<DniResponseDTO> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    entity,
-                    DniResponseDTO.class
-                );
-
-                if (response.getBody() != null && response.getBody().isSuccess()) {
-                    nombre = response.getBody().getDatos().getNombreCompleto();
-                    tipo = "DNI";
-                    resultado.put("success", true);
-                    resultado.put("nombre", nombre);
-                    resultado.put("tipo", tipo);
-                } else {
-                    resultado.put("success", false);
-                    resultado.put("message", "DNI no encontrado en la base de datos");
-                }
-            }
-            // RUC (11 dígitos)
-            else if (documento.length() == 11) {
-                String url = rucUrl + documento;
-                ResponseEntity<RucResponseDTO> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    entity,
-                    RucResponseDTO.class
-                );
-
-                if (response.getBody() != null && response.getBody().isSuccess()) {
-                    nombre = response.getBody().getDatos().getRazonSocial();
-                    tipo = "RUC";
-                    resultado.put("success", true);
-                    resultado.put("nombre", nombre);
-                    resultado.put("tipo", tipo);
-                } else {
-                    resultado.put("success", false);
-                    resultado.put("message", "RUC no encontrado en la base de datos");
-                }
+            DocumentoCache consulta = documentoConsultaService.consultar(documento);
+
+            if (Boolean.TRUE.equals(consulta.getEncontrado())) {
+                resultado.put("success", true);
+                resultado.put("nombre", consulta.getNombre());
+                resultado.put("tipo", consulta.getTipo());
+            } else {
+                resultado.put("success", false);
+                resultado.put("message", consulta.getTipo() + " no encontrado en la base de datos");
             }
 
         } catch (Exception e) {
@@ -121,8 +84,9 @@ public class ClienteService {
     }
     /**
      * Obtiene un cliente por documento. Si no existe, lo consulta en la API y lo crea.
+     * No abre transacción propia para que la consulta externa no retenga una conexión;
+     * si se llama dentro de una transacción, participa en ella.
      */
-    @Transactional
     public Cliente obtenerOCrearCliente(String documento) {
         if (documento == null || documento.trim().isEmpty()) {
             throw new ClienteException("El documento es obligatorio");
@@ -174,6 +138,14 @@ public class ClienteService {
         return clienteRepository.findAll();
     }
 
+    /**
+     * Página de la tabla de administración (DataTables server-side), sin eliminados
+     */
+    @Transactional(readOnly = true)
+    public DataTablesResponse<Cliente> listarParaDataTables(DataTablesRequest request) {
+        return TABLA_CLIENTES.ejecutar(request, clienteRepository, DataTablesQuery.noEliminados());
+    }
+
     // ===================== GUARDAR / ACTUALIZAR =====================
     @Transactional
     public Cliente guardarCliente(Cliente cliente) {
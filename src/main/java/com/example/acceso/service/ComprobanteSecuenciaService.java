@@ -1,41 +1,140 @@
 package com.example.acceso.service;
 
 import com.example.acceso.model.EnumVentas.TipoComprobante;
+import com.example.acceso.model.EntidadesVenta.ComprobanteNumeroLiberado;
+import com.example.acceso.model.EntidadesVenta.ComprobanteNumeroReservado;
 import com.example.acceso.model.EntidadesVenta.ComprobanteSecuencia;
+import com.example.acceso.repository.RepositorioVentas.ComprobanteNumeroLiberadoRepository;
+import com.example.acceso.repository.RepositorioVentas.ComprobanteNumeroReservadoRepository;
 import com.example.acceso.repository.RepositorioVentas.ComprobanteSecuenciaRepository;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Numeración de comprobantes sin huecos.
+ *
+ * <ol>
+ *   <li>{@link #generarNumeroComprobante} asigna el número en una transacción corta, antes de abrir
+ *       la de la venta (el bloqueo de la secuencia no dura toda la venta y cada venta usa una sola
+ *       conexión a la vez), y deja una reserva.</li>
+ *   <li>La venta borra la reserva en su propia transacción ({@link #confirmarNumero}): si la venta
+ *       se confirma, la reserva desaparece con ella.</li>
+ *   <li>Si la venta falla, {@link #liberarNumero} pasa el número a la lista de liberados y la
+ *       siguiente venta de la serie lo reutiliza. Si eso también falla, o el proceso se cae entre
+ *       las dos transacciones, {@link #conciliarReservas()} libera las reservas caducadas.</li>
+ * </ol>
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class ComprobanteSecuenciaService {
 
+    private static final String TAREA_CONCILIACION = "conciliacion-comprobantes";
+
     private final ComprobanteSecuenciaRepository comprobanteSecuenciaRepository;
+    private final ComprobanteNumeroLiberadoRepository numeroLiberadoRepository;
+    private final ComprobanteNumeroReservadoRepository numeroReservadoRepository;
+    private final BloqueoTareaService bloqueoTareaService;
+    private final TransactionTemplate transaccion;
+    private final Duration vigenciaReserva;
+
+    // Métricas
+    private final AtomicLong liberacionesFallidas = new AtomicLong();
+    private final AtomicLong reservasRecuperadas = new AtomicLong();
+
+    public ComprobanteSecuenciaService(ComprobanteSecuenciaRepository comprobanteSecuenciaRepository,
+                                       ComprobanteNumeroLiberadoRepository numeroLiberadoRepository,
+                                       ComprobanteNumeroReservadoRepository numeroReservadoRepository,
+                                       BloqueoTareaService bloqueoTareaService,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${comprobantes.reserva.vigencia-min:10}") long vigenciaReservaMinutos) {
+        this.comprobanteSecuenciaRepository = comprobanteSecuenciaRepository;
+        this.numeroLiberadoRepository = numeroLiberadoRepository;
+        this.numeroReservadoRepository = numeroReservadoRepository;
+        this.bloqueoTareaService = bloqueoTareaService;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.vigenciaReserva = Duration.ofMinutes(vigenciaReservaMinutos);
+    }
 
     // ===================== Generar Serie y Número =====================
 
-    @Transactional
+    /**
+     * Asigna y reserva el siguiente número de la serie en una transacción propia y corta. Primero se
+     * reutilizan los números liberados por ventas revertidas; si no hay, se incrementa el contador.
+     * Debe llamarse fuera de cualquier transacción: dentro de la venta retendría una segunda conexión.
+     */
     public String[] generarNumeroComprobante(TipoComprobante tipoComprobante, String serie) {
-        // Buscar la secuencia activa para el tipo y serie
-        var secuencia = comprobanteSecuenciaRepository
-                .findByTipoComprobanteAndSerieWithLock(tipoComprobante, serie)
-                .orElseThrow(() -> new RuntimeException(
-                        "No existe una secuencia activa para el tipo " + tipoComprobante + " y serie " + serie
-                ));
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("El número de comprobante se asigna antes de abrir la transacción de la venta");
+        }
+        String numeroGenerado = transaccion.execute(status -> {
+            String numero = reutilizarNumeroLiberado(tipoComprobante, serie)
+                    .orElseGet(() -> incrementarSecuencia(tipoComprobante, serie));
+            numeroReservadoRepository.save(ComprobanteNumeroReservado.builder()
+                    .tipoComprobante(tipoComprobante)
+                    .serie(serie)
+                    .numero(Long.parseLong(numero))
+                    .build());
+            return numero;
+        });
 
-        // Generar siguiente número y guardar
-        String numeroGenerado = secuencia.generarSiguienteNumero();
-        comprobanteSecuenciaRepository.save(secuencia);
+        log.info("Comprobante generado → {} - {}", serie, numeroGenerado);
+        return new String[]{serie, numeroGenerado};
+    }
 
-        log.info("Comprobante generado → {} - {}", secuencia.getSerie(), numeroGenerado);
-        return new String[]{secuencia.getSerie(), numeroGenerado};
+    /**
+     * Consume la reserva del número dentro de la transacción de la venta. Si la reserva ya no existe
+     * (la venta tardó más que {@code comprobantes.reserva.vigencia-min} y se liberó), la venta falla
+     * para no emitir un número que otra venta puede haber tomado.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void confirmarNumero(TipoComprobante tipoComprobante, String serie, String numero) {
+        if (numeroReservadoRepository.eliminar(tipoComprobante, serie, Long.parseLong(numero)) == 0) {
+            throw new RuntimeException("La reserva del comprobante " + serie + "-" + numero
+                    + " caducó; vuelva a registrar la venta");
+        }
+    }
+
+    /**
+     * Devuelve a la serie un número cuya venta no se confirmó, para que la siguiente venta lo tome.
+     * Si no se puede, el número sigue reservado y lo recupera {@link #conciliarReservas()}.
+     *
+     * @return false si no se pudo liberar
+     */
+    public boolean liberarNumero(TipoComprobante tipoComprobante, String serie, String numero) {
+        try {
+            transaccion.executeWithoutResult(status -> liberar(tipoComprobante, serie, Long.parseLong(numero)));
+            log.info("↩️ Comprobante liberado → {} - {}", serie, numero);
+            return true;
+        } catch (RuntimeException e) {
+            liberacionesFallidas.incrementAndGet();
+            log.error("❌ No se pudo liberar el comprobante {} - {} (la conciliación lo liberará en {} min): {}",
+                    serie, numero, vigenciaReserva.toMinutes(), e.getMessage());
+            return false;
+        }
     }
 
     @Transactional(readOnly = true)
     public String visualizarSiguienteNumero(TipoComprobante tipoComprobante, String serie) {
+        Optional<ComprobanteNumeroLiberado> liberado = numeroLiberadoRepository
+                .findTopByTipoComprobanteAndSerieOrderByNumeroAsc(tipoComprobante, serie);
+        if (liberado.isPresent()) {
+            return ComprobanteSecuencia.formatearNumero(liberado.get().getNumero());
+        }
+
         return comprobanteSecuenciaRepository
                 .findByTipoComprobanteAndSerie(tipoComprobante, serie)
                 .map(ComprobanteSecuencia::visualizarSiguienteNumero)
@@ -43,4 +142,82 @@ public class ComprobanteSecuenciaService {
                         "No existe secuencia para el tipo " + tipoComprobante + " y serie " + serie
                 ));
     }
+
+    // ===================== Conciliación =====================
+
+    /**
+     * Libera los números reservados por ventas que no se confirmaron ni se liberaron (caída del
+     * proceso entre la reserva y la venta, o fallo al liberar).
+     *
+     * @return números recuperados, o {@code null} si otra instancia la está ejecutando
+     */
+    @Scheduled(fixedDelayString = "${comprobantes.conciliacion.intervalo-ms:300000}", initialDelay = 60_000)
+    public Integer conciliarReservas() {
+        return bloqueoTareaService.ejecutar(TAREA_CONCILIACION, Duration.ofMinutes(10), () -> {
+            int recuperadas = 0;
+            for (ComprobanteNumeroReservado reserva : numeroReservadoRepository
+                    .findByFechaReservaBeforeOrderByIdAsc(LocalDateTime.now().minus(vigenciaReserva))) {
+                Boolean liberada = transaccion.execute(status ->
+                        liberar(reserva.getTipoComprobante(), reserva.getSerie(), reserva.getNumero()));
+                if (Boolean.TRUE.equals(liberada)) {
+                    recuperadas++;
+                    log.warn("⚠️ Comprobante {} - {} reservado sin venta desde {}: liberado",
+                            reserva.getSerie(), ComprobanteSecuencia.formatearNumero(reserva.getNumero()),
+                            reserva.getFechaReserva());
+                }
+            }
+            reservasRecuperadas.addAndGet(recuperadas);
+            return recuperadas;
+        });
+    }
+
+    public Map<String, Object> metricas() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("reservasPendientes", numeroReservadoRepository.count());
+        metricas.put("numerosLiberados", numeroLiberadoRepository.count());
+        metricas.put("liberacionesFallidas", liberacionesFallidas.get());
+        metricas.put("reservasRecuperadas", reservasRecuperadas.get());
+        return metricas;
+    }
+
+    // ===================== Métodos auxiliares =====================
+
+    /**
+     * Pasa el número de reservado a liberado. Si la reserva ya no está (la venta se confirmó, o la
+     * liberó otro), no hace nada: así un número nunca se libera dos veces.
+     */
+    private boolean liberar(TipoComprobante tipoComprobante, String serie, Long numero) {
+        if (numeroReservadoRepository.eliminar(tipoComprobante, serie, numero) == 0) {
+            return false;
+        }
+        numeroLiberadoRepository.save(ComprobanteNumeroLiberado.builder()
+                .tipoComprobante(tipoComprobante)
+                .serie(serie)
+                .numero(numero)
+                .build());
+        return true;
+    }
+
+    private Optional<String> reutilizarNumeroLiberado(TipoComprobante tipoComprobante, String serie) {
+        return numeroLiberadoRepository
+                .findFirstByTipoComprobanteAndSerieOrderByNumeroAsc(tipoComprobante, serie)
+                .map(liberado -> {
+                    numeroLiberadoRepository.delete(liberado);
+                    return ComprobanteSecuencia.formatearNumero(liberado.getNumero());
+                });
+    }
+
+    private String incrementarSecuencia(TipoComprobante tipoComprobante, String serie) {
+        // Buscar la secuencia activa para el tipo y serie
+        var secuencia = comprobanteSecuenciaRepository
+                .findByTipoComprobanteAndSerieWithLock(tipoComprobante, serie)
+                .orElseThrow(() -> new RuntimeException(
+                        "No existe una secuencia activa para el tipo " + tipoComprobante + " y serie " + serie
+                ));
+
+        // Generar siguiente número y guardar
+        String numeroGenerado = secuencia.generarSiguienteNumero();
+        comprobanteSecuenciaRepository.save(secuencia);
+        return numeroGenerado;
+    }
 }
@@ -0,0 +1,196 @@
+package com.example.acceso.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contenido de la tienda que publica el servicio Node (servicios-api): información de la tienda
+ * y preguntas frecuentes.
+ *
+ * Las páginas leen siempre la última copia en memoria; la copia se refresca en segundo plano, en un
+ * hilo propio para no ocupar el planificador de {@code @Scheduled} mientras espera al servicio
+ * (ambas llamadas en paralelo sobre hilos virtuales). Si el servicio falla varias veces seguidas
+ * se deja de consultar durante un tiempo (circuito abierto) y se sigue sirviendo el último contenido.
+ */
+@Slf4j
+@Service
+public class ContenidoTiendaService {
+
+    private static final Map<String, Object> INFO_TIENDA_POR_DEFECTO = Map.of(
+            "direccion", "Tienda Principal - Lima",
+            "telefono", "+51 999 000 999",
+            "email", "contacto@sneakers.com"
+    );
+
+    private static final int FALLOS_PARA_ABRIR_CIRCUITO = 3;
+    private static final Duration PAUSA_CIRCUITO = Duration.ofMinutes(2);
+
+    private final RestTemplate restTemplate;
+    private final String serviciosApiUrl;
+    private final long refrescoMs;
+    private final ScheduledExecutorService refrescador;
+
+    private volatile Object infoTienda;
+    private volatile Object preguntasFrecuentes;
+    private volatile LocalDateTime ultimaActualizacion;
+
+    // Solo se modifican dentro de refrescar() (sincronizado)
+    private int fallosConsecutivos;
+    private volatile LocalDateTime circuitoAbiertoHasta;
+
+    // Métricas
+    private final AtomicLong lecturas = new AtomicLong();
+    private final AtomicLong lecturasConContenido = new AtomicLong();
+    private final AtomicLong refrescos = new AtomicLong();
+    private final AtomicLong refrescosFallidos = new AtomicLong();
+    private volatile long ultimaLatenciaMs;
+
+    public ContenidoTiendaService(RestTemplate restTemplate,
+                                  @Value("${servicios.api.url:http://127.0.0.1:3000}") String serviciosApiUrl,
+                                  @Value("${servicios.api.refresco-ms:60000}") long refrescoMs) {
+        this.restTemplate = restTemplate;
+        this.serviciosApiUrl = serviciosApiUrl;
+        this.refrescoMs = refrescoMs;
+        this.refrescador = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("contenido-tienda").daemon().factory());
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        refrescador.scheduleWithFixedDelay(this::refrescarProgramado, 0, refrescoMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void detener() {
+        refrescador.shutdownNow();
+    }
+
+    // ===================== Lectura =====================
+
+    /** Información de la tienda; datos por defecto si aún no se pudo cargar */
+    public Object infoTienda() {
+        Object actual = registrarLectura(infoTienda);
+        return actual != null ? actual : INFO_TIENDA_POR_DEFECTO;
+    }
+
+    /** Preguntas frecuentes, o {@code null} si aún no se pudieron cargar (la sección no se muestra) */
+    public Object preguntasFrecuentes() {
+        return registrarLectura(preguntasFrecuentes);
+    }
+
+    public Map<String, Object> metricas() {
+        long totalLecturas = lecturas.get();
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("lecturas", totalLecturas);
+        metricas.put("lecturasConContenido", lecturasConContenido.get());
+        metricas.put("tasaAciertos", totalLecturas == 0 ? 0.0 : (double) lecturasConContenido.get() / totalLecturas);
+        metricas.put("refrescos", refrescos.get());
+        metricas.put("refrescosFallidos", refrescosFallidos.get());
+        metricas.put("ultimaLatenciaMs", ultimaLatenciaMs);
+        metricas.put("ultimaActualizacion", ultimaActualizacion);
+        metricas.put("circuitoAbierto", circuitoAbierto());
+        return metricas;
+    }
+
+    // ===================== Refresco =====================
+
+    private void refrescarProgramado() {
+        try {
+            refrescar();
+        } catch (RuntimeException e) {
+            // Una excepción cancelaría las siguientes ejecuciones
+            log.error("❌ Error al refrescar el contenido de la tienda: {}", e.getMessage());
+        }
+    }
+
+    public synchronized void refrescar() {
+        if (circuitoAbierto()) {
+            return;
+        }
+
+        long inicio = System.nanoTime();
+        boolean infoOk;
+        boolean preguntasOk;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Object> info = executor.submit(() -> consultar("/api/informacion-tienda"));
+            Future<Object> preguntas = executor.submit(() -> consultar("/api/preguntas-frecuentes"));
+
+            infoOk = actualizar(info, true);
+            preguntasOk = actualizar(preguntas, false);
+        }
+
+        ultimaLatenciaMs = Duration.ofNanos(System.nanoTime() - inicio).toMillis();
+        refrescos.incrementAndGet();
+
+        if (infoOk || preguntasOk) {
+            fallosConsecutivos = 0;
+            ultimaActualizacion = LocalDateTime.now();
+        } else {
+            refrescosFallidos.incrementAndGet();
+            if (++fallosConsecutivos >= FALLOS_PARA_ABRIR_CIRCUITO) {
+                circuitoAbiertoHasta = LocalDateTime.now().plus(PAUSA_CIRCUITO);
+                fallosConsecutivos = 0;
+                log.warn("⚠️ servicios-api no responde; se reintentará después de {}", circuitoAbiertoHasta);
+            }
+        }
+    }
+
+    private Object consultar(String ruta) {
+        return restTemplate.getForObject(serviciosApiUrl + ruta, Object.class);
+    }
+
+    /**
+     * Guarda la respuesta si llegó. La información de la tienda puede venir en "data" o directa;
+     * las preguntas frecuentes solo se aceptan dentro de "data".
+     */
+    private boolean actualizar(Future<Object> respuesta, boolean esInfoTienda) {
+        try {
+            Object cuerpo = respuesta.get();
+            Object data = cuerpo instanceof Map<?, ?> mapa ? mapa.get("data") : null;
+            if (esInfoTienda) {
+                if (cuerpo != null) {
+                    infoTienda = data != null ? data : cuerpo;
+                }
+            } else if (data != null) {
+                preguntasFrecuentes = data;
+            }
+            return true;
+        } catch (ExecutionException e) {
+            log.warn("⚠️ servicios-api no disponible: {}", e.getCause().getMessage());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private boolean circuitoAbierto() {
+        LocalDateTime hasta = circuitoAbiertoHasta;
+        return hasta != null && LocalDateTime.now().isBefore(hasta);
+    }
+
+    private Object registrarLectura(Object contenido) {
+        lecturas.incrementAndGet();
+        if (contenido != null) {
+            lecturasConContenido.incrementAndGet();
+        }
+        return contenido;
+    }
+}
@@ -14,25 +14,35 @@ import com.example.acceso.repository.RepositorioVentas.RegistroPagoRepository;
 import com.example.acceso.repository.RepositorioVentas.VentaRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class CreditoVentaService {
+public class CreditoVentaService implements SmartInitializingSingleton {
 
     private final CreditoVentaRepository creditoVentaRepository;
     private final CuotaPagoRepository cuotaPagoRepository;
     private final RegistroPagoRepository registroPagoRepository;
     private final VentaRepository  ventaRepository;
+    private final VentaResumenService ventaResumenService;
+    private final TransactionTemplate transactionTemplate;
+
+    private static final int MAX_INTENTOS_PAGO = 5;
 
     // ===================== CREAR CRÉDITO =====================
 
@@ -58,6 +68,8 @@ public class CreditoVentaService {
 
         credito.calcularMontoConInteres();
         credito.calcularFechaFin();
+        // Los pagos de cuotas se suman sobre este valor (montoPagado = inicial + pagado en cuotas)
+        credito.setMontoPagado(credito.getMontoInicial());
 
         // Generar cuotas ANTES del save
         generarCuotas(credito);
@@ -75,33 +87,19 @@ public class CreditoVentaService {
     }
 
     /**
-     * Genera las cuotas del crédito considerando inicial e interés
+     * Genera las cuotas del crédito considerando inicial e interés.
+     * Las cuotas usan IDs de tabla (ver {@link CuotaPago}), así que se insertan en un solo lote JDBC.
      */
     private void generarCuotas(CreditoVenta credito) {
         BigDecimal saldoFinanciar = credito.getMontoConInteres().subtract(credito.getMontoInicial());
-        BigDecimal montoCuota = saldoFinanciar
-                .divide(BigDecimal.valueOf(credito.getNumeroCuotas()), 2, RoundingMode.HALF_UP);
-
-        LocalDate fechaVencimiento = credito.getFechaInicio();
-        int diasIntervalo = credito.getIntervaloCuotas().getDias();
-
-        for (int i = 1; i <= credito.getNumeroCuotas(); i++) {
-            fechaVencimiento = fechaVencimiento.plusDays(diasIntervalo);
-
-            BigDecimal montoCuotaFinal = montoCuota;
-            if (i == credito.getNumeroCuotas()) {
-                BigDecimal sumaCuotasAnteriores = montoCuota.multiply(
-                    BigDecimal.valueOf(credito.getNumeroCuotas() - 1)
-                );
-                montoCuotaFinal = saldoFinanciar.subtract(sumaCuotasAnteriores);
-            }
 
+        for (CronogramaCuotas.Cuota c : calcularCronograma(credito, saldoFinanciar)) {
             CuotaPago cuota = CuotaPago.builder()
-                    .numeroCuota(i)
-                    .montoCuota(montoCuotaFinal)
-                    .fechaVencimiento(fechaVencimiento)
+                    .numeroCuota(c.numero())
+                    .montoCuota(c.monto())
+                    .fechaVencimiento(c.fechaVencimiento())
                     .montoPagado(BigDecimal.ZERO)
-                    .saldoPendiente(montoCuotaFinal)
+                    .saldoPendiente(c.monto())
                     .estado(EstadoCuota.PENDIENTE)
                     .build();
 
@@ -110,13 +108,95 @@ public class CreditoVentaService {
 
         log.info("✅ {} cuotas generadas para crédito ID: {}", credito.getNumeroCuotas(), credito.getId());
     }
+
+    /**
+     * Cronograma que tendría un crédito con estos datos, sin guardar nada
+     */
+    public List<CronogramaCuotas.Cuota> previsualizarCronograma(BigDecimal montoTotal,
+                                                                CrearVentaRequest.CreditoVentaRequest creditoRequest) {
+        CreditoVenta credito = CreditoVenta.builder()
+                .montoTotal(montoTotal)
+                .montoInicial(creditoRequest.getMontoInicial() != null ?
+                    creditoRequest.getMontoInicial() : BigDecimal.ZERO)
+                .interesPorcentaje(creditoRequest.getInteresPorcentaje() != null ?
+                    creditoRequest.getInteresPorcentaje() : BigDecimal.ZERO)
+                .numeroCuotas(creditoRequest.getNumeroCuotas())
+                .intervaloCuotas(creditoRequest.getIntervaloCuotas())
+                .fechaInicio(LocalDate.now())
+                .build();
+        credito.calcularMontoConInteres();
+
+        BigDecimal saldoFinanciar = credito.getMontoConInteres().subtract(credito.getMontoInicial());
+        return List.of(calcularCronograma(credito, saldoFinanciar));
+    }
+
+    private static CronogramaCuotas.Cuota[] calcularCronograma(CreditoVenta credito, BigDecimal saldoFinanciar) {
+        return CronogramaCuotas.calcular(saldoFinanciar, credito.getNumeroCuotas(),
+                credito.getIntervaloCuotas().getDias(), credito.getFechaInicio());
+    }
+
+    /**
+     * Se ejecuta al terminar de crear los beans, antes de que arranque el servidor web: ninguna venta
+     * a crédito puede pedir un bloque de IDs a Hibernate antes de que la secuencia esté alineada.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        alinearSecuenciaCuotas();
+    }
+
+    /**
+     * Los IDs de cuotas salían de AUTO_INCREMENT: se adelanta el contador de la tabla
+     * {@code secuencias_id} por encima del mayor ID existente para no repetir IDs.
+     */
+    public void alinearSecuenciaCuotas() {
+        long minimo = cuotaPagoRepository.findMaxId() + 1 + CuotaPago.TAMANIO_BLOQUE_ID;
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (cuotaPagoRepository.adelantarSecuenciaId(minimo) == 0 && cuotaPagoRepository.findSecuenciaId() == null) {
+                    cuotaPagoRepository.crearSecuenciaId(minimo);
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Otra instancia creó la fila al mismo tiempo
+            transactionTemplate.executeWithoutResult(status -> cuotaPagoRepository.adelantarSecuenciaId(minimo));
+        }
+        log.info("🔢 Secuencia de IDs de cuotas alineada (mínimo {})", minimo);
+    }
+
     // ===================== GESTIÓN DE PAGOS =====================
 
     /**
-     * Registra un pago para una cuota específica
+     * Registra un pago para una cuota específica.
+     *
+     * Los totales del crédito se actualizan con un UPDATE atómico (suma del pago), así que pagos de
+     * distintas cuotas no compiten entre sí. La cuota lleva @Version: si otro pago la modificó entre
+     * la lectura y el guardado, se reintenta en una transacción nueva (se vuelven a validar los saldos).
      */
-    @Transactional
     public RegistroPagoResponse registrarPago(RegistrarPagoRequest request, String usuario) {
+        for (int intento = 1; ; intento++) {
+            try {
+                return transactionTemplate.execute(status -> registrarPagoEnTransaccion(request, usuario));
+            } catch (OptimisticLockingFailureException e) {
+                if (intento >= MAX_INTENTOS_PAGO) {
+                    log.warn("⚠️ Pago de la cuota {} descartado tras {} conflictos de concurrencia", request.getCuotaId(), intento);
+                    throw new RuntimeException("La cuota fue modificada por otro pago al mismo tiempo, intente nuevamente");
+                }
+                log.info("🔁 Conflicto al registrar pago de la cuota {} (intento {}), reintentando", request.getCuotaId(), intento);
+                esperarAntesDeReintentar(intento);
+            }
+        }
+    }
+
+    private void esperarAntesDeReintentar(int intento) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(5, 20) * intento);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Registro de pago interrumpido");
+        }
+    }
+
+    private RegistroPagoResponse registrarPagoEnTransaccion(RegistrarPagoRequest request, String usuario) {
         log.info("🧾 Iniciando registro de pago - Usuario: {}, Cuota ID: {}", usuario, request.getCuotaId());
 
         // 1. Validar que la cuota existe
@@ -151,21 +231,26 @@ public class CreditoVentaService {
 
         RegistroPago pagoGuardado = registroPagoRepository.save(pago);
 
-        // 5. Actualizar montos de la cuota
+        // 5. Actualizar montos de la cuota (el flush detecta aquí otro pago simultáneo sobre la misma cuota)
         cuota.registrarPago(request.getMontoPagado());
-        cuotaPagoRepository.save(cuota);
+        cuotaPagoRepository.saveAndFlush(cuota);
 
-        // 6. Actualizar montos del crédito
+        // 6. Sumar el pago a los totales del crédito en la base de datos, sin recalcular desde las cuotas
         CreditoVenta credito = cuota.getCredito();
-        credito.actualizarMontosPagados();
-        credito.actualizarEstado();
-        creditoVentaRepository.save(credito);
+        if (creditoVentaRepository.aplicarPago(credito.getId(), request.getMontoPagado(), EstadoCredito.PAGADO) == 0) {
+            throw new RuntimeException("El monto a pagar excede el saldo pendiente del crédito");
+        }
+        CreditoVentaRepository.TotalesCredito totales = creditoVentaRepository.findTotalesById(credito.getId());
 
-        if (credito.getEstado() == EstadoCredito.PAGADO) {
+        if (totales.getEstado() == EstadoCredito.PAGADO) {
             Venta venta = credito.getVenta();
-            venta.setEstado(EstadoVenta.PAGADA);
-            ventaRepository.save(venta);
-            log.info("✅ Venta ID: {} marcada como PAGADA", venta.getId());
+            EstadoVenta estadoAnterior = venta.getEstado();
+            if (estadoAnterior != EstadoVenta.PAGADA) {
+                venta.setEstado(EstadoVenta.PAGADA);
+                ventaRepository.save(venta);
+                ventaResumenService.cambiarEstado(venta, estadoAnterior);
+                log.info("✅ Venta ID: {} marcada como PAGADA", venta.getId());
+            }
         }
 
         // 7. Log detallado del resultado
@@ -173,7 +258,7 @@ public class CreditoVentaService {
                 ✅ Pago registrado exitosamente:
                     • ID Pago: {}
                     • Crédito ID: {}
-                    • Cuota: {}/{}
+                    • Cuota: {}
                     • Monto: {}
                     • Usuario: {}
                     • Nuevo saldo de cuota: {}
@@ -182,11 +267,10 @@ public class CreditoVentaService {
                 pagoGuardado.getId(),
                 credito.getId(),
                 cuota.getNumeroCuota(),
-                credito.getNumeroCuotas(),
                 pagoGuardado.getMontoPagado(),
                 usuario,
                 cuota.getSaldoPendiente(),
-                credito.getSaldoPendiente()
+                totales.getSaldoPendiente()
         );
 
         return convertirARegistroPagoResponse(pagoGuardado);
@@ -249,18 +333,14 @@ public class CreditoVentaService {
         }
 
         /**
-         * Lista créditos próximos a vencer en los próximos N días
+         * Créditos activos con saldo que vencen en los próximos N días (o ya vencieron), paginados
          */
         @Transactional(readOnly = true)
-        public List<CreditoVentaResponse> listarCreditosProximosVencer(int dias) {
+        public Page<CreditoVentaResponse> listarCreditosProximosVencer(int dias, Pageable pageable) {
             LocalDate fechaLimite = LocalDate.now().plusDays(dias);
 
-            return creditoVentaRepository.findByEstadoOrderByFechaCreacionDesc(EstadoCredito.ACTIVO).stream()
-                .filter(credito -> credito.getFechaFin() != null &&
-                                  !credito.getFechaFin().isAfter(fechaLimite) &&
-                                  credito.getSaldoPendiente().compareTo(BigDecimal.ZERO) > 0)
-                .map(this::convertirACreditoVentaResponse)
-                .collect(Collectors.toList());
+            return creditoVentaRepository.findProximosAVencer(EstadoCredito.ACTIVO, fechaLimite, pageable)
+                .map(credito -> convertirACreditoVentaResponse(credito, false));
         }
 
         // ===================== REPORTES =====================
@@ -270,39 +350,17 @@ public class CreditoVentaService {
          */
         @Transactional(readOnly = true)
         public ReporteCreditosDTO generarReporteCreditos() {
-            List<CreditoVenta> todosCreditos = creditoVentaRepository.findAll();
-
-            long totalCreditos = todosCreditos.size();
-            long creditosActivos = todosCreditos.stream()
-                .filter(c -> c.getEstado() == EstadoCredito.ACTIVO)
-                .count();
-            long creditosPagados = todosCreditos.stream()
-                .filter(c -> c.getEstado() == EstadoCredito.PAGADO)
-                .count();
-            long creditosVencidos = todosCreditos.stream()
-                .filter(c -> c.getEstado() == EstadoCredito.VENCIDO)
-                .count();
-
-            BigDecimal montoTotal = todosCreditos.stream()
-                .map(CreditoVenta::getMontoConInteres)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            BigDecimal montoPagado = todosCreditos.stream()
-                .map(CreditoVenta::getMontoPagado)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            BigDecimal saldoPendiente = todosCreditos.stream()
-                .map(CreditoVenta::getSaldoPendiente)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+            // Una sola consulta agregada; no se cargan las entidades
+            CreditoVentaRepository.ResumenCreditos resumen = creditoVentaRepository.resumirCreditos();
 
             ReporteCreditosDTO reporte = ReporteCreditosDTO.builder()
-                .totalCreditos(totalCreditos)
-                .creditosActivos(creditosActivos)
-                .creditosPagados(creditosPagados)
-                .creditosVencidos(creditosVencidos)
-                .montoTotalCreditos(montoTotal)
-                .montoTotalPagado(montoPagado)
-                .saldoPendienteTotal(saldoPendiente)
+                .totalCreditos(resumen.getTotalCreditos())
+                .creditosActivos(resumen.getCreditosActivos())
+                .creditosPagados(resumen.getCreditosPagados())
+                .creditosVencidos(resumen.getCreditosVencidos())
+                .montoTotalCreditos(resumen.getMontoTotal())
+                .montoTotalPagado(resumen.getMontoPagado())
+                .saldoPendienteTotal(resumen.getSaldoPendiente())
                 .build();
 
             reporte.setPorcentajeRecuperacion(reporte.calcularPorcentajeRecuperacion());
@@ -379,51 +437,21 @@ public class CreditoVentaService {
         log.info("✅ Crédito cancelado para venta ID: {}", ventaId);
     }
 
-    // ===================== ACTUALIZAR ESTADOS AUTOMÁTICAMENTE =====================
-
-    /**
-     * Actualiza estados de todos los créditos activos
-     * Útil para ejecutar en tareas programadas
-     */
-    @Transactional
-    public void actualizarEstadosCreditos() {
-        List<CreditoVenta> creditosActivos = creditoVentaRepository
-            .findByEstadoOrderByFechaCreacionDesc(EstadoCredito.ACTIVO);
-
-        for (CreditoVenta credito : creditosActivos) {
-            credito.actualizarEstado();
-            creditoVentaRepository.save(credito);
-        }
-
-        log.info("✅ Estados de créditos actualizados. Total procesados: {}", creditosActivos.size());
-    }
+    // ===================== MÉTODOS PRIVADOS DE CONVERSIÓN =====================
 
     /**
-     * Actualiza estados de todas las cuotas pendientes
-     * Marca como VENCIDAS las que superaron la fecha
+     * Convierte CreditoVenta a DTO Response
      */
-    @Transactional
-    public void actualizarEstadosCuotas() {
-        List<CuotaPago> cuotasVencidas = cuotaPagoRepository.findCuotasVencidas(LocalDate.now());
-
-        for (CuotaPago cuota : cuotasVencidas) {
-            if (cuota.getEstado() == EstadoCuota.PENDIENTE || cuota.getEstado() == EstadoCuota.PARCIAL) {
-                cuota.actualizarEstado();
-                cuotaPagoRepository.save(cuota);
-            }
-        }
-
-        log.info("✅ Estados de cuotas actualizados. Cuotas vencidas: {}", cuotasVencidas.size());
+    private CreditoVentaResponse convertirACreditoVentaResponse(CreditoVenta credito) {
+        return convertirACreditoVentaResponse(credito, true);
     }
 
-    // ===================== MÉTODOS PRIVADOS DE CONVERSIÓN =====================
-
     /**
-     * Convierte CreditoVenta a DTO Response
+     * Sin cuotas para los listados que no las muestran (evita cargar la colección)
      */
-    private CreditoVentaResponse convertirACreditoVentaResponse(CreditoVenta credito) {
+    private CreditoVentaResponse convertirACreditoVentaResponse(CreditoVenta credito, boolean incluirCuotas) {
         List<CuotaPagoResponse> cuotasResponse = new ArrayList<>();
-        if (credito.getCuotas() != null) {
+        if (incluirCuotas && credito.getCuotas() != null) {
             cuotasResponse = credito.getCuotas().stream()
                     .map(this::convertirACuotaPagoResponse)
                     .collect(Collectors.toList());
@@ -0,0 +1,54 @@
+package com.example.acceso.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+
+/**
+ * Cálculo del cronograma de cuotas de un crédito, sin entidades ni base de datos.
+ *
+ * El saldo se reparte en cuotas iguales redondeadas al céntimo (HALF_UP) y la última cuota absorbe
+ * la diferencia del redondeo. Los importes se calculan en céntimos con {@code long}: solo se crea un
+ * BigDecimal por cuota.
+ */
+public final class CronogramaCuotas {
+
+    private CronogramaCuotas() {
+    }
+
+    /**
+     * @param saldoFinanciar monto a repartir entre las cuotas
+     * @param numeroCuotas   cantidad de cuotas (al menos 1)
+     * @param diasIntervalo  días entre vencimientos; la primera cuota vence un intervalo después del inicio
+     * @param fechaInicio    fecha de inicio del crédito
+     */
+    public static Cuota[] calcular(BigDecimal saldoFinanciar, int numeroCuotas, int diasIntervalo, LocalDate fechaInicio) {
+        if (numeroCuotas < 1) {
+            throw new IllegalArgumentException("El número de cuotas debe ser al menos 1");
+        }
+        long saldo = saldoFinanciar.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        if (saldo <= 0) {
+            throw new IllegalArgumentException("El saldo a financiar debe ser mayor a 0");
+        }
+
+        // División redondeada HALF_UP en céntimos, igual que BigDecimal.divide(n, 2, HALF_UP)
+        long montoCuota = (2 * saldo + numeroCuotas) / (2L * numeroCuotas);
+        long montoUltima = saldo - montoCuota * (numeroCuotas - 1);
+        BigDecimal monto = BigDecimal.valueOf(montoCuota, 2);
+
+        // La fecha se avanza un intervalo cada vez: plusDays con pocos días no pasa por el día epoch
+        LocalDate fechaVencimiento = fechaInicio;
+        Cuota[] cuotas = new Cuota[numeroCuotas];
+        for (int i = 1; i <= numeroCuotas; i++) {
+            fechaVencimiento = fechaVencimiento.plusDays(diasIntervalo);
+            cuotas[i - 1] = new Cuota(
+                    i,
+                    i == numeroCuotas ? BigDecimal.valueOf(montoUltima, 2) : monto,
+                    fechaVencimiento);
+        }
+        return cuotas;
+    }
+
+    public record Cuota(int numero, BigDecimal monto, LocalDate fechaVencimiento) {
+    }
+}
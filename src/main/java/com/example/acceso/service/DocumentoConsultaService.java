@@ -0,0 +1,177 @@
+package com.example.acceso.service;
+
+import com.example.acceso.dto.DniResponseDTO;
+import com.example.acceso.dto.RucResponseDTO;
+import com.example.acceso.model.DocumentoCache;
+import com.example.acceso.repository.DocumentoCacheRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Consulta de DNI/RUC en la API externa (miapi.cloud) con caché.
+ *
+ * Orden de búsqueda: memoria (LRU acotada) → tabla {@code documento_cache} → API externa.
+ * Los documentos inexistentes también se guardan, con una vigencia más corta. Si varias
+ * peticiones piden el mismo documento a la vez, solo una llama a la API y el resto espera su resultado.
+ *
+ * No es transaccional a propósito: la llamada HTTP no debe retener una conexión de base de datos.
+ */
+@Slf4j
+@Service
+public class DocumentoConsultaService {
+
+    private static final int MAX_ENTRADAS_MEMORIA = 2_000;
+
+    private final DocumentoCacheRepository documentoCacheRepository;
+    private final RestTemplate restTemplate;
+
+    @Value("${miapi.token}")
+    private String miapiToken;
+
+    @Value("${miapi.url.dni}")
+    private String dniUrl;
+
+    @Value("${miapi.url.ruc}")
+    private String rucUrl;
+
+    @Value("${documento.cache.vigencia-dias:30}")
+    private long vigenciaDias;
+
+    @Value("${documento.cache.vigencia-no-encontrado-horas:6}")
+    private long vigenciaNoEncontradoHoras;
+
+    private final Map<String, DocumentoCache> memoria = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, DocumentoCache> eldest) {
+                    return size() > MAX_ENTRADAS_MEMORIA;
+                }
+            });
+
+    private final Map<String, CompletableFuture<DocumentoCache>> enCurso = new ConcurrentHashMap<>();
+
+    public DocumentoConsultaService(DocumentoCacheRepository documentoCacheRepository, RestTemplate restTemplate) {
+        this.documentoCacheRepository = documentoCacheRepository;
+        this.restTemplate = restTemplate;
+    }
+
+    /**
+     * Devuelve el resultado de un documento ya validado (8 u 11 dígitos).
+     * Los errores de la API (timeout, 5xx, etc.) no se guardan y se propagan al llamador.
+     */
+    public DocumentoCache consultar(String documento) {
+        DocumentoCache enMemoria = memoria.get(documento);
+        if (vigente(enMemoria)) {
+            return enMemoria;
+        }
+
+        DocumentoCache guardado = documentoCacheRepository.findById(documento).orElse(null);
+        if (vigente(guardado)) {
+            memoria.put(documento, guardado);
+            return guardado;
+        }
+
+        CompletableFuture<DocumentoCache> consulta = new CompletableFuture<>();
+        CompletableFuture<DocumentoCache> existente = enCurso.putIfAbsent(documento, consulta);
+        if (existente != null) {
+            return esperar(existente);
+        }
+
+        try {
+            DocumentoCache resultado = consultarApi(documento);
+            guardar(resultado);
+            consulta.complete(resultado);
+            return resultado;
+        } catch (RuntimeException e) {
+            consulta.completeExceptionally(e);
+            throw e;
+        } finally {
+            enCurso.remove(documento, consulta);
+        }
+    }
+
+    // ===================== API externa =====================
+
+    private DocumentoCache consultarApi(String documento) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + miapiToken);
+        HttpEntity<String> entity = new HttpEntity<>(headers);
+
+        boolean esDni = documento.length() == 8;
+        String nombre = null;
+
+        try {
+            if (esDni) {
+                DniResponseDTO body = restTemplate.exchange(
+                        dniUrl + documento, HttpMethod.GET, entity, DniResponseDTO.class).getBody();
+                if (body != null && body.isSuccess() && body.getDatos() != null) {
+                    nombre = body.getDatos().getNombreCompleto();
+                }
+            } else {
+                RucResponseDTO body = restTemplate.exchange(
+                        rucUrl + documento, HttpMethod.GET, entity, RucResponseDTO.class).getBody();
+                if (body != null && body.isSuccess() && body.getDatos() != null) {
+                    nombre = body.getDatos().getRazonSocial();
+                }
+            }
+        } catch (HttpClientErrorException.NotFound e) {
+            nombre = null; // Documento inexistente: se guarda como no encontrado
+        }
+
+        return DocumentoCache.builder()
+                .documento(documento)
+                .tipo(esDni ? "DNI" : "RUC")
+                .nombre(nombre)
+                .encontrado(nombre != null)
+                .fechaConsulta(LocalDateTime.now())
+                .build();
+    }
+
+    // ===================== Utilidades =====================
+
+    private void guardar(DocumentoCache resultado) {
+        memoria.put(resultado.getDocumento(), resultado);
+        try {
+            documentoCacheRepository.save(resultado);
+        } catch (DataAccessException e) {
+            // La consulta ya se resolvió; solo se pierde la copia persistente
+            log.warn("⚠️ No se pudo guardar el documento {} en caché: {}", resultado.getDocumento(), e.getMessage());
+        }
+    }
+
+    private boolean vigente(DocumentoCache cache) {
+        if (cache == null) {
+            return false;
+        }
+        LocalDateTime expira = Boolean.TRUE.equals(cache.getEncontrado())
+                ? cache.getFechaConsulta().plusDays(vigenciaDias)
+                : cache.getFechaConsulta().plusHours(vigenciaNoEncontradoHoras);
+        return expira.isAfter(LocalDateTime.now());
+    }
+
+    private static DocumentoCache esperar(CompletableFuture<DocumentoCache> consulta) {
+        try {
+            return consulta.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+}
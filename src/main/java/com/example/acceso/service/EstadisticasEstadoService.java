@@ -0,0 +1,99 @@
+package com.example.acceso.service;
+
+import com.example.acceso.model.Cliente;
+import com.example.acceso.model.Product;
+import com.example.acceso.repository.ClienteRepository;
+import com.example.acceso.repository.ConteoPorEstadoRepository;
+import com.example.acceso.repository.ConteoPorEstadoRepository.ConteoEstado;
+import com.example.acceso.repository.ProductRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Estadísticas por estado (activos, inactivos, eliminados y total) de las pantallas de administración.
+ *
+ * Se calculan con un único GROUP BY por entidad y se guardan unos segundos, ya que la tabla de
+ * productos las vuelve a pedir en cada redibujado. Los cambios del catálogo descartan la copia
+ * de productos de inmediato.
+ */
+@Service
+public class EstadisticasEstadoService {
+
+    private static final Duration TTL = Duration.ofSeconds(10);
+
+    private final ProductRepository productRepository;
+    private final ClienteRepository clienteRepository;
+
+    private final Map<Class<?>, Entrada> cache = new ConcurrentHashMap<>();
+
+    public EstadisticasEstadoService(ProductRepository productRepository, ClienteRepository clienteRepository) {
+        this.productRepository = productRepository;
+        this.clienteRepository = clienteRepository;
+    }
+
+    // ===================== Consultas =====================
+
+    public Map<String, Long> productos() {
+        return obtener(Product.class, productRepository);
+    }
+
+    public Map<String, Long> clientes() {
+        return obtener(Cliente.class, clienteRepository);
+    }
+
+    // ===================== Invalidación =====================
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alModificarCatalogo(CatalogoModificadoEvent event) {
+        cache.remove(Product.class);
+    }
+
+    // ===================== Utilidades =====================
+
+    private Map<String, Long> obtener(Class<?> entidad, ConteoPorEstadoRepository<?> repository) {
+        long ahora = System.nanoTime();
+        Entrada entrada = cache.get(entidad);
+        if (entrada == null || ahora - entrada.creada() > TTL.toNanos()) {
+            entrada = new Entrada(ahora, contar(repository));
+            cache.put(entidad, entrada);
+        }
+        return entrada.estadisticas();
+    }
+
+    private Map<String, Long> contar(ConteoPorEstadoRepository<?> repository) {
+        long activos = 0;
+        long inactivos = 0;
+        long eliminados = 0;
+        long total = 0;
+
+        for (ConteoEstado conteo : repository.contarPorEstado()) {
+            long cantidad = conteo.getCantidad();
+            total += cantidad;
+            if (conteo.getEstado() == null) {
+                continue;
+            }
+            switch (conteo.getEstado()) {
+                case 1 -> activos = cantidad;
+                case 0 -> inactivos = cantidad;
+                case 2 -> eliminados = cantidad;
+                default -> { }
+            }
+        }
+
+        Map<String, Long> estadisticas = new LinkedHashMap<>();
+        estadisticas.put("activos", activos);
+        estadisticas.put("inactivos", inactivos);
+        estadisticas.put("eliminados", eliminados);
+        estadisticas.put("total", total);
+        return Collections.unmodifiableMap(estadisticas);
+    }
+
+    private record Entrada(long creada, Map<String, Long> estadisticas) {
+    }
+}
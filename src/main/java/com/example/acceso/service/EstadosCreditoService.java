@@ -0,0 +1,143 @@
+package com.example.acceso.service;
+
+import com.example.acceso.model.EnumVentas.EstadoCredito;
+import com.example.acceso.model.EnumVentas.EstadoCuota;
+import com.example.acceso.repository.RepositorioVentas.CreditoVentaRepository;
+import com.example.acceso.repository.RepositorioVentas.CuotaPagoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cambios de estado por fecha de cuotas y créditos (VENCIDA / VENCIDO / PAGADO).
+ *
+ * Se ejecuta cada día en una sola instancia (tabla {@code tareas_bloqueo}) con sentencias UPDATE
+ * masivas por rangos de ID, cada rango en su propia transacción: no se cargan entidades ni se
+ * mantiene una transacción larga sobre todas las filas.
+ */
+@Slf4j
+@Service
+public class EstadosCreditoService {
+
+    private static final String TAREA = "estados-credito";
+    private static final Duration DURACION_MAXIMA = Duration.ofMinutes(30);
+
+    private final CuotaPagoRepository cuotaPagoRepository;
+    private final CreditoVentaRepository creditoVentaRepository;
+    private final BloqueoTareaService bloqueoTareaService;
+    private final TransactionTemplate transaccion;
+    private final int tamanioLote;
+
+    // Métricas
+    private final AtomicLong ejecuciones = new AtomicLong();
+    private final AtomicLong ejecucionesOmitidas = new AtomicLong();
+    private final AtomicLong totalCuotasVencidas = new AtomicLong();
+    private final AtomicLong totalCreditosVencidos = new AtomicLong();
+    private final AtomicLong totalCreditosPagados = new AtomicLong();
+    private volatile Map<String, Object> ultimaEjecucion;
+
+    public EstadosCreditoService(CuotaPagoRepository cuotaPagoRepository,
+                                 CreditoVentaRepository creditoVentaRepository,
+                                 BloqueoTareaService bloqueoTareaService,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${creditos.estados.tamanio-lote:5000}") int tamanioLote) {
+        this.cuotaPagoRepository = cuotaPagoRepository;
+        this.creditoVentaRepository = creditoVentaRepository;
+        this.bloqueoTareaService = bloqueoTareaService;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.tamanioLote = tamanioLote;
+    }
+
+    // ===================== Ejecución =====================
+
+    @Scheduled(cron = "${creditos.estados.cron:0 5 0 * * *}")
+    public void ejecutarProgramado() {
+        actualizar();
+    }
+
+    /**
+     * Actualiza cuotas y luego créditos.
+     *
+     * @return resumen de la ejecución, o {@code null} si otra instancia la está ejecutando
+     */
+    public Map<String, Object> actualizar() {
+        Map<String, Object> resultado = bloqueoTareaService.ejecutar(TAREA, DURACION_MAXIMA, this::actualizarEstados);
+        if (resultado == null) {
+            ejecucionesOmitidas.incrementAndGet();
+        }
+        return resultado;
+    }
+
+    private Map<String, Object> actualizarEstados() {
+        long inicio = System.nanoTime();
+        LocalDate hoy = LocalDate.now();
+
+        int cuotasVencidas = porLotes(cuotaPagoRepository.findMaxId(), (desde, hasta) ->
+                cuotaPagoRepository.marcarVencidas(desde, hasta, hoy, EstadoCuota.PENDIENTE, EstadoCuota.VENCIDA));
+
+        long maxCredito = creditoVentaRepository.findMaxId();
+        int creditosPagados = porLotes(maxCredito, (desde, hasta) ->
+                creditoVentaRepository.marcarPagados(desde, hasta, EstadoCredito.ACTIVO, EstadoCredito.PAGADO));
+        int creditosVencidos = porLotes(maxCredito, (desde, hasta) ->
+                creditoVentaRepository.marcarVencidos(desde, hasta, hoy, EstadoCredito.ACTIVO, EstadoCredito.VENCIDO));
+
+        long duracionMs = Duration.ofNanos(System.nanoTime() - inicio).toMillis();
+
+        ejecuciones.incrementAndGet();
+        totalCuotasVencidas.addAndGet(cuotasVencidas);
+        totalCreditosPagados.addAndGet(creditosPagados);
+        totalCreditosVencidos.addAndGet(creditosVencidos);
+
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("fecha", LocalDateTime.now());
+        resultado.put("cuotasVencidas", cuotasVencidas);
+        resultado.put("creditosPagados", creditosPagados);
+        resultado.put("creditosVencidos", creditosVencidos);
+        resultado.put("duracionMs", duracionMs);
+        ultimaEjecucion = resultado;
+
+        log.info("✅ Estados de crédito actualizados en {} ms: {} cuotas vencidas, {} créditos pagados, {} créditos vencidos",
+                duracionMs, cuotasVencidas, creditosPagados, creditosVencidos);
+        return resultado;
+    }
+
+    /** Aplica la actualización sobre rangos de ID consecutivos, una transacción por rango */
+    private int porLotes(long maxId, ActualizacionPorRango actualizacion) {
+        int total = 0;
+        for (long desde = 1; desde <= maxId; desde += tamanioLote) {
+            long inicioRango = desde;
+            long finRango = desde + tamanioLote - 1;
+            Integer filas = transaccion.execute(status -> actualizacion.aplicar(inicioRango, finRango));
+            total += filas != null ? filas : 0;
+        }
+        return total;
+    }
+
+    @FunctionalInterface
+    private interface ActualizacionPorRango {
+        int aplicar(Long desde, Long hasta);
+    }
+
+    // ===================== Métricas =====================
+
+    public Map<String, Object> metricas() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("ejecuciones", ejecuciones.get());
+        metricas.put("ejecucionesOmitidas", ejecucionesOmitidas.get());
+        metricas.put("totalCuotasVencidas", totalCuotasVencidas.get());
+        metricas.put("totalCreditosPagados", totalCreditosPagados.get());
+        metricas.put("totalCreditosVencidos", totalCreditosVencidos.get());
+        metricas.put("ultimaEjecucion", ultimaEjecucion);
+        return metricas;
+    }
+}
@@ -0,0 +1,504 @@
+package com.example.acceso.service;
+
+import com.example.acceso.repository.BrandRepository;
+import com.example.acceso.repository.PersonalizacionRepository;
+import com.example.acceso.repository.ProductRepository;
+import com.example.acceso.service.storage.StorageBackend;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Guardado de imágenes subidas y generación de variantes por tamaño.
+ *
+ * El original se guarda con el SHA-256 de su contenido como nombre, así una imagen repetida se guarda
+ * una sola vez. Las variantes (miniatura, tarjeta, detalle) se generan después en un grupo acotado de
+ * hilos: la imagen se decodifica una vez y cada variante se reescala desde el original y se vuelve a
+ * codificar comprimida. Mientras una variante no existe, {@link #variante} devuelve el original.
+ * Como dos productos con la misma foto comparten el archivo, una imagen solo se elimina si ningún
+ * producto, marca o personalización guarda ya su URL. Los archivos se guardan en el {@link StorageBackend} configurado (disco local o S3).
+ */
+@Slf4j
+@Service
+public class ImagenService {
+
+    private static final Pattern URL_CON_HASH = Pattern.compile("^/uploads/([a-z]+)/([0-9a-f]{64})\\.([a-z]+)$");
+    private static final float CALIDAD_JPEG = 0.82f;
+    private static final long MAX_PIXELES = 40_000_000L; // Evita decodificar imágenes enormes en memoria
+    private static final long RECONSULTA_SIN_VARIANTE_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final String[] FORMATOS_VARIANTE = {"jpg", "png"};
+    private static final String TAREA_RECOLECCION = "recoleccion-imagenes";
+    private static final int TAMANIO_BLOQUE = 64 * 1024;
+
+    // Firmas (primeros bytes) de los formatos aceptados
+    private static final byte[] FIRMA_PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] FIRMA_GIF87 = "GIF87a".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FIRMA_GIF89 = "GIF89a".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FIRMA_RIFF = "RIFF".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FIRMA_WEBP = "WEBP".getBytes(StandardCharsets.US_ASCII);
+
+    public enum Variante {
+        MINIATURA("thumb", 160),
+        TARJETA("card", 480),
+        DETALLE("detail", 1200);
+
+        private final String sufijo;
+        private final int ladoMaximo;
+
+        Variante(String sufijo, int ladoMaximo) {
+            this.sufijo = sufijo;
+            this.ladoMaximo = ladoMaximo;
+        }
+    }
+
+    private final StorageBackend storage;
+    private final BloqueoTareaService bloqueoTareaService;
+    private final ProductRepository productRepository;
+    private final BrandRepository brandRepository;
+    private final PersonalizacionRepository personalizacionRepository;
+    private final ThreadPoolExecutor procesador;
+    private final ExecutorService eliminador;
+
+    // URL original + variante -> URL a servir (solo resultados definitivos)
+    private final Map<String, String> urlsResueltas = new ConcurrentHashMap<>();
+    // URL original + variante -> instante (nanoTime) hasta el que no se vuelve a consultar el almacén
+    private final Map<String, Long> sinVariante = new ConcurrentHashMap<>();
+
+    // Métricas
+    private final AtomicLong imagenesGuardadas = new AtomicLong();
+    private final AtomicLong imagenesDuplicadas = new AtomicLong();
+    private final AtomicLong variantesGeneradas = new AtomicLong();
+    private final AtomicLong erroresProcesamiento = new AtomicLong();
+    private final AtomicLong imagenesEliminadas = new AtomicLong();
+    private final AtomicLong eliminacionesPendientes = new AtomicLong();
+    private final AtomicLong eliminacionesEnUso = new AtomicLong();
+    private final AtomicLong contenidosRecolectados = new AtomicLong();
+
+    public ImagenService(StorageBackend storage,
+                         BloqueoTareaService bloqueoTareaService,
+                         ProductRepository productRepository,
+                         BrandRepository brandRepository,
+                         PersonalizacionRepository personalizacionRepository,
+                         @Value("${imagenes.variantes.hilos:2}") int hilos,
+                         @Value("${imagenes.variantes.cola:100}") int cola) {
+        this.storage = storage;
+        this.bloqueoTareaService = bloqueoTareaService;
+        this.productRepository = productRepository;
+        this.brandRepository = brandRepository;
+        this.personalizacionRepository = personalizacionRepository;
+        // Cola acotada: si se llena, la subida que llega procesa sus variantes en su propio hilo
+        this.procesador = new ThreadPoolExecutor(hilos, hilos, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(cola), Thread.ofPlatform().name("imagenes-", 0).daemon().factory(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        // Un solo hilo: los borrados masivos no compiten con las subidas por el almacén
+        this.eliminador = Executors.newSingleThreadExecutor(
+                Thread.ofPlatform().name("imagenes-eliminacion").daemon().factory());
+    }
+
+    @PreDestroy
+    public void detener() {
+        procesador.shutdown();
+        eliminador.shutdown();
+    }
+
+    // ===================== Guardado =====================
+
+    /**
+     * Guarda la imagen (si no existía ya) y programa la generación de sus variantes.
+     *
+     * El flujo se lee una sola vez, por bloques, hacia un temporal del almacén: el primer bloque se
+     * comprueba contra la firma del formato y el tamaño y el hash se calculan mientras se copia. La
+     * memoria usada no depende del tamaño de la imagen.
+     *
+     * @param tipo      carpeta de destino (productos, marcas...)
+     * @param entrada   contenido de la imagen; no se cierra
+     * @param extension extensión del archivo original, en minúsculas
+     * @param maxBytes  tamaño máximo permitido
+     * @throws IllegalArgumentException si el contenido no es del formato de la extensión o supera maxBytes
+     */
+    public ImagenGuardada guardar(String tipo, InputStream entrada, String extension, long maxBytes) throws IOException {
+        Path temporal = storage.crearTemporal();
+        try {
+            String hash = copiarValidando(entrada, temporal, extension, maxBytes);
+            String nombre = hash + "." + extension;
+
+            boolean duplicada = storage.existe(tipo + "/" + nombre);
+            if (duplicada) {
+                imagenesDuplicadas.incrementAndGet();
+            } else {
+                storage.guardar(tipo + "/" + nombre, temporal, hash);
+                imagenesGuardadas.incrementAndGet();
+                procesador.execute(() -> generarVariantes(tipo, hash, extension));
+            }
+
+            return new ImagenGuardada(nombre, "/uploads/" + tipo + "/" + nombre, duplicada);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    /** Copia el flujo al temporal validando firma y tamaño; devuelve el SHA-256 del contenido */
+    private static String copiarValidando(InputStream entrada, Path temporal, String extension, long maxBytes)
+            throws IOException {
+        MessageDigest digest = sha256();
+        byte[] bloque = new byte[TAMANIO_BLOQUE];
+        long total = 0;
+        try (OutputStream salida = Files.newOutputStream(temporal)) {
+            int leidos = entrada.readNBytes(bloque, 0, bloque.length);
+            if (!tieneFirma(bloque, leidos, extension)) {
+                throw new IllegalArgumentException("El contenido del archivo no es una imagen " + extension.toUpperCase(Locale.ROOT));
+            }
+            while (leidos > 0) {
+                total += leidos;
+                if (total > maxBytes) {
+                    throw new IllegalArgumentException("El archivo excede el tamaño máximo permitido ("
+                            + maxBytes / (1024 * 1024) + "MB)");
+                }
+                digest.update(bloque, 0, leidos);
+                salida.write(bloque, 0, leidos);
+                leidos = entrada.read(bloque);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /** Compara los primeros bytes con la firma del formato que indica la extensión */
+    private static boolean tieneFirma(byte[] b, int n, String extension) {
+        return switch (extension) {
+            case "jpg", "jpeg" -> n >= 3 && (b[0] & 0xFF) == 0xFF && (b[1] & 0xFF) == 0xD8 && (b[2] & 0xFF) == 0xFF;
+            case "png" -> n >= 8 && Arrays.equals(b, 0, 8, FIRMA_PNG, 0, 8);
+            case "gif" -> n >= 6 && (Arrays.equals(b, 0, 6, FIRMA_GIF87, 0, 6) || Arrays.equals(b, 0, 6, FIRMA_GIF89, 0, 6));
+            case "webp" -> n >= 12 && Arrays.equals(b, 0, 4, FIRMA_RIFF, 0, 4) && Arrays.equals(b, 8, 12, FIRMA_WEBP, 0, 4);
+            default -> false;
+        };
+    }
+
+    /**
+     * Elimina el original y sus variantes, si ningún registro usa ya la imagen
+     *
+     * @return false si el original no existía
+     * @throws IllegalStateException si algún producto, marca o personalización aún guarda su URL
+     */
+    public boolean eliminar(String tipo, String nombre) throws IOException {
+        if (!enUso(tipo, List.of(nombre)).isEmpty()) {
+            eliminacionesEnUso.incrementAndGet();
+            throw new IllegalStateException("La imagen aún la usa un producto, una marca o la personalización");
+        }
+        boolean existia = storage.existe(tipo + "/" + nombre);
+        storage.eliminarVarios(clavesDeImagen(tipo, nombre));
+        olvidar(nombre);
+        imagenesEliminadas.incrementAndGet();
+        return existia;
+    }
+
+    /**
+     * Elimina varias imágenes (y sus variantes) en segundo plano, con un solo borrado en el almacén.
+     * Las que algún registro aún usa se conservan. Los nombres ya deben estar validados.
+     */
+    public void eliminarEnSegundoPlano(String tipo, List<String> nombres) {
+        eliminacionesPendientes.addAndGet(nombres.size());
+        eliminador.execute(() -> {
+            try {
+                Set<String> usadas = enUso(tipo, nombres);
+                List<String> libres = nombres.stream().filter(nombre -> !usadas.contains(nombre)).toList();
+                if (!usadas.isEmpty()) {
+                    eliminacionesEnUso.addAndGet(usadas.size());
+                    log.info("📎 {} imágenes de '{}' se conservan porque aún están en uso", usadas.size(), tipo);
+                }
+                if (libres.isEmpty()) {
+                    return;
+                }
+                List<String> claves = new ArrayList<>();
+                for (String nombre : libres) {
+                    claves.addAll(clavesDeImagen(tipo, nombre));
+                }
+                storage.eliminarVarios(claves);
+                libres.forEach(this::olvidar);
+                imagenesEliminadas.addAndGet(libres.size());
+                log.info("🗑️ {} imágenes de '{}' eliminadas", libres.size(), tipo);
+            } catch (IOException | RuntimeException e) {
+                erroresProcesamiento.incrementAndGet();
+                log.warn("⚠️ No se pudieron eliminar {} imágenes de '{}': {}", nombres.size(), tipo, e.getMessage());
+            } finally {
+                eliminacionesPendientes.addAndGet(-nombres.size());
+            }
+        });
+    }
+
+    /**
+     * Nombres cuya URL aún guarda algún producto, marca o personalización. Con nombres por contenido,
+     * la imagen que un registro ya no usa puede ser la misma clave que usa otro.
+     */
+    private Set<String> enUso(String tipo, Collection<String> nombres) {
+        List<String> urls = nombres.stream().map(nombre -> "/uploads/" + tipo + "/" + nombre).toList();
+        Set<String> usadas = new HashSet<>(productRepository.findImagenesEnUso(urls));
+        usadas.addAll(brandRepository.findImagenesEnUso(urls));
+        usadas.addAll(personalizacionRepository.findImagenesEnUso(urls));
+
+        Set<String> nombresUsados = new HashSet<>();
+        for (String nombre : nombres) {
+            if (usadas.contains("/uploads/" + tipo + "/" + nombre)) {
+                nombresUsados.add(nombre);
+            }
+        }
+        return nombresUsados;
+    }
+
+    /** Original y todas las variantes posibles de una imagen */
+    private static Collection<String> clavesDeImagen(String tipo, String nombre) {
+        List<String> claves = new ArrayList<>();
+        claves.add(tipo + "/" + nombre);
+        String base = base(nombre);
+        for (Variante variante : Variante.values()) {
+            for (String formato : FORMATOS_VARIANTE) {
+                claves.add(tipo + "/" + base + "-" + variante.sufijo + "." + formato);
+            }
+        }
+        return claves;
+    }
+
+    private void olvidar(String nombre) {
+        String base = "/" + base(nombre) + ".";
+        urlsResueltas.keySet().removeIf(clave -> clave.contains(base));
+        sinVariante.keySet().removeIf(clave -> clave.contains(base));
+    }
+
+    private static String base(String nombre) {
+        int punto = nombre.lastIndexOf('.');
+        return punto > 0 ? nombre.substring(0, punto) : nombre;
+    }
+
+    /**
+     * Libera el espacio de las imágenes eliminadas que ya nadie usa (en disco local, los contenidos
+     * sin enlaces). Con el almacén compartido, solo una instancia la ejecuta a la vez.
+     */
+    @Scheduled(fixedDelayString = "${imagenes.recoleccion.intervalo-ms:3600000}", initialDelay = 300_000)
+    public void recolectar() {
+        Integer liberados = bloqueoTareaService.ejecutar(TAREA_RECOLECCION, Duration.ofMinutes(30), () -> {
+            try {
+                return storage.recolectar();
+            } catch (IOException e) {
+                log.warn("⚠️ Recolección de imágenes incompleta: {}", e.getMessage());
+                return 0;
+            }
+        });
+        if (liberados != null && liberados > 0) {
+            contenidosRecolectados.addAndGet(liberados);
+            log.info("🧹 {} imágenes sin referencias liberadas del almacén", liberados);
+        }
+    }
+
+    // ===================== Variantes =====================
+
+    /**
+     * URL de la variante de una imagen subida, o la URL original si la imagen no tiene variantes
+     * (imágenes anteriores, WebP, imágenes más pequeñas que la variante o aún en proceso).
+     * Se usa desde las vistas: {@code ${@imagenService.variante(producto.imagen, 'TARJETA')}}.
+     */
+    public String variante(String url, String nombreVariante) {
+        if (url == null || url.isBlank()) {
+            return url;
+        }
+        Variante variante = Variante.valueOf(nombreVariante.toUpperCase(Locale.ROOT));
+        String clave = url + "#" + variante;
+        String resuelta = urlsResueltas.get(clave);
+        if (resuelta != null) {
+            return resuelta;
+        }
+
+        Matcher m = URL_CON_HASH.matcher(url);
+        if (!m.matches()) {
+            urlsResueltas.put(clave, url); // Nombre antiguo (UUID): nunca tendrá variantes
+            return url;
+        }
+        Long reconsultar = sinVariante.get(clave);
+        if (reconsultar != null && System.nanoTime() - reconsultar < 0) {
+            return url;
+        }
+        try {
+            for (String formato : FORMATOS_VARIANTE) {
+                String archivo = m.group(2) + "-" + variante.sufijo + "." + formato;
+                if (storage.existe(m.group(1) + "/" + archivo)) {
+                    resuelta = "/uploads/" + m.group(1) + "/" + archivo;
+                    urlsResueltas.put(clave, resuelta);
+                    sinVariante.remove(clave);
+                    return resuelta;
+                }
+            }
+        } catch (IOException e) {
+            log.debug("No se pudo consultar la variante de {}: {}", url, e.getMessage());
+        }
+        // Aún sin variante (o generada en otra instancia): se vuelve a consultar pasado un rato
+        sinVariante.put(clave, System.nanoTime() + RECONSULTA_SIN_VARIANTE_NANOS);
+        return url;
+    }
+
+    /** Lee el original del almacén (la tarea en cola no retiene la imagen en memoria) */
+    private void generarVariantes(String tipo, String hash, String extension) {
+        String clave = tipo + "/" + hash + "." + extension;
+        String urlOriginal = "/uploads/" + clave;
+        try {
+            Optional<StorageBackend.Objeto> objeto = storage.buscar(clave);
+            if (objeto.isEmpty()) {
+                return; // Eliminada antes de procesarse
+            }
+            BufferedImage original;
+            if (objeto.get().rutaLocal() != null) {
+                original = decodificar(ImageIO.createImageInputStream(objeto.get().rutaLocal().toFile()));
+            } else {
+                try (InputStream entrada = storage.leer(clave, 0, objeto.get().tamanio() - 1)) {
+                    original = decodificar(ImageIO.createImageInputStream(entrada));
+                }
+            }
+            if (original == null) {
+                log.debug("Imagen {} sin decodificador disponible (p. ej. WebP): se sirve solo el original", hash);
+                return;
+            }
+            boolean transparente = original.getColorModel().hasAlpha();
+            String formato = transparente ? "png" : "jpg";
+            for (Variante variante : Variante.values()) {
+                String url = urlOriginal;
+                // No se amplía: si el original ya es pequeño, la vista usa el original
+                if (Math.max(original.getWidth(), original.getHeight()) > variante.ladoMaximo) {
+                    String archivo = hash + "-" + variante.sufijo + "." + formato;
+                    BufferedImage escalada = escalar(original, variante.ladoMaximo, transparente);
+                    ByteArrayOutputStream codificada = new ByteArrayOutputStream();
+                    codificar(escalada, formato, codificada);
+                    storage.guardar(tipo + "/" + archivo, codificada.toByteArray());
+                    variantesGeneradas.incrementAndGet();
+                    url = "/uploads/" + tipo + "/" + archivo;
+                }
+                urlsResueltas.put(urlOriginal + "#" + variante, url);
+                sinVariante.remove(urlOriginal + "#" + variante);
+            }
+        } catch (IOException | RuntimeException e) {
+            erroresProcesamiento.incrementAndGet();
+            log.warn("⚠️ No se pudieron generar las variantes de la imagen {}: {}", hash, e.getMessage());
+        }
+    }
+
+    /** Decodifica la imagen una sola vez; null si no hay lector para el formato o es demasiado grande */
+    private static BufferedImage decodificar(ImageInputStream imagen) throws IOException {
+        try (ImageInputStream entrada = imagen) {
+            Iterator<ImageReader> lectores = ImageIO.getImageReaders(entrada);
+            if (!lectores.hasNext()) {
+                return null;
+            }
+            ImageReader lector = lectores.next();
+            try {
+                lector.setInput(entrada, true, true);
+                if ((long) lector.getWidth(0) * lector.getHeight(0) > MAX_PIXELES) {
+                    throw new IOException("La imagen supera " + MAX_PIXELES / 1_000_000 + " megapíxeles");
+                }
+                return lector.read(0);
+            } finally {
+                lector.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage escalar(BufferedImage original, int ladoMaximo, boolean transparente) {
+        double factor = Math.min(1.0, (double) ladoMaximo / Math.max(original.getWidth(), original.getHeight()));
+        int ancho = Math.max(1, (int) Math.round(original.getWidth() * factor));
+        int alto = Math.max(1, (int) Math.round(original.getHeight() * factor));
+
+        BufferedImage destino = new BufferedImage(ancho, alto,
+                transparente ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = destino.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(original, 0, 0, ancho, alto, null);
+        } finally {
+            g.dispose();
+        }
+        return destino;
+    }
+
+    private static void codificar(BufferedImage imagen, String formato, OutputStream out) throws IOException {
+        if (formato.equals("png")) {
+            ImageIO.write(imagen, "png", out);
+            return;
+        }
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(CALIDAD_JPEG);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.write(null, new IIOImage(imagen, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    // ===================== Utilidades =====================
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // ===================== Métricas =====================
+
+    public Map<String, Object> metricas() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("almacen", storage.nombre());
+        metricas.put("imagenesGuardadas", imagenesGuardadas.get());
+        metricas.put("imagenesDuplicadas", imagenesDuplicadas.get());
+        metricas.put("variantesGeneradas", variantesGeneradas.get());
+        metricas.put("erroresProcesamiento", erroresProcesamiento.get());
+        metricas.put("pendientes", procesador.getQueue().size() + procesador.getActiveCount());
+        metricas.put("imagenesEliminadas", imagenesEliminadas.get());
+        metricas.put("eliminacionesPendientes", eliminacionesPendientes.get());
+        metricas.put("eliminacionesEnUso", eliminacionesEnUso.get());
+        metricas.put("contenidosRecolectados", contenidosRecolectados.get());
+        return metricas;
+    }
+
+    public record ImagenGuardada(String nombre, String url, boolean duplicada) {
+    }
+}
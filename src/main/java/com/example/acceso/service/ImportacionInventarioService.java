@@ -0,0 +1,210 @@
+package com.example.acceso.service;
+
+import com.example.acceso.dto.ImportacionInventarioResponse;
+import com.example.acceso.dto.ImportacionInventarioResponse.ResultadoLinea;
+import com.example.acceso.dto.RegistrarMovimientoRequest;
+import com.example.acceso.model.EnumInventario.MotivoMovimiento;
+import com.example.acceso.model.EnumInventario.TipoMovimiento;
+import com.example.acceso.model.EnumInventario.TipoReferencia;
+import com.example.acceso.repository.ProductRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Ingreso masivo de mercadería (ENTRADA por COMPRA) desde CSV o JSON por líneas.
+ *
+ * El archivo se lee línea por línea sin cargarlo completo. Las líneas válidas se agrupan en lotes:
+ * cada lote se valida contra productos con una sola consulta y se registra en su propia transacción
+ * ({@link MovimientoInventarioService#registrarMovimientos}). Si un lote falla, solo se rechazan
+ * sus líneas; los lotes anteriores quedan registrados.
+ *
+ * No es transaccional a propósito: una transacción por lote, no una por archivo.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImportacionInventarioService {
+
+    private static final int TAMANIO_LOTE = 500;
+    private static final int MAX_OBSERVACIONES = 500;
+    private static final String OBSERVACION_POR_DEFECTO = "Ingreso masivo de mercadería";
+
+    private final MovimientoInventarioService movimientoInventarioService;
+    private final ProductRepository productRepository;
+    private final ObjectMapper objectMapper;
+
+    public enum Formato { CSV, JSON }
+
+    /**
+     * CSV: {@code productoId,cantidad[,observaciones]} con encabezado opcional.
+     * JSON: un objeto por línea, {@code {"productoId": 1, "cantidad": 10, "observaciones": "..."}}.
+     */
+    public ImportacionInventarioResponse importarEntradas(Reader reader, Formato formato, Long usuarioId) throws IOException {
+        long inicio = System.nanoTime();
+        List<ResultadoLinea> resultados = new ArrayList<>();
+        List<LineaEntrada> lote = new ArrayList<>(TAMANIO_LOTE);
+
+        BufferedReader lector = reader instanceof BufferedReader br ? br : new BufferedReader(reader);
+        String texto;
+        int numero = 0;
+        while ((texto = lector.readLine()) != null) {
+            numero++;
+            if (texto.isBlank() || (numero == 1 && formato == Formato.CSV && esEncabezado(texto))) {
+                continue;
+            }
+
+            ResultadoLinea resultado = new ResultadoLinea(numero, null, null, false, null);
+            resultados.add(resultado);
+            try {
+                lote.add(new LineaEntrada(parsear(texto.strip(), formato, resultado), resultado));
+            } catch (IllegalArgumentException e) {
+                resultado.setMensaje(e.getMessage());
+                continue;
+            }
+
+            if (lote.size() == TAMANIO_LOTE) {
+                procesarLote(lote, usuarioId);
+                lote.clear();
+            }
+        }
+        if (!lote.isEmpty()) {
+            procesarLote(lote, usuarioId);
+        }
+
+        int registradas = (int) resultados.stream().filter(ResultadoLinea::isRegistrada).count();
+        long duracionMs = Duration.ofNanos(System.nanoTime() - inicio).toMillis();
+        log.info("📦 Importación de inventario: {} líneas, {} registradas, {} rechazadas en {} ms",
+                resultados.size(), registradas, resultados.size() - registradas, duracionMs);
+
+        return ImportacionInventarioResponse.builder()
+                .totalLineas(resultados.size())
+                .registradas(registradas)
+                .rechazadas(resultados.size() - registradas)
+                .duracionMs(duracionMs)
+                .lineas(resultados)
+                .build();
+    }
+
+    // ===================== Lotes =====================
+
+    private void procesarLote(List<LineaEntrada> lote, Long usuarioId) {
+        Set<Long> ids = new HashSet<>();
+        lote.forEach(linea -> ids.add(linea.request().getProductoId()));
+        Set<Long> existentes = new HashSet<>(productRepository.findIdsNoEliminados(ids));
+
+        List<LineaEntrada> validas = new ArrayList<>(lote.size());
+        for (LineaEntrada linea : lote) {
+            if (existentes.contains(linea.request().getProductoId())) {
+                validas.add(linea);
+            } else {
+                linea.resultado().setMensaje("Producto no encontrado con ID: " + linea.request().getProductoId());
+            }
+        }
+        if (validas.isEmpty()) {
+            return;
+        }
+
+        try {
+            movimientoInventarioService.registrarMovimientos(
+                    validas.stream().map(LineaEntrada::request).toList(), usuarioId);
+            validas.forEach(linea -> {
+                linea.resultado().setRegistrada(true);
+                linea.resultado().setMensaje("Registrado");
+            });
+        } catch (RuntimeException e) {
+            log.warn("⚠️ Lote de importación rechazado ({} líneas): {}", validas.size(), e.getMessage());
+            validas.forEach(linea -> linea.resultado().setMensaje("Lote no registrado: " + e.getMessage()));
+        }
+    }
+
+    // ===================== Parseo =====================
+
+    private RegistrarMovimientoRequest parsear(String texto, Formato formato, ResultadoLinea resultado) {
+        Long productoId;
+        Integer cantidad;
+        String observaciones;
+
+        if (formato == Formato.CSV) {
+            String[] columnas = texto.split(",", 3);
+            if (columnas.length < 2) {
+                throw new IllegalArgumentException("Se esperaba productoId,cantidad[,observaciones]");
+            }
+            productoId = aLong(columnas[0].strip());
+            cantidad = aEntero(columnas[1].strip());
+            observaciones = columnas.length == 3 ? columnas[2].strip() : null;
+        } else {
+            JsonNode nodo;
+            try {
+                nodo = objectMapper.readTree(texto);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("JSON inválido");
+            }
+            if (nodo == null || !nodo.isObject()) {
+                throw new IllegalArgumentException("Se esperaba un objeto JSON por línea");
+            }
+            productoId = nodo.hasNonNull("productoId") ? aLong(nodo.get("productoId").asText()) : null;
+            cantidad = nodo.hasNonNull("cantidad") ? aEntero(nodo.get("cantidad").asText()) : null;
+            observaciones = nodo.hasNonNull("observaciones") ? nodo.get("observaciones").asText() : null;
+        }
+
+        resultado.setProductoId(productoId);
+        resultado.setCantidad(cantidad);
+
+        if (productoId == null) {
+            throw new IllegalArgumentException("El ID del producto es obligatorio");
+        }
+        if (cantidad == null || cantidad < 1) {
+            throw new IllegalArgumentException("La cantidad debe ser al menos 1");
+        }
+        if (observaciones != null && observaciones.length() > MAX_OBSERVACIONES) {
+            throw new IllegalArgumentException("Las observaciones no pueden exceder " + MAX_OBSERVACIONES + " caracteres");
+        }
+
+        return RegistrarMovimientoRequest.builder()
+                .productoId(productoId)
+                .tipoMovimiento(TipoMovimiento.ENTRADA)
+                .cantidad(cantidad)
+                .motivo(MotivoMovimiento.COMPRA)
+                .referenciaTipo(TipoReferencia.COMPRA)
+                .observaciones(observaciones == null || observaciones.isBlank() ? OBSERVACION_POR_DEFECTO : observaciones)
+                .build();
+    }
+
+    /** La primera línea es encabezado si su primera columna no es numérica */
+    private static boolean esEncabezado(String texto) {
+        String primera = texto.split(",", 2)[0].strip();
+        return !primera.isEmpty() && !Character.isDigit(primera.charAt(0));
+    }
+
+    private static Long aLong(String valor) {
+        try {
+            return Long.valueOf(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("ID de producto inválido: " + valor);
+        }
+    }
+
+    private static Integer aEntero(String valor) {
+        try {
+            return Integer.valueOf(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cantidad inválida: " + valor);
+        }
+    }
+
+    private record LineaEntrada(RegistrarMovimientoRequest request, ResultadoLinea resultado) {
+    }
+}
@@ -1,7 +1,12 @@
 package com.example.acceso.service;
 
 import com.example.acceso.dto.MovimientoInventarioResponse;
+import com.example.acceso.dto.PaginaMovimientos;
 import com.example.acceso.dto.RegistrarMovimientoRequest;
+import com.example.acceso.model.EntidadesVenta.DetalleVenta;
+import com.example.acceso.model.EntidadesVenta.Venta;
+import com.example.acceso.model.EnumInventario.MotivoMovimiento;
+import com.example.acceso.model.EnumInventario.TipoReferencia;
 import com.example.acceso.model.MovimientoInventario;
 import com.example.acceso.model.Product;
 import com.example.acceso.model.Usuario;
@@ -11,11 +16,17 @@ import com.example.acceso.repository.ProductRepository;
 import com.example.acceso.repository.UsuarioRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -26,6 +37,13 @@ public class MovimientoInventarioService {
     private final MovimientoInventarioRepository movimientoRepository;
     private final ProductRepository productRepository;
     private final UsuarioRepository usuarioRepository;
+    private final CierreInventarioService cierreInventarioService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private static final int TAMANIO_PAGINA = 50;
+    private static final int TAMANIO_ULTIMOS = 10;
+    private static final int TAMANIO_MAXIMO = 200;
+    private static final LocalDateTime CURSOR_INICIAL = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
 
     /**
      * Registra un movimiento de inventario y actualiza el stock del producto
@@ -43,25 +61,20 @@ public class MovimientoInventarioService {
         Usuario usuario = usuarioRepository.findById(usuarioId)
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado con ID: " + usuarioId));
 
-        // 3. Capturar stock anterior
-        Integer stockAnterior = producto.getStock();
-
-        // 4. Calcular nuevo stock según tipo de movimiento
-        Integer nuevoStock = calcularNuevoStock(producto.getStock(), request.getCantidad(), request.getTipoMovimiento());
+        // 3. Actualizar stock con una sola sentencia (sin leer y reescribir la fila)
+        Integer nuevoStock = aplicarMovimiento(producto.getId(), request.getCantidad(), request.getTipoMovimiento());
 
-        // 5. Validar stock suficiente para salidas/mermas
-        if (nuevoStock < 0) {
+        // 4. Validar stock suficiente para salidas/mermas
+        if (nuevoStock == null) {
             throw new RuntimeException(String.format(
                     "Stock insuficiente. Stock actual: %d, Cantidad solicitada: %d",
-                    producto.getStock(), request.getCantidad()
+                    productRepository.obtenerStock(producto.getId()), request.getCantidad()
             ));
         }
+        Integer stockAnterior = calcularStockAnterior(nuevoStock, request.getCantidad(), request.getTipoMovimiento());
+        eventPublisher.publishEvent(new CatalogoModificadoEvent(producto.getId()));
 
-        // 6. Actualizar stock del producto
-        producto.setStock(nuevoStock);
-        productRepository.save(producto);
-
-        // 7. Crear registro de movimiento
+        // 5. Crear registro de movimiento
         MovimientoInventario movimiento = MovimientoInventario.builder()
                 .producto(producto)
                 .tipoMovimiento(request.getTipoMovimiento())
@@ -76,6 +89,7 @@ public class MovimientoInventarioService {
                 .build();
 
         MovimientoInventario movimientoGuardado = movimientoRepository.save(movimiento);
+        cierreInventarioService.registrar(List.of(movimientoGuardado));
 
         log.info("✅ Movimiento registrado - ID: {}, Stock: {} → {}",
                 movimientoGuardado.getId(), stockAnterior, nuevoStock);
@@ -84,61 +98,219 @@ public class MovimientoInventarioService {
     }
 
     /**
-     * Calcula el nuevo stock según el tipo de movimiento
+     * Registra en el kardex las salidas de una venta cuyo stock ya fue descontado, con un solo
+     * INSERT en lote (producto y usuario ya vienen resueltos; no se vuelven a consultar).
+     * {@code stockResultante} es el stock final por producto devuelto por
+     * {@link ProductRepository#descontarStock}; si un producto aparece en varias líneas,
+     * los saldos se encadenan en el orden de los detalles.
+     */
+    @Transactional
+    public void registrarSalidasPorVenta(Venta venta, Usuario usuario, Map<Long, Integer> stockResultante) {
+        Map<Long, Integer> saldo = new HashMap<>(stockResultante);
+        venta.getDetalles().forEach(d -> saldo.merge(d.getProducto().getId(), d.getCantidad(), Integer::sum));
+
+        List<MovimientoInventario> movimientos = new ArrayList<>();
+        for (DetalleVenta detalle : venta.getDetalles()) {
+            Long productoId = detalle.getProducto().getId();
+            Integer stockAnterior = saldo.get(productoId);
+            Integer stockNuevo = stockAnterior - detalle.getCantidad();
+            saldo.put(productoId, stockNuevo);
+
+            movimientos.add(MovimientoInventario.builder()
+                    .producto(detalle.getProducto())
+                    .tipoMovimiento(TipoMovimiento.SALIDA)
+                    .cantidad(detalle.getCantidad())
+                    .stockAnterior(stockAnterior)
+                    .stockNuevo(stockNuevo)
+                    .motivo(MotivoMovimiento.VENTA)
+                    .referenciaId(venta.getId())
+                    .referenciaTipo(TipoReferencia.VENTA)
+                    .observaciones("Salida por venta #" + venta.getId())
+                    .usuario(usuario)
+                    .build());
+        }
+
+        movimientoRepository.insertarEnLote(movimientos);
+        cierreInventarioService.registrar(movimientos);
+        log.info("✅ {} movimientos de salida registrados para venta #{}", movimientos.size(), venta.getId());
+    }
+
+    /**
+     * Registra varios movimientos (por ejemplo, un ajuste masivo de stock) en una sola llamada:
+     * el usuario y los productos se cargan una vez, el stock de cada producto se actualiza con su
+     * variación neta en un lote de UPDATE condicionales y el kardex se escribe con un único INSERT en lote.
+     * Los saldos se encadenan en el orden de la lista. Si un producto no existe o algún movimiento
+     * dejaría el stock en negativo, se revierte todo.
+     *
+     * @return cantidad de movimientos registrados
      */
-    private Integer calcularNuevoStock(Integer stockActual, Integer cantidad, TipoMovimiento tipo) {
+    @Transactional
+    public int registrarMovimientos(List<RegistrarMovimientoRequest> requests, Long usuarioId) {
+        if (requests.isEmpty()) {
+            return 0;
+        }
+
+        Usuario usuario = usuarioRepository.findById(usuarioId)
+                .orElseThrow(() -> new RuntimeException("Usuario no encontrado con ID: " + usuarioId));
+
+        Map<Long, Integer> variaciones = new LinkedHashMap<>();
+        for (RegistrarMovimientoRequest request : requests) {
+            variaciones.merge(request.getProductoId(),
+                    variacion(request.getCantidad(), request.getTipoMovimiento()), Integer::sum);
+        }
+
+        Map<Long, Product> productos = productRepository.findAllById(variaciones.keySet()).stream()
+                .collect(Collectors.toMap(Product::getId, p -> p));
+        for (Long productoId : variaciones.keySet()) {
+            if (!productos.containsKey(productoId)) {
+                throw new RuntimeException("Producto no encontrado con ID: " + productoId);
+            }
+        }
+
+        Map<Long, Integer> stockResultante = productRepository.ajustarStock(variaciones);
+
+        // Stock de partida de cada producto, para encadenar los saldos línea por línea
+        Map<Long, Integer> saldo = new HashMap<>();
+        for (Map.Entry<Long, Integer> entry : variaciones.entrySet()) {
+            Integer stockFinal = stockResultante.get(entry.getKey());
+            if (stockFinal == null) {
+                throw new RuntimeException("Stock insuficiente para '" + productos.get(entry.getKey()).getNombre() + "'");
+            }
+            saldo.put(entry.getKey(), stockFinal - entry.getValue());
+        }
+
+        List<MovimientoInventario> movimientos = new ArrayList<>(requests.size());
+        for (RegistrarMovimientoRequest request : requests) {
+            Product producto = productos.get(request.getProductoId());
+            Integer stockAnterior = saldo.get(producto.getId());
+            Integer stockNuevo = stockAnterior + variacion(request.getCantidad(), request.getTipoMovimiento());
+            if (stockNuevo < 0) {
+                throw new RuntimeException("Stock insuficiente para '" + producto.getNombre() + "'");
+            }
+            saldo.put(producto.getId(), stockNuevo);
+
+            movimientos.add(MovimientoInventario.builder()
+                    .producto(producto)
+                    .tipoMovimiento(request.getTipoMovimiento())
+                    .cantidad(request.getCantidad())
+                    .stockAnterior(stockAnterior)
+                    .stockNuevo(stockNuevo)
+                    .motivo(request.getMotivo())
+                    .referenciaId(request.getReferenciaId())
+                    .referenciaTipo(request.getReferenciaTipo())
+                    .observaciones(request.getObservaciones())
+                    .usuario(usuario)
+                    .build());
+        }
+
+        movimientoRepository.insertarEnLote(movimientos);
+        cierreInventarioService.registrar(movimientos);
+        eventPublisher.publishEvent(CatalogoModificadoEvent.de(productos.keySet()));
+
+        log.info("✅ {} movimientos registrados en lote ({} productos)", movimientos.size(), productos.size());
+        return movimientos.size();
+    }
+
+    /**
+     * Variación de stock de un movimiento: positiva para entradas y devoluciones, negativa para salidas y mermas
+     */
+    private int variacion(Integer cantidad, TipoMovimiento tipo) {
+        return switch (tipo) {
+            case ENTRADA, DEVOLUCION -> cantidad;
+            case SALIDA, MERMA -> -cantidad;
+        };
+    }
+
+    /**
+     * Aplica el movimiento en base de datos y devuelve el stock resultante,
+     * o null si una salida/merma no tenía stock suficiente
+     */
+    private Integer aplicarMovimiento(Long productoId, Integer cantidad, TipoMovimiento tipo) {
+        return switch (tipo) {
+            case ENTRADA, DEVOLUCION -> {
+                productRepository.incrementarStock(productoId, cantidad);
+                yield productRepository.obtenerStock(productoId);
+            }
+            case SALIDA, MERMA -> productRepository.descontarStock(Map.of(productoId, cantidad)).get(productoId);
+        };
+    }
+
+    /**
+     * Reconstruye el stock anterior a partir del resultante
+     */
+    private Integer calcularStockAnterior(Integer stockNuevo, Integer cantidad, TipoMovimiento tipo) {
         return switch (tipo) {
-            case ENTRADA, DEVOLUCION -> stockActual + cantidad;
-            case SALIDA, MERMA -> stockActual - cantidad;
+            case ENTRADA, DEVOLUCION -> stockNuevo - cantidad;
+            case SALIDA, MERMA -> stockNuevo + cantidad;
         };
     }
 
+    // ===================== Listados paginados por cursor =====================
+
     /**
-     * Listar movimientos por producto
+     * Kardex de un producto, del movimiento más reciente al más antiguo
      */
     @Transactional(readOnly = true)
-    public List<MovimientoInventarioResponse> listarPorProducto(Long productoId) {
-        return movimientoRepository.findByProductoIdOrderByFechaMovimientoDesc(productoId).stream()
-                .map(this::convertirAResponse)
-                .collect(Collectors.toList());
+    public PaginaMovimientos obtenerKardex(Long productoId, LocalDateTime antesDeFecha, Long antesDeId, Integer tamanio) {
+        return paginar(antesDeFecha, antesDeId, tamanio, TAMANIO_PAGINA,
+                (fecha, id, limit) -> movimientoRepository.buscarKardex(productoId, fecha, id, limit));
     }
 
     /**
      * Listar movimientos por tipo
      */
     @Transactional(readOnly = true)
-    public List<MovimientoInventarioResponse> listarPorTipo(TipoMovimiento tipo) {
-        return movimientoRepository.findByTipoMovimientoOrderByFechaMovimientoDesc(tipo).stream()
-                .map(this::convertirAResponse)
-                .collect(Collectors.toList());
+    public PaginaMovimientos listarPorTipo(TipoMovimiento tipo, LocalDateTime antesDeFecha, Long antesDeId, Integer tamanio) {
+        return paginar(antesDeFecha, antesDeId, tamanio, TAMANIO_PAGINA,
+                (fecha, id, limit) -> movimientoRepository.buscarPorTipo(tipo, fecha, id, limit));
     }
 
     /**
      * Listar movimientos por rango de fechas
      */
     @Transactional(readOnly = true)
-    public List<MovimientoInventarioResponse> listarPorFechas(LocalDateTime fechaInicio, LocalDateTime fechaFin) {
-        return movimientoRepository.findByFechaMovimientoBetween(fechaInicio, fechaFin).stream()
-                .map(this::convertirAResponse)
-                .collect(Collectors.toList());
+    public PaginaMovimientos listarPorFechas(LocalDateTime fechaInicio, LocalDateTime fechaFin,
+                                             LocalDateTime antesDeFecha, Long antesDeId, Integer tamanio) {
+        return paginar(antesDeFecha, antesDeId, tamanio, TAMANIO_PAGINA,
+                (fecha, id, limit) -> movimientoRepository.buscarPorFechas(fechaInicio, fechaFin, fecha, id, limit));
     }
 
     /**
      * Últimos movimientos
      */
     @Transactional(readOnly = true)
-    public List<MovimientoInventarioResponse> listarUltimos() {
-        return movimientoRepository.findTop10ByOrderByFechaMovimientoDesc().stream()
-                .map(this::convertirAResponse)
-                .collect(Collectors.toList());
+    public PaginaMovimientos listarUltimos(LocalDateTime antesDeFecha, Long antesDeId, Integer tamanio) {
+        return paginar(antesDeFecha, antesDeId, tamanio, TAMANIO_ULTIMOS, movimientoRepository::buscarUltimos);
     }
 
     /**
-     * Obtener kardex de un producto
+     * Sin cursor se empieza por el movimiento más reciente. Se pide una fila de más para saber
+     * si hay otra página sin contar el total.
      */
-    @Transactional(readOnly = true)
-    public List<MovimientoInventarioResponse> obtenerKardex(Long productoId) {
-        return listarPorProducto(productoId);
+    private PaginaMovimientos paginar(LocalDateTime antesDeFecha, Long antesDeId, Integer tamanio,
+                                      int tamanioPorDefecto, ConsultaPorCursor consulta) {
+        int limite = tamanio == null || tamanio < 1 ? tamanioPorDefecto : Math.min(tamanio, TAMANIO_MAXIMO);
+
+        List<MovimientoInventarioResponse> filas = consulta.buscar(
+                antesDeFecha != null ? antesDeFecha : CURSOR_INICIAL,
+                antesDeId != null ? antesDeId : Long.MAX_VALUE,
+                Limit.of(limite + 1));
+
+        boolean hayMas = filas.size() > limite;
+        List<MovimientoInventarioResponse> movimientos = hayMas ? filas.subList(0, limite) : filas;
+        MovimientoInventarioResponse ultimo = hayMas ? movimientos.get(movimientos.size() - 1) : null;
+
+        return PaginaMovimientos.builder()
+                .movimientos(movimientos)
+                .hayMas(hayMas)
+                .siguienteFecha(ultimo != null ? ultimo.getFechaMovimiento() : null)
+                .siguienteId(ultimo != null ? ultimo.getId() : null)
+                .build();
+    }
+
+    @FunctionalInterface
+    private interface ConsultaPorCursor {
+        List<MovimientoInventarioResponse> buscar(LocalDateTime fecha, Long id, Limit limit);
     }
 
     /**
@@ -3,6 +3,7 @@ package com.example.acceso.service;
 import com.example.acceso.model.Brand;
 import com.example.acceso.model.Personalizacion;
 import com.example.acceso.repository.PersonalizacionRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,15 +15,18 @@ public class PersonalizacionService {
 
     private final PersonalizacionRepository personalizacionRepository;
     private final BrandService brandService;
+    private final ApplicationEventPublisher eventPublisher;
 
     private static final String TIPO_LOGO = "LOGO";
     private static final String TIPO_SLIDE = "SLIDE";
     private static final int MAX_SLIDES = 5;
 
     public PersonalizacionService(PersonalizacionRepository personalizacionRepository,
-                                   BrandService brandService) {
+                                   BrandService brandService,
+                                   ApplicationEventPublisher eventPublisher) {
         this.personalizacionRepository = personalizacionRepository;
         this.brandService = brandService;
+        this.eventPublisher = eventPublisher;
         inicializarPersonalizacion();
     }
 
@@ -73,7 +77,7 @@ public class PersonalizacionService {
                 .orElseThrow(() -> new PersonalizacionException("Logo no encontrado"));
 
         logo.setImagenUrl(imagenUrl.trim());
-        return personalizacionRepository.save(logo);
+        return guardarYNotificar(logo);
     }
 
     @Transactional
@@ -82,7 +86,7 @@ public class PersonalizacionService {
                 .orElseThrow(() -> new PersonalizacionException("Logo no encontrado"));
 
         logo.setImagenUrl(null);
-        return personalizacionRepository.save(logo);
+        return guardarYNotificar(logo);
     }
 
     // ===================== Slides =====================
@@ -128,7 +132,7 @@ public class PersonalizacionService {
             slide.setMarca(null);
         }
 
-        return personalizacionRepository.save(slide);
+        return guardarYNotificar(slide);
     }
 
     /**
@@ -149,7 +153,7 @@ public class PersonalizacionService {
             slide.setMarca(null);
         }
 
-        return personalizacionRepository.save(slide);
+        return guardarYNotificar(slide);
     }
 
     /**
@@ -165,7 +169,7 @@ public class PersonalizacionService {
         slide.setImagenUrl(null);
         slide.setMarca(null);
 
-        return personalizacionRepository.save(slide);
+        return guardarYNotificar(slide);
     }
 
     // ===================== Búsquedas y utilidades =====================
@@ -212,6 +216,15 @@ public class PersonalizacionService {
                 .count();
     }
 
+    /**
+     * Guarda el logo o slide y avisa a la caché de la cabecera del sitio (se aplica tras el commit)
+     */
+    private Personalizacion guardarYNotificar(Personalizacion personalizacion) {
+        Personalizacion guardada = personalizacionRepository.save(personalizacion);
+        eventPublisher.publishEvent(new SitioModificadoEvent());
+        return guardada;
+    }
+
     // ===================== Validaciones =====================
 
     private void validarOrden(Integer orden) {
@@ -1,31 +1,71 @@
 package com.example.acceso.service;
 
+import com.example.acceso.dto.CatalogoFiltro;
+import com.example.acceso.dto.CatalogoResponse;
+import com.example.acceso.dto.DataTablesRequest;
+import com.example.acceso.dto.DataTablesResponse;
+import com.example.acceso.dto.FacetaDTO;
+import com.example.acceso.dto.ProductoCatalogoDTO;
 import com.example.acceso.model.Brand;
 import com.example.acceso.model.Category;
 import com.example.acceso.model.Genero;
 import com.example.acceso.model.Product;
+import com.example.acceso.repository.DataTablesQuery;
 import com.example.acceso.repository.ProductRepository;
-import com.example.acceso.repository.RepositorioVentas.DetalleVentaRepository;
+import com.example.acceso.repository.ProductSpecifications;
 
+import org.hibernate.Hibernate;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
 public class ProductService {
 
-    private final ProductRepository productRepository;
-    private final DetalleVentaRepository detalleVentaRepository;
+    private static final int MAX_TAMANIO_CATALOGO = 60;
+    private static final int MAX_RESULTADOS_BUSQUEDA = 100;
+
+    private static final DataTablesQuery<Product> TABLA_PRODUCTOS = new DataTablesQuery<>(
+            Map.of(
+                    "id", "id",
+                    "nombre", "nombre",
+                    "stock", "stock",
+                    "category.nombre", "category.nombre",
+                    "brand.nombre", "brand.nombre",
+                    "genero", "genero",
+                    "estado", "estado",
+                    "destacado", "destacado"),
+            List.of("nombre", "category.nombre", "brand.nombre"),
+            Sort.by(Sort.Direction.DESC, "id"));
 
-    public ProductService(ProductRepository productRepository, DetalleVentaRepository detalleVentaRepository) {
+    private final ProductRepository productRepository;
+    private final CatalogoCacheService catalogoCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ImagenService imagenService;
+    private final BusquedaProductosService busquedaProductos;
+
+    public ProductService(ProductRepository productRepository,
+                          CatalogoCacheService catalogoCache,
+                          ApplicationEventPublisher eventPublisher,
+                          ImagenService imagenService,
+                          BusquedaProductosService busquedaProductos) {
         this.productRepository = productRepository;
-        this.detalleVentaRepository = detalleVentaRepository;
+        this.catalogoCache = catalogoCache;
+        this.eventPublisher = eventPublisher;
+        this.imagenService = imagenService;
+        this.busquedaProductos = busquedaProductos;
     }
 
     // ===================== Listados =====================
@@ -39,21 +79,33 @@ public class ProductService {
         return productRepository.findAllWithRelations();
     }
 
+    /**
+     * Página de la tabla de administración (DataTables server-side), sin eliminados
+     */
+    @Transactional(readOnly = true)
+    public DataTablesResponse<Product> listarParaDataTables(DataTablesRequest request) {
+        DataTablesResponse<Product> respuesta = TABLA_PRODUCTOS.ejecutar(request, productRepository, DataTablesQuery.noEliminados());
+        // La tabla muestra la primera imagen y cuántas hay: las de toda la página llegan en una consulta
+        respuesta.getData().forEach(p -> Hibernate.initialize(p.getImagenes()));
+        return respuesta;
+    }
+
     @Transactional(readOnly = true)
     public List<Product> listarProductosOrdenados() {
         return productRepository.findAllByEstadoOrderByNombreAsc(1);
     }
 
     // ===================== Filtros para Navbar =====================
+    // Las consultas públicas de productos activos se resuelven desde el catálogo en memoria
 
-    @Transactional(readOnly = true)
-    public List<Product> listarDestacados() {
-        return productRepository.findByDestacadoTrueAndEstado(1);
+    public List<ProductoCatalogoDTO> listarDestacados() {
+        return catalogoCache.actual().destacados();
     }
 
-    @Transactional(readOnly = true)
-    public List<Product> obtenerDestacadosPorCategoria(String nombreCategoria) {
-        return productRepository.findByDestacadoTrueAndEstadoAndCategory_NombreIgnoreCase(1, nombreCategoria);
+    public List<ProductoCatalogoDTO> obtenerDestacadosPorCategoria(String nombreCategoria) {
+        return catalogoCache.actual().porNombreCategoria(nombreCategoria).stream()
+                .filter(p -> Boolean.TRUE.equals(p.getDestacado()))
+                .toList();
     }
 
     @Transactional(readOnly = true)
@@ -61,19 +113,18 @@ public class ProductService {
         return productRepository.findByDestacadoTrue();
     }
 
-    @Transactional(readOnly = true)
-    public List<Product> listarPorGenero(Genero genero) {
-        return productRepository.findByGeneroAndEstado(genero, 1);
+    public List<ProductoCatalogoDTO> listarPorGenero(Genero genero) {
+        return catalogoCache.actual().porGenero(genero);
     }
 
+    /** Productos del género en cualquier estado, con la misma vista que {@link #listarPorGenero(Genero)} */
     @Transactional(readOnly = true)
-    public List<Product> listarTodosPorGenero(Genero genero) {
-        return productRepository.findByGenero(genero);
+    public List<ProductoCatalogoDTO> listarTodosPorGenero(Genero genero) {
+        return productRepository.buscarCatalogo(ProductSpecifications.conGenero(genero), Integer.MAX_VALUE);
     }
 
-    @Transactional(readOnly = true)
-    public List<Product> listarEnRebaja() {
-        return productRepository.findByDescuentoGreaterThanAndEstado(BigDecimal.ZERO, 1);
+    public List<ProductoCatalogoDTO> listarEnRebaja() {
+        return catalogoCache.actual().enRebaja();
     }
 
     @Transactional(readOnly = true)
@@ -81,46 +132,37 @@ public class ProductService {
         return productRepository.findByDescuentoGreaterThan(BigDecimal.ZERO);
     }
 
-    @Transactional(readOnly = true)
-    public List<Product> listarPorCategoria(Long categoryId) {
-        return productRepository.findByCategory_IdAndEstado(categoryId, 1);
+    public List<ProductoCatalogoDTO> listarPorCategoria(Long categoryId) {
+        return catalogoCache.actual().porCategoria(categoryId);
     }
 
-    @Transactional(readOnly = true)
-    public List<Product> listarPorMarca(Long brandId) {
-        return productRepository.findByBrand_IdAndEstado(brandId, 1);
+    public List<ProductoCatalogoDTO> listarPorMarca(Long brandId) {
+        return catalogoCache.actual().porMarca(brandId);
     }
 
     // ===================== Filtros combinados =====================
 
-    @Transactional(readOnly = true)
-    public List<Product> listarDestacadosPorGenero(Genero genero) {
-        return productRepository.findByGeneroAndDestacadoTrueAndEstado(genero, 1);
+    public List<ProductoCatalogoDTO> listarDestacadosPorGenero(Genero genero) {
+        return catalogoCache.actual().porGenero(genero).stream()
+                .filter(p -> Boolean.TRUE.equals(p.getDestacado()))
+                .toList();
     }
 
-    @Transactional(readOnly = true)
-    public List<Product> listarEnRebajaPorGenero(Genero genero) {
-        return productRepository.findByGeneroAndDescuentoGreaterThanAndEstado(genero, BigDecimal.ZERO, 1);
+    public List<ProductoCatalogoDTO> listarEnRebajaPorGenero(Genero genero) {
+        return catalogoCache.actual().porGenero(genero).stream()
+                .filter(p -> p.getDescuento() != null && p.getDescuento().compareTo(BigDecimal.ZERO) > 0)
+                .toList();
     }
-    // Agregar este método al final de la clase (antes del cierre):
-    @Transactional(readOnly = true)
-    public List<Product> obtenerZapatillasMasVendidas() {
-        List<Object[]> resultados = detalleVentaRepository
-            .findTop5ProductosMasVendidosPorCategoria("Zapatillas");
-        
-        // Convertir resultados a List<Product>
-        List<Product> zapatillasMasVendidas = new ArrayList<>();
-        for (int i = 0; i < Math.min(5, resultados.size()); i++) {
-            Product producto = (Product) resultados.get(i)[0];
-            zapatillasMasVendidas.add(producto);
-        }
+
+    public List<ProductoCatalogoDTO> obtenerZapatillasMasVendidas() {
+        // Ranking por unidades vendidas (precalculado en el catálogo en memoria)
+        List<ProductoCatalogoDTO> zapatillasMasVendidas = new ArrayList<>(catalogoCache.actual().masVendidas());
         
         // Si no hay suficientes ventas, completar con destacadas
         if (zapatillasMasVendidas.size() < 3) {
-            List<Product> destacadas = productRepository
-                .findByDestacadoTrueAndEstadoAndCategory_NombreIgnoreCase(1, "Zapatillas");
+            List<ProductoCatalogoDTO> destacadas = obtenerDestacadosPorCategoria("Zapatillas");
             
-            for (Product destacada : destacadas) {
+            for (ProductoCatalogoDTO destacada : destacadas) {
                 if (zapatillasMasVendidas.size() >= 5) break;
                 if (!zapatillasMasVendidas.contains(destacada)) {
                     zapatillasMasVendidas.add(destacada);
@@ -190,7 +232,9 @@ public class ProductService {
                 }
             }
 
-            return productRepository.save(producto);
+            Product guardado = productRepository.save(producto);
+            eventPublisher.publishEvent(new CatalogoModificadoEvent(guardado.getId()));
+            return guardado;
 
         } catch (DataIntegrityViolationException e) {
             String msg = e.getMessage().toLowerCase();
@@ -250,6 +294,7 @@ public class ProductService {
                 .orElseThrow(() -> new ProductoException("Producto no encontrado"));
         producto.setEstado(2);
         productRepository.save(producto);
+        eventPublisher.publishEvent(new CatalogoModificadoEvent(id));
     }
 
     @Transactional
@@ -257,6 +302,7 @@ public class ProductService {
         if (id == null || id <= 0) return Optional.empty();
         return obtenerProductoPorId(id).map(p -> {
             p.setEstado(p.getEstado() == 1 ? 0 : 1);
+            eventPublisher.publishEvent(new CatalogoModificadoEvent(id));
             return productRepository.save(p);
         });
     }
@@ -266,6 +312,7 @@ public class ProductService {
         if (id == null || id <= 0) return Optional.empty();
         return obtenerProductoPorId(id).map(p -> {
             p.setDestacado(!p.getDestacado());
+            eventPublisher.publishEvent(new CatalogoModificadoEvent(id));
             return productRepository.save(p);
         });
     }
@@ -284,18 +331,88 @@ public class ProductService {
     }
 
     // ===================== Búsquedas =====================
+
+    /**
+     * Productos activos que coinciden con el texto (nombre, descripción, marca o categoría),
+     * ordenados por relevancia. Hasta {@value #MAX_RESULTADOS_BUSQUEDA} resultados, con los
+     * datos de la tarjeta (sin hidratar las entidades ni su galería de imágenes).
+     */
+    @Transactional(readOnly = true)
+    public List<ProductoCatalogoDTO> buscarProductos(String texto) {
+        if (texto == null || texto.trim().isEmpty()) {
+            return productRepository.buscarCatalogo(ProductSpecifications.conEstado(1), Integer.MAX_VALUE);
+        }
+        return buscar(texto.trim(), true);
+    }
+
+    /** Como {@link #buscarProductos(String)} pero con productos de cualquier estado */
     @Transactional(readOnly = true)
-    public List<Product> buscarProductos(String texto) {
-        if (texto == null || texto.trim().isEmpty()) return listarProductos();
-        return productRepository.findByNombreContainingIgnoreCaseOrDescripcionContainingIgnoreCaseAndEstado(
-                texto.trim(), texto.trim(), 1
-        );
+    public List<ProductoCatalogoDTO> buscarProductosTodos(String texto) {
+        if (texto == null || texto.trim().isEmpty()) {
+            return productRepository.buscarCatalogo(ProductSpecifications.todos(), Integer.MAX_VALUE);
+        }
+        return buscar(texto.trim(), false);
+    }
+
+    private List<ProductoCatalogoDTO> buscar(String texto, boolean soloActivos) {
+        return busquedaProductos.buscarIds(texto, soloActivos, MAX_RESULTADOS_BUSQUEDA)
+                .map(ids -> cargarEnOrden(ids, soloActivos))
+                .orElseGet(() -> productRepository.buscarCatalogo(soloActivos
+                        ? ProductSpecifications.conTexto(texto).and(ProductSpecifications.conEstado(1))
+                        : ProductSpecifications.conTexto(texto), MAX_RESULTADOS_BUSQUEDA));
+    }
+
+    /**
+     * Carga los productos en una consulta y los devuelve en el orden de los IDs. El estado se vuelve
+     * a comprobar en la base de datos: el índice de esta instancia puede no tener aún un cambio
+     * hecho en otra.
+     */
+    private List<ProductoCatalogoDTO> cargarEnOrden(List<Long> ids, boolean soloActivos) {
+        if (ids.isEmpty()) return List.of();
+        Map<Long, ProductoCatalogoDTO> porId = productRepository.findTarjetasPorIds(ids, soloActivos).stream()
+                .collect(Collectors.toMap(ProductoCatalogoDTO::getId, p -> p));
+        return ids.stream().map(porId::get).filter(Objects::nonNull).toList();
     }
 
+    // ===================== Catálogo público =====================
+
+    /**
+     * Página del catálogo con filtros combinados, paginación por cursor (ID descendente)
+     * y conteos por género, categoría y marca.
+     */
     @Transactional(readOnly = true)
-    public List<Product> buscarProductosTodos(String texto) {
-        if (texto == null || texto.trim().isEmpty()) return listarTodosProductos();
-        return productRepository.findByNombreContainingIgnoreCase(texto.trim());
+    public CatalogoResponse buscarCatalogo(CatalogoFiltro filtro) {
+        int tamanio = Math.max(1, Math.min(filtro.getTamanio() != null ? filtro.getTamanio() : 24, MAX_TAMANIO_CATALOGO));
+
+        Specification<Product> spec = ProductSpecifications.catalogo(filtro, null);
+        Specification<Product> pagina = filtro.getCursor() != null
+                ? spec.and(ProductSpecifications.idMenorQue(filtro.getCursor()))
+                : spec;
+
+        // Se pide un elemento extra para saber si existe una página siguiente
+        List<ProductoCatalogoDTO> productos = productRepository.buscarCatalogo(pagina, tamanio + 1);
+        boolean hayMas = productos.size() > tamanio;
+        if (hayMas) {
+            productos = productos.subList(0, tamanio);
+        }
+        // Las tarjetas muestran la variante reducida de la imagen, no el original
+        productos.forEach(p -> p.setImagen(imagenService.variante(p.getImagen(), "TARJETA")));
+
+        CatalogoResponse.CatalogoResponseBuilder respuesta = CatalogoResponse.builder()
+                .productos(productos)
+                .hayMas(hayMas)
+                .siguienteCursor(hayMas ? productos.get(productos.size() - 1).getId() : null);
+
+        // Total y facetas no cambian entre páginas: solo se calculan en la primera (sin cursor)
+        if (filtro.getCursor() == null) {
+            Map<String, List<FacetaDTO>> facetas = new LinkedHashMap<>();
+            for (String dimension : List.of("genero", "categoria", "marca")) {
+                facetas.put(dimension, productRepository.contarFacetas(
+                        ProductSpecifications.catalogo(filtro, dimension), dimension));
+            }
+            respuesta.total(productRepository.count(spec)).facetas(facetas);
+        }
+        return respuesta.build();
     }
 
     @Transactional(readOnly = true)
@@ -336,6 +453,7 @@ public class ProductService {
         }
         return obtenerProductoPorId(id).map(p -> {
             p.setStock(nuevoStock);
+            eventPublisher.publishEvent(new CatalogoModificadoEvent(id));
             return productRepository.save(p);
         });
     }
@@ -374,6 +492,7 @@ public class ProductService {
                 .orElseThrow(() -> new ProductoException("Producto no encontrado con ID: " + id));
 
         producto.setImagen(imagenUrl.trim());  // ← CAMBIO AQUÍ
+        eventPublisher.publishEvent(new CatalogoModificadoEvent(id));
         return productRepository.save(producto);
     }
 
@@ -390,6 +509,7 @@ public class ProductService {
                 .orElseThrow(() -> new ProductoException("Producto no encontrado con ID: " + id));
 
         producto.setImagen(null);  // ← CAMBIO AQUÍ
+        eventPublisher.publishEvent(new CatalogoModificadoEvent(id));
         return productRepository.save(producto);
     }
 
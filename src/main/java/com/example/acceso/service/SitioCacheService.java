@@ -0,0 +1,112 @@
+package com.example.acceso.service;
+
+import com.example.acceso.model.Brand;
+import com.example.acceso.model.Personalizacion;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+/**
+ * Copia en memoria de lo que se muestra en todas las páginas: logo, slides del carrusel y marcas
+ * con imagen. Se construye en la primera lectura y se descarta tras el commit de cualquier
+ * cambio en la personalización o en las marcas ({@link SitioModificadoEvent}).
+ */
+@Slf4j
+@Service
+public class SitioCacheService {
+
+    private static final String LOGO_POR_DEFECTO = "/web/images/logo.png";
+
+    private final PersonalizacionService personalizacionService;
+    private final BrandService brandService;
+
+    private volatile Snapshot snapshot;
+
+    public SitioCacheService(PersonalizacionService personalizacionService, BrandService brandService) {
+        this.personalizacionService = personalizacionService;
+        this.brandService = brandService;
+    }
+
+    // ===================== Lectura =====================
+
+    public Snapshot actual() {
+        Snapshot actual = snapshot;
+        if (actual == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    snapshot = construir();
+                }
+                actual = snapshot;
+            }
+        }
+        return actual;
+    }
+
+    // ===================== Invalidación =====================
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void alModificarSitio(SitioModificadoEvent event) {
+        snapshot = null; // Se reconstruye en la siguiente página
+    }
+
+    private Snapshot construir() {
+        String logo = personalizacionService.obtenerImagenUrlLogo().orElse(LOGO_POR_DEFECTO);
+
+        List<Slide> slides = personalizacionService.listarSlidesConMarca().stream()
+                .filter(s -> s.getImagenUrl() != null && !s.getImagenUrl().trim().isEmpty())
+                .map(SitioCacheService::aSlide)
+                .toList();
+
+        List<MarcaVista> marcas = brandService.listarMarcasConImagen().stream()
+                .map(SitioCacheService::aMarca)
+                .toList();
+
+        log.info("🗂️ Cabecera del sitio en memoria: {} slides, {} marcas", slides.size(), marcas.size());
+        return new Snapshot(logo, slides, marcas);
+    }
+
+    private static Slide aSlide(Personalizacion slide) {
+        MarcaVista marca = slide.getMarca() != null ? aMarca(slide.getMarca()) : null;
+        return new Slide(slide.getImagenUrl(), slide.getOrden(), marca);
+    }
+
+    private static MarcaVista aMarca(Brand marca) {
+        return new MarcaVista(marca.getId(), marca.getNombre(), normalizarImagen(marca.getImagen()));
+    }
+
+    /** Corrige rutas mal guardadas ("up cargas", espacios) y asegura que sean absolutas */
+    private static String normalizarImagen(String imagen) {
+        if (imagen == null) {
+            return null;
+        }
+        String limpia = imagen.replace(" ", "").replace("upcargas", "uploads");
+        return limpia.startsWith("/") ? limpia : "/" + limpia;
+    }
+
+    // ===================== Snapshot =====================
+
+    /** Versión inmutable de la cabecera del sitio */
+    @Value
+    public static class Snapshot {
+        String logo;
+        List<Slide> slides;
+        List<MarcaVista> marcas;
+    }
+
+    @Value
+    public static class Slide {
+        String imagenUrl;
+        Integer orden;
+        MarcaVista marca;
+    }
+
+    @Value
+    public static class MarcaVista {
+        Long id;
+        String nombre;
+        String imagen;
+    }
+}
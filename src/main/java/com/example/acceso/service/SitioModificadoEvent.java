@@ -0,0 +1,8 @@
+package com.example.acceso.service;
+
+/**
+ * Evento publicado cuando cambia algo que se muestra en todas las páginas del sitio:
+ * el logo, los slides del carrusel o las marcas (nombre, imagen o estado).
+ */
+public class SitioModificadoEvent {
+}
@@ -0,0 +1,237 @@
+package com.example.acceso.service;
+
+import com.example.acceso.model.EntidadesVenta.Venta;
+import com.example.acceso.model.EntidadesVenta.VentaResumenDiario;
+import com.example.acceso.model.EnumVentas.EstadoVenta;
+import com.example.acceso.model.EnumVentas.FormaPago;
+import com.example.acceso.repository.RepositorioVentas.VentaRepository;
+import com.example.acceso.repository.RepositorioVentas.VentaResumenDiarioRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mantiene la tabla {@code ventas_resumen_diario} (ventas por día, forma de pago y estado)
+ * y responde las consultas agregadas del dashboard y los reportes a partir de ella.
+ */
+@Slf4j
+@Service
+public class VentaResumenService implements SmartInitializingSingleton {
+
+    private static final LocalTime FIN_DEL_DIA = LocalTime.of(23, 59, 59);
+    private static final String TAREA_RECONSTRUCCION = "reconstruccion-resumen-ventas";
+
+    private final VentaResumenDiarioRepository resumenRepository;
+    private final VentaRepository ventaRepository;
+    private final BloqueoTareaService bloqueoTareaService;
+    private final TransactionTemplate nuevaTransaccion;
+    private final Set<ClaveFila> filasPreparadas = ConcurrentHashMap.newKeySet();
+
+    public VentaResumenService(VentaResumenDiarioRepository resumenRepository,
+                               VentaRepository ventaRepository,
+                               BloqueoTareaService bloqueoTareaService,
+                               PlatformTransactionManager transactionManager) {
+        this.resumenRepository = resumenRepository;
+        this.ventaRepository = ventaRepository;
+        this.bloqueoTareaService = bloqueoTareaService;
+        this.nuevaTransaccion = new TransactionTemplate(transactionManager);
+        this.nuevaTransaccion.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // ===================== Mantenimiento incremental =====================
+
+    /**
+     * Suma una venta recién creada a su día
+     */
+    @Transactional
+    public void registrarVenta(Venta venta) {
+        acumular(fechaDe(venta), venta.getFormaPago(), venta.getEstado(), 1, venta.getTotal());
+    }
+
+    /**
+     * Mueve una venta de la fila de su estado anterior a la del estado actual
+     */
+    @Transactional
+    public void cambiarEstado(Venta venta, EstadoVenta estadoAnterior) {
+        if (estadoAnterior == venta.getEstado()) {
+            return;
+        }
+        LocalDate fecha = fechaDe(venta);
+        acumular(fecha, venta.getFormaPago(), estadoAnterior, -1, venta.getTotal().negate());
+        acumular(fecha, venta.getFormaPago(), venta.getEstado(), 1, venta.getTotal());
+    }
+
+    /**
+     * Crea la fila del día si aún no existe, fuera de la transacción de la venta: así
+     * {@link #registrarVenta} solo la actualiza y la venta no necesita una segunda conexión para
+     * crearla. Las filas ya comprobadas se recuerdan en memoria.
+     */
+    public void prepararFila(LocalDate fecha, FormaPago formaPago, EstadoVenta estado) {
+        ClaveFila clave = new ClaveFila(fecha, formaPago, estado);
+        if (filasPreparadas.contains(clave)) {
+            return;
+        }
+        if (!resumenRepository.existsByFechaAndFormaPagoAndEstado(fecha, formaPago, estado)) {
+            try {
+                nuevaTransaccion.executeWithoutResult(status -> resumenRepository.saveAndFlush(nuevaFila(clave)));
+            } catch (DataIntegrityViolationException e) {
+                // Otra venta la creó al mismo tiempo
+            }
+        }
+        filasPreparadas.removeIf(f -> f.fecha().isBefore(fecha));
+        filasPreparadas.add(clave);
+    }
+
+    private void acumular(LocalDate fecha, FormaPago formaPago, EstadoVenta estado, long cantidad, BigDecimal monto) {
+        if (resumenRepository.acumular(fecha, formaPago, estado, cantidad, monto) > 0) {
+            return;
+        }
+        // Fila no preparada (anulaciones, o una venta que cruzó la medianoche): se crea en esta misma
+        // transacción. Si otra la crea a la vez, una de las dos falla por la restricción única
+        resumenRepository.saveAndFlush(nuevaFila(new ClaveFila(fecha, formaPago, estado)));
+        resumenRepository.acumular(fecha, formaPago, estado, cantidad, monto);
+    }
+
+    private static VentaResumenDiario nuevaFila(ClaveFila clave) {
+        return VentaResumenDiario.builder()
+                .fecha(clave.fecha())
+                .formaPago(clave.formaPago())
+                .estado(clave.estado())
+                .build();
+    }
+
+    private record ClaveFila(LocalDate fecha, FormaPago formaPago, EstadoVenta estado) {
+    }
+
+    private LocalDate fechaDe(Venta venta) {
+        return venta.getFechaCreacion() != null ? venta.getFechaCreacion().toLocalDate() : LocalDate.now();
+    }
+
+    // ===================== Consultas =====================
+
+    @Transactional(readOnly = true)
+    public BigDecimal sumarVentasNoAnuladas(LocalDate inicio, LocalDate fin) {
+        return resumenRepository.sumMontoByFechaBetweenAndEstadoNot(inicio, fin, EstadoVenta.ANULADA);
+    }
+
+    /**
+     * Monto no anulado entre dos instantes. Como no hay ventas futuras, el final se extiende al fin
+     * de su día para leerlo del resumen; solo el primer día, incompleto, se suma desde {@code ventas}.
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal sumarVentasNoAnuladas(LocalDateTime inicio, LocalDateTime fin) {
+        return resumir(inicio, fin.toLocalDate().atTime(LocalTime.MAX)).stream()
+                .filter(fila -> fila.getEstado() != EstadoVenta.ANULADA)
+                .map(VentaResumenDiario::getMontoTotal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    @Transactional(readOnly = true)
+    public long contarVentasNoAnuladas() {
+        return resumenRepository.sumCantidadByEstadoNot(EstadoVenta.ANULADA);
+    }
+
+    /**
+     * Filas agregadas de un rango de fechas. Los días completos se leen del resumen; los extremos
+     * que no cubren un día entero se agregan directamente desde {@code ventas} (filas sin fecha).
+     */
+    @Transactional(readOnly = true)
+    public List<VentaResumenDiario> resumir(LocalDateTime inicio, LocalDateTime fin) {
+        List<VentaResumenDiario> filas = new ArrayList<>();
+
+        LocalDate primerDia = inicio.toLocalTime().equals(LocalTime.MIDNIGHT)
+                ? inicio.toLocalDate() : inicio.toLocalDate().plusDays(1);
+        LocalDate ultimoDia = !fin.toLocalTime().isBefore(FIN_DEL_DIA)
+                ? fin.toLocalDate() : fin.toLocalDate().minusDays(1);
+
+        if (primerDia.isAfter(ultimoDia)) {
+            filas.addAll(resumirDesdeVentas(inicio, fin));
+            return filas;
+        }
+
+        filas.addAll(resumenRepository.findByFechaBetween(primerDia, ultimoDia));
+        if (inicio.isBefore(primerDia.atStartOfDay())) {
+            filas.addAll(resumirDesdeVentas(inicio, primerDia.atStartOfDay().minusNanos(1)));
+        }
+        if (fin.isAfter(ultimoDia.atTime(LocalTime.MAX))) {
+            filas.addAll(resumirDesdeVentas(ultimoDia.plusDays(1).atStartOfDay(), fin));
+        }
+        return filas;
+    }
+
+    private List<VentaResumenDiario> resumirDesdeVentas(LocalDateTime inicio, LocalDateTime fin) {
+        return ventaRepository.resumirPorFormaPagoYEstado(inicio, fin).stream()
+                .map(this::aFila)
+                .toList();
+    }
+
+    // ===================== Reconstrucción =====================
+
+    /**
+     * Se ejecuta al terminar de crear los beans, antes de que arranque el servidor web: ninguna venta
+     * de esta instancia puede tocar el resumen mientras se carga.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        inicializarResumen();
+    }
+
+    /**
+     * Carga el histórico si el resumen está vacío y ya existen ventas. Con varias instancias
+     * arrancando a la vez, solo una lo reconstruye; las demás esperan y encuentran el resumen lleno.
+     */
+    public void inicializarResumen() {
+        bloqueoTareaService.esperarYEjecutar(TAREA_RECONSTRUCCION, Duration.ofMinutes(30), () ->
+                nuevaTransaccion.execute(status ->
+                        resumenRepository.count() == 0 && ventaRepository.count() > 0 ? reconstruir() : 0));
+    }
+
+    /**
+     * Vuelve a calcular todo el resumen a partir de la tabla de ventas. Borra y vuelve a crear las
+     * filas: una venta confirmada mientras tanto en otra instancia puede quedar fuera o chocar con
+     * la fila nueva, así que solo debe usarse sin ventas en curso.
+     *
+     * @return filas creadas, o {@code null} si otra instancia lo está reconstruyendo
+     */
+    public Integer reconstruirResumen() {
+        return bloqueoTareaService.ejecutar(TAREA_RECONSTRUCCION, Duration.ofMinutes(30), () ->
+                nuevaTransaccion.execute(status -> reconstruir()));
+    }
+
+    private int reconstruir() {
+        resumenRepository.deleteAllInBatch();
+
+        List<VentaResumenDiario> filas = ventaRepository.resumirPorDiaFormaPagoYEstado().stream()
+                .map(this::aFila)
+                .toList();
+        resumenRepository.saveAll(filas);
+
+        log.info("📊 Resumen diario de ventas reconstruido: {} filas", filas.size());
+        return filas.size();
+    }
+
+    private VentaResumenDiario aFila(VentaRepository.ResumenVentas resumen) {
+        return VentaResumenDiario.builder()
+                .fecha(resumen.getFecha())
+                .formaPago(resumen.getFormaPago())
+                .estado(resumen.getEstado())
+                .cantidad(resumen.getCantidad())
+                .montoTotal(resumen.getMontoTotal())
+                .build();
+    }
+}
@@ -3,26 +3,38 @@ package com.example.acceso.service;
 import com.example.acceso.dto.*;
 import com.example.acceso.model.EntidadesVenta.DetalleVenta;
 import com.example.acceso.model.EntidadesVenta.Venta;
-import com.example.acceso.model.EnumInventario.MotivoMovimiento;
-import com.example.acceso.model.EnumInventario.TipoMovimiento;
-import com.example.acceso.model.EnumInventario.TipoReferencia;
+import com.example.acceso.model.EntidadesVenta.VentaResumenDiario;
 import com.example.acceso.model.EnumVentas.EstadoVenta;
 import com.example.acceso.model.EnumVentas.FormaPago;
 import com.example.acceso.model.*;
 import com.example.acceso.model.EnumVentas.TipoComprobante;
+import com.example.acceso.model.EnumInventario.MotivoMovimiento;
+import com.example.acceso.model.EnumInventario.TipoMovimiento;
+import com.example.acceso.model.EnumInventario.TipoReferencia;
 import com.example.acceso.repository.*;
 import com.example.acceso.repository.RepositorioVentas.VentaRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -37,24 +49,24 @@ public class VentaService {
     private final ProductRepository productRepository;
     private final ClienteService clienteService;
     private final MovimientoInventarioService movimientoInventarioService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final VentaResumenService ventaResumenService;
+    private final CierreInventarioService cierreInventarioService;
+    private final TransactionTemplate transactionTemplate;
 
     // ===================== CREAR VENTA =====================
 
-    @Transactional
+    /**
+     * Registra una venta. Lo que no necesita la transacción de la venta se hace antes de abrirla,
+     * para que cada venta ocupe una sola conexión del pool a la vez: el cliente por documento (puede
+     * consultar la API externa de DNI/RUC), las filas del resumen diario y del cierre mensual, y el
+     * número de comprobante (en su propia transacción corta). Si la venta falla, el número se libera.
+     */
     public VentaResponse crearVenta(CrearVentaRequest request, String usuarioCreacion) {
         log.info("Iniciando creación de venta - Cliente: {}, FormaPago: {}",
                 request.getClienteId() != null ? request.getClienteId() : request.getDocumento(),
                 request.getFormaPago());
 
-        // 1️⃣ Obtener o crear cliente
-        Cliente cliente = obtenerOCrearCliente(request);
-
-        if (request.getTipoComprobante() == TipoComprobante.FACTURA) {
-            if (cliente.getDocumento().length() != 11) {
-                throw new RuntimeException("⛔ Error de Facturación: No se puede emitir FACTURA a un DNI. Se requiere RUC (11 dígitos).");
-            }
-        }
-
         TipoComprobante tipo = request.getTipoComprobante();
         String serie = request.getSerie();
 
@@ -62,11 +74,47 @@ public class VentaService {
             throw new RuntimeException("Debe especificar tipo y serie de comprobante");
         }
 
-        // 3️⃣ Generar número de comprobante
-        String[] comprobante = comprobanteSecuenciaService.generarNumeroComprobante(tipo, serie);
-        String numero = comprobante[1];
+        // 1️⃣ Cliente por documento (fuera de la transacción)
+        Long clienteId = resolverClienteId(request);
+
+        // 2️⃣ Filas del día y del mes que la venta va a acumular
+        ventaResumenService.prepararFila(LocalDate.now(), request.getFormaPago(), estadoInicial(request.getFormaPago()));
+        cierreInventarioService.prepararFilas(request.getDetalles().stream()
+                .map(CrearVentaRequest.DetalleVentaRequest::getProductoId)
+                .toList());
+
+        // 3️⃣ Reservar número de comprobante
+        String numero = comprobanteSecuenciaService.generarNumeroComprobante(tipo, serie)[1];
+
+        try {
+            return transactionTemplate.execute(status ->
+                    registrarVenta(request, clienteId, usuarioCreacion, tipo, serie, numero));
+        } catch (RuntimeException e) {
+            if (!comprobanteSecuenciaService.liberarNumero(tipo, serie, numero)) {
+                e.addSuppressed(new IllegalStateException(
+                        "Comprobante " + serie + "-" + numero + " pendiente de liberar por la conciliación"));
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Cuerpo transaccional de {@link #crearVenta}
+     */
+    private VentaResponse registrarVenta(CrearVentaRequest request, Long clienteId, String usuarioCreacion,
+                                         TipoComprobante tipo, String serie, String numero) {
+        comprobanteSecuenciaService.confirmarNumero(tipo, serie, numero);
+
+        // 4️⃣ Obtener cliente
+        Cliente cliente = obtenerCliente(request, clienteId);
 
-        // 4️⃣ Crear la venta
+        if (tipo == TipoComprobante.FACTURA) {
+            if (cliente.getDocumento().length() != 11) {
+                throw new RuntimeException("⛔ Error de Facturación: No se puede emitir FACTURA a un DNI. Se requiere RUC (11 dígitos).");
+            }
+        }
+
+        // 5️⃣ Crear la venta
         Venta venta = Venta.builder()
                 .cliente(cliente)
                 .tipoComprobante(tipo)
@@ -77,31 +125,33 @@ public class VentaService {
                         request.getDescuentoGeneral() : BigDecimal.ZERO)
                 .observaciones(request.getObservaciones())
                 .usuarioCreacion(usuarioCreacion)
-                .estado(request.getFormaPago() == FormaPago.CONTADO ?
-                    EstadoVenta.PAGADA : EstadoVenta.PENDIENTE)
+                .estado(estadoInicial(request.getFormaPago()))
                 .build();
 
-        // 5️⃣ Procesar detalles
-        BigDecimal subtotalVenta = procesarDetallesVenta(venta, request.getDetalles());
+        // 6️⃣ Procesar detalles y descontar stock
+        Map<Long, Integer> stockResultante = procesarDetallesVenta(venta, request.getDetalles());
+        BigDecimal subtotalVenta = venta.getDetalles().stream()
+                .map(DetalleVenta::getSubtotal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        log.info("🎯 SUBTOTAL FINAL: {}", subtotalVenta);
 
-        // 6️⃣ Calcular totales
+        // 7️⃣ Calcular totales
         venta.setSubtotal(subtotalVenta);
         venta.calcularTotal();
 
-        // 7️⃣ Guardar venta
+        // 8️⃣ Guardar venta
         Venta ventaGuardada = ventaRepository.save(venta);
         log.info("✅ Venta creada - ID: {}, Comprobante: {}-{}, Total: {}",
                 ventaGuardada.getId(), serie, numero, ventaGuardada.getTotal());
+        ventaResumenService.registrarVenta(ventaGuardada);
 
-        // 8️⃣ Registrar movimientos de inventario
+        // 9️⃣ Registrar movimientos de inventario con el stock devuelto por el descuento
         Usuario usuario = usuarioRepository.findByUsuario(usuarioCreacion)
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado: " + usuarioCreacion));
 
-        for (DetalleVenta detalle : ventaGuardada.getDetalles()) {
-            registrarMovimientoInventarioPostVenta(detalle, ventaGuardada.getId(), usuario.getId());
-        }
+        movimientoInventarioService.registrarSalidasPorVenta(ventaGuardada, usuario, stockResultante);
 
-        // 9️⃣ Si es CRÉDITO, crear crédito y cuotas
+        // 🔟 Si es CRÉDITO, crear crédito y cuotas
         if (request.getFormaPago() == FormaPago.CREDITO && request.getCredito() != null) {
             creditoVentaService.crearCredito(ventaGuardada, request.getCredito());
             log.info("💳 Crédito generado para venta ID: {}", ventaGuardada.getId());
@@ -110,33 +160,10 @@ public class VentaService {
         return convertirAVentaResponse(ventaGuardada);
     }
 
-    
-
-    /**
-     * Registra el movimiento de inventario después de crear la venta
-     */
-    private void registrarMovimientoInventarioPostVenta(DetalleVenta detalle, Long ventaId, Long usuarioId) {
-        try {
-            RegistrarMovimientoRequest movimiento = RegistrarMovimientoRequest.builder()
-                    .productoId(detalle.getProducto().getId())
-                    .tipoMovimiento(TipoMovimiento.SALIDA)
-                    .cantidad(detalle.getCantidad())
-                    .motivo(MotivoMovimiento.VENTA)
-                    .referenciaId(ventaId)
-                    .referenciaTipo(TipoReferencia.VENTA)
-                    .observaciones("Salida por venta #" + ventaId)
-                    .build();
-
-            movimientoInventarioService.registrarMovimiento(movimiento, usuarioId);
-
-        } catch (Exception e) {
-            log.warn("⚠️ No se pudo registrar movimiento para producto {}: {}",
-                    detalle.getProducto().getId(), e.getMessage());
-            // No fallar la venta si falla el registro de movimiento
-        }
+    private static EstadoVenta estadoInicial(FormaPago formaPago) {
+        return formaPago == FormaPago.CONTADO ? EstadoVenta.PAGADA : EstadoVenta.PENDIENTE;
     }
 
-
     // ===================== CONSULTAR VENTAS =====================
 
     @Transactional(readOnly = true)
@@ -153,6 +180,63 @@ public class VentaService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Columnas de la tabla de ventas que se pueden ordenar (nombre en DataTables → propiedad)
+     */
+    private static final Map<String, String> COLUMNAS_ORDEN_VENTAS = Map.of(
+            "id", "id",
+            "comprobante_completo", "numero",
+            "cliente_nombre", "cliente.nombre",
+            "forma_pago", "formaPago",
+            "total", "total",
+            "estado", "estado",
+            "fecha_creacion", "fechaCreacion"
+    );
+
+    /**
+     * Página de ventas para DataTables (server-side) leída como filas planas
+     */
+    @Transactional(readOnly = true)
+    public DataTablesResponse<VentaRow> listarVentasPaginadas(DataTablesRequest request) {
+        Pageable pageable = request.toPageable(COLUMNAS_ORDEN_VENTAS, Sort.by(Sort.Direction.DESC, "id"));
+        Page<VentaRow> pagina = ventaRepository.buscarFilas(request.patronBusqueda(), pageable);
+        return DataTablesResponse.de(request, ventaRepository.count(), pagina);
+    }
+
+    /**
+     * Exporta las ventas de un rango en CSV, fila por fila, sin mantener el resultado en memoria
+     */
+    @Transactional(readOnly = true)
+    public void exportarVentasCsv(LocalDateTime fechaInicio, LocalDateTime fechaFin, Writer writer) throws IOException {
+        writer.write("ID,Comprobante,Cliente,Documento,Forma de pago,Total,Estado,Usuario,Fecha\n");
+
+        try (Stream<VentaRow> filas = ventaRepository.streamFilasPorRangoFechas(fechaInicio, fechaFin)) {
+            Iterator<VentaRow> iterador = filas.iterator();
+            while (iterador.hasNext()) {
+                VentaRow fila = iterador.next();
+                writer.write(String.join(",",
+                        String.valueOf(fila.getId()),
+                        csv(fila.getComprobanteCompleto()),
+                        csv(fila.getClienteNombre()),
+                        csv(fila.getClienteDocumento()),
+                        String.valueOf(fila.getFormaPago()),
+                        String.valueOf(fila.getTotal()),
+                        String.valueOf(fila.getEstado()),
+                        csv(fila.getUsuarioCreacion()),
+                        String.valueOf(fila.getFechaCreacion())));
+                writer.write("\n");
+            }
+        }
+        writer.flush();
+    }
+
+    private String csv(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        return "\"" + valor.replace("\"", "\"\"") + "\"";
+    }
+
     @Transactional(readOnly = true)
     public List<VentaResponse> listarVentasPorCliente(Long clienteId) {
         return ventaRepository.findByClienteIdOrderByFechaCreacionDesc(clienteId).stream()
@@ -192,8 +276,10 @@ public class VentaService {
         Venta venta = ventaRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Venta no encontrada con ID: " + id));
 
+        EstadoVenta estadoAnterior = venta.getEstado();
         venta.setEstado(nuevoEstado);
         Venta ventaActualizada = ventaRepository.save(venta);
+        ventaResumenService.cambiarEstado(ventaActualizada, estadoAnterior);
         log.info("Estado de venta {} actualizado a: {}", id, nuevoEstado);
 
         return convertirAVentaResponse(ventaActualizada);
@@ -204,7 +290,7 @@ public class VentaService {
      * Si tiene crédito, lo cancela también
      */
     @Transactional
-    public VentaResponse anularVenta(Long id) {
+    public VentaResponse anularVenta(Long id, String usuarioAnulacion) {
         Venta venta = ventaRepository.findByIdWithDetalles(id)
                 .orElseThrow(() -> new RuntimeException("Venta no encontrada con ID: " + id));
 
@@ -212,15 +298,30 @@ public class VentaService {
             throw new RuntimeException("La venta ya está anulada");
         }
 
-        // Devolver stock
-        for (DetalleVenta detalle : venta.getDetalles()) {
-            Product producto = detalle.getProducto();
-            producto.incrementarStock(detalle.getCantidad());
-            productRepository.save(producto);
-        }
+        // Devolver stock dejando la entrada en el kardex (si no, el kardex y el stock no cuadran)
+        String responsable = usuarioAnulacion != null ? usuarioAnulacion : venta.getUsuarioCreacion();
+        Usuario usuario = usuarioRepository.findByUsuario(responsable)
+                .orElseThrow(() -> new RuntimeException("Usuario no encontrado: " + responsable));
+
+        List<RegistrarMovimientoRequest> devoluciones = venta.getDetalles().stream()
+                .map(detalle -> RegistrarMovimientoRequest.builder()
+                        .productoId(detalle.getProducto().getId())
+                        .tipoMovimiento(TipoMovimiento.DEVOLUCION)
+                        .cantidad(detalle.getCantidad())
+                        .motivo(MotivoMovimiento.DEVOLUCION_CLIENTE)
+                        .referenciaId(venta.getId())
+                        .referenciaTipo(TipoReferencia.VENTA)
+                        .observaciones("Devolución por anulación de venta #" + venta.getId())
+                        .build())
+                .toList();
+        movimientoInventarioService.registrarMovimientos(devoluciones, usuario.getId());
+        // El stock ya lo notifica el kardex; esto solo marca el ranking de más vendidos para refrescar
+        eventPublisher.publishEvent(CatalogoModificadoEvent.porVenta(List.of()));
 
+        EstadoVenta estadoAnterior = venta.getEstado();
         venta.setEstado(EstadoVenta.ANULADA);
         Venta ventaAnulada = ventaRepository.save(venta);
+        ventaResumenService.cambiarEstado(ventaAnulada, estadoAnterior);
         log.info("✅ Venta {} anulada exitosamente", id);
 
         // Si tiene crédito, cancelarlo
@@ -233,47 +334,36 @@ public class VentaService {
 
     // ===================== REPORTES =====================
 
+    /**
+     * Reporte de un rango de fechas calculado desde el resumen diario de ventas
+     */
     @Transactional(readOnly = true)
     public ReporteVentasDTO generarReporteVentas(LocalDateTime fechaInicio, LocalDateTime fechaFin) {
-        List<Venta> ventas = ventaRepository.findByFechaCreacionBetweenOrderByFechaCreacionDesc(
-            fechaInicio, fechaFin
-        );
-
-        long totalVentas = ventas.stream()
-                .filter(v -> v.getEstado() != EstadoVenta.ANULADA)
-                .count();
-
-        long ventasContado = ventas.stream()
-                .filter(v -> v.getFormaPago() == FormaPago.CONTADO && v.getEstado() != EstadoVenta.ANULADA)
-                .count();
-
-        long ventasCredito = ventas.stream()
-                .filter(v -> v.getFormaPago() == FormaPago.CREDITO && v.getEstado() != EstadoVenta.ANULADA)
-                .count();
-
-        BigDecimal montoTotalVentas = ventaRepository.sumTotalByFechaCreacionBetween(fechaInicio, fechaFin);
-
-        BigDecimal montoVentasContado = ventas.stream()
-                .filter(v -> v.getFormaPago() == FormaPago.CONTADO && v.getEstado() != EstadoVenta.ANULADA)
-                .map(Venta::getTotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal montoVentasCredito = ventas.stream()
-                .filter(v -> v.getFormaPago() == FormaPago.CREDITO && v.getEstado() != EstadoVenta.ANULADA)
-                .map(Venta::getTotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        long ventasAnuladas = ventas.stream()
-                .filter(v -> v.getEstado() == EstadoVenta.ANULADA)
-                .count();
+        long ventasContado = 0;
+        long ventasCredito = 0;
+        long ventasAnuladas = 0;
+        BigDecimal montoVentasContado = BigDecimal.ZERO;
+        BigDecimal montoVentasCredito = BigDecimal.ZERO;
+
+        for (VentaResumenDiario fila : ventaResumenService.resumir(fechaInicio, fechaFin)) {
+            if (fila.getEstado() == EstadoVenta.ANULADA) {
+                ventasAnuladas += fila.getCantidad();
+            } else if (fila.getFormaPago() == FormaPago.CONTADO) {
+                ventasContado += fila.getCantidad();
+                montoVentasContado = montoVentasContado.add(fila.getMontoTotal());
+            } else {
+                ventasCredito += fila.getCantidad();
+                montoVentasCredito = montoVentasCredito.add(fila.getMontoTotal());
+            }
+        }
 
         ReporteVentasDTO reporte = ReporteVentasDTO.builder()
                 .fechaInicio(fechaInicio)
                 .fechaFin(fechaFin)
-                .totalVentas(totalVentas)
+                .totalVentas(ventasContado + ventasCredito)
                 .ventasContado(ventasContado)
                 .ventasCredito(ventasCredito)
-                .montoTotalVentas(montoTotalVentas)
+                .montoTotalVentas(montoVentasContado.add(montoVentasCredito))
                 .montoVentasContado(montoVentasContado)
                 .montoVentasCredito(montoVentasCredito)
                 .ventasAnuladas(ventasAnuladas)
@@ -284,36 +374,26 @@ public class VentaService {
     }
 
     /**
-     * Obtener estadísticas para el dashboard
+     * Obtener estadísticas para el dashboard (desde el resumen diario de ventas)
      */
     @Transactional(readOnly = true)
     public Map<String, Object> obtenerEstadisticasDashboard() {
         Map<String, Object> estadisticas = new HashMap<>();
 
         LocalDateTime ahora = LocalDateTime.now();
+        LocalDate hoy = ahora.toLocalDate();
 
         // 1. Ventas de HOY
-        LocalDateTime inicioHoy = ahora.toLocalDate().atStartOfDay();
-        LocalDateTime finHoy = ahora.toLocalDate().atTime(23, 59, 59);
-        BigDecimal ventasHoy = ventaRepository.sumTotalByFechaCreacionBetweenAndEstadoNot(
-            inicioHoy, finHoy, EstadoVenta.ANULADA
-        );
-
-        // 2. Ventas de la SEMANA (últimos 7 días)
-        LocalDateTime inicioSemana = ahora.minusDays(7);
-        BigDecimal ventasSemana = ventaRepository.sumTotalByFechaCreacionBetweenAndEstadoNot(
-            inicioSemana, ahora, EstadoVenta.ANULADA
-        );
-
-        // 3. Ventas del MES (últimos 30 días)
-        LocalDateTime inicioMes = ahora.minusDays(30);
-        BigDecimal ventasMes = ventaRepository.sumTotalByFechaCreacionBetweenAndEstadoNot(
-            inicioMes, ahora, EstadoVenta.ANULADA
-        );
+        BigDecimal ventasHoy = ventaResumenService.sumarVentasNoAnuladas(hoy, hoy);
+
+        // 2. Ventas de la SEMANA (últimos 7 días, contados desde este momento)
+        BigDecimal ventasSemana = ventaResumenService.sumarVentasNoAnuladas(ahora.minusDays(7), ahora);
+
+        // 3. Ventas del MES (últimos 30 días, contados desde este momento)
+        BigDecimal ventasMes = ventaResumenService.sumarVentasNoAnuladas(ahora.minusDays(30), ahora);
 
         // 4. Total de ventas (cantidad de registros activos)
-        long totalVentas = ventaRepository.count() -
-            ventaRepository.findByEstadoOrderByFechaCreacionDesc(EstadoVenta.ANULADA).size();
+        long totalVentas = ventaResumenService.contarVentasNoAnuladas();
 
         estadisticas.put("ventasHoy", ventasHoy != null ? ventasHoy : BigDecimal.ZERO);
         estadisticas.put("ventasSemana", ventasSemana != null ? ventasSemana : BigDecimal.ZERO);
@@ -326,9 +406,27 @@ public class VentaService {
     // ===================== MÉTODOS PRIVADOS =====================
 
     /**
-     * Obtiene un cliente existente o lo crea si viene por documento
+     * Resuelve, antes de abrir la transacción de la venta, el cliente que viene por documento
+     * (lo crea si no existe). Devuelve null si la venta trae clienteId.
      */
-    private Cliente obtenerOCrearCliente(CrearVentaRequest request) {
+    private Long resolverClienteId(CrearVentaRequest request) {
+        if (request.getClienteId() != null) {
+            return null;
+        }
+        if (request.getDocumento() == null || request.getDocumento().trim().isEmpty()) {
+            throw new RuntimeException("Debe proporcionar clienteId o documento del cliente");
+        }
+        try {
+            return clienteService.obtenerOCrearCliente(request.getDocumento()).getId();
+        } catch (ClienteService.ClienteException e) {
+            throw new RuntimeException("Error al procesar cliente: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Obtiene el cliente de la venta: por ID (debe estar activo) o el ya resuelto por documento
+     */
+    private Cliente obtenerCliente(CrearVentaRequest request, Long clienteResuelto) {
         if (request.getClienteId() != null) {
             // Flujo tradicional: buscar por ID
             Cliente cliente = clienteRepository.findById(request.getClienteId())
@@ -338,36 +436,49 @@ public class VentaService {
                 throw new RuntimeException("El cliente no está activo");
             }
             return cliente;
-        } else if (request.getDocumento() != null && !request.getDocumento().trim().isEmpty()) {
-            // Nuevo flujo: buscar o crear por documento
-            try {
-                return clienteService.obtenerOCrearCliente(request.getDocumento());
-            } catch (ClienteService.ClienteException e) {
-                throw new RuntimeException("Error al procesar cliente: " + e.getMessage());
-            }
-        } else {
-            throw new RuntimeException("Debe proporcionar clienteId o documento del cliente");
         }
+        return clienteRepository.findById(clienteResuelto)
+                .orElseThrow(() -> new RuntimeException("Cliente no encontrado con ID: " + clienteResuelto));
     }
 
     /**
-     * Procesa los detalles de la venta: valida stock, descuenta y calcula subtotales
+     * Procesa los detalles de la venta: valida productos, descuenta stock y calcula subtotales.
+     * Devuelve el stock resultante por producto para registrar el kardex
      */
-    private BigDecimal procesarDetallesVenta(Venta venta, List<CrearVentaRequest.DetalleVentaRequest> detallesRequest) {
-        BigDecimal subtotalVenta = BigDecimal.ZERO;
-
-        for (int i = 0; i < detallesRequest.size(); i++) {
-            CrearVentaRequest.DetalleVentaRequest detalleRequest = detallesRequest.get(i);
+    private Map<Long, Integer> procesarDetallesVenta(Venta venta, List<CrearVentaRequest.DetalleVentaRequest> detallesRequest) {
+        // Cantidad total por producto (un producto puede repetirse en varias líneas)
+        Map<Long, Integer> cantidades = new LinkedHashMap<>();
+        for (CrearVentaRequest.DetalleVentaRequest detalleRequest : detallesRequest) {
+            cantidades.merge(detalleRequest.getProductoId(), detalleRequest.getCantidad(), Integer::sum);
+        }
 
-            Product producto = productRepository.findById(detalleRequest.getProductoId())
-                    .orElseThrow(() -> new RuntimeException("Producto no encontrado con ID: " + detalleRequest.getProductoId()));
+        Map<Long, Product> productos = productRepository.findAllById(cantidades.keySet()).stream()
+                .collect(Collectors.toMap(Product::getId, p -> p));
 
+        for (Long productoId : cantidades.keySet()) {
+            Product producto = productos.get(productoId);
+            if (producto == null) {
+                throw new RuntimeException("Producto no encontrado con ID: " + productoId);
+            }
             if (producto.getEstado() != 1) {
                 throw new RuntimeException("El producto '" + producto.getNombre() + "' no está activo");
             }
+        }
+
+        // Descuento atómico de todas las líneas: una sentencia condicional por producto en un solo lote
+        Map<Long, Integer> stockResultante = productRepository.descontarStock(cantidades);
+        for (Map.Entry<Long, Integer> entry : cantidades.entrySet()) {
+            if (!stockResultante.containsKey(entry.getKey())) {
+                Product producto = productos.get(entry.getKey());
+                throw new RuntimeException("Stock insuficiente para '" + producto.getNombre() + "'. Disponible: "
+                        + productRepository.obtenerStock(producto.getId()) + ", Requerido: " + entry.getValue());
+            }
+        }
+        eventPublisher.publishEvent(CatalogoModificadoEvent.porVenta(cantidades.keySet()));
 
-            producto.descontarStock(detalleRequest.getCantidad());
-            productRepository.save(producto);
+        for (int i = 0; i < detallesRequest.size(); i++) {
+            CrearVentaRequest.DetalleVentaRequest detalleRequest = detallesRequest.get(i);
+            Product producto = productos.get(detalleRequest.getProductoId());
 
             DetalleVenta detalle = DetalleVenta.builder()
                     .producto(producto)
@@ -380,20 +491,16 @@ public class VentaService {
             detalle.calcularSubtotal();
 
             log.info("📦 Detalle #{} - {}", (i+1), producto.getNombre());
-            log.info("   Cant: {} | Precio: {} | Desc: {}%",
+            log.info("   Cant: {} | Precio: {} | Desc: {}% | Subtotal: {}",
                 detalle.getCantidad(),
                 detalle.getPrecioUnitario(),
-                detalle.getDescuentoPorcentaje());
-            log.info("   Subtotal detalle: {}", detalle.getSubtotal());
-
-            subtotalVenta = subtotalVenta.add(detalle.getSubtotal());
-            log.info("   Subtotal acumulado: {}", subtotalVenta);
+                detalle.getDescuentoPorcentaje(),
+                detalle.getSubtotal());
 
             venta.addDetalle(detalle);
         }
 
-        log.info("🎯 SUBTOTAL FINAL: {}", subtotalVenta);
-        return subtotalVenta;
+        return stockResultante;
     }
 
     /**
@@ -0,0 +1,273 @@
+package com.example.acceso.service.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Almacén en disco direccionado por contenido, en {@code upload.path}.
+ *
+ * <pre>
+ * uploads/productos/&lt;nombre&gt;.jpg     enlace duro al contenido (la URL pública)
+ * uploads/.objetos/ab/cd/&lt;sha256&gt;     contenido, repartido en carpetas por los 4 primeros caracteres
+ * uploads/.objetos/tmp/                temporales de escritura
+ * </pre>
+ *
+ * Cada contenido se guarda una vez aunque tenga varias claves; el número de enlaces del archivo es
+ * su contador de referencias (enlaces - 1). Todo se escribe en un temporal y se publica con un
+ * renombrado atómico, así que nunca se ve un archivo a medias. Al eliminar una clave solo se quita
+ * su enlace: {@link #recolectar()} borra después los contenidos sin referencias. Si el sistema de
+ * archivos no admite enlaces duros, cada clave guarda su propia copia.
+ *
+ * La carpeta puede compartirse entre instancias (NFS): la escritura y la recolección solo usan
+ * operaciones atómicas del sistema de archivos.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "almacenamiento.tipo", havingValue = "local", matchIfMissing = true)
+public class LocalStorageBackend implements StorageBackend {
+
+    private static final Pattern CLAVE_VALIDA = Pattern.compile("^[a-z]+/[A-Za-z0-9_-]+\\.[A-Za-z0-9]+$");
+
+    // Un contenido recién escrito o reutilizado no se recolecta hasta pasado este tiempo: da margen a
+    // que la escritura que lo usa termine de enlazarlo
+    private static final Duration GRACIA_RECOLECCION = Duration.ofMinutes(10);
+
+    private final Path raiz;
+    private final Path objetos;
+    private final Path temporales;
+    private volatile boolean enlacesDuros;
+
+    public LocalStorageBackend(@Value("${upload.path:src/main/resources/static/uploads}") String uploadPath) {
+        this.raiz = Paths.get(uploadPath).toAbsolutePath().normalize();
+        this.objetos = raiz.resolve(".objetos");
+        this.temporales = objetos.resolve("tmp");
+        // El contador de referencias se lee del atributo unix:nlink
+        this.enlacesDuros = FileSystems.getDefault().supportedFileAttributeViews().contains("unix");
+    }
+
+    // ===================== Escritura =====================
+
+    @Override
+    public void guardar(String clave, byte[] contenido) throws IOException {
+        MessageDigest digest = sha256();
+        Path temporal = crearTemporal();
+        try (OutputStream out = new DigestOutputStream(Files.newOutputStream(temporal), digest)) {
+            out.write(contenido);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporal);
+            throw e;
+        }
+        guardar(clave, temporal, HexFormat.of().formatHex(digest.digest()));
+    }
+
+    /** En la carpeta de temporales del almacén: publicar el contenido es solo enlazar y renombrar */
+    @Override
+    public Path crearTemporal() throws IOException {
+        Files.createDirectories(temporales);
+        return Files.createTempFile(temporales, "subida-", ".tmp");
+    }
+
+    @Override
+    public void guardar(String clave, Path temporal, String sha256) throws IOException {
+        Path destino = ruta(clave);
+        try {
+            Files.createDirectories(destino.getParent());
+            if (enlacesDuros) {
+                // Si la recolección borra el contenido entre que se escribe y se enlaza, se reintenta una vez
+                for (int intento = 1; ; intento++) {
+                    try {
+                        publicarEnlace(guardarContenido(temporal, sha256), destino);
+                        return;
+                    } catch (NoSuchFileException e) {
+                        if (intento == 2) {
+                            throw e;
+                        }
+                    } catch (UnsupportedOperationException | FileSystemException e) {
+                        enlacesDuros = false;
+                        log.warn("⚠️ El sistema de archivos de {} no admite enlaces duros: cada imagen se guardará como copia ({})",
+                                raiz, e.getMessage());
+                        break;
+                    }
+                }
+            }
+            mover(temporal, destino);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    /** Enlaza el temporal en su ruta por hash si el contenido no estaba; devuelve esa ruta */
+    private Path guardarContenido(Path temporal, String sha256) throws IOException {
+        Path objeto = rutaObjeto(sha256);
+        if (Files.exists(objeto)) {
+            // Ya guardado: se renueva la fecha para que la recolección no lo borre mientras se enlaza
+            Files.setLastModifiedTime(objeto, FileTime.fromMillis(System.currentTimeMillis()));
+            return objeto;
+        }
+        Files.createDirectories(objeto.getParent());
+        try {
+            // link() falla si ya existe: dos escrituras simultáneas del mismo contenido no se pisan
+            Files.createLink(objeto, temporal);
+        } catch (FileAlreadyExistsException e) {
+            Files.setLastModifiedTime(objeto, FileTime.fromMillis(System.currentTimeMillis()));
+        }
+        return objeto;
+    }
+
+    /** Crea un enlace temporal al contenido y lo renombra sobre la clave (reemplaza la anterior) */
+    private void publicarEnlace(Path objeto, Path destino) throws IOException {
+        Path enlace = temporales.resolve(UUID.randomUUID() + ".lnk");
+        Files.createLink(enlace, objeto);
+        try {
+            mover(enlace, destino);
+        } finally {
+            Files.deleteIfExists(enlace);
+        }
+    }
+
+    private static void mover(Path origen, Path destino) throws IOException {
+        Files.move(origen, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // ===================== Lectura =====================
+
+    @Override
+    public boolean existe(String clave) {
+        return Files.isRegularFile(ruta(clave));
+    }
+
+    @Override
+    public Optional<Objeto> buscar(String clave) throws IOException {
+        Path archivo = ruta(clave);
+        try {
+            BasicFileAttributes atributos = Files.readAttributes(archivo, BasicFileAttributes.class);
+            if (!atributos.isRegularFile()) {
+                return Optional.empty();
+            }
+            return Optional.of(new Objeto(atributos.size(), atributos.lastModifiedTime().toMillis(), archivo));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public InputStream leer(String clave, long inicio, long fin) throws IOException {
+        FileChannel canal = FileChannel.open(ruta(clave), StandardOpenOption.READ);
+        canal.position(inicio);
+        InputStream entrada = Channels.newInputStream(canal);
+        return new FilterInputStream(entrada) {
+            private long restantes = fin - inicio + 1;
+
+            @Override
+            public int read() throws IOException {
+                if (restantes <= 0) {
+                    return -1;
+                }
+                int b = super.read();
+                if (b >= 0) {
+                    restantes--;
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (restantes <= 0) {
+                    return -1;
+                }
+                int n = super.read(b, off, (int) Math.min(len, restantes));
+                if (n > 0) {
+                    restantes -= n;
+                }
+                return n;
+            }
+        };
+    }
+
+    // ===================== Eliminación =====================
+
+    /** Quita solo la clave; el contenido se libera en la siguiente recolección si nadie más lo usa */
+    @Override
+    public boolean eliminar(String clave) throws IOException {
+        return Files.deleteIfExists(ruta(clave));
+    }
+
+    /**
+     * Borra los contenidos con una sola referencia (la suya propia) y los temporales abandonados,
+     * más antiguos que el periodo de gracia.
+     */
+    @Override
+    public int recolectar() throws IOException {
+        if (!Files.isDirectory(objetos)) {
+            return 0;
+        }
+        long limite = System.currentTimeMillis() - GRACIA_RECOLECCION.toMillis();
+        int liberados = 0;
+        try (Stream<Path> archivos = Files.walk(objetos, 3)) {
+            for (Path archivo : (Iterable<Path>) archivos::iterator) {
+                try {
+                    BasicFileAttributes atributos = Files.readAttributes(archivo, BasicFileAttributes.class);
+                    if (!atributos.isRegularFile() || atributos.lastModifiedTime().toMillis() > limite) {
+                        continue;
+                    }
+                    boolean temporal = archivo.getParent().equals(temporales);
+                    if (temporal || (enlacesDuros && (Integer) Files.getAttribute(archivo, "unix:nlink") <= 1)) {
+                        if (Files.deleteIfExists(archivo) && !temporal) {
+                            liberados++;
+                        }
+                    }
+                } catch (NoSuchFileException e) {
+                    // Borrado por otra instancia durante el recorrido
+                }
+            }
+        }
+        return liberados;
+    }
+
+    // ===================== Rutas =====================
+
+    private Path ruta(String clave) {
+        if (!CLAVE_VALIDA.matcher(clave).matches()) {
+            throw new IllegalArgumentException("Clave de almacenamiento inválida: " + clave);
+        }
+        return raiz.resolve(clave);
+    }
+
+    private Path rutaObjeto(String hash) {
+        return objetos.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public String nombre() {
+        return enlacesDuros ? "local (por contenido)" : "local (copias)";
+    }
+}
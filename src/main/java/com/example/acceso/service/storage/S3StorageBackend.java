@@ -0,0 +1,302 @@
+package com.example.acceso.service.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * Almacén en un bucket compatible con S3 (AWS S3, MinIO, Ceph...), para que varias instancias de la
+ * aplicación compartan las imágenes. Las peticiones se firman con AWS Signature V4 y usan URLs de
+ * estilo ruta ({@code endpoint/bucket/clave}), que admiten todos estos servicios.
+ *
+ * Las imágenes se siguen sirviendo desde {@code /uploads/**}: la aplicación las lee del bucket por
+ * rangos. Los nombres ya son el hash del contenido, así que una imagen repetida se guarda una vez
+ * por tipo. Esa única clave puede estar en varios productos o marcas: el bucket no lleva la cuenta,
+ * es {@code ImagenService} quien comprueba en la base de datos que nadie la use antes de eliminarla.
+ * Eliminar varias claves es una sola petición (DeleteObjects).
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "almacenamiento.tipo", havingValue = "s3")
+public class S3StorageBackend implements StorageBackend {
+
+    private static final String ALGORITMO = "AWS4-HMAC-SHA256";
+    private static final String HASH_VACIO = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    private static final int MAX_CLAVES_POR_BORRADO = 1000; // Límite de DeleteObjects
+
+    private final URI endpoint;
+    private final String region;
+    private final String bucket;
+    private final String prefijo;
+    private final String accessKey;
+    private final String secretKey;
+    private final HttpClient httpClient;
+
+    public S3StorageBackend(@Value("${almacenamiento.s3.endpoint}") String endpoint,
+                            @Value("${almacenamiento.s3.region:us-east-1}") String region,
+                            @Value("${almacenamiento.s3.bucket}") String bucket,
+                            @Value("${almacenamiento.s3.prefijo:uploads/}") String prefijo,
+                            @Value("${almacenamiento.s3.access-key}") String accessKey,
+                            @Value("${almacenamiento.s3.secret-key}") String secretKey) {
+        this.endpoint = URI.create(endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint);
+        this.region = region;
+        this.bucket = bucket;
+        this.prefijo = prefijo;
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        log.info("🪣 Imágenes en el bucket '{}' de {}", bucket, endpoint);
+    }
+
+    // ===================== Operaciones =====================
+
+    @Override
+    public void guardar(String clave, byte[] contenido) throws IOException {
+        subir(clave, hex(digest("SHA-256", contenido)), HttpRequest.BodyPublishers.ofByteArray(contenido));
+    }
+
+    @Override
+    public Path crearTemporal() throws IOException {
+        return Files.createTempFile("subida-", ".tmp");
+    }
+
+    /** El hash del contenido es el del cuerpo de la petición: no hace falta volver a leer el archivo */
+    @Override
+    public void guardar(String clave, Path temporal, String sha256) throws IOException {
+        try {
+            subir(clave, sha256, HttpRequest.BodyPublishers.ofFile(temporal));
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    private void subir(String clave, String sha256, HttpRequest.BodyPublisher cuerpo) throws IOException {
+        String tipoContenido = MediaTypeFactory.getMediaType(clave).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+        HttpRequest peticion = firmar("PUT", clave, "", Map.of("content-type", tipoContenido), sha256, cuerpo);
+        HttpResponse<String> respuesta = enviar(peticion, HttpResponse.BodyHandlers.ofString());
+        if (respuesta.statusCode() != 200) {
+            throw error("guardar", clave, respuesta.statusCode(), respuesta.body());
+        }
+    }
+
+    @Override
+    public boolean existe(String clave) throws IOException {
+        return buscar(clave).isPresent();
+    }
+
+    @Override
+    public Optional<Objeto> buscar(String clave) throws IOException {
+        HttpRequest peticion = firmar("HEAD", clave, "", Map.of(), null, HttpRequest.BodyPublishers.noBody());
+        HttpResponse<Void> respuesta = enviar(peticion, HttpResponse.BodyHandlers.discarding());
+        if (respuesta.statusCode() == 404) {
+            return Optional.empty();
+        }
+        if (respuesta.statusCode() != 200) {
+            throw error("consultar", clave, respuesta.statusCode(), "");
+        }
+        long tamanio = respuesta.headers().firstValueAsLong("Content-Length").orElse(0);
+        long modificado = respuesta.headers().firstValue("Last-Modified")
+                .map(valor -> ZonedDateTime.parse(valor, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli())
+                .orElse(0L);
+        return Optional.of(new Objeto(tamanio, modificado, null));
+    }
+
+    @Override
+    public InputStream leer(String clave, long inicio, long fin) throws IOException {
+        HttpRequest peticion = firmar("GET", clave, "", Map.of("range", "bytes=" + inicio + "-" + fin),
+                null, HttpRequest.BodyPublishers.noBody());
+        HttpResponse<InputStream> respuesta = enviar(peticion, HttpResponse.BodyHandlers.ofInputStream());
+        if (respuesta.statusCode() != 200 && respuesta.statusCode() != 206) {
+            String cuerpo;
+            try (InputStream cuerpoError = respuesta.body()) {
+                cuerpo = new String(cuerpoError.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            throw error("leer", clave, respuesta.statusCode(), cuerpo);
+        }
+        return respuesta.body();
+    }
+
+    @Override
+    public boolean eliminar(String clave) throws IOException {
+        if (!existe(clave)) {
+            return false;
+        }
+        HttpRequest peticion = firmar("DELETE", clave, "", Map.of(), null, HttpRequest.BodyPublishers.noBody());
+        HttpResponse<String> respuesta = enviar(peticion, HttpResponse.BodyHandlers.ofString());
+        if (respuesta.statusCode() != 204 && respuesta.statusCode() != 200) {
+            throw error("eliminar", clave, respuesta.statusCode(), respuesta.body());
+        }
+        return true;
+    }
+
+    /** DeleteObjects en modo silencioso: la respuesta solo lista las claves que fallaron */
+    @Override
+    public void eliminarVarios(Collection<String> claves) throws IOException {
+        List<String> lista = new ArrayList<>(claves);
+        for (int desde = 0; desde < lista.size(); desde += MAX_CLAVES_POR_BORRADO) {
+            StringBuilder xml = new StringBuilder("<Delete><Quiet>true</Quiet>");
+            for (String clave : lista.subList(desde, Math.min(lista.size(), desde + MAX_CLAVES_POR_BORRADO))) {
+                xml.append("<Object><Key>").append(escaparXml(prefijo + clave)).append("</Key></Object>");
+            }
+            byte[] cuerpo = xml.append("</Delete>").toString().getBytes(StandardCharsets.UTF_8);
+
+            Map<String, String> cabeceras = Map.of(
+                    "content-type", "application/xml",
+                    "content-md5", Base64.getEncoder().encodeToString(digest("MD5", cuerpo)));
+            HttpRequest peticion = firmar("POST", null, "delete=", cabeceras, hex(digest("SHA-256", cuerpo)),
+                    HttpRequest.BodyPublishers.ofByteArray(cuerpo));
+            HttpResponse<String> respuesta = enviar(peticion, HttpResponse.BodyHandlers.ofString());
+            if (respuesta.statusCode() != 200 || respuesta.body().contains("<Error>")) {
+                throw error("eliminar", claves.size() + " claves", respuesta.statusCode(), respuesta.body());
+            }
+        }
+    }
+
+    @Override
+    public String nombre() {
+        return "s3 (" + bucket + ")";
+    }
+
+    // ===================== Firma (AWS Signature V4) =====================
+
+    /**
+     * Construye la petición firmada.
+     *
+     * @param clave    clave del objeto, o null para operaciones sobre el bucket
+     * @param consulta query string ya en forma canónica ({@code delete=}), o vacía
+     * @param sha256   hash del cuerpo, o null si no tiene
+     */
+    private HttpRequest firmar(String metodo, String clave, String consulta, Map<String, String> cabeceras,
+                               String sha256, HttpRequest.BodyPublisher publicador) {
+        String ruta = "/" + bucket + (clave != null ? "/" + codificarRuta(prefijo + clave) : "");
+        URI uri = URI.create(endpoint + ruta + (consulta.isEmpty() ? "" : "?" + consulta));
+
+        String hashCuerpo = sha256 != null ? sha256 : HASH_VACIO;
+        String fecha = ZonedDateTime.now(ZoneOffset.UTC).format(FORMATO_FECHA);
+
+        TreeMap<String, String> firmadas = new TreeMap<>(cabeceras);
+        firmadas.put("host", uri.getPort() == -1 ? uri.getHost() : uri.getHost() + ":" + uri.getPort());
+        firmadas.put("x-amz-content-sha256", hashCuerpo);
+        firmadas.put("x-amz-date", fecha);
+
+        String autorizacion = autorizacion(metodo, uri.getRawPath(), consulta, firmadas, hashCuerpo,
+                accessKey, secretKey, region);
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(30))
+                .method(metodo, publicador)
+                .header("Authorization", autorizacion);
+        firmadas.forEach((nombre, valor) -> {
+            if (!nombre.equals("host")) { // HttpClient la envía a partir de la URI
+                builder.header(nombre, valor);
+            }
+        });
+        return builder.build();
+    }
+
+    /**
+     * Cabecera Authorization de SigV4. {@code cabeceras} debe incluir host, x-amz-date y
+     * x-amz-content-sha256, con los nombres en minúsculas.
+     */
+    static String autorizacion(String metodo, String rutaCodificada, String consulta, SortedMap<String, String> cabeceras,
+                               String hashCuerpo, String accessKey, String secretKey, String region) {
+        StringBuilder canonicas = new StringBuilder();
+        cabeceras.forEach((nombre, valor) -> canonicas.append(nombre).append(':').append(valor.trim()).append('\n'));
+        String firmadas = String.join(";", cabeceras.keySet());
+
+        String peticionCanonica = metodo + "\n" + rutaCodificada + "\n" + consulta + "\n"
+                + canonicas + "\n" + firmadas + "\n" + hashCuerpo;
+
+        String fecha = cabeceras.get("x-amz-date");
+        String ambito = fecha.substring(0, 8) + "/" + region + "/s3/aws4_request";
+        String textoFirmar = ALGORITMO + "\n" + fecha + "\n" + ambito + "\n"
+                + hex(digest("SHA-256", peticionCanonica.getBytes(StandardCharsets.UTF_8)));
+
+        byte[] clave = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), fecha.substring(0, 8));
+        clave = hmac(clave, region);
+        clave = hmac(clave, "s3");
+        clave = hmac(clave, "aws4_request");
+        String firma = hex(hmac(clave, textoFirmar));
+
+        return ALGORITMO + " Credential=" + accessKey + "/" + ambito
+                + ", SignedHeaders=" + firmadas + ", Signature=" + firma;
+    }
+
+    // ===================== Utilidades =====================
+
+    private <T> HttpResponse<T> enviar(HttpRequest peticion, HttpResponse.BodyHandler<T> manejador) throws IOException {
+        try {
+            return httpClient.send(peticion, manejador);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Petición al almacén interrumpida", e);
+        }
+    }
+
+    private static IOException error(String operacion, String clave, int estado, String cuerpo) {
+        return new IOException("No se pudo " + operacion + " '" + clave + "' en el almacén S3 (HTTP " + estado + ")"
+                + (cuerpo == null || cuerpo.isBlank() ? "" : ": " + cuerpo));
+    }
+
+    /** Codifica cada segmento según RFC 3986, como exige SigV4; las barras se mantienen */
+    private static String codificarRuta(String ruta) {
+        StringJoiner segmentos = new StringJoiner("/");
+        for (String segmento : ruta.split("/", -1)) {
+            segmentos.add(URLEncoder.encode(segmento, StandardCharsets.UTF_8)
+                    .replace("+", "%20").replace("*", "%2A").replace("%7E", "~"));
+        }
+        return segmentos.toString();
+    }
+
+    private static String escaparXml(String texto) {
+        return texto.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    private static byte[] hmac(byte[] clave, String datos) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(clave, "HmacSHA256"));
+            return mac.doFinal(datos.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] digest(String algoritmo, byte[] datos) {
+        try {
+            return MessageDigest.getInstance(algoritmo).digest(datos);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        return HexFormat.of().formatHex(bytes);
+    }
+}
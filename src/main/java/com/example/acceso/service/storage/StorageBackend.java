@@ -0,0 +1,83 @@
+package com.example.acceso.service.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Almacén de las imágenes subidas. Las claves son relativas a {@code /uploads}
+ * ({@code productos/<sha256>.jpg}) y las URLs públicas no cambian con la implementación.
+ *
+ * Se elige con {@code almacenamiento.tipo}: {@code local} (por defecto, {@link LocalStorageBackend})
+ * o {@code s3} ({@link S3StorageBackend}, cualquier servicio compatible: S3, MinIO...), que permite
+ * que varias instancias de la aplicación compartan las mismas imágenes.
+ */
+public interface StorageBackend {
+
+    /** Guarda el contenido con esa clave; si ya existía, lo reemplaza */
+    void guardar(String clave, byte[] contenido) throws IOException;
+
+    /**
+     * Archivo temporal donde escribir un contenido grande antes de
+     * {@link #guardar(String, Path, String)}. En el almacén local está en su mismo disco.
+     */
+    Path crearTemporal() throws IOException;
+
+    /**
+     * Guarda el archivo temporal con esa clave y lo consume (se mueve o se borra).
+     *
+     * @param sha256 hash del contenido, calculado al escribir el temporal
+     */
+    void guardar(String clave, Path temporal, String sha256) throws IOException;
+
+    boolean existe(String clave) throws IOException;
+
+    /** Tamaño y fecha del objeto, o vacío si no existe */
+    Optional<Objeto> buscar(String clave) throws IOException;
+
+    /** Lee los bytes {@code inicio..fin} (ambos incluidos) del objeto */
+    InputStream leer(String clave, long inicio, long fin) throws IOException;
+
+    /** @return false si la clave no existía */
+    boolean eliminar(String clave) throws IOException;
+
+    /**
+     * Elimina varias claves; las que no existen se ignoran. Las implementaciones remotas lo hacen en
+     * una sola petición.
+     */
+    default void eliminarVarios(Collection<String> claves) throws IOException {
+        List<String> fallidas = new ArrayList<>();
+        for (String clave : claves) {
+            try {
+                eliminar(clave);
+            } catch (IOException e) {
+                fallidas.add(clave);
+            }
+        }
+        if (!fallidas.isEmpty()) {
+            throw new IOException("No se pudieron eliminar: " + fallidas);
+        }
+    }
+
+    /**
+     * Libera el espacio de los contenidos que ya no tienen ninguna clave.
+     *
+     * @return contenidos liberados
+     */
+    default int recolectar() throws IOException {
+        return 0;
+    }
+
+    /** Nombre de la implementación, para las métricas */
+    String nombre();
+
+    /**
+     * @param rutaLocal archivo en disco si el almacén es local (se envía con sendfile), o null
+     */
+    record Objeto(long tamanio, long modificado, Path rutaLocal) {
+    }
+}
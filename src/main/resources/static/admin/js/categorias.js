@@ -28,6 +28,7 @@ $(document).ready(function() {
         dataTable = $('#tablaCategorias').DataTable({
             responsive: true,
             processing: true,
+            serverSide: true,
             ajax: {
                 url: ENDPOINTS.list,
                 dataSrc: 'data'
@@ -70,35 +70,13 @@ function initializeClientesApp() {
 
         dataTable = tableElement.DataTable({
             responsive: true,
-            processing: false,
-            serverSide: false,
+            processing: true,
+            serverSide: true,
             ajax: {
                 url: ENDPOINTS.list,
                 dataSrc: function(json) {
-                    console.log('📊 DATOS CRUDOS DEL SERVIDOR:', json.data);
-
-                    // Ver estados de todos los registros
-                    const conteoEstados = {
-                        activos: json.data.filter(c => c.estado === 1).length,
-                        inactivos: json.data.filter(c => c.estado === 0).length,
-                        eliminados: json.data.filter(c => c.estado === 2).length,
-                        otros: json.data.filter(c => ![0,1,2].includes(c.estado)).length
-                    };
-                    console.log('📊 Conteo por estado:', conteoEstados);
-
-                    // 🔥 FILTRAR registros eliminados (estado = 2) en el frontend
-                    const dataFiltrada = json.data.filter(item => item.estado !== 2);
-                    console.log(`📊 Total registros: ${json.data.length}, Mostrados: ${dataFiltrada.length}`);
-
-                    // Mostrar los últimos 3 registros para debugging
-                    console.log('🆕 Últimos 3 clientes:', dataFiltrada.slice(-3).map(c => ({
-                        id: c.id,
-                        nombre: c.nombre,
-                        documento: c.documento,
-                        estado: c.estado
-                    })));
-
-                    return dataFiltrada;
+                    // Paginación, búsqueda y orden se resuelven en el servidor (sin eliminados)
+                    return json.data || [];
                 },
                 error: function(xhr, error, thrown) {
                     console.error('Error en DataTables:', error, thrown);
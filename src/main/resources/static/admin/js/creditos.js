@@ -9,6 +9,7 @@ function initializeCreditosApp() {
     let dataTable;
     let pagoModal;
     let creditoActual = null;
+    let tipoActual = 'activos';
 
     // ===================== CONFIGURACIÓN DE ENDPOINTS =====================
     const API_BASE = '/creditos/api';
@@ -24,6 +25,9 @@ function initializeCreditosApp() {
         reporte: `${API_BASE}/reporte`
     };
 
+    // Máximo que acepta /proximos-vencer por página
+    const TAMANIO_PAGINA_PROXIMOS = 500;
+
     try {
         initializeModals();
         initializeDataTable();
@@ -62,17 +66,18 @@ function initializeCreditosApp() {
             responsive: true,
             processing: false,
             serverSide: false,
-            ajax: {
-                url: ENDPOINTS.list,
-                dataSrc: function(json) {
-                    console.log('📊 DATOS CRÉDITOS:', json.data);
-                    return json.data || [];
-                },
-                error: function(xhr, error, thrown) {
-                    console.error('Error en DataTables:', error, thrown);
-                    showError('Error al cargar los créditos',
-                        'No se pudieron cargar los datos. Por favor, recargue la página.');
-                }
+            ajax: function(data, callback) {
+                cargarFilas(tipoActual)
+                    .then(function(filas) {
+                        console.log('📊 DATOS CRÉDITOS:', filas);
+                        callback({ data: filas });
+                    })
+                    .catch(function(error) {
+                        console.error('Error en DataTables:', error);
+                        showError('Error al cargar los créditos',
+                            'No se pudieron cargar los datos. Por favor, recargue la página.');
+                        callback({ data: [] });
+                    });
             },
             columns: [
                 {
@@ -241,20 +246,31 @@ function initializeCreditosApp() {
     // ===================== CARGA DE DATOS =====================
 
     function cargarCreditos(tipo) {
-        let endpoint;
-
-        switch(tipo) {
-            case 'vencidos':
-                endpoint = ENDPOINTS.vencidos;
-                break;
-            case 'proximos':
-                endpoint = ENDPOINTS.proximosVencer + '?dias=7';
-                break;
-            default:
-                endpoint = ENDPOINTS.list;
+        tipoActual = tipo;
+        dataTable.ajax.reload();
+    }
+
+    /**
+     * Filas de la pestaña. Próximos a vencer llega paginado: se recorren todas las páginas
+     * (totalPaginas) para no quedarse solo con la primera.
+     */
+    async function cargarFilas(tipo) {
+        if (tipo !== 'proximos') {
+            const json = await $.getJSON(tipo === 'vencidos' ? ENDPOINTS.vencidos : ENDPOINTS.list);
+            return json.data || [];
         }
 
-        dataTable.ajax.url(endpoint).load();
+        const filas = [];
+        let pagina = 0;
+        let totalPaginas = 1;
+        while (pagina < totalPaginas) {
+            const json = await $.getJSON(ENDPOINTS.proximosVencer,
+                { dias: 7, pagina: pagina, tamanio: TAMANIO_PAGINA_PROXIMOS });
+            filas.push(...(json.data || []));
+            totalPaginas = json.totalPaginas || 0;
+            pagina++;
+        }
+        return filas;
     }
 
     // ===================== REPORTE DE ESTADÍSTICAS =====================
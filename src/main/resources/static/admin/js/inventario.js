@@ -13,6 +13,7 @@ function initializeInventarioApp() {
     let movimientoModal;
     let detalleMovimientoModal;
     let productosData = [];
+    let kardexCursor = null; // { productoId, antesDeFecha, antesDeId } de la siguiente página
     let stockActualProducto = 0;
 
     // Configuración de API
@@ -366,6 +367,7 @@ function initializeInventarioApp() {
 
         // Buscar kardex
         $('#btnBuscarKardex').on('click', handleBuscarKardex);
+        $('#btnKardexMas').on('click', handleKardexMas);
 
         // Acción reponer stock
         $('#tablaStockBajo tbody').on('click', '.action-reponer', handleReponerStock);
@@ -806,14 +808,12 @@ function initializeInventarioApp() {
                     if (producto) {
                         $('#kardexProductoInfo').html(`
                             <strong>Producto:</strong> ${producto.nombre} |
-                            <strong>Stock Actual:</strong> ${producto.stock} unidades |
-                            <strong>Total de movimientos:</strong> ${response.data.length}
+                            <strong>Stock Actual:</strong> ${producto.stock} unidades
                         `);
                     }
 
                     dataTableKardex.clear();
-                    dataTableKardex.rows.add(response.data);
-                    dataTableKardex.draw();
+                    agregarPaginaKardex(productoId, response);
 
                     $('#kardexResults').show();
                 } else {
@@ -827,6 +827,39 @@ function initializeInventarioApp() {
         });
     }
 
+    // Siguiente página del kardex a partir del cursor de la respuesta anterior
+    function handleKardexMas() {
+        if (!kardexCursor) return;
+
+        const boton = $(this).prop('disabled', true);
+        $.ajax({
+            url: ENDPOINTS.kardex(kardexCursor.productoId),
+            method: 'GET',
+            data: { antesDeFecha: kardexCursor.antesDeFecha, antesDeId: kardexCursor.antesDeId },
+            success: function(response) {
+                if (response.success && response.data) {
+                    agregarPaginaKardex(kardexCursor.productoId, response);
+                }
+            },
+            error: function() {
+                showNotification('Error al cargar kardex', 'error');
+            },
+            complete: function() {
+                boton.prop('disabled', false);
+            }
+        });
+    }
+
+    function agregarPaginaKardex(productoId, response) {
+        dataTableKardex.rows.add(response.data);
+        dataTableKardex.draw(false);
+
+        kardexCursor = response.hayMas
+            ? { productoId: productoId, antesDeFecha: response.siguienteFecha, antesDeId: response.siguienteId }
+            : null;
+        $('#btnKardexMas').toggle(!!kardexCursor);
+    }
+
     // ===================== REPONER STOCK =====================
 
     function handleReponerStock() {
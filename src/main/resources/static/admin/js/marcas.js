@@ -72,35 +72,13 @@ function initializeMarcasApp() {
 
         dataTable = tableElement.DataTable({
             responsive: true,
-            processing: false,
-            serverSide: false,
+            processing: true,
+            serverSide: true,
             ajax: {
                 url: ENDPOINTS.list,
                 dataSrc: function(json) {
-                    console.log('🔍 DATOS CRUDOS DEL SERVIDOR:', json.data);
-
-                    // Ver estados de todos los registros
-                    const conteoEstados = {
-                        activos: json.data.filter(m => m.estado === 1).length,
-                        inactivos: json.data.filter(m => m.estado === 0).length,
-                        eliminados: json.data.filter(m => m.estado === 2).length,
-                        otros: json.data.filter(m => ![0,1,2].includes(m.estado)).length
-                    };
-                    console.log('📊 Conteo por estado:', conteoEstados);
-
-                    // 🔥 FILTRAR registros eliminados (estado = 2) en el frontend
-                    const dataFiltrada = json.data.filter(item => item.estado !== 2);
-                    console.log(`📊 Total registros: ${json.data.length}, Mostrados: ${dataFiltrada.length}`);
-
-                    // Mostrar los últimos 3 registros para debugging
-                    console.log('🆕 Últimas 3 marcas:', dataFiltrada.slice(-3).map(m => ({
-                        id: m.id,
-                        nombre: m.nombre,
-                        estado: m.estado,
-                        imagen: m.imagen ? 'SÍ' : 'NO'
-                    })));
-
-                    return dataFiltrada;
+                    // Paginación, búsqueda y orden se resuelven en el servidor (sin eliminados)
+                    return json.data || [];
                 },
                 error: function(xhr, error, thrown) {
                     console.error('Error en DataTables:', error, thrown);
@@ -196,28 +196,12 @@ function initializeApp() {
         dataTable = tableElement.DataTable({
             responsive: true,
             processing: true,
-            serverSide: false,
+            serverSide: true,
             ajax: {
                 url: ENDPOINTS.list,
                 dataSrc: function(json) {
-                    console.log('📊 Datos recibidos:', json);
-                     console.log('📊 JSON completo:', JSON.stringify(json, null, 2)); // ✅ VER TODO
-        
-                    if (json && Array.isArray(json.data)) {
-                        console.log('📊 Total productos recibidos del servidor:', json.data.length); // ✅ NUEVO
-                        console.log('📊 Todos los productos:', json.data); // ✅ NUEVO
-                        
-                        const productosActivos = json.data.filter(p => p.estado !== 2);
-                        console.log(`✅ ${productosActivos.length} productos activos de ${json.data.length} totales`);
-                        console.log('📊 IDs de productos activos:', productosActivos.map(p => p.id)); // ✅ NUEVO
-
-                        updateContadores(productosActivos);
-                        return productosActivos;
-                    } else {
-                        console.error('❌ Formato de respuesta inválido:', json);
-                        showNotification('Error: Datos no válidos recibidos del servidor', 'error');
-                        return [];
-                    }
+                    // Paginación, búsqueda y orden se resuelven en el servidor (sin eliminados)
+                    return (json && json.data) || [];
                 },
                 error: function(xhr, error, thrown) {
                     console.error('❌ Error AJAX:', {
@@ -26,6 +26,7 @@ function initializeVentasApp() {
 
     const ENDPOINTS = {
         list: `${API_BASE}/listar`,
+        paginado: `${API_BASE}/paginado`,
         create: `${API_BASE}/crear`,
         get: (id) => `${API_BASE}/${id}`,
         anular: (id) => `${API_BASE}/anular/${id}`,
@@ -74,12 +75,12 @@ function initializeVentasApp() {
 
         dataTable = tableElement.DataTable({
             responsive: true,
-            processing: false,
-            serverSide: false,
+            processing: true,
+            serverSide: true,
+            searchDelay: 400,
             ajax: {
-                url: ENDPOINTS.list,
+                url: ENDPOINTS.paginado,
                 dataSrc: function(json) {
-                    console.log('📊 DATOS VENTAS:', json.data);
                     return json.data || [];
                 },
                 error: function(xhr, error, thrown) {
@@ -1,6 +1,9 @@
 // ==================== VARIABLES GLOBALES ====================
-let todosLosProductos = [];
+const TAMANIO_PAGINA = 24;
 let productosFiltrados = [];
+let siguienteCursor = null;
+let totalProductos = 0;
+let categoriaSeleccionadaManualmente = false;
 let categorias = [];
 let marcas = [];
 
@@ -157,43 +160,47 @@ function detectarFiltrosURL() {
     cargarProductos();
 }
 
-async function cargarProductos() {
+async function cargarProductos(append = false) {
     const container = document.getElementById('catalogoContainer');
-    container.innerHTML = `
-        <div class="col-12">
-            <div class="loading-container">
-                <div class="spinner-border text-dark" role="status">
-                    <span class="visually-hidden">Cargando...</span>
+    if (!append) {
+        siguienteCursor = null;
+        productosFiltrados = [];
+        container.innerHTML = `
+            <div class="col-12">
+                <div class="loading-container">
+                    <div class="spinner-border text-dark" role="status">
+                        <span class="visually-hidden">Cargando...</span>
+                    </div>
+                    <p class="mt-3">Cargando productos...</p>
                 </div>
-                <p class="mt-3">Cargando productos...</p>
             </div>
-        </div>
-    `;
-    
+        `;
+    }
+
     try {
-        const params = new URLSearchParams(window.location.search);
-        
-        // 🔥 Siempre cargar TODOS los productos y filtrar localmente
-        // Esto permite combinar múltiples filtros (género + categoría + marca)
-        const endpoint = '/productos/api/listar';
-        
+        // 🔥 Los filtros se resuelven en el servidor; solo viaja la página actual
+        const endpoint = '/productos/api/catalogo?' + construirParametrosCatalogo(append).toString();
+
         console.log('Cargando desde:', endpoint);
         const response = await fetch(endpoint);
-        
+
         if (response.ok) {
             const result = await response.json();
-            
+
             if (result.success && result.data) {
-                todosLosProductos = result.data;
-            } else if (Array.isArray(result)) {
-                todosLosProductos = result;
+                productosFiltrados = append ? productosFiltrados.concat(result.data) : result.data;
+                siguienteCursor = result.hayMas ? result.siguienteCursor : null;
+                // Total y facetas solo llegan con la primera página; las siguientes los conservan
+                if (!append) {
+                    totalProductos = result.total || 0;
+                    actualizarFacetas(result.facetas);
+                }
             } else {
-                todosLosProductos = [];
+                productosFiltrados = [];
+                siguienteCursor = null;
+                totalProductos = 0;
             }
-            
-            console.log('Productos cargados:', todosLosProductos.length);
-            productosFiltrados = [...todosLosProductos];
-            aplicarFiltrosLocales();
+
             renderizarProductos();
         } else {
             console.error('Error en respuesta:', response.status);
@@ -205,75 +212,62 @@ async function cargarProductos() {
     }
 }
 
-// ==================== APLICAR FILTROS LOCALES ====================
-function aplicarFiltrosLocales() {
-    productosFiltrados = [...todosLosProductos];
-    console.log('🔍 FILTROS - Productos iniciales:', productosFiltrados.length);
-    
-    // Filtro de género
+// ==================== PARÁMETROS DEL CATÁLOGO ====================
+function construirParametrosCatalogo(append) {
+    const query = new URLSearchParams();
+    const urlParams = new URLSearchParams(window.location.search);
+
     const genero = document.getElementById('filtroGenero').value;
-    if (genero) {
-        productosFiltrados = productosFiltrados.filter(p => 
-            p.genero && p.genero.toUpperCase() === genero.toUpperCase()
-        );
-         console.log('🔍 Después de filtro género:', productosFiltrados.length);
-    }
-    
-    // Filtro de categoría (adaptado para nombre y ID)
-    const categoriaId = document.getElementById('filtroCategoria').value;
-    const params = new URLSearchParams(window.location.search);
-    const subcategoriaParam = params.get('subcategoria');
+    if (genero) query.set('genero', genero);
 
+    // Categoría por ID (select) o por nombre (desde la URL del navbar)
+    const categoriaId = document.getElementById('filtroCategoria').value;
+    const subcategoriaParam = urlParams.get('subcategoria');
     if (categoriaId) {
-        productosFiltrados = productosFiltrados.filter(p => 
-            (p.categoryId && p.categoryId == categoriaId) || 
-            (p.category && p.category.id == categoriaId)
-        );
-    } else if (subcategoriaParam) {
-        // Filtrar por nombre de categoría desde URL
-        productosFiltrados = productosFiltrados.filter(p => 
-            (p.categoryNombre && p.categoryNombre.toLowerCase() === subcategoriaParam.toLowerCase()) ||
-            (p.category && p.category.nombre.toLowerCase() === subcategoriaParam.toLowerCase())
-        );
-         console.log('🔍 Después de filtro categoría:', productosFiltrados.length);
+        query.set('categoriaId', categoriaId);
+    } else if (subcategoriaParam && !categoriaSeleccionadaManualmente) {
+        query.set('categoria', subcategoriaParam);
     }
-    
-    // Filtro de marca (adaptado para DTO)
+
     const marcaId = document.getElementById('filtroMarca').value;
-    if (marcaId) {
-        productosFiltrados = productosFiltrados.filter(p => 
-            (p.brandId && p.brandId == marcaId) || 
-            (p.brand && p.brand.id == marcaId)
-        );
-        console.log('🔍 Después de filtro marca:', productosFiltrados.length);
-    }
-    
-    // Filtro de precio
+    if (marcaId) query.set('marcaId', marcaId);
+
     const precioMin = parseFloat(document.getElementById('precioMin').value);
     const precioMax = parseFloat(document.getElementById('precioMax').value);
-    if (!isNaN(precioMin)) {
-        productosFiltrados = productosFiltrados.filter(p => p.precio >= precioMin);
-    }
-    if (!isNaN(precioMax)) {
-        productosFiltrados = productosFiltrados.filter(p => p.precio <= precioMax);
-    }
-    
-    // Filtro SALE
-    if (document.getElementById('filtroSale').checked) {
-        productosFiltrados = productosFiltrados.filter(p => p.descuento && p.descuento > 0);
-    }
-    
-    // Filtro de stock
-    if (document.getElementById('filtroStock').checked) {
-        productosFiltrados = productosFiltrados.filter(p => p.stock > 0);
-    }
-    
-    // Filtro destacados
-    if (document.getElementById('filtroDestacados').checked) {
-        productosFiltrados = productosFiltrados.filter(p => p.destacado === true);
-    }
-    
-    console.log('🔍 FILTROS - Productos finales:', productosFiltrados.length);
+    if (!isNaN(precioMin)) query.set('precioMin', precioMin);
+    if (!isNaN(precioMax)) query.set('precioMax', precioMax);
+
+    if (document.getElementById('filtroSale').checked) query.set('sale', 'true');
+    if (document.getElementById('filtroStock').checked) query.set('conStock', 'true');
+    if (document.getElementById('filtroDestacados').checked) query.set('destacado', 'true');
+
+    query.set('tamanio', TAMANIO_PAGINA);
+    if (append && siguienteCursor) query.set('cursor', siguienteCursor);
+
+    return query;
+}
+
+// ==================== FACETAS ====================
+function actualizarFacetas(facetas) {
+    if (!facetas) return;
+    actualizarConteosSelect('filtroGenero', facetas.genero);
+    actualizarConteosSelect('filtroCategoria', facetas.categoria);
+    actualizarConteosSelect('filtroMarca', facetas.marca);
+}
+
+function actualizarConteosSelect(selectId, faceta) {
+    const select = document.getElementById(selectId);
+    if (!select || !faceta) return;
+
+    const conteos = {};
+    faceta.forEach(f => conteos[String(f.valor)] = f.cantidad);
+
+    Array.from(select.options).forEach(option => {
+        if (!option.value) return;
+        if (!option.dataset.nombre) option.dataset.nombre = option.textContent;
+        const cantidad = conteos[String(option.value)] || 0;
+        option.textContent = `${option.dataset.nombre} (${cantidad})`;
+    });
 }
 
 // ==================== RENDERIZAR PRODUCTOS ====================
@@ -302,8 +296,21 @@ function renderizarProductos() {
         col.innerHTML = crearCardProducto(producto);
         container.appendChild(col);
     });
+
+    if (siguienteCursor) {
+        const col = document.createElement('div');
+        col.className = 'col-12 text-center';
+        col.innerHTML = `
+            <button class="btn-reset-filters" id="cargarMas">
+                <i class="fas fa-plus"></i>
+                Cargar más productos
+            </button>
+        `;
+        container.appendChild(col);
+        document.getElementById('cargarMas').addEventListener('click', () => cargarProductos(true));
+    }
     
-    actualizarContador(productosFiltrados.length);
+    actualizarContador(totalProductos);
 }
 
 // ==================== CREAR CARD DE PRODUCTO ====================
@@ -378,7 +385,10 @@ function crearCardProducto(producto) {
 function configurarEventListeners() {
     // Filtros
     document.getElementById('filtroGenero').addEventListener('change', aplicarFiltrosYRenderizar);
-    document.getElementById('filtroCategoria').addEventListener('change', aplicarFiltrosYRenderizar);
+    document.getElementById('filtroCategoria').addEventListener('change', () => {
+        categoriaSeleccionadaManualmente = true;
+        aplicarFiltrosYRenderizar();
+    });
     document.getElementById('filtroMarca').addEventListener('change', aplicarFiltrosYRenderizar);
     document.getElementById('precioMin').addEventListener('input', debounce(aplicarFiltrosYRenderizar, 500));
     document.getElementById('precioMax').addEventListener('input', debounce(aplicarFiltrosYRenderizar, 500));
@@ -396,8 +406,7 @@ function configurarEventListeners() {
 
 // ==================== FUNCIONES AUXILIARES ====================
 function aplicarFiltrosYRenderizar() {
-    aplicarFiltrosLocales();
-    renderizarProductos();
+    cargarProductos();
 }
 
 function resetearFiltros() {
@@ -409,6 +418,7 @@ function resetearFiltros() {
     document.getElementById('filtroSale').checked = false;
     document.getElementById('filtroStock').checked = true;
     document.getElementById('filtroDestacados').checked = false;
+    categoriaSeleccionadaManualmente = true;
     
     aplicarFiltrosYRenderizar();
 }
@@ -445,8 +455,8 @@ function mostrarModalProducto(producto) {
     
     // 1. Llenar textos
     document.getElementById('modalProductName').innerText = producto.nombre;
-    document.getElementById('modalProductCategory').innerText = producto.category ? producto.category.nombre : '';
-    document.getElementById('modalProductBrand').innerText = producto.brand ? producto.brand.nombre : '';
+    document.getElementById('modalProductCategory').innerText = producto.categoryNombre || (producto.category ? producto.category.nombre : '');
+    document.getElementById('modalProductBrand').innerText = producto.brandNombre || (producto.brand ? producto.brand.nombre : '');
     document.getElementById('modalProductImage').src = imagen;
     
     // 2. Precio
@@ -0,0 +1,163 @@
+package com.example.acceso;
+
+import com.example.acceso.model.EnumVentas.TipoComprobante;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Inserta directamente por JDBC los datos mínimos que necesitan las pruebas de integración.
+ * Los nombres, documentos y series son únicos en toda la ejecución: las clases de prueba
+ * comparten la base H2 cuando comparten el contexto de Spring.
+ */
+public class DatosPrueba {
+
+    private static final AtomicInteger SECUENCIA = new AtomicInteger();
+
+    private final JdbcTemplate jdbc;
+
+    public DatosPrueba(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    public long marca() {
+        int n = SECUENCIA.incrementAndGet();
+        return insertar("marcas", fila(
+                "nombre", "Marca " + n,
+                "estado", 1));
+    }
+
+    public long categoria() {
+        int n = SECUENCIA.incrementAndGet();
+        return insertar("categorias", fila(
+                "nombre", "Categoría " + n,
+                "estado", 1));
+    }
+
+    public long producto(long marcaId, long categoriaId, BigDecimal precio, int stock) {
+        int n = SECUENCIA.incrementAndGet();
+        return insertar("productos", fila(
+                "nombre", "Zapatilla " + n,
+                "precio", precio,
+                "destacado", false,
+                "stock", stock,
+                "stock_minimo", 0,
+                "estado", 1,
+                "genero", n % 2 == 0 ? "HOMBRE" : "MUJER",
+                "id_marca", marcaId,
+                "id_categoria", categoriaId));
+    }
+
+    /**
+     * Inserta {@code cantidad} productos en lote, repartidos entre los estados 1, 0 y 2 (8:1:1)
+     */
+    public void productos(long marcaId, long categoriaId, int cantidad) {
+        int base = SECUENCIA.getAndAdd(cantidad);
+        LocalDateTime ahora = LocalDateTime.now();
+        jdbc.batchUpdate("INSERT INTO productos (nombre, precio, destacado, stock, stock_minimo, estado, genero, "
+                        + "id_marca, id_categoria, fecha_creacion, fecha_actualizacion) VALUES (?, ?, FALSE, ?, 0, ?, ?, ?, ?, ?, ?)",
+                rangoDe(cantidad), 1_000, (ps, i) -> {
+                    ps.setString(1, "Zapatilla " + (base + i));
+                    ps.setBigDecimal(2, BigDecimal.valueOf(100 + i % 400));
+                    ps.setInt(3, i % 50);
+                    ps.setInt(4, estadoDe(i));
+                    ps.setString(5, i % 2 == 0 ? "HOMBRE" : "MUJER");
+                    ps.setLong(6, marcaId);
+                    ps.setLong(7, categoriaId);
+                    ps.setObject(8, ahora);
+                    ps.setObject(9, ahora);
+                });
+    }
+
+    /**
+     * Inserta {@code cantidad} clientes en lote, repartidos entre los estados 1, 0 y 2 (8:1:1)
+     */
+    public void clientes(int cantidad) {
+        int base = SECUENCIA.getAndAdd(cantidad);
+        LocalDateTime ahora = LocalDateTime.now();
+        jdbc.batchUpdate("INSERT INTO clientes (nombre, documento, telefono, estado, fecha_creacion, fecha_actualizacion) "
+                        + "VALUES (?, ?, ?, ?, ?, ?)",
+                rangoDe(cantidad), 1_000, (ps, i) -> {
+                    ps.setString(1, "Cliente " + (base + i));
+                    ps.setString(2, String.format("%08d", 10_000_000 + base + i));
+                    ps.setString(3, String.format("9%08d", base + i));
+                    ps.setInt(4, estadoDe(i));
+                    ps.setObject(5, ahora);
+                    ps.setObject(6, ahora);
+                });
+    }
+
+    /** Usuario activo sin perfil; devuelve su nombre de usuario */
+    public String usuario() {
+        int n = SECUENCIA.incrementAndGet();
+        String usuario = "cajero" + n;
+        insertar("usuarios", columnas(
+                "nombre", "Cajero " + n,
+                "usuario", usuario,
+                "clave", "-",
+                "correo", usuario + "@prueba.local",
+                "estado", 1));
+        return usuario;
+    }
+
+    /** Cliente activo con DNI */
+    public long cliente() {
+        int n = SECUENCIA.incrementAndGet();
+        return insertar("clientes", fila(
+                "nombre", "Cliente " + n,
+                "documento", String.format("%08d", 10_000_000 + n),
+                "telefono", String.format("9%08d", n),
+                "estado", 1));
+    }
+
+    /** Serie nueva (numeración desde cero) del tipo indicado */
+    public String serie(TipoComprobante tipo) {
+        String serie = String.format("T%03d", SECUENCIA.incrementAndGet() % 1000);
+        jdbc.update("INSERT INTO comprobantes_secuencia (tipo_comprobante, serie, numero_actual, activo, fecha_actualizacion) "
+                + "VALUES (?, ?, 0, TRUE, ?)", tipo.name(), serie, LocalDateTime.now());
+        return serie;
+    }
+
+    private static List<Integer> rangoDe(int cantidad) {
+        return IntStream.range(0, cantidad).boxed().toList();
+    }
+
+    private static int estadoDe(int i) {
+        return switch (i % 10) {
+            case 8 -> 0;
+            case 9 -> 2;
+            default -> 1;
+        };
+    }
+
+    private long insertar(String tabla, Map<String, Object> columnas) {
+        return new SimpleJdbcInsert(jdbc)
+                .withTableName(tabla)
+                .usingGeneratedKeyColumns("id")
+                .executeAndReturnKey(columnas)
+                .longValue();
+    }
+
+    /** Columnas de la fila más las fechas de creación y actualización */
+    private static Map<String, Object> fila(Object... pares) {
+        Map<String, Object> columnas = columnas(pares);
+        columnas.put("fecha_creacion", LocalDateTime.now());
+        columnas.put("fecha_actualizacion", LocalDateTime.now());
+        return columnas;
+    }
+
+    private static Map<String, Object> columnas(Object... pares) {
+        Map<String, Object> columnas = new LinkedHashMap<>();
+        for (int i = 0; i < pares.length; i += 2) {
+            columnas.put((String) pares[i], pares[i + 1]);
+        }
+        return columnas;
+    }
+}
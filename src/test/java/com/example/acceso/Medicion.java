@@ -0,0 +1,35 @@
+package com.example.acceso;
+
+import java.util.Arrays;
+
+/**
+ * Tiempos de las pruebas de rendimiento. Estas pruebas solo se ejecutan con {@code -Dbenchmark=true}:
+ * <pre>mvn test -Dbenchmark=true -Dtest=*BenchmarkTest</pre>
+ */
+public final class Medicion {
+
+    private Medicion() {
+    }
+
+    /**
+     * Mediana en milisegundos de {@code repeticiones} ejecuciones, tras {@code calentamiento}
+     * ejecuciones descartadas
+     */
+    public static double medianaMs(int calentamiento, int repeticiones, Runnable tarea) {
+        for (int i = 0; i < calentamiento; i++) {
+            tarea.run();
+        }
+        double[] tiempos = new double[repeticiones];
+        for (int i = 0; i < repeticiones; i++) {
+            long inicio = System.nanoTime();
+            tarea.run();
+            tiempos[i] = (System.nanoTime() - inicio) / 1e6;
+        }
+        Arrays.sort(tiempos);
+        return tiempos[repeticiones / 2];
+    }
+
+    public static String ms(double milisegundos) {
+        return String.format("%.2f ms", milisegundos);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.acceso.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.web.servlet.resource.ResourceUrlProvider;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Recursos con huella servidos desde su copia .gz, generada al compilar (maven-antrun en
+ * process-resources). Se usa el cliente HTTP del JDK porque no descomprime por su cuenta.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class RecursosEstaticosTest {
+
+    @LocalServerPort
+    private int puerto;
+
+    @Autowired
+    private ResourceUrlProvider mvcResourceUrlProvider;
+
+    private final HttpClient cliente = HttpClient.newHttpClient();
+
+    @Test
+    void recursoConHuellaSeSirveComprimidoConGzip() throws Exception {
+        String url = mvcResourceUrlProvider.getForLookupPath("/js/creditos.js");
+        assertThat(url).matches("/js/creditos-[0-9a-f]{32}\\.js");
+        byte[] original = new ClassPathResource("static/admin/js/creditos.js").getContentAsByteArray();
+
+        HttpResponse<byte[]> respuesta = pedir(url, "gzip, deflate, br");
+
+        assertThat(respuesta.statusCode()).isEqualTo(200);
+        assertThat(respuesta.headers().firstValue("Content-Encoding")).hasValue("gzip");
+        assertThat(respuesta.headers().allValues("Vary")).anyMatch(v -> v.contains("Accept-Encoding"));
+        assertThat(respuesta.headers().firstValue("Cache-Control")).hasValue(CacheRecursosInterceptor.CACHE_INMUTABLE);
+        assertThat(respuesta.body().length).isLessThan(original.length);
+        assertThat(descomprimir(respuesta.body())).isEqualTo(original);
+    }
+
+    @Test
+    void sinAcceptEncodingSeSirveElOriginal() throws Exception {
+        String url = mvcResourceUrlProvider.getForLookupPath("/js/creditos.js");
+        byte[] original = new ClassPathResource("static/admin/js/creditos.js").getContentAsByteArray();
+
+        HttpResponse<byte[]> respuesta = pedir(url, null);
+
+        assertThat(respuesta.statusCode()).isEqualTo(200);
+        assertThat(respuesta.headers().firstValue("Content-Encoding")).isEmpty();
+        assertThat(respuesta.body()).isEqualTo(original);
+    }
+
+    private HttpResponse<byte[]> pedir(String ruta, String acceptEncoding) throws IOException, InterruptedException {
+        HttpRequest.Builder peticion = HttpRequest.newBuilder(URI.create("http://localhost:" + puerto + ruta));
+        if (acceptEncoding != null) {
+            peticion.header("Accept-Encoding", acceptEncoding);
+        }
+        return cliente.send(peticion.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static byte[] descomprimir(byte[] gzip) throws IOException {
+        try (GZIPInputStream entrada = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            return entrada.readAllBytes();
+        }
+    }
+}
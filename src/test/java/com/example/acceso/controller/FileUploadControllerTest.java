@@ -0,0 +1,122 @@
+package com.example.acceso.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.InstanceOfAssertFactories.LIST;
+import static org.assertj.core.api.InstanceOfAssertFactories.STRING;
+import static org.assertj.core.api.InstanceOfAssertFactories.list;
+
+/**
+ * Subidas por HTTP contra el servidor embebido: validación de la firma del contenido y límites de
+ * tamaño de Tomcat.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class FileUploadControllerTest {
+
+    private static final AtomicInteger COLOR = new AtomicInteger(0x405060);
+    private static final ParameterizedTypeReference<Map<String, Object>> JSON = new ParameterizedTypeReference<>() {
+    };
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Test
+    void imagenValidaSeGuarda() throws IOException {
+        ResponseEntity<Map<String, Object>> respuesta = subir("/api/upload/productos/imagen", "file", parte("foto.png", png()));
+
+        assertThat(respuesta.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(respuesta.getBody().get("url")).asInstanceOf(STRING).matches("/uploads/productos/[0-9a-f]{64}\\.png");
+        assertThat(rest.getForEntity(respuesta.getBody().get("url").toString(), byte[].class).getStatusCode())
+                .isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void contenidoQueNoEsImagenSeRechaza() {
+        byte[] texto = "<?php echo 'no soy una imagen'; ?>".getBytes(StandardCharsets.UTF_8);
+
+        ResponseEntity<Map<String, Object>> respuesta = subir("/api/upload/productos/imagen", "file", parte("foto.png", texto));
+
+        assertThat(respuesta.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(respuesta.getBody().get("message")).asInstanceOf(STRING).contains("no es una imagen PNG");
+    }
+
+    @Test
+    void galeriaInformaElErrorDeCadaArchivo() throws IOException {
+        byte[] falsa = "GIF89a".getBytes(StandardCharsets.US_ASCII); // Firma GIF con extensión .png
+        MultiValueMap<String, Object> partes = new LinkedMultiValueMap<>();
+        partes.add("files", parte("a.png", png()));
+        partes.add("files", parte("b.png", falsa));
+
+        ResponseEntity<Map<String, Object>> respuesta = subir("/api/upload/productos/imagenes", partes);
+
+        assertThat(respuesta.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(respuesta.getBody().get("files")).asInstanceOf(LIST).hasSize(1);
+        assertThat(respuesta.getBody().get("errors")).asInstanceOf(list(String.class))
+                .singleElement().asString().startsWith("Archivo 2:").contains("no es una imagen PNG");
+    }
+
+    @Test
+    void archivoMayorA5MBSeCortaCon413() {
+        byte[] grande = new byte[6 * 1024 * 1024];
+        System.arraycopy(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'}, 0, grande, 0, 8);
+
+        ResponseEntity<Map<String, Object>> respuesta = subir("/api/upload/productos/imagen", "file", parte("grande.png", grande));
+
+        assertThat(respuesta.getStatusCode()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
+        assertThat(respuesta.getBody().get("success")).isEqualTo(false);
+    }
+
+    private ResponseEntity<Map<String, Object>> subir(String url, String campo, HttpEntity<ByteArrayResource> parte) {
+        MultiValueMap<String, Object> partes = new LinkedMultiValueMap<>();
+        partes.add(campo, parte);
+        return subir(url, partes);
+    }
+
+    private ResponseEntity<Map<String, Object>> subir(String url, MultiValueMap<String, Object> partes) {
+        HttpHeaders cabeceras = new HttpHeaders();
+        cabeceras.setContentType(MediaType.MULTIPART_FORM_DATA);
+        return rest.exchange(url, HttpMethod.POST, new HttpEntity<>(partes, cabeceras), JSON);
+    }
+
+    static HttpEntity<ByteArrayResource> parte(String nombre, byte[] contenido) {
+        HttpHeaders cabeceras = new HttpHeaders();
+        cabeceras.setContentType(MediaType.IMAGE_PNG);
+        return new HttpEntity<>(new ByteArrayResource(contenido) {
+            @Override
+            public String getFilename() {
+                return nombre;
+            }
+        }, cabeceras);
+    }
+
+    /** PNG pequeño con un color distinto en cada llamada */
+    private static byte[] png() throws IOException {
+        BufferedImage imagen = new BufferedImage(16, 16, BufferedImage.TYPE_INT_RGB);
+        imagen.setRGB(0, 0, COLOR.getAndAdd(11));
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        ImageIO.write(imagen, "png", salida);
+        return salida.toByteArray();
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.acceso.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 50 subidas simultáneas de 5MB contra el servidor embebido: tiempo total y pico de heap usado
+ * sobre el de partida. El cliente envía cada archivo desde disco, sin cargarlo en memoria.
+ */
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class SubidaImagenesBenchmarkTest {
+
+    private static final int SUBIDAS = 50;
+    private static final int TAMANIO = 5 * 1024 * 1024 - 1024; // Justo por debajo del límite de 5MB
+    private static final byte[] FIRMA_PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Test
+    void subidasSimultaneasDe5MB(@TempDir Path carpeta) throws Exception {
+        List<Path> archivos = new ArrayList<>();
+        Random random = new Random(24);
+        for (int i = 0; i < SUBIDAS + 5; i++) {
+            archivos.add(archivo(carpeta.resolve("imagen-" + i + ".png"), random));
+        }
+        for (Path archivo : archivos.subList(SUBIDAS, SUBIDAS + 5)) {
+            assertThat(subir(archivo).getStatusCode()).isEqualTo(HttpStatus.OK); // Calentamiento
+        }
+
+        MemoryMXBean memoria = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long base = memoria.getHeapMemoryUsage().getUsed();
+        AtomicLong pico = new AtomicLong(base);
+        Thread muestreo = Thread.ofPlatform().daemon().start(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                pico.accumulateAndGet(memoria.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+
+        ExecutorService clientes = Executors.newFixedThreadPool(SUBIDAS);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<ResponseEntity<Map>>> respuestas = new ArrayList<>();
+        for (Path archivo : archivos.subList(0, SUBIDAS)) {
+            respuestas.add(clientes.submit(() -> {
+                salida.await();
+                return subir(archivo);
+            }));
+        }
+        long inicio = System.nanoTime();
+        salida.countDown();
+        int correctas = 0;
+        for (Future<ResponseEntity<Map>> respuesta : respuestas) {
+            if (respuesta.get().getStatusCode() == HttpStatus.OK) {
+                correctas++;
+            }
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        muestreo.interrupt();
+        clientes.shutdown();
+
+        log.info("📊 {} subidas simultáneas de 5MB: {}/{} correctas en {} s, pico de heap +{} MB", SUBIDAS,
+                correctas, SUBIDAS, String.format("%.2f", segundos), (pico.get() - base) / (1024 * 1024));
+        assertThat(correctas).isEqualTo(SUBIDAS);
+    }
+
+    private ResponseEntity<Map> subir(Path archivo) {
+        HttpHeaders cabecerasParte = new HttpHeaders();
+        cabecerasParte.setContentType(MediaType.IMAGE_PNG);
+        MultiValueMap<String, Object> partes = new LinkedMultiValueMap<>();
+        partes.add("file", new HttpEntity<>(new FileSystemResource(archivo), cabecerasParte));
+
+        HttpHeaders cabeceras = new HttpHeaders();
+        cabeceras.setContentType(MediaType.MULTIPART_FORM_DATA);
+        return rest.postForEntity("/api/upload/productos/imagen", new HttpEntity<>(partes, cabeceras), Map.class);
+    }
+
+    /** Firma PNG seguida de bytes aleatorios: cada archivo tiene un hash distinto */
+    private static Path archivo(Path destino, Random random) throws IOException {
+        byte[] bloque = new byte[64 * 1024];
+        try (OutputStream salida = Files.newOutputStream(destino)) {
+            salida.write(FIRMA_PNG);
+            for (int escritos = FIRMA_PNG.length; escritos < TAMANIO; escritos += bloque.length) {
+                random.nextBytes(bloque);
+                salida.write(bloque, 0, Math.min(bloque.length, TAMANIO - escritos));
+            }
+        }
+        return destino;
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.acceso.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Bloqueo de tareas entre instancias sobre la tabla {@code tareas_bloqueo}. Otra instancia se
+ * simula con otro hilo o escribiendo la fila directamente.
+ */
+@SpringBootTest
+class BloqueoTareaServiceTest {
+
+    private static final Duration DURACION = Duration.ofMinutes(5);
+
+    @Autowired
+    private BloqueoTareaService bloqueoTareaService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void mientrasUnaInstanciaEjecutaLaTareaLaOtraRecibeNull() throws Exception {
+        String tarea = tareaNueva();
+        CountDownLatch tomado = new CountDownLatch(1);
+        CountDownLatch soltar = new CountDownLatch(1);
+        ExecutorService otraInstancia = Executors.newSingleThreadExecutor();
+        Future<String> primera = otraInstancia.submit(() -> bloqueoTareaService.ejecutar(tarea, DURACION, () -> {
+            tomado.countDown();
+            esperar(soltar);
+            return "primera";
+        }));
+
+        assertThat(tomado.await(30, TimeUnit.SECONDS)).isTrue();
+        assertThat(bloqueoTareaService.ejecutar(tarea, DURACION, () -> "segunda")).isNull();
+
+        soltar.countDown();
+        assertThat(primera.get()).isEqualTo("primera");
+        otraInstancia.shutdown();
+
+        // Liberado al terminar
+        assertThat(bloqueoTareaService.ejecutar(tarea, DURACION, () -> "tercera")).isEqualTo("tercera");
+    }
+
+    @Test
+    void bloqueoVencidoDeUnaInstanciaCaidaSePuedeTomar() {
+        String tarea = tareaNueva();
+        bloqueoTareaService.ejecutar(tarea, DURACION, () -> true); // Crea la fila
+        jdbc.update("UPDATE tareas_bloqueo SET bloqueado_hasta = ?, bloqueado_por = 'caida@otro-host' WHERE nombre = ?",
+                LocalDateTime.now().plusMinutes(10), tarea);
+
+        assertThat(bloqueoTareaService.ejecutar(tarea, DURACION, () -> "antes de vencer")).isNull();
+
+        jdbc.update("UPDATE tareas_bloqueo SET bloqueado_hasta = ? WHERE nombre = ?", LocalDateTime.now().minusSeconds(1), tarea);
+
+        assertThat(bloqueoTareaService.ejecutar(tarea, DURACION, () -> "tras vencer")).isEqualTo("tras vencer");
+        assertThat(jdbc.queryForObject("SELECT bloqueado_por FROM tareas_bloqueo WHERE nombre = ?", String.class, tarea))
+                .isNotEqualTo("caida@otro-host");
+        assertThat(jdbc.queryForObject("SELECT bloqueado_hasta FROM tareas_bloqueo WHERE nombre = ?", LocalDateTime.class, tarea))
+                .isBeforeOrEqualTo(LocalDateTime.now());
+    }
+
+    @Test
+    void tareaQueFallaLiberaElBloqueo() {
+        String tarea = tareaNueva();
+
+        assertThatThrownBy(() -> bloqueoTareaService.ejecutar(tarea, DURACION, () -> {
+            throw new IllegalStateException("fallo de la tarea");
+        })).hasMessage("fallo de la tarea");
+
+        assertThat(bloqueoTareaService.ejecutar(tarea, DURACION, () -> "reintento")).isEqualTo("reintento");
+    }
+
+    @Test
+    void esperarYEjecutarAguardaAQueLaOtraInstanciaTermine() throws Exception {
+        String tarea = tareaNueva();
+        CountDownLatch tomado = new CountDownLatch(1);
+        ExecutorService otraInstancia = Executors.newSingleThreadExecutor();
+        Future<Long> primera = otraInstancia.submit(() -> bloqueoTareaService.ejecutar(tarea, DURACION, () -> {
+            tomado.countDown();
+            dormir(1_500);
+            return System.nanoTime();
+        }));
+        assertThat(tomado.await(30, TimeUnit.SECONDS)).isTrue();
+
+        long inicioSegunda = bloqueoTareaService.esperarYEjecutar(tarea, DURACION, System::nanoTime);
+
+        assertThat(inicioSegunda).isGreaterThan(primera.get()); // Empezó cuando la primera ya había terminado
+        otraInstancia.shutdown();
+    }
+
+    @Test
+    void esperarYEjecutarTomaUnBloqueoVencido() {
+        String tarea = tareaNueva();
+        bloqueoTareaService.ejecutar(tarea, DURACION, () -> true);
+        jdbc.update("UPDATE tareas_bloqueo SET bloqueado_hasta = ?, bloqueado_por = 'caida@otro-host' WHERE nombre = ?",
+                LocalDateTime.now().plusSeconds(2), tarea);
+
+        assertThat(bloqueoTareaService.esperarYEjecutar(tarea, DURACION, () -> "ejecutada")).isEqualTo("ejecutada");
+    }
+
+    /** Cada prueba usa su propia tarea: no depende de lo que hayan dejado las demás */
+    private static String tareaNueva() {
+        return "prueba-" + UUID.randomUUID();
+    }
+
+    private static boolean esperar(CountDownLatch latch) {
+        try {
+            return latch.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void dormir(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
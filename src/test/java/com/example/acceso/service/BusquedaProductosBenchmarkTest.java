@@ -0,0 +1,93 @@
+package com.example.acceso.service;
+
+import com.example.acceso.DatosPrueba;
+import com.example.acceso.Medicion;
+import com.example.acceso.model.Product;
+import com.example.acceso.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Búsqueda de productos sobre 100.000 productos: solo el índice, la carga de los 100 primeros como
+ * entidades o como proyección, la búsqueda completa del servicio y la petición HTTP con su JSON.
+ */
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BusquedaProductosBenchmarkTest {
+
+    private static final int PRODUCTOS = 100_000;
+
+    @Autowired
+    private BusquedaProductosService busquedaProductos;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void busquedaSobre100MilProductos() {
+        DatosPrueba datos = new DatosPrueba(jdbc);
+        datos.productos(datos.marca(), datos.categoria(), PRODUCTOS);
+        // Fuera de la ventana de la sincronización periódica: no se reindexan durante la medición
+        jdbc.update("UPDATE productos SET fecha_actualizacion = DATEADD('DAY', -1, fecha_actualizacion)");
+        assertThat(busquedaProductos.reindexar()).isGreaterThanOrEqualTo(PRODUCTOS);
+
+        // Calentamiento de todo el recorrido: lo que se mida primero no debe cargar con la compilación JIT
+        for (int i = 0; i < 300; i++) {
+            productService.buscarProductos("zapatilla");
+            productService.buscarProductos("zapatila 4242");
+        }
+
+        for (String texto : List.of("zapatilla", "zapatila 4242")) {
+            double indice = Medicion.medianaMs(20, 51, () -> busquedaProductos.buscarIds(texto, true, 100));
+            List<Long> ids = busquedaProductos.buscarIds(texto, true, 100).orElseThrow();
+            double entidades = Medicion.medianaMs(20, 51, () -> transactionTemplate.executeWithoutResult(t ->
+                    cargarEntidades(ids).forEach(p -> p.getImagenes().size()))); // Como al serializarlas a JSON
+            double proyeccion = Medicion.medianaMs(20, 51, () -> transactionTemplate.executeWithoutResult(t ->
+                    productRepository.findTarjetasPorIds(ids, true)));
+            double servicio = Medicion.medianaMs(20, 51, () -> productService.buscarProductos(texto));
+            double http = Medicion.medianaMs(20, 51, () -> assertThat(
+                    rest.getForEntity("/productos/api/buscar?q={q}", String.class, texto).getStatusCode())
+                    .isEqualTo(HttpStatus.OK));
+
+            log.info("📊 Búsqueda '{}' ({} resultados): índice {}, carga de entidades {}, proyección {}, servicio {}, HTTP {}",
+                    texto, ids.size(), Medicion.ms(indice), Medicion.ms(entidades), Medicion.ms(proyeccion),
+                    Medicion.ms(servicio), Medicion.ms(http));
+        }
+    }
+
+    /** Carga anterior de los resultados: entidades con marca y categoría (la galería es perezosa) */
+    private List<Product> cargarEntidades(List<Long> ids) {
+        return entityManager.createQuery(
+                        "SELECT p FROM Product p JOIN FETCH p.brand JOIN FETCH p.category WHERE p.id IN :ids", Product.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+}
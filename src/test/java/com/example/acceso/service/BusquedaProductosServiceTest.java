@@ -0,0 +1,99 @@
+package com.example.acceso.service;
+
+import com.example.acceso.DatosPrueba;
+import com.example.acceso.dto.ProductoCatalogoDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Índice de búsqueda con cambios hechos por otra instancia: se simulan escribiendo directamente en la
+ * base de datos, con su hora y sin {@code CatalogoModificadoEvent}.
+ */
+@SpringBootTest
+class BusquedaProductosServiceTest {
+
+    @Autowired
+    private BusquedaProductosService busquedaProductos;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void indiceConstruido() throws InterruptedException {
+        while (busquedaProductos.reindexar() < 0) {
+            Thread.sleep(50); // Reindexación del arranque aún en curso
+        }
+    }
+
+    @Test
+    void cambiosDeOtraInstanciaLleganAlSincronizar() {
+        DatosPrueba datos = new DatosPrueba(jdbc);
+        long producto = datos.producto(datos.marca(), datos.categoria(), new BigDecimal("199.90"), 5);
+        String nombre = "orb" + producto;
+        jdbc.update("UPDATE productos SET nombre = ?, fecha_actualizacion = CURRENT_TIMESTAMP WHERE id = ?",
+                "Zapatilla " + nombre, producto);
+
+        assertThat(busquedaProductos.buscarIds(nombre, true, 10).orElseThrow()).doesNotContain(producto);
+
+        busquedaProductos.sincronizar();
+
+        // Por prefijo mientras se escribe y con una letra cambiada de sitio
+        assertThat(busquedaProductos.buscarIds(nombre.substring(0, nombre.length() - 1), true, 10).orElseThrow())
+                .contains(producto);
+        assertThat(busquedaProductos.buscarIds("obr" + producto, true, 10).orElseThrow()).contains(producto);
+
+        ProductoCatalogoDTO encontrado = productService.buscarProductos(nombre).get(0);
+        assertThat(encontrado.getId()).isEqualTo(producto);
+        assertThat(encontrado.getBrandNombre()).startsWith("Marca ");
+        assertThat(encontrado.getPrecio()).isEqualByComparingTo("199.90");
+    }
+
+    @Test
+    void productoDesactivadoEnOtraInstanciaNoApareceAunqueElIndiceNoLoSepa() {
+        DatosPrueba datos = new DatosPrueba(jdbc);
+        long producto = datos.producto(datos.marca(), datos.categoria(), new BigDecimal("99.90"), 5);
+        String nombre = "orb" + producto;
+        jdbc.update("UPDATE productos SET nombre = ?, fecha_actualizacion = CURRENT_TIMESTAMP WHERE id = ?",
+                "Zapatilla " + nombre, producto);
+        busquedaProductos.sincronizar();
+
+        jdbc.update("UPDATE productos SET estado = 0, fecha_actualizacion = CURRENT_TIMESTAMP WHERE id = ?", producto);
+
+        // El índice aún lo tiene como activo, pero la carga filtra el estado en la base de datos
+        assertThat(busquedaProductos.buscarIds(nombre, true, 10).orElseThrow()).contains(producto);
+        assertThat(productService.buscarProductos(nombre)).extracting(ProductoCatalogoDTO::getId).doesNotContain(producto);
+        assertThat(productService.buscarProductosTodos(nombre)).extracting(ProductoCatalogoDTO::getId).contains(producto);
+
+        busquedaProductos.sincronizar();
+        assertThat(busquedaProductos.buscarIds(nombre, true, 10).orElseThrow()).doesNotContain(producto);
+    }
+
+    @Test
+    void cambioSoloDeStockNoReescribeElDocumento() {
+        DatosPrueba datos = new DatosPrueba(jdbc);
+        long producto = datos.producto(datos.marca(), datos.categoria(), new BigDecimal("99.90"), 5);
+        busquedaProductos.sincronizar();
+        long actualizados = metrica("documentosActualizados");
+        long sinCambios = metrica("documentosSinCambios");
+
+        jdbc.update("UPDATE productos SET stock = stock - 1, fecha_actualizacion = CURRENT_TIMESTAMP WHERE id = ?", producto);
+        busquedaProductos.sincronizar();
+
+        assertThat(metrica("documentosActualizados")).isEqualTo(actualizados);
+        assertThat(metrica("documentosSinCambios")).isGreaterThan(sinCambios);
+    }
+
+    private long metrica(String nombre) {
+        return (Long) busquedaProductos.metricas().get(nombre);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.acceso.service;
+
+import com.example.acceso.DatosPrueba;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Catálogo en memoria con cambios hechos por otra instancia: se simulan escribiendo directamente en
+ * la base de datos, con su hora y sin {@code CatalogoModificadoEvent}.
+ */
+@SpringBootTest
+class CatalogoCacheServiceTest {
+
+    @Autowired
+    private CatalogoCacheService catalogoCache;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void cambiosDeOtraInstanciaLleganAlSincronizar() {
+        catalogoCache.actual(); // Copia construida antes de los cambios
+        DatosPrueba datos = new DatosPrueba(jdbc);
+        long categoria = datos.categoria();
+        long producto = datos.producto(datos.marca(), categoria, new BigDecimal("199.90"), 5);
+        jdbc.update("UPDATE productos SET fecha_actualizacion = CURRENT_TIMESTAMP WHERE id = ?", producto);
+
+        assertThat(catalogoCache.actual().porId(producto)).isNull();
+
+        catalogoCache.sincronizar();
+        assertThat(catalogoCache.actual().porId(producto).getStock()).isEqualTo(5);
+        assertThat(catalogoCache.actual().porCategoria(categoria)).extracting("id").containsExactly(producto);
+
+        // Venta y cambio de precio en otra instancia
+        jdbc.update("UPDATE productos SET stock = 2, precio = 149.90, fecha_actualizacion = CURRENT_TIMESTAMP WHERE id = ?",
+                producto);
+        catalogoCache.sincronizar();
+        assertThat(catalogoCache.actual().porId(producto).getStock()).isEqualTo(2);
+        assertThat(catalogoCache.actual().porId(producto).getPrecio()).isEqualByComparingTo("149.90");
+
+        jdbc.update("UPDATE productos SET estado = 0, fecha_actualizacion = CURRENT_TIMESTAMP WHERE id = ?", producto);
+        catalogoCache.sincronizar();
+        assertThat(catalogoCache.actual().porId(producto)).isNull();
+        assertThat(catalogoCache.actual().porCategoria(categoria)).isEmpty();
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.acceso.service;
+
+import com.example.acceso.dto.ProductoCatalogoDTO;
+import com.example.acceso.model.Genero;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Una versión del catálogo obtenida aplicando cambios debe ser igual a la construida desde cero
+ * con los mismos productos.
+ */
+class CatalogoCacheSnapshotTest {
+
+    private final Random random = new Random(42);
+
+    @Test
+    void conCambiosEquivaleAReconstruir() {
+        Map<Long, ProductoCatalogoDTO> productos = new HashMap<>();
+        for (long id = 1; id <= 300; id++) {
+            productos.put(id, producto(id));
+        }
+        List<Long> masVendidas = List.of(5L, 17L, 250L);
+        CatalogoCacheService.Snapshot snapshot = new CatalogoCacheService.Snapshot(1, productos.values(), masVendidas);
+
+        for (int ronda = 0; ronda < 50; ronda++) {
+            // Cada ronda modifica, desactiva o crea unos cuantos productos (como una transacción)
+            Set<Long> ids = new HashSet<>();
+            List<ProductoCatalogoDTO> activos = new ArrayList<>();
+            for (int i = 0; i < 1 + random.nextInt(20); i++) {
+                long id = 1 + random.nextInt(320);
+                if (!ids.add(id)) {
+                    continue;
+                }
+                if (random.nextInt(4) == 0) {
+                    productos.remove(id);
+                } else {
+                    ProductoCatalogoDTO p = producto(id);
+                    productos.put(id, p);
+                    activos.add(p);
+                }
+            }
+            snapshot = snapshot.conCambios(ids, activos);
+            comparar(snapshot, new CatalogoCacheService.Snapshot(0, productos.values(), masVendidas));
+        }
+
+        CatalogoCacheService.Snapshot ranking = snapshot.conMasVendidas(List.of(3L, 1L));
+        assertThat(ranking.masVendidas()).isEqualTo(
+                new CatalogoCacheService.Snapshot(0, productos.values(), List.of(3L, 1L)).masVendidas());
+        assertThat(ranking.todos()).isSameAs(snapshot.todos());
+    }
+
+    private void comparar(CatalogoCacheService.Snapshot delta, CatalogoCacheService.Snapshot completo) {
+        assertThat(delta.todos()).isEqualTo(completo.todos());
+        assertThat(delta.destacados()).isEqualTo(completo.destacados());
+        assertThat(delta.enRebaja()).isEqualTo(completo.enRebaja());
+        assertThat(delta.masVendidas()).isEqualTo(completo.masVendidas());
+        for (Genero genero : Genero.values()) {
+            assertThat(delta.porGenero(genero)).isEqualTo(completo.porGenero(genero));
+        }
+        for (long id = 1; id <= 4; id++) {
+            assertThat(delta.porCategoria(id)).isEqualTo(completo.porCategoria(id));
+            assertThat(delta.porMarca(id)).isEqualTo(completo.porMarca(id));
+            assertThat(delta.porNombreCategoria("Categoria " + id)).isEqualTo(completo.porNombreCategoria("categoria " + id));
+        }
+        for (long id = 1; id <= 320; id++) {
+            assertThat(delta.porId(id)).isEqualTo(completo.porId(id));
+        }
+    }
+
+    private ProductoCatalogoDTO producto(long id) {
+        long categoria = 1 + random.nextInt(4);
+        long marca = 1 + random.nextInt(4);
+        return new ProductoCatalogoDTO(id, "Producto " + id + "-" + random.nextInt(1000), null,
+                BigDecimal.valueOf(100), random.nextInt(3) == 0 ? BigDecimal.TEN : null, random.nextBoolean(),
+                random.nextInt(20), 5, Genero.values()[random.nextInt(Genero.values().length)],
+                categoria, "Categoria " + categoria, marca, "Marca " + marca);
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.acceso.service;
+
+import com.example.acceso.DatosPrueba;
+import com.example.acceso.dto.StockAFechaResponse;
+import com.example.acceso.model.EnumInventario.TipoMovimiento;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Cierres mensuales de inventario reconstruidos desde el kardex
+ */
+@SpringBootTest
+class CierreInventarioServiceTest {
+
+    @Autowired
+    private CierreInventarioService cierreInventarioService;
+
+    @Autowired
+    private BloqueoTareaService bloqueoTareaService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void dosInstanciasArrancandoSinCierresLosCarganUnaSolaVez() throws Exception {
+        Kardex kardex = new Kardex(10);
+        LocalDateTime inicio = LocalDateTime.now().minusMonths(3);
+        kardex.mover(TipoMovimiento.ENTRADA, 5, inicio);
+        kardex.mover(TipoMovimiento.SALIDA, 3, inicio.plusMonths(1));
+        kardex.mover(TipoMovimiento.SALIDA, 1, inicio.plusMonths(2));
+        jdbc.update("DELETE FROM cierres_inventario");
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        List<Future<?>> arranques = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            arranques.add(pool.submit(cierreInventarioService::inicializarCierres));
+        }
+        for (Future<?> arranque : arranques) {
+            arranque.get(); // Sin choque con la restricción única
+        }
+        pool.shutdown();
+
+        assertThat(jdbc.queryForList("SELECT stock_cierre FROM cierres_inventario WHERE producto_id = ? ORDER BY periodo",
+                Integer.class, kardex.producto)).containsExactly(15, 12, 11);
+    }
+
+    @Test
+    void stockAFechaCoincideConElRecorridoCompletoDelKardex() {
+        Kardex kardex = kardexDePrueba();
+        List<LocalDateTime> fechas = List.of(
+                LocalDateTime.of(2022, 12, 31, 23, 0),            // Antes del primer movimiento
+                LocalDateTime.of(2023, 1, 10, 10, 0),             // Justo en el primer movimiento
+                LocalDateTime.of(2023, 1, 20, 0, 0),              // Dentro del primer mes, sin cierre previo
+                LocalDateTime.of(2023, 1, 31, 23, 59, 59, 999_999_000),
+                LocalDateTime.of(2023, 2, 1, 0, 0),               // Primer instante del mes: ya cuenta su movimiento
+                LocalDateTime.of(2023, 2, 20, 8, 30),
+                LocalDateTime.of(2023, 3, 15, 0, 0),              // Mes sin movimientos
+                LocalDateTime.of(2023, 4, 3, 8, 59, 59),
+                LocalDateTime.of(2023, 4, 3, 9, 0),               // Dos movimientos con la misma hora
+                LocalDateTime.of(2023, 6, 1, 0, 0),
+                LocalDateTime.now());
+
+        assertThat(cierreInventarioService.reconstruirCierres()).isNotNull();
+        for (LocalDateTime fecha : fechas) {
+            assertThat(cierreInventarioService.stockAl(kardex.producto, fecha))
+                    .as("con cierres, al %s", fecha)
+                    .usingRecursiveComparison().comparingOnlyFields("stock", "entradasAcumuladas", "salidasAcumuladas")
+                    .isEqualTo(kardex.recorrer(fecha));
+        }
+
+        // Sin ningún cierre se parte del primer movimiento y el resultado debe ser el mismo
+        jdbc.update("DELETE FROM cierres_inventario WHERE producto_id = ?", kardex.producto);
+        for (LocalDateTime fecha : fechas) {
+            assertThat(cierreInventarioService.stockAl(kardex.producto, fecha))
+                    .as("sin cierres, al %s", fecha)
+                    .usingRecursiveComparison().comparingOnlyFields("stock", "entradasAcumuladas", "salidasAcumuladas")
+                    .isEqualTo(kardex.recorrer(fecha));
+        }
+    }
+
+    @Test
+    void stockAFechaParteDelUltimoCierreAnteriorAlMes() {
+        Kardex kardex = kardexDePrueba();
+        cierreInventarioService.reconstruirCierres();
+
+        assertThat(cierreInventarioService.stockAl(kardex.producto, LocalDateTime.of(2023, 1, 31, 23, 59)).getPeriodoBase())
+                .isNull();
+        assertThat(cierreInventarioService.stockAl(kardex.producto, LocalDateTime.of(2023, 2, 1, 0, 0)).getPeriodoBase())
+                .isEqualTo(LocalDate.of(2023, 1, 1));
+        StockAFechaResponse abril = cierreInventarioService.stockAl(kardex.producto, LocalDateTime.of(2023, 4, 30, 0, 0));
+        assertThat(abril.getPeriodoBase()).isEqualTo(LocalDate.of(2023, 2, 1)); // Marzo no tiene cierre
+        assertThat(abril.getMovimientosAplicados()).isEqualTo(2);
+    }
+
+    @Test
+    void stockAFechaDeProductoSinMovimientosEsElActual() {
+        Kardex kardex = new Kardex(7);
+
+        assertThat(cierreInventarioService.stockAl(kardex.producto, LocalDateTime.of(2020, 1, 1, 0, 0)).getStock())
+                .isEqualTo(7);
+    }
+
+    @Test
+    void reconstruirCierresAcumulaMesAMesYEsRepetible() {
+        Kardex kardex = kardexDePrueba();
+        String consulta = "SELECT periodo, stock_cierre, entradas_acumuladas, salidas_acumuladas, movimientos "
+                + "FROM cierres_inventario WHERE producto_id = ? ORDER BY periodo";
+
+        Integer filas = cierreInventarioService.reconstruirCierres();
+        List<Map<String, Object>> cierres = jdbc.queryForList(consulta, kardex.producto);
+
+        assertThat(filas).isEqualTo(jdbc.queryForObject("SELECT COUNT(*) FROM cierres_inventario", Integer.class));
+        assertThat(cierres).extracting(
+                        c -> c.get("PERIODO").toString(), c -> c.get("STOCK_CIERRE"), c -> ((Number) c.get("ENTRADAS_ACUMULADAS")).longValue(),
+                        c -> ((Number) c.get("SALIDAS_ACUMULADAS")).longValue(), c -> ((Number) c.get("MOVIMIENTOS")).longValue())
+                .containsExactly(
+                        tuple("2023-01-01", 25, 20L, 5L, 2L),
+                        tuple("2023-02-01", 23, 21L, 8L, 2L),
+                        tuple("2023-04-01", 13, 21L, 18L, 2L));
+
+        assertThat(cierreInventarioService.reconstruirCierres()).isEqualTo(filas);
+        assertThat(jdbc.queryForList(consulta, kardex.producto)).isEqualTo(cierres);
+    }
+
+    @Test
+    void reconstruirCierresSeOmiteMientrasOtraInstanciaLaEjecuta() throws Exception {
+        CountDownLatch tomado = new CountDownLatch(1);
+        CountDownLatch soltar = new CountDownLatch(1);
+        ExecutorService otraInstancia = Executors.newSingleThreadExecutor();
+        Future<?> ocupada = otraInstancia.submit(() ->
+                bloqueoTareaService.ejecutar("reconstruccion-cierres-inventario", Duration.ofMinutes(1), () -> {
+                    tomado.countDown();
+                    try {
+                        return soltar.await(30, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }));
+        try {
+            assertThat(tomado.await(30, TimeUnit.SECONDS)).isTrue();
+            assertThat(cierreInventarioService.reconstruirCierres()).isNull();
+        } finally {
+            soltar.countDown();
+            ocupada.get();
+            otraInstancia.shutdown();
+        }
+
+        assertThat(cierreInventarioService.reconstruirCierres()).isNotNull();
+    }
+
+    /**
+     * Enero: +20 y -5 en su último instante. Febrero: -3 en su primer instante y +1.
+     * Marzo sin movimientos. Abril: dos salidas con la misma hora.
+     */
+    private Kardex kardexDePrueba() {
+        Kardex kardex = new Kardex(10);
+        kardex.mover(TipoMovimiento.ENTRADA, 20, LocalDateTime.of(2023, 1, 10, 10, 0));
+        kardex.mover(TipoMovimiento.SALIDA, 5, LocalDateTime.of(2023, 1, 31, 23, 59, 59, 999_999_000));
+        kardex.mover(TipoMovimiento.SALIDA, 3, LocalDateTime.of(2023, 2, 1, 0, 0));
+        kardex.mover(TipoMovimiento.DEVOLUCION, 1, LocalDateTime.of(2023, 2, 15, 12, 0));
+        kardex.mover(TipoMovimiento.SALIDA, 8, LocalDateTime.of(2023, 4, 3, 9, 0));
+        kardex.mover(TipoMovimiento.SALIDA, 2, LocalDateTime.of(2023, 4, 3, 9, 0));
+        return kardex;
+    }
+
+    /** Kardex de un producto nuevo, escrito directamente con las fechas indicadas */
+    private final class Kardex {
+        private final long producto;
+        private final long usuario;
+        private int stock;
+
+        private Kardex(int stockInicial) {
+            DatosPrueba datos = new DatosPrueba(jdbc);
+            this.producto = datos.producto(datos.marca(), datos.categoria(), new BigDecimal("100.00"), stockInicial);
+            this.usuario = jdbc.queryForObject("SELECT id FROM usuarios WHERE usuario = ?", Long.class, datos.usuario());
+            this.stock = stockInicial;
+        }
+
+        private void mover(TipoMovimiento tipo, int cantidad, LocalDateTime fecha) {
+            int nuevo = tipo == TipoMovimiento.ENTRADA || tipo == TipoMovimiento.DEVOLUCION ? stock + cantidad : stock - cantidad;
+            jdbc.update("INSERT INTO movimientos_inventario (producto_id, tipo_movimiento, cantidad, stock_anterior, stock_nuevo, "
+                            + "motivo, referencia_tipo, usuario_id, fecha_movimiento) VALUES (?, ?, ?, ?, ?, 'AJUSTE_FISICO', 'NINGUNO', ?, ?)",
+                    producto, tipo.name(), cantidad, stock, nuevo, usuario, fecha);
+            stock = nuevo;
+            jdbc.update("UPDATE productos SET stock = ? WHERE id = ?", stock, producto);
+        }
+
+        /** Referencia: recorre todo el kardex del producto desde su primer movimiento hasta la fecha */
+        private StockAFechaResponse recorrer(LocalDateTime fecha) {
+            List<Map<String, Object>> movimientos = jdbc.queryForList("SELECT tipo_movimiento, cantidad, stock_anterior, fecha_movimiento "
+                    + "FROM movimientos_inventario WHERE producto_id = ? ORDER BY fecha_movimiento, id", producto);
+            int saldo = (Integer) movimientos.get(0).get("STOCK_ANTERIOR");
+            long entradas = 0;
+            long salidas = 0;
+            for (Map<String, Object> m : movimientos) {
+                if (((Timestamp) m.get("FECHA_MOVIMIENTO")).toLocalDateTime().isAfter(fecha)) {
+                    break;
+                }
+                int cantidad = (Integer) m.get("CANTIDAD");
+                TipoMovimiento tipo = TipoMovimiento.valueOf((String) m.get("TIPO_MOVIMIENTO"));
+                if (tipo == TipoMovimiento.ENTRADA || tipo == TipoMovimiento.DEVOLUCION) {
+                    saldo += cantidad;
+                    entradas += cantidad;
+                } else {
+                    saldo -= cantidad;
+                    salidas += cantidad;
+                }
+            }
+            return StockAFechaResponse.builder().stock(saldo).entradasAcumuladas(entradas).salidasAcumuladas(salidas).build();
+        }
+    }
+}
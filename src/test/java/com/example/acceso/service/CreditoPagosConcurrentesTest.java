@@ -0,0 +1,156 @@
+package com.example.acceso.service;
+
+import com.example.acceso.DatosPrueba;
+import com.example.acceso.dto.CrearVentaRequest;
+import com.example.acceso.dto.CuotaPagoResponse;
+import com.example.acceso.dto.RegistrarPagoRequest;
+import com.example.acceso.model.EnumVentas.FormaPago;
+import com.example.acceso.model.EnumVentas.IntervaloCredito;
+import com.example.acceso.model.EnumVentas.MetodoPago;
+import com.example.acceso.model.EnumVentas.TipoComprobante;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pagos simultáneos sobre un mismo crédito: los totales del crédito y de cada cuota deben coincidir
+ * siempre con la suma de los pagos registrados, haya o no conflictos entre ellos.
+ */
+@Slf4j
+@SpringBootTest
+class CreditoPagosConcurrentesTest {
+
+    private static final BigDecimal PAGO = new BigDecimal("1.00");
+
+    @Autowired
+    private VentaService ventaService;
+
+    @Autowired
+    private CreditoVentaService creditoVentaService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @ParameterizedTest(name = "{0} hilos x {1} pagos sobre {2} cuotas")
+    @CsvSource({
+            "10, 30, 30", // Cada hilo paga sus propias cuotas: no hay conflictos
+            "16, 20, 4"   // Todos los hilos pagan las mismas cuotas: conflictos y reintentos
+    })
+    void totalesCoincidenConLosPagos(int hilos, int pagosPorHilo, int cuotasUsadas) throws Exception {
+        Long creditoId = crearCredito();
+        List<Long> cuotas = creditoVentaService.listarCuotasPorCredito(creditoId).stream()
+                .map(CuotaPagoResponse::getId)
+                .limit(cuotasUsadas)
+                .toList();
+        BigDecimal saldoInicial = jdbc.queryForObject(
+                "SELECT saldo_pendiente FROM creditos_venta WHERE id = ?", BigDecimal.class, creditoId);
+
+        AtomicInteger rechazados = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(hilos);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int h = 0; h < hilos; h++) {
+            int hilo = h;
+            tareas.add(pool.submit(() -> {
+                for (int p = 0; p < pagosPorHilo; p++) {
+                    Long cuotaId = cuotas.get(cuotaDe(hilo, p, hilos, cuotas.size()));
+                    try {
+                        creditoVentaService.registrarPago(pago(creditoId, cuotaId), "cajero");
+                    } catch (RuntimeException e) {
+                        rechazados.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> tarea : tareas) {
+            tarea.get();
+        }
+        pool.shutdown();
+
+        Map<String, Object> credito = jdbc.queryForMap(
+                "SELECT monto_inicial, monto_pagado, saldo_pendiente FROM creditos_venta WHERE id = ?", creditoId);
+        Map<String, Object> pagos = jdbc.queryForMap(
+                "SELECT COUNT(*) AS cantidad, COALESCE(SUM(monto_pagado), 0) AS total FROM registros_pago WHERE credito_id = ?",
+                creditoId);
+        BigDecimal totalPagos = (BigDecimal) pagos.get("total");
+        long registrados = ((Number) pagos.get("cantidad")).longValue();
+
+        log.info("📊 {} hilos x {} pagos sobre {} cuotas: {} registrados, {} rechazados",
+                hilos, pagosPorHilo, cuotasUsadas, registrados, rechazados.get());
+
+        assertThat(registrados + rechazados.get()).isEqualTo((long) hilos * pagosPorHilo);
+        if (cuotasUsadas >= hilos) {
+            assertThat(rechazados.get()).isZero();
+        }
+        assertThat((BigDecimal) credito.get("monto_pagado"))
+                .isEqualByComparingTo(((BigDecimal) credito.get("monto_inicial")).add(totalPagos));
+        assertThat((BigDecimal) credito.get("saldo_pendiente")).isEqualByComparingTo(saldoInicial.subtract(totalPagos));
+
+        List<Map<String, Object>> descuadres = jdbc.queryForList("""
+                SELECT c.id FROM cuotas_pago c
+                WHERE c.credito_id = ?
+                  AND (c.monto_pagado <> (SELECT COALESCE(SUM(r.monto_pagado), 0) FROM registros_pago r WHERE r.cuota_id = c.id)
+                       OR c.saldo_pendiente <> c.monto_cuota - c.monto_pagado)
+                """, creditoId);
+        assertThat(descuadres).isEmpty();
+    }
+
+    /**
+     * Con al menos una cuota por hilo, cada hilo paga solo las suyas; si no, todos rotan sobre las mismas
+     */
+    private static int cuotaDe(int hilo, int pago, int hilos, int cuotas) {
+        if (cuotas >= hilos) {
+            int porHilo = cuotas / hilos;
+            return hilo * porHilo + pago % porHilo;
+        }
+        return (hilo + pago) % cuotas;
+    }
+
+    private Long crearCredito() {
+        DatosPrueba datos = new DatosPrueba(jdbc);
+        long producto = datos.producto(datos.marca(), datos.categoria(), new BigDecimal("3000.00"), 10);
+
+        CrearVentaRequest.DetalleVentaRequest detalle = new CrearVentaRequest.DetalleVentaRequest();
+        detalle.setProductoId(producto);
+        detalle.setCantidad(1);
+        detalle.setPrecioUnitario(new BigDecimal("3000.00"));
+
+        CrearVentaRequest.CreditoVentaRequest credito = new CrearVentaRequest.CreditoVentaRequest();
+        credito.setNumeroCuotas(30);
+        credito.setIntervaloCuotas(IntervaloCredito.MENSUAL);
+        credito.setMontoInicial(new BigDecimal("300.00"));
+
+        CrearVentaRequest request = new CrearVentaRequest();
+        request.setClienteId(datos.cliente());
+        request.setTipoComprobante(TipoComprobante.BOLETA);
+        request.setSerie(datos.serie(TipoComprobante.BOLETA));
+        request.setFormaPago(FormaPago.CREDITO);
+        request.setDetalles(List.of(detalle));
+        request.setCredito(credito);
+
+        Long ventaId = ventaService.crearVenta(request, datos.usuario()).getId();
+        return creditoVentaService.obtenerCreditoPorVentaId(ventaId).getId();
+    }
+
+    private static RegistrarPagoRequest pago(Long creditoId, Long cuotaId) {
+        RegistrarPagoRequest request = new RegistrarPagoRequest();
+        request.setCreditoId(creditoId);
+        request.setCuotaId(cuotaId);
+        request.setMetodoPago(MetodoPago.EFECTIVO);
+        request.setMontoPagado(PAGO);
+        return request;
+    }
+}
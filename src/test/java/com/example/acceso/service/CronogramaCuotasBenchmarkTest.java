@@ -0,0 +1,118 @@
+package com.example.acceso.service;
+
+import com.example.acceso.DatosPrueba;
+import com.example.acceso.Medicion;
+import com.example.acceso.dto.CrearVentaRequest;
+import com.example.acceso.model.EnumVentas.FormaPago;
+import com.example.acceso.model.EnumVentas.IntervaloCredito;
+import com.example.acceso.model.EnumVentas.TipoComprobante;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cálculo del cronograma (céntimos frente a BigDecimal) y sentencias JDBC de una venta a crédito
+ * con 1 y 48 cuotas
+ */
+@Slf4j
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CronogramaCuotasBenchmarkTest {
+
+    private static final BigDecimal PRECIO = new BigDecimal("4800.00");
+    private static final BigDecimal SALDO = new BigDecimal("12345.67");
+    private static final LocalDate INICIO = LocalDate.of(2026, 1, 1);
+    private static final int CRONOGRAMAS = 10_000;
+
+    @Autowired
+    private VentaService ventaService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void calculoDelCronograma() {
+        for (int cuotas : List.of(12, 48)) {
+            double centimos = Medicion.medianaMs(20, 21, () -> {
+                for (int i = 0; i < CRONOGRAMAS; i++) {
+                    CronogramaCuotas.calcular(SALDO, cuotas, 30, INICIO);
+                }
+            });
+            double bigDecimal = Medicion.medianaMs(20, 21, () -> {
+                for (int i = 0; i < CRONOGRAMAS; i++) {
+                    CronogramaCuotasTest.calcularConBigDecimal(SALDO, cuotas, 30, INICIO);
+                }
+            });
+            log.info("📊 Cronograma de {} cuotas: céntimos {} µs, BigDecimal {} µs", cuotas,
+                    String.format("%.2f", centimos * 1000 / CRONOGRAMAS),
+                    String.format("%.2f", bigDecimal * 1000 / CRONOGRAMAS));
+        }
+    }
+
+    @Test
+    void sentenciasPorVentaACredito() {
+        DatosPrueba datos = new DatosPrueba(jdbc);
+        long producto = datos.producto(datos.marca(), datos.categoria(), PRECIO, 1_000);
+        long cliente = datos.cliente();
+        String usuario = datos.usuario();
+        String serie = datos.serie(TipoComprobante.BOLETA);
+
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.setStatisticsEnabled(true);
+        try {
+            long[] sentencias = new long[2];
+            int[] numerosCuotas = {1, 48};
+            for (int i = 0; i < numerosCuotas.length; i++) {
+                CrearVentaRequest venta = venta(serie, cliente, producto, numerosCuotas[i]);
+                ventaService.crearVenta(venta, usuario); // Calentamiento (cachés de filas y del generador)
+
+                estadisticas.clear();
+                double ms = Medicion.medianaMs(0, 1, () -> ventaService.crearVenta(venta, usuario));
+                sentencias[i] = estadisticas.getPrepareStatementCount();
+                log.info("📊 Venta a crédito con {} cuotas: {} sentencias JDBC, {} entidades insertadas, {}",
+                        numerosCuotas[i], sentencias[i], estadisticas.getEntityInsertCount(), Medicion.ms(ms));
+            }
+
+            // Las 47 cuotas adicionales viajan en el mismo lote, no en 47 INSERT sueltos
+            assertThat(sentencias[1] - sentencias[0]).isLessThanOrEqualTo(2);
+        } finally {
+            estadisticas.setStatisticsEnabled(false);
+        }
+    }
+
+    private static CrearVentaRequest venta(String serie, long clienteId, long productoId, int numeroCuotas) {
+        CrearVentaRequest.DetalleVentaRequest detalle = new CrearVentaRequest.DetalleVentaRequest();
+        detalle.setProductoId(productoId);
+        detalle.setCantidad(1);
+        detalle.setPrecioUnitario(PRECIO);
+
+        CrearVentaRequest.CreditoVentaRequest credito = new CrearVentaRequest.CreditoVentaRequest();
+        credito.setNumeroCuotas(numeroCuotas);
+        credito.setIntervaloCuotas(IntervaloCredito.MENSUAL);
+        credito.setMontoInicial(BigDecimal.ZERO);
+
+        CrearVentaRequest request = new CrearVentaRequest();
+        request.setClienteId(clienteId);
+        request.setTipoComprobante(TipoComprobante.BOLETA);
+        request.setSerie(serie);
+        request.setFormaPago(FormaPago.CREDITO);
+        request.setDetalles(List.of(detalle));
+        request.setCredito(credito);
+        return request;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.acceso.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * El cronograma en céntimos debe dar exactamente las mismas cuotas que el cálculo anterior con BigDecimal
+ */
+class CronogramaCuotasTest {
+
+    private static final LocalDate INICIO = LocalDate.of(2026, 1, 31);
+
+    @Test
+    void coincideConElCalculoConBigDecimal() {
+        Random random = new Random(7);
+        for (int caso = 0; caso < 20_000; caso++) {
+            BigDecimal saldo = BigDecimal.valueOf(1 + random.nextInt(5_000_000), 2);
+            int numeroCuotas = 1 + random.nextInt(48);
+            int dias = new int[]{7, 15, 30}[random.nextInt(3)];
+
+            assertThat(CronogramaCuotas.calcular(saldo, numeroCuotas, dias, INICIO))
+                    .as("saldo %s en %d cuotas", saldo, numeroCuotas)
+                    .containsExactly(calcularConBigDecimal(saldo, numeroCuotas, dias, INICIO));
+        }
+    }
+
+    @Test
+    void laUltimaCuotaAbsorbeElRedondeo() {
+        CronogramaCuotas.Cuota[] cuotas = CronogramaCuotas.calcular(new BigDecimal("100.00"), 3, 30, INICIO);
+
+        assertThat(cuotas).extracting(CronogramaCuotas.Cuota::monto)
+                .containsExactly(new BigDecimal("33.33"), new BigDecimal("33.33"), new BigDecimal("33.34"));
+        assertThat(Arrays.stream(cuotas).map(CronogramaCuotas.Cuota::monto).reduce(BigDecimal.ZERO, BigDecimal::add))
+                .isEqualByComparingTo("100.00");
+        assertThat(cuotas[2].fechaVencimiento()).isEqualTo(INICIO.plusDays(90));
+    }
+
+    @Test
+    void rechazaDatosInvalidos() {
+        assertThatThrownBy(() -> CronogramaCuotas.calcular(new BigDecimal("10.00"), 0, 30, INICIO))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CronogramaCuotas.calcular(BigDecimal.ZERO, 12, 30, INICIO))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Cálculo anterior de {@code CreditoVentaService.generarCuotas}
+     */
+    static CronogramaCuotas.Cuota[] calcularConBigDecimal(BigDecimal saldoFinanciar, int numeroCuotas,
+                                                          int diasIntervalo, LocalDate fechaInicio) {
+        BigDecimal montoCuota = saldoFinanciar.divide(BigDecimal.valueOf(numeroCuotas), 2, RoundingMode.HALF_UP);
+        LocalDate fechaVencimiento = fechaInicio;
+        CronogramaCuotas.Cuota[] cuotas = new CronogramaCuotas.Cuota[numeroCuotas];
+        for (int i = 1; i <= numeroCuotas; i++) {
+            fechaVencimiento = fechaVencimiento.plusDays(diasIntervalo);
+            BigDecimal montoCuotaFinal = montoCuota;
+            if (i == numeroCuotas) {
+                montoCuotaFinal = saldoFinanciar.subtract(montoCuota.multiply(BigDecimal.valueOf(numeroCuotas - 1)));
+            }
+            cuotas[i - 1] = new CronogramaCuotas.Cuota(i, montoCuotaFinal, fechaVencimiento);
+        }
+        return cuotas;
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.acceso.service;
+
+import com.example.acceso.model.DocumentoCache;
+import com.example.acceso.repository.DocumentoCacheRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * Caché de consultas DNI/RUC con la API externa simulada
+ */
+class DocumentoConsultaServiceTest {
+
+    private static final String DNI_URL = "http://miapi.test/v1/dni/";
+    private static final String RUC_URL = "http://miapi.test/v1/ruc/";
+    private static final String RESPUESTA_DNI = """
+            {"success": true, "datos": {"dni": "12345678", "nombres": "ANA", "ape_paterno": "PEREZ", "ape_materno": "ROJAS"}}
+            """;
+
+    private DocumentoCacheRepository repository;
+    private MockRestServiceServer api;
+    private DocumentoConsultaService service;
+
+    @BeforeEach
+    void crearServicio() {
+        repository = mock(DocumentoCacheRepository.class);
+        when(repository.findById(any())).thenReturn(Optional.empty());
+
+        RestTemplate restTemplate = new RestTemplate();
+        api = MockRestServiceServer.bindTo(restTemplate).build();
+
+        service = new DocumentoConsultaService(repository, restTemplate);
+        ReflectionTestUtils.setField(service, "miapiToken", "token-prueba");
+        ReflectionTestUtils.setField(service, "dniUrl", DNI_URL);
+        ReflectionTestUtils.setField(service, "rucUrl", RUC_URL);
+        ReflectionTestUtils.setField(service, "vigenciaDias", 30L);
+        ReflectionTestUtils.setField(service, "vigenciaNoEncontradoHoras", 6L);
+    }
+
+    @Test
+    void documentoEncontradoSeGuardaYNoSeVuelveAConsultar() {
+        api.expect(ExpectedCount.once(), requestTo(DNI_URL + "12345678"))
+                .andExpect(header("Authorization", "Bearer token-prueba"))
+                .andRespond(withSuccess(RESPUESTA_DNI, MediaType.APPLICATION_JSON));
+
+        DocumentoCache primero = service.consultar("12345678");
+        DocumentoCache segundo = service.consultar("12345678");
+
+        api.verify();
+        assertThat(primero.getEncontrado()).isTrue();
+        assertThat(primero.getNombre()).isEqualTo("ANA PEREZ ROJAS");
+        assertThat(segundo).isSameAs(primero);
+        verify(repository).save(primero);
+    }
+
+    @Test
+    void documentoInexistenteTambienSeGuarda() {
+        api.expect(ExpectedCount.once(), requestTo(RUC_URL + "20123456789"))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND));
+
+        DocumentoCache primero = service.consultar("20123456789");
+        DocumentoCache segundo = service.consultar("20123456789");
+
+        api.verify();
+        assertThat(primero.getEncontrado()).isFalse();
+        assertThat(primero.getTipo()).isEqualTo("RUC");
+        assertThat(segundo).isSameAs(primero);
+        verify(repository).save(primero);
+    }
+
+    @Test
+    void copiaVigenteDeLaTablaEvitaLaConsulta() {
+        when(repository.findById("12345678")).thenReturn(Optional.of(
+                guardado("12345678", "ANA PEREZ ROJAS", LocalDateTime.now().minusDays(29))));
+
+        assertThat(service.consultar("12345678").getNombre()).isEqualTo("ANA PEREZ ROJAS");
+        api.verify();
+    }
+
+    @Test
+    void copiaCaducadaSeVuelveAConsultar() {
+        when(repository.findById("12345678")).thenReturn(Optional.of(
+                guardado("12345678", "NOMBRE ANTERIOR", LocalDateTime.now().minusDays(31))));
+        api.expect(ExpectedCount.once(), requestTo(DNI_URL + "12345678"))
+                .andRespond(withSuccess(RESPUESTA_DNI, MediaType.APPLICATION_JSON));
+
+        assertThat(service.consultar("12345678").getNombre()).isEqualTo("ANA PEREZ ROJAS");
+        api.verify();
+    }
+
+    @Test
+    void noEncontradoCaducaAntesQueEncontrado() {
+        when(repository.findById("87654321")).thenReturn(Optional.of(
+                guardado("87654321", null, LocalDateTime.now().minusHours(7))));
+        api.expect(ExpectedCount.once(), requestTo(DNI_URL + "87654321"))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND));
+
+        assertThat(service.consultar("87654321").getEncontrado()).isFalse();
+        api.verify();
+    }
+
+    @Test
+    void errorDeLaApiSePropagaSinGuardarse() {
+        api.expect(ExpectedCount.once(), requestTo(DNI_URL + "12345678"))
+                .andRespond(withServerError());
+        api.expect(ExpectedCount.once(), requestTo(DNI_URL + "12345678"))
+                .andRespond(withSuccess(RESPUESTA_DNI, MediaType.APPLICATION_JSON));
+
+        assertThatThrownBy(() -> service.consultar("12345678"))
+                .isInstanceOf(HttpServerErrorException.class);
+        verify(repository, never()).save(any());
+
+        // El error no quedó en caché: la siguiente consulta vuelve a la API
+        assertThat(service.consultar("12345678").getEncontrado()).isTrue();
+        api.verify();
+    }
+
+    @Test
+    void consultasSimultaneasHacenUnaSolaLlamada() throws Exception {
+        CountDownLatch liberar = new CountDownLatch(1);
+        api.expect(ExpectedCount.once(), requestTo(DNI_URL + "12345678"))
+                .andRespond(request -> {
+                    try {
+                        liberar.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return withSuccess(RESPUESTA_DNI, MediaType.APPLICATION_JSON).createResponse(request);
+                });
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<DocumentoCache>> resultados = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            resultados.add(pool.submit(() -> service.consultar("12345678")));
+        }
+        Thread.sleep(300); // Que todas lleguen mientras la primera espera a la API
+        liberar.countDown();
+
+        for (Future<DocumentoCache> resultado : resultados) {
+            assertThat(resultado.get(5, TimeUnit.SECONDS).getNombre()).isEqualTo("ANA PEREZ ROJAS");
+        }
+        pool.shutdown();
+        api.verify();
+        verify(repository, times(1)).save(any());
+    }
+
+    private static DocumentoCache guardado(String documento, String nombre, LocalDateTime fechaConsulta) {
+        return DocumentoCache.builder()
+                .documento(documento)
+                .tipo(documento.length() == 8 ? "DNI" : "RUC")
+                .nombre(nombre)
+                .encontrado(nombre != null)
+                .fechaConsulta(fechaConsulta)
+                .build();
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.acceso.service;
+
+import com.example.acceso.DatosPrueba;
+import com.example.acceso.model.Cliente;
+import com.example.acceso.model.Product;
+import com.example.acceso.repository.ClienteRepository;
+import com.example.acceso.repository.ConteoPorEstadoRepository;
+import com.example.acceso.repository.ConteoPorEstadoRepository.ConteoEstado;
+import com.example.acceso.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static com.example.acceso.Medicion.medianaMs;
+import static com.example.acceso.Medicion.ms;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Estadísticas por estado: cargar toda la tabla y contar en memoria (como antes) frente al
+ * GROUP BY, con 10k y 100k filas.
+ */
+@Slf4j
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class EstadisticasEstadoBenchmarkTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ClienteService clienteService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private EstadisticasEstadoService estadisticasEstadoService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private long marca;
+    private long ultimoCliente;
+
+    @AfterEach
+    void limpiar() {
+        jdbc.update("DELETE FROM productos WHERE id_marca = ?", marca);
+        jdbc.update("DELETE FROM clientes WHERE id > ?", ultimoCliente);
+    }
+
+    @Test
+    void conteoPorEstadoFrenteACargaCompleta() {
+        DatosPrueba datos = new DatosPrueba(jdbc);
+        marca = datos.marca();
+        ultimoCliente = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM clientes", Long.class);
+        long categoria = datos.categoria();
+
+        int cargadas = 0;
+        for (int filas : List.of(10_000, 100_000)) {
+            datos.productos(marca, categoria, filas - cargadas);
+            datos.clientes(filas - cargadas);
+            cargadas = filas;
+
+            comparar("productos", filas, () -> productService.listarTodosProductos(), Product::getEstado,
+                    productRepository, estadisticasEstadoService::productos);
+            comparar("clientes", filas, () -> clienteService.listarTodosClientes(), Cliente::getEstado,
+                    clienteRepository, estadisticasEstadoService::clientes);
+        }
+    }
+
+    private <T> void comparar(String tabla, int filas, Supplier<List<T>> cargarTodo, Function<T, Integer> estado,
+                              ConteoPorEstadoRepository<T> repository, Supplier<Map<String, Long>> conCache) {
+        Map<Integer, Long> porEstado = repository.contarPorEstado().stream()
+                .collect(Collectors.toMap(ConteoEstado::getEstado, ConteoEstado::getCantidad));
+        Map<String, Long> esperado = contarEnMemoria(cargarTodo.get(), estado);
+        assertThat(porEstado.getOrDefault(1, 0L)).isEqualTo(esperado.get("activos"));
+        assertThat(porEstado.getOrDefault(0, 0L)).isEqualTo(esperado.get("inactivos"));
+        assertThat(porEstado.getOrDefault(2, 0L)).isEqualTo(esperado.get("eliminados"));
+
+        double antes = medianaMs(2, 5, () -> contarEnMemoria(cargarTodo.get(), estado));
+        double groupBy = medianaMs(5, 21, repository::contarPorEstado);
+        double cache = medianaMs(5, 21, conCache::get);
+
+        log.info("📊 {} con {} filas → carga completa {}, GROUP BY {}, con caché {}",
+                tabla, filas, ms(antes), ms(groupBy), ms(cache));
+    }
+
+    private static <T> Map<String, Long> contarEnMemoria(List<T> filas, Function<T, Integer> estado) {
+        Map<String, Long> estadisticas = new LinkedHashMap<>();
+        estadisticas.put("activos", filas.stream().filter(f -> estado.apply(f) == 1).count());
+        estadisticas.put("inactivos", filas.stream().filter(f -> estado.apply(f) == 0).count());
+        estadisticas.put("eliminados", filas.stream().filter(f -> estado.apply(f) == 2).count());
+        estadisticas.put("total", (long) filas.size());
+        return estadisticas;
+    }
+}
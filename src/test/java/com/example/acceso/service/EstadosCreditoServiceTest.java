@@ -0,0 +1,180 @@
+package com.example.acceso.service;
+
+import com.example.acceso.DatosPrueba;
+import com.example.acceso.dto.CrearVentaRequest;
+import com.example.acceso.model.EnumVentas.FormaPago;
+import com.example.acceso.model.EnumVentas.IntervaloCredito;
+import com.example.acceso.model.EnumVentas.TipoComprobante;
+import com.example.acceso.repository.RepositorioVentas.CreditoVentaRepository;
+import com.example.acceso.repository.RepositorioVentas.CuotaPagoRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Actualización diaria de estados de cuotas y créditos por rangos de ID, con el bloqueo entre
+ * instancias. Las fechas y saldos se ajustan directamente en la base de datos.
+ */
+@SpringBootTest
+class EstadosCreditoServiceTest {
+
+    @Autowired
+    private EstadosCreditoService estadosCreditoService;
+
+    @Autowired
+    private VentaService ventaService;
+
+    @Autowired
+    private CreditoVentaService creditoVentaService;
+
+    @Autowired
+    private CuotaPagoRepository cuotaPagoRepository;
+
+    @Autowired
+    private CreditoVentaRepository creditoVentaRepository;
+
+    @Autowired
+    private BloqueoTareaService bloqueoTareaService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @ParameterizedTest(name = "lotes de {0} IDs")
+    @ValueSource(ints = {1, 2, 5000})
+    void marcaVencidasPagadosYVencidosEnTodosLosRangos(int tamanioLote) {
+        LocalDate hoy = LocalDate.now();
+
+        long alDia = crearCredito();
+        long pagado = crearCredito();
+        jdbc.update("UPDATE creditos_venta SET saldo_pendiente = 0, fecha_fin = ? WHERE id = ?", hoy.minusDays(5), pagado);
+
+        // Creado el último: su última cuota es la de mayor ID y cae en el último rango
+        long vencido = crearCredito();
+        List<Long> cuotas = jdbc.queryForList("SELECT id FROM cuotas_pago WHERE credito_id = ? ORDER BY numero_cuota",
+                Long.class, vencido);
+        jdbc.update("UPDATE creditos_venta SET fecha_fin = ? WHERE id = ?", hoy.minusDays(1), vencido);
+        jdbc.update("UPDATE cuotas_pago SET fecha_vencimiento = ?, monto_pagado = 1.00, saldo_pendiente = monto_cuota - 1.00, "
+                + "estado = 'PARCIAL' WHERE id = ?", hoy.minusDays(40), cuotas.get(0));
+        jdbc.update("UPDATE cuotas_pago SET fecha_vencimiento = ? WHERE id = ?", hoy, cuotas.get(1)); // Vence hoy: aún no
+        jdbc.update("UPDATE cuotas_pago SET fecha_vencimiento = ? WHERE id = ?", hoy.minusDays(10), cuotas.get(2));
+        assertThat(cuotas.get(2)).isEqualTo(jdbc.queryForObject("SELECT MAX(id) FROM cuotas_pago", Long.class));
+
+        Map<Long, Integer> versionesCreditos = versiones("creditos_venta", List.of(alDia, pagado, vencido));
+        Map<Long, Integer> versionesCuotas = versiones("cuotas_pago", cuotas);
+
+        EstadosCreditoService servicio = new EstadosCreditoService(cuotaPagoRepository, creditoVentaRepository,
+                bloqueoTareaService, transactionManager, tamanioLote);
+        Map<String, Object> resultado = servicio.actualizar();
+
+        assertThat((Integer) resultado.get("cuotasVencidas")).isGreaterThanOrEqualTo(1);
+        assertThat((Integer) resultado.get("creditosPagados")).isGreaterThanOrEqualTo(1);
+        assertThat((Integer) resultado.get("creditosVencidos")).isGreaterThanOrEqualTo(1);
+
+        // Con pago parcial sigue PARCIAL aunque haya vencido; sin pagos pasa a VENCIDA
+        assertThat(estados("cuotas_pago", cuotas)).containsExactly("PARCIAL", "PENDIENTE", "VENCIDA");
+        // Saldo cero gana a la fecha vencida
+        assertThat(estados("creditos_venta", List.of(alDia, pagado, vencido))).containsExactly("ACTIVO", "PAGADO", "VENCIDO");
+
+        // Solo las filas cambiadas suben de versión (un pago concurrente sobre ellas fallará y se reintentará)
+        Map<Long, Integer> creditosDespues = versiones("creditos_venta", List.of(alDia, pagado, vencido));
+        assertThat(creditosDespues.get(alDia)).isEqualTo(versionesCreditos.get(alDia));
+        assertThat(creditosDespues.get(pagado)).isEqualTo(versionesCreditos.get(pagado) + 1);
+        assertThat(creditosDespues.get(vencido)).isEqualTo(versionesCreditos.get(vencido) + 1);
+        Map<Long, Integer> cuotasDespues = versiones("cuotas_pago", cuotas);
+        assertThat(cuotasDespues.get(cuotas.get(0))).isEqualTo(versionesCuotas.get(cuotas.get(0)));
+        assertThat(cuotasDespues.get(cuotas.get(1))).isEqualTo(versionesCuotas.get(cuotas.get(1)));
+        assertThat(cuotasDespues.get(cuotas.get(2))).isEqualTo(versionesCuotas.get(cuotas.get(2)) + 1);
+
+        // Una segunda pasada no encuentra nada que cambiar
+        assertThat(servicio.actualizar()).containsEntry("cuotasVencidas", 0)
+                .containsEntry("creditosPagados", 0)
+                .containsEntry("creditosVencidos", 0);
+    }
+
+    @Test
+    void segundaInstanciaNoEjecutaMientrasLaPrimeraTieneElBloqueo() throws Exception {
+        long omitidas = (Long) estadosCreditoService.metricas().get("ejecucionesOmitidas");
+        CountDownLatch tomado = new CountDownLatch(1);
+        CountDownLatch soltar = new CountDownLatch(1);
+        ExecutorService otraInstancia = Executors.newSingleThreadExecutor();
+        Future<?> primera = otraInstancia.submit(() ->
+                bloqueoTareaService.ejecutar("estados-credito", Duration.ofMinutes(1), () -> {
+                    tomado.countDown();
+                    try {
+                        return soltar.await(30, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }));
+        try {
+            assertThat(tomado.await(30, TimeUnit.SECONDS)).isTrue();
+            assertThat(estadosCreditoService.actualizar()).isNull();
+            assertThat(estadosCreditoService.metricas()).containsEntry("ejecucionesOmitidas", omitidas + 1);
+        } finally {
+            soltar.countDown();
+            primera.get();
+            otraInstancia.shutdown();
+        }
+
+        assertThat(estadosCreditoService.actualizar()).isNotNull();
+    }
+
+    private Map<Long, Integer> versiones(String tabla, List<Long> ids) {
+        return ids.stream().collect(Collectors.toMap(id -> id,
+                id -> jdbc.queryForObject("SELECT version FROM " + tabla + " WHERE id = ?", Integer.class, id)));
+    }
+
+    private List<String> estados(String tabla, List<Long> ids) {
+        return ids.stream()
+                .map(id -> jdbc.queryForObject("SELECT estado FROM " + tabla + " WHERE id = ?", String.class, id))
+                .toList();
+    }
+
+    /** Venta a crédito de 3 cuotas mensuales, todas pendientes */
+    private long crearCredito() {
+        DatosPrueba datos = new DatosPrueba(jdbc);
+        long producto = datos.producto(datos.marca(), datos.categoria(), new BigDecimal("300.00"), 10);
+
+        CrearVentaRequest.DetalleVentaRequest detalle = new CrearVentaRequest.DetalleVentaRequest();
+        detalle.setProductoId(producto);
+        detalle.setCantidad(1);
+        detalle.setPrecioUnitario(new BigDecimal("300.00"));
+
+        CrearVentaRequest.CreditoVentaRequest credito = new CrearVentaRequest.CreditoVentaRequest();
+        credito.setNumeroCuotas(3);
+        credito.setIntervaloCuotas(IntervaloCredito.MENSUAL);
+        credito.setMontoInicial(BigDecimal.ZERO);
+
+        CrearVentaRequest request = new CrearVentaRequest();
+        request.setClienteId(datos.cliente());
+        request.setTipoComprobante(TipoComprobante.BOLETA);
+        request.setSerie(datos.serie(TipoComprobante.BOLETA));
+        request.setFormaPago(FormaPago.CREDITO);
+        request.setDetalles(List.of(detalle));
+        request.setCredito(credito);
+
+        Long ventaId = ventaService.crearVenta(request, datos.usuario()).getId();
+        return creditoVentaService.obtenerCreditoPorVentaId(ventaId).getId();
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.acceso.service;
+
+import com.example.acceso.DatosPrueba;
+import com.example.acceso.service.storage.StorageBackend;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Imágenes repetidas: dos productos con la misma foto comparten el archivo, y eliminarla para uno
+ * no puede dejar al otro sin imagen.
+ */
+@SpringBootTest
+class ImagenServiceTest {
+
+    private static final long MAX_BYTES = 5L * 1024 * 1024;
+    private static final AtomicInteger COLOR = new AtomicInteger(0x102030);
+
+    @Autowired
+    private ImagenService imagenService;
+
+    @Autowired
+    private StorageBackend storage;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void imagenCompartidaNoSeEliminaMientrasOtroProductoLaUse() throws Exception {
+        byte[] png = png();
+        ImagenService.ImagenGuardada primera = imagenService.guardar("productos", new ByteArrayInputStream(png), "png", MAX_BYTES);
+        ImagenService.ImagenGuardada segunda = imagenService.guardar("productos", new ByteArrayInputStream(png), "png", MAX_BYTES);
+        assertThat(segunda.duplicada()).isTrue();
+        assertThat(segunda.nombre()).isEqualTo(primera.nombre());
+
+        DatosPrueba datos = new DatosPrueba(jdbc);
+        long marca = datos.marca();
+        long categoria = datos.categoria();
+        long productoA = datos.producto(marca, categoria, new BigDecimal("99.90"), 1);
+        long productoB = datos.producto(marca, categoria, new BigDecimal("99.90"), 1);
+        jdbc.update("UPDATE productos SET imagen = ? WHERE id = ?", primera.url(), productoA);
+        jdbc.update("INSERT INTO producto_imagenes (producto_id, orden, url) VALUES (?, 0, ?)", productoB, segunda.url());
+
+        // A deja de usarla, pero B la tiene en su galería
+        jdbc.update("UPDATE productos SET imagen = NULL WHERE id = ?", productoA);
+        assertThatThrownBy(() -> imagenService.eliminar("productos", primera.nombre()))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(storage.existe("productos/" + primera.nombre())).isTrue();
+
+        // Ya nadie la usa
+        jdbc.update("DELETE FROM producto_imagenes WHERE producto_id = ?", productoB);
+        assertThat(imagenService.eliminar("productos", primera.nombre())).isTrue();
+        assertThat(storage.existe("productos/" + primera.nombre())).isFalse();
+    }
+
+    @Test
+    void eliminacionEnSegundoPlanoConservaLasImagenesEnUso() throws Exception {
+        ImagenService.ImagenGuardada usada = imagenService.guardar("marcas", new ByteArrayInputStream(png()), "png", MAX_BYTES);
+        ImagenService.ImagenGuardada libre = imagenService.guardar("marcas", new ByteArrayInputStream(png()), "png", MAX_BYTES);
+
+        long marca = new DatosPrueba(jdbc).marca();
+        jdbc.update("UPDATE marcas SET imagen = ? WHERE id = ?", usada.url(), marca);
+
+        imagenService.eliminarEnSegundoPlano("marcas", List.of(usada.nombre(), libre.nombre()));
+        esperarEliminaciones();
+
+        assertThat(storage.existe("marcas/" + usada.nombre())).isTrue();
+        assertThat(storage.existe("marcas/" + libre.nombre())).isFalse();
+    }
+
+    @Test
+    void flujoSinFinSeCortaAlSuperarElLimite() {
+        long guardadasAntes = (Long) imagenService.metricas().get("imagenesGuardadas");
+        SinFin entrada = new SinFin(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'});
+
+        assertThatThrownBy(() -> imagenService.guardar("productos", entrada, "png", 256 * 1024))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("tamaño máximo");
+
+        // Se deja de leer en el bloque que supera el límite, no al final del flujo
+        assertThat(entrada.leidos).isLessThanOrEqualTo(256 * 1024 + 64 * 1024);
+        assertThat(imagenService.metricas().get("imagenesGuardadas")).isEqualTo(guardadasAntes);
+    }
+
+    @Test
+    void firmaSeCompruebaEnElPrimerBloque() {
+        SinFin entrada = new SinFin("<html>".getBytes(StandardCharsets.US_ASCII));
+
+        assertThatThrownBy(() -> imagenService.guardar("productos", entrada, "jpg", MAX_BYTES))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("no es una imagen JPG");
+        assertThat(entrada.leidos).isLessThanOrEqualTo(64 * 1024);
+    }
+
+    /** Flujo que empieza con {@code inicio} y nunca termina; cuenta los bytes leídos */
+    private static class SinFin extends InputStream {
+        private final byte[] inicio;
+        private long leidos;
+
+        SinFin(byte[] inicio) {
+            this.inicio = inicio;
+        }
+
+        @Override
+        public int read() {
+            int b = leidos < inicio.length ? inicio[(int) leidos] & 0xFF : 0;
+            leidos++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            for (int i = 0; i < len; i++) {
+                b[off + i] = (byte) read();
+            }
+            return len;
+        }
+    }
+
+    private void esperarEliminaciones() throws InterruptedException {
+        for (int i = 0; i < 100 && (Long) imagenService.metricas().get("eliminacionesPendientes") > 0; i++) {
+            Thread.sleep(50);
+        }
+        assertThat(imagenService.metricas().get("eliminacionesPendientes")).isEqualTo(0L);
+    }
+
+    /** PNG pequeño con un color distinto en cada llamada (contenido y hash distintos) */
+    private static byte[] png() throws IOException {
+        BufferedImage imagen = new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB);
+        imagen.setRGB(0, 0, COLOR.getAndAdd(7));
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        ImageIO.write(imagen, "png", salida);
+        return salida.toByteArray();
+    }
+}
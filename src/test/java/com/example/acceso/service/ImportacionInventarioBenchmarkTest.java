@@ -0,0 +1,86 @@
+package com.example.acceso.service;
+
+import com.example.acceso.DatosPrueba;
+import com.example.acceso.dto.ImportacionInventarioResponse;
+import com.example.acceso.service.ImportacionInventarioService.Formato;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Líneas por segundo de la importación de entradas de inventario (CSV y JSON) sobre 1.000 productos
+ */
+@Slf4j
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ImportacionInventarioBenchmarkTest {
+
+    private static final int PRODUCTOS = 1_000;
+
+    @Autowired
+    private ImportacionInventarioService importacionService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void lineasPorSegundo() throws Exception {
+        DatosPrueba datos = new DatosPrueba(jdbc);
+        long marca = datos.marca();
+        long categoria = datos.categoria();
+        List<Long> productos = new ArrayList<>();
+        for (int i = 0; i < PRODUCTOS; i++) {
+            productos.add(datos.producto(marca, categoria, new BigDecimal("99.90"), 0));
+        }
+        Long usuarioId = jdbc.queryForObject("SELECT id FROM usuarios WHERE usuario = ?", Long.class, datos.usuario());
+
+        importar(csv(productos, 2_000), Formato.CSV, usuarioId); // Calentamiento
+
+        for (int lineas : List.of(5_000, 20_000)) {
+            for (Formato formato : Formato.values()) {
+                String contenido = formato == Formato.CSV ? csv(productos, lineas) : json(productos, lineas);
+                long inicio = System.nanoTime();
+                ImportacionInventarioResponse respuesta = importar(contenido, formato, usuarioId);
+                double segundos = (System.nanoTime() - inicio) / 1e9;
+
+                assertThat(respuesta.getRegistradas()).isEqualTo(lineas);
+                log.info("📊 Importación {} de {} líneas: {} s ({} líneas/s)", formato, lineas,
+                        String.format("%.2f", segundos), String.format("%.0f", lineas / segundos));
+            }
+        }
+
+        Long stockTotal = jdbc.queryForObject("SELECT SUM(stock) FROM productos WHERE id_marca = ?", Long.class, marca);
+        assertThat(stockTotal).isEqualTo(2_000L + 2 * (5_000L + 20_000L));
+    }
+
+    private ImportacionInventarioResponse importar(String contenido, Formato formato, Long usuarioId) throws Exception {
+        return importacionService.importarEntradas(new StringReader(contenido), formato, usuarioId);
+    }
+
+    private static String csv(List<Long> productos, int lineas) {
+        StringBuilder csv = new StringBuilder("productoId,cantidad,observaciones\n");
+        for (int i = 0; i < lineas; i++) {
+            csv.append(productos.get(i % productos.size())).append(",1,Guía ").append(i / 100).append('\n');
+        }
+        return csv.toString();
+    }
+
+    private static String json(List<Long> productos, int lineas) {
+        StringBuilder json = new StringBuilder();
+        for (int i = 0; i < lineas; i++) {
+            json.append("{\"productoId\": ").append(productos.get(i % productos.size()))
+                    .append(", \"cantidad\": 1, \"observaciones\": \"Guía ").append(i / 100).append("\"}\n");
+        }
+        return json.toString();
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.acceso.service;
+
+import com.example.acceso.DatosPrueba;
+import com.example.acceso.dto.MovimientoInventarioResponse;
+import com.example.acceso.dto.PaginaMovimientos;
+import com.example.acceso.dto.RegistrarMovimientoRequest;
+import com.example.acceso.model.EnumInventario.MotivoMovimiento;
+import com.example.acceso.model.EnumInventario.TipoMovimiento;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Paginación por cursor (fecha, id) del kardex
+ */
+@SpringBootTest
+class MovimientoInventarioServiceTest {
+
+    private static final int MOVIMIENTOS_DEL_LOTE = 25;
+
+    @Autowired
+    private MovimientoInventarioService movimientoInventarioService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @ParameterizedTest(name = "páginas de {0}")
+    @ValueSource(ints = {1, 7, 25, 26, 200})
+    void paginasSobreMovimientosConLaMismaHoraNoSaltanNiRepitenFilas(int tamanio) {
+        DatosPrueba datos = new DatosPrueba(jdbc);
+        long producto = datos.producto(datos.marca(), datos.categoria(), new BigDecimal("80.00"), 100);
+        long usuario = jdbc.queryForObject("SELECT id FROM usuarios WHERE usuario = ?", Long.class, datos.usuario());
+
+        movimientoInventarioService.registrarMovimientos(List.of(movimiento(producto, TipoMovimiento.ENTRADA)), usuario);
+        // Una venta en lote: todas sus líneas se escriben con la misma hora
+        movimientoInventarioService.registrarMovimientos(
+                Collections.nCopies(MOVIMIENTOS_DEL_LOTE, movimiento(producto, TipoMovimiento.SALIDA)), usuario);
+        movimientoInventarioService.registrarMovimientos(List.of(movimiento(producto, TipoMovimiento.ENTRADA)), usuario);
+
+        List<Long> esperados = jdbc.queryForList("SELECT id FROM movimientos_inventario WHERE producto_id = ? "
+                + "ORDER BY fecha_movimiento DESC, id DESC", Long.class, producto);
+        assertThat(esperados).hasSize(MOVIMIENTOS_DEL_LOTE + 2);
+        assertThat(jdbc.queryForObject("SELECT MAX(n) FROM (SELECT COUNT(*) AS n FROM movimientos_inventario "
+                + "WHERE producto_id = ? GROUP BY fecha_movimiento) t", Integer.class, producto))
+                .isEqualTo(MOVIMIENTOS_DEL_LOTE);
+
+        List<Long> recorridos = new ArrayList<>();
+        LocalDateTime fecha = null;
+        Long id = null;
+        PaginaMovimientos pagina;
+        do {
+            pagina = movimientoInventarioService.obtenerKardex(producto, fecha, id, tamanio);
+            assertThat(pagina.getMovimientos()).hasSizeLessThanOrEqualTo(tamanio);
+            pagina.getMovimientos().stream().map(MovimientoInventarioResponse::getId).forEach(recorridos::add);
+            fecha = pagina.getSiguienteFecha();
+            id = pagina.getSiguienteId();
+        } while (pagina.isHayMas());
+
+        assertThat(recorridos).containsExactlyElementsOf(esperados);
+    }
+
+    private static RegistrarMovimientoRequest movimiento(long producto, TipoMovimiento tipo) {
+        return RegistrarMovimientoRequest.builder()
+                .productoId(producto)
+                .tipoMovimiento(tipo)
+                .cantidad(1)
+                .motivo(tipo == TipoMovimiento.ENTRADA ? MotivoMovimiento.COMPRA : MotivoMovimiento.VENTA)
+                .build();
+    }
+}
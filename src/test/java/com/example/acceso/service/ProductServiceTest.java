@@ -0,0 +1,70 @@
+package com.example.acceso.service;
+
+import com.example.acceso.DatosPrueba;
+import com.example.acceso.dto.DataTablesRequest;
+import com.example.acceso.dto.DataTablesResponse;
+import com.example.acceso.model.Product;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tabla de administración de productos
+ */
+@SpringBootTest
+class ProductServiceTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void paginaDeLaTablaCargaLasImagenesEnUnaConsulta() {
+        DatosPrueba datos = new DatosPrueba(jdbc);
+        long marca = datos.marca();
+        long categoria = datos.categoria();
+        for (int i = 0; i < 30; i++) {
+            long producto = datos.producto(marca, categoria, new BigDecimal("120.00"), 3);
+            for (int orden = 0; orden < 2; orden++) {
+                jdbc.update("INSERT INTO producto_imagenes (producto_id, url, orden) VALUES (?, ?, ?)",
+                        producto, "/uploads/productos/" + producto + "-" + orden + ".png", orden);
+            }
+        }
+
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+        estadisticas.setStatisticsEnabled(true);
+        DataTablesResponse<Product> pagina;
+        try {
+            pagina = productService.listarParaDataTables(DataTablesRequest.desde(Map.of(
+                    "draw", "1", "start", "0", "length", "100",
+                    "order[0][column]", "0", "columns[0][data]", "id", "order[0][dir]", "desc")));
+            // Conteo, página con marca y categoría, e imágenes de toda la página
+            assertThat(estadisticas.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+        } finally {
+            estadisticas.setStatisticsEnabled(false);
+        }
+
+        // Ya cargadas al salir de la transacción, en su orden
+        Product ultimo = pagina.getData().get(0);
+        assertThat(pagina.getData()).hasSizeGreaterThanOrEqualTo(30);
+        assertThat(ultimo.getImagenes()).containsExactly(
+                "/uploads/productos/" + ultimo.getId() + "-0.png", "/uploads/productos/" + ultimo.getId() + "-1.png");
+        assertThat(pagina.getData()).allSatisfy(p -> assertThat(Hibernate.isInitialized(p.getImagenes())).isTrue());
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.acceso.service;
+
+import com.example.acceso.DatosPrueba;
+import com.example.acceso.dto.CrearVentaRequest;
+import com.example.acceso.model.EnumVentas.FormaPago;
+import com.example.acceso.model.EnumVentas.TipoComprobante;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ventas por segundo de un solo cajero con 1, 10 y 100 líneas por venta (stock, venta, resumen y
+ * kardex en lote).
+ */
+@Slf4j
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class VentaBenchmarkTest {
+
+    private static final BigDecimal PRECIO = new BigDecimal("149.90");
+    private static final int CALENTAMIENTO = 20;
+    private static final int VENTAS = 100;
+
+    @Autowired
+    private VentaService ventaService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void ventasPorSegundoSegunLineas() {
+        DatosPrueba datos = new DatosPrueba(jdbc);
+        long marca = datos.marca();
+        long categoria = datos.categoria();
+        List<Long> productos = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            productos.add(datos.producto(marca, categoria, PRECIO, 1_000_000));
+        }
+        long cliente = datos.cliente();
+        String usuario = datos.usuario();
+
+        for (int lineas : List.of(1, 10, 100)) {
+            String serie = datos.serie(TipoComprobante.BOLETA);
+            CrearVentaRequest venta = venta(serie, cliente, productos.subList(0, lineas));
+            long kardexAntes = contarKardex(productos);
+
+            for (int i = 0; i < CALENTAMIENTO; i++) {
+                ventaService.crearVenta(venta, usuario);
+            }
+            long inicio = System.nanoTime();
+            for (int i = 0; i < VENTAS; i++) {
+                ventaService.crearVenta(venta, usuario);
+            }
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+
+            assertThat(contarKardex(productos) - kardexAntes).isEqualTo((long) (CALENTAMIENTO + VENTAS) * lineas);
+            log.info("📊 Ventas de {} líneas: {} ventas/s, {} líneas/s ({} ms por venta)", lineas,
+                    String.format("%.0f", VENTAS / segundos),
+                    String.format("%.0f", VENTAS * lineas / segundos),
+                    String.format("%.2f", segundos * 1000 / VENTAS));
+        }
+    }
+
+    private long contarKardex(List<Long> productos) {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM movimientos_inventario WHERE producto_id BETWEEN ? AND ?",
+                Long.class, productos.get(0), productos.get(productos.size() - 1));
+    }
+
+    private static CrearVentaRequest venta(String serie, long clienteId, List<Long> productos) {
+        List<CrearVentaRequest.DetalleVentaRequest> detalles = new ArrayList<>();
+        for (Long productoId : productos) {
+            CrearVentaRequest.DetalleVentaRequest detalle = new CrearVentaRequest.DetalleVentaRequest();
+            detalle.setProductoId(productoId);
+            detalle.setCantidad(1);
+            detalle.setPrecioUnitario(PRECIO);
+            detalles.add(detalle);
+        }
+
+        CrearVentaRequest request = new CrearVentaRequest();
+        request.setClienteId(clienteId);
+        request.setTipoComprobante(TipoComprobante.BOLETA);
+        request.setSerie(serie);
+        request.setFormaPago(FormaPago.CONTADO);
+        request.setDetalles(detalles);
+        return request;
+    }
+}
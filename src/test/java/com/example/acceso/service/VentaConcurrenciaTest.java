@@ -0,0 +1,120 @@
+package com.example.acceso.service;
+
+import com.example.acceso.DatosPrueba;
+import com.example.acceso.dto.CrearVentaRequest;
+import com.example.acceso.model.EnumVentas.FormaPago;
+import com.example.acceso.model.EnumVentas.TipoComprobante;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Varios cajeros registrando ventas a la vez sobre la misma serie con el pool por defecto
+ * (10 conexiones): ninguna venta debe quedarse sin conexión y la numeración debe quedar
+ * completa y sin repetidos.
+ */
+@Slf4j
+@SpringBootTest
+class VentaConcurrenciaTest {
+
+    private static final int PRODUCTOS = 8;
+
+    @Autowired
+    private VentaService ventaService;
+
+    @Autowired
+    private ComprobanteSecuenciaService comprobanteSecuenciaService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private DatosPrueba datos;
+    private List<Long> productos;
+    private long clienteId;
+    private String usuario;
+
+    @BeforeEach
+    void crearDatos() {
+        datos = new DatosPrueba(jdbc);
+        long marca = datos.marca();
+        long categoria = datos.categoria();
+        productos = new ArrayList<>();
+        for (int i = 0; i < PRODUCTOS; i++) {
+            productos.add(datos.producto(marca, categoria, new BigDecimal("199.90"), 10_000));
+        }
+        clienteId = datos.cliente();
+        usuario = datos.usuario();
+    }
+
+    @ParameterizedTest(name = "{0} cajeros")
+    @CsvSource({"1, 60", "8, 15", "64, 3"})
+    void cajerosConcurrentesNumeranSinHuecos(int cajeros, int ventasPorCajero) throws Exception {
+        String serie = datos.serie(TipoComprobante.BOLETA);
+        ExecutorService pool = Executors.newFixedThreadPool(cajeros);
+        List<Future<String>> numeros = new ArrayList<>();
+
+        long inicio = System.nanoTime();
+        for (int c = 0; c < cajeros; c++) {
+            long productoId = productos.get(c % PRODUCTOS);
+            for (int v = 0; v < ventasPorCajero; v++) {
+                numeros.add(pool.submit(() -> ventaService.crearVenta(venta(serie, productoId, 1), usuario).getNumero()));
+            }
+        }
+        List<Long> emitidos = new ArrayList<>();
+        for (Future<String> numero : numeros) {
+            emitidos.add(Long.parseLong(numero.get()));
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        pool.shutdown();
+
+        int total = cajeros * ventasPorCajero;
+        log.info("📊 {} cajeros: {} ventas en {} s ({} ventas/s)", cajeros, total,
+                String.format("%.2f", segundos), String.format("%.0f", total / segundos));
+
+        assertThat(emitidos).containsExactlyInAnyOrderElementsOf(LongStream.rangeClosed(1, total).boxed().toList());
+        assertThat(comprobanteSecuenciaService.metricas()).containsEntry("reservasPendientes", 0L);
+    }
+
+    @Test
+    void ventaFallidaDevuelveElNumeroALaSerie() {
+        String serie = datos.serie(TipoComprobante.BOLETA);
+        long productoId = productos.get(0);
+
+        assertThat(ventaService.crearVenta(venta(serie, productoId, 1), usuario).getNumero()).isEqualTo("00000001");
+        assertThatThrownBy(() -> ventaService.crearVenta(venta(serie, productoId, 1_000_000), usuario))
+                .isInstanceOf(RuntimeException.class);
+        assertThat(ventaService.crearVenta(venta(serie, productoId, 1), usuario).getNumero()).isEqualTo("00000002");
+        assertThat(comprobanteSecuenciaService.metricas()).containsEntry("reservasPendientes", 0L);
+    }
+
+    private CrearVentaRequest venta(String serie, long productoId, int cantidad) {
+        CrearVentaRequest.DetalleVentaRequest detalle = new CrearVentaRequest.DetalleVentaRequest();
+        detalle.setProductoId(productoId);
+        detalle.setCantidad(cantidad);
+        detalle.setPrecioUnitario(new BigDecimal("199.90"));
+
+        CrearVentaRequest request = new CrearVentaRequest();
+        request.setClienteId(clienteId);
+        request.setTipoComprobante(TipoComprobante.BOLETA);
+        request.setSerie(serie);
+        request.setFormaPago(FormaPago.CONTADO);
+        request.setDetalles(List.of(detalle));
+        return request;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.acceso.service;
+
+import com.example.acceso.DatosPrueba;
+import com.example.acceso.dto.CrearVentaRequest;
+import com.example.acceso.dto.ReporteVentasDTO;
+import com.example.acceso.model.EnumVentas.EstadoVenta;
+import com.example.acceso.model.EnumVentas.FormaPago;
+import com.example.acceso.model.EnumVentas.TipoComprobante;
+import com.example.acceso.repository.RepositorioVentas.VentaRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Las cifras calculadas desde el resumen diario deben coincidir con las que se obtenían
+ * sumando directamente la tabla de ventas.
+ */
+@SpringBootTest
+class VentaResumenServiceTest {
+
+    @Autowired
+    private VentaService ventaService;
+
+    @Autowired
+    private VentaResumenService ventaResumenService;
+
+    @Autowired
+    private VentaRepository ventaRepository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void dashboardYReporteCoincidenConLaTablaDeVentas() {
+        DatosPrueba datos = new DatosPrueba(jdbc);
+        long producto = datos.producto(datos.marca(), datos.categoria(), new BigDecimal("100.00"), 100);
+        long cliente = datos.cliente();
+        String usuario = datos.usuario();
+        String serie = datos.serie(TipoComprobante.BOLETA);
+
+        LocalDateTime ahora = LocalDateTime.now();
+        // Dentro y fuera de la ventana móvil de 7 días, el mismo día calendario de hace una semana
+        Long dentroSemana = crearVenta(serie, producto, cliente, usuario, 1);
+        Long fueraSemana = crearVenta(serie, producto, cliente, usuario, 2);
+        Long anulada = crearVenta(serie, producto, cliente, usuario, 3);
+        crearVenta(serie, producto, cliente, usuario, 4);
+        ventaService.anularVenta(anulada, usuario);
+        fechar(dentroSemana, ahora.minusDays(7).plusMinutes(30));
+        fechar(fueraSemana, ahora.minusDays(7).minusMinutes(30));
+        ventaResumenService.reconstruirResumen();
+
+        Map<String, Object> estadisticas = ventaService.obtenerEstadisticasDashboard();
+        LocalDateTime fin = LocalDateTime.now();
+        assertThat((BigDecimal) estadisticas.get("ventasSemana")).isEqualByComparingTo(
+                ventaRepository.sumTotalByFechaCreacionBetweenAndEstadoNot(fin.minusDays(7), fin, EstadoVenta.ANULADA));
+        assertThat((BigDecimal) estadisticas.get("ventasMes")).isEqualByComparingTo(
+                ventaRepository.sumTotalByFechaCreacionBetweenAndEstadoNot(fin.minusDays(30), fin, EstadoVenta.ANULADA));
+
+        LocalDateTime inicioReporte = ahora.minusDays(10).withHour(15);
+        ReporteVentasDTO reporte = ventaService.generarReporteVentas(inicioReporte, fin);
+        assertThat(reporte.getMontoTotalVentas()).isEqualByComparingTo(
+                ventaRepository.sumTotalByFechaCreacionBetween(inicioReporte, fin));
+    }
+
+    @Test
+    void dosInstanciasArrancandoSobreElResumenVacioLoCarganUnaSolaVez() throws Exception {
+        DatosPrueba datos = new DatosPrueba(jdbc);
+        long producto = datos.producto(datos.marca(), datos.categoria(), new BigDecimal("100.00"), 100);
+        crearVenta(datos.serie(TipoComprobante.BOLETA), producto, datos.cliente(), datos.usuario(), 1);
+        jdbc.update("DELETE FROM ventas_resumen_diario");
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        List<Future<?>> arranques = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            arranques.add(pool.submit(ventaResumenService::inicializarResumen));
+        }
+        for (Future<?> arranque : arranques) {
+            arranque.get(); // Sin choque con la restricción única
+        }
+        pool.shutdown();
+
+        assertThat(jdbc.queryForObject("SELECT SUM(cantidad) FROM ventas_resumen_diario", Long.class))
+                .isEqualTo(jdbc.queryForObject("SELECT COUNT(*) FROM ventas", Long.class));
+    }
+
+    private Long crearVenta(String serie, long productoId, long clienteId, String usuario, int cantidad) {
+        CrearVentaRequest.DetalleVentaRequest detalle = new CrearVentaRequest.DetalleVentaRequest();
+        detalle.setProductoId(productoId);
+        detalle.setCantidad(cantidad);
+        detalle.setPrecioUnitario(new BigDecimal("100.00"));
+
+        CrearVentaRequest request = new CrearVentaRequest();
+        request.setClienteId(clienteId);
+        request.setTipoComprobante(TipoComprobante.BOLETA);
+        request.setSerie(serie);
+        request.setFormaPago(FormaPago.CONTADO);
+        request.setDetalles(List.of(detalle));
+        return ventaService.crearVenta(request, usuario).getId();
+    }
+
+    private void fechar(Long ventaId, LocalDateTime fecha) {
+        jdbc.update("UPDATE ventas SET fecha_creacion = ? WHERE id = ?", fecha, ventaId);
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.acceso.service.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Almacén por contenido en disco: el número de enlaces del contenido es su contador de referencias y
+ * la recolección respeta el periodo de gracia.
+ */
+class LocalStorageBackendTest {
+
+    private static final byte[] CONTENIDO = "imagen de prueba".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path raiz;
+
+    private LocalStorageBackend almacen;
+    private Path objeto;
+
+    @BeforeEach
+    void crearAlmacen() throws Exception {
+        almacen = new LocalStorageBackend(raiz.toString());
+        assumeTrue(almacen.nombre().equals("local (por contenido)"), "Sistema de archivos sin enlaces duros");
+        String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(CONTENIDO));
+        objeto = raiz.resolve(".objetos").resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    @Test
+    void mismoContenidoEnVariasClavesSeGuardaUnaVez() throws IOException {
+        almacen.guardar("productos/a.png", CONTENIDO);
+        almacen.guardar("marcas/b.png", CONTENIDO);
+
+        assertThat(enlaces(objeto)).isEqualTo(3); // Dos claves más el propio contenido
+        assertThat(Files.isSameFile(raiz.resolve("productos/a.png"), raiz.resolve("marcas/b.png"))).isTrue();
+        assertThat(raiz.resolve(".objetos/tmp")).isEmptyDirectory();
+        try (InputStream tramo = almacen.leer("marcas/b.png", 7, 8)) {
+            assertThat(tramo.readAllBytes()).asString(StandardCharsets.UTF_8).isEqualTo("de");
+        }
+    }
+
+    @Test
+    void recolectarLiberaElContenidoCuandoNoQuedanClaves() throws IOException {
+        almacen.guardar("productos/a.png", CONTENIDO);
+        almacen.guardar("marcas/b.png", CONTENIDO);
+        envejecer(objeto);
+
+        assertThat(almacen.eliminar("productos/a.png")).isTrue();
+        assertThat(almacen.recolectar()).isZero(); // Aún lo usa marcas/b.png
+        assertThat(enlaces(objeto)).isEqualTo(2);
+
+        assertThat(almacen.eliminar("marcas/b.png")).isTrue();
+        assertThat(almacen.eliminar("marcas/b.png")).isFalse();
+        assertThat(almacen.recolectar()).isEqualTo(1);
+        assertThat(objeto).doesNotExist();
+    }
+
+    @Test
+    void recolectarRespetaElPeriodoDeGracia() throws IOException {
+        almacen.guardar("productos/a.png", CONTENIDO);
+        almacen.eliminar("productos/a.png");
+
+        // Sin referencias pero recién escrito: una escritura en curso podría estar por enlazarlo
+        assertThat(almacen.recolectar()).isZero();
+        assertThat(objeto).exists();
+
+        envejecer(objeto);
+        assertThat(almacen.recolectar()).isEqualTo(1);
+        assertThat(objeto).doesNotExist();
+    }
+
+    @Test
+    void reutilizarUnContenidoRenuevaSuGracia() throws IOException {
+        almacen.guardar("productos/a.png", CONTENIDO);
+        almacen.eliminar("productos/a.png");
+        envejecer(objeto);
+
+        // Otra subida del mismo contenido antes de la recolección
+        almacen.guardar("productos/c.png", CONTENIDO);
+        almacen.eliminar("productos/c.png");
+
+        assertThat(almacen.recolectar()).isZero();
+        assertThat(objeto).exists();
+    }
+
+    @Test
+    void recolectarBorraTemporalesAbandonadosSinContarlos() throws IOException {
+        Path reciente = almacen.crearTemporal();
+        Path abandonado = almacen.crearTemporal();
+        envejecer(abandonado);
+
+        assertThat(almacen.recolectar()).isZero();
+        assertThat(reciente).exists();
+        assertThat(abandonado).doesNotExist();
+    }
+
+    private static int enlaces(Path archivo) throws IOException {
+        return (Integer) Files.getAttribute(archivo, "unix:nlink");
+    }
+
+    /** Más antiguo que el periodo de gracia de la recolección (10 minutos) */
+    private static void envejecer(Path archivo) throws IOException {
+        Files.setLastModifiedTime(archivo, FileTime.fromMillis(System.currentTimeMillis() - Duration.ofMinutes(11).toMillis()));
+    }
+}